@@ -1,12 +1,14 @@
 -- Database Schema for Dorm Room Layout Designer
--- This file is for reference - JPA will auto-generate tables
+-- This file is for reference - the schema is created by the Flyway migrations in
+-- src/main/resources/db/migration (one folder per database vendor)
 
 -- Rooms Table
 CREATE TABLE rooms (
     room_id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     length DOUBLE NOT NULL,
-    width DOUBLE NOT NULL
+    width DOUBLE NOT NULL,
+    layout_version BIGINT NOT NULL DEFAULT 0  -- bumped on every layout change, served as the ETag
 );
 
 -- Objects (Furniture) Table
@@ -15,12 +17,18 @@ CREATE TABLE objects (
     name VARCHAR(255) NOT NULL,
     width DOUBLE NOT NULL,
     height DOUBLE NOT NULL,
-    color VARCHAR(7)  -- Hex color code
+    color VARCHAR(7),  -- Hex color code
+    deleted_at TIMESTAMP  -- tombstone: set on delete, row removed once its placements are swept
 );
 
+-- Placement ids come from a pooled sequence (allocation size 50) so that
+-- Hibernate can batch inserts. On MySQL, Hibernate emulates the sequence
+-- with a single-row placement_seq table.
+CREATE SEQUENCE placement_seq START WITH 1 INCREMENT BY 50;
+
 -- Placements Table
 CREATE TABLE placements (
-    placement_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    placement_id BIGINT PRIMARY KEY,
     room_id BIGINT NOT NULL,
     object_id BIGINT NOT NULL,
     x DOUBLE NOT NULL,
@@ -29,6 +37,83 @@ CREATE TABLE placements (
     FOREIGN KEY (room_id) REFERENCES rooms(room_id) ON DELETE CASCADE,
     FOREIGN KEY (object_id) REFERENCES objects(object_id) ON DELETE CASCADE
 );
+-- Placements of a room in id order (room load, room delete); object_id backs catalog deletes
+CREATE INDEX idx_placements_room_placement ON placements (room_id, placement_id);
+CREATE INDEX idx_placements_object ON placements (object_id);
+
+-- Jobs Table (long-running operations; survives restarts so queued work is resumed)
+CREATE TABLE jobs (
+    job_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(64) NOT NULL,
+    status VARCHAR(16) NOT NULL,  -- QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    progress INT NOT NULL DEFAULT 0,
+    message VARCHAR(255),
+    payload CLOB,  -- JSON
+    result CLOB,   -- JSON
+    error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    owner VARCHAR(64),            -- instance running the job
+    heartbeat_at TIMESTAMP        -- refreshed by the owner while RUNNING
+);
+CREATE INDEX idx_jobs_status ON jobs (status, job_id);
+
+-- Layout history: append-only placement change log (positions before and after)
+CREATE SEQUENCE placement_change_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE placement_changes (
+    change_id BIGINT PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,          -- room layout version produced by the change
+    change_type VARCHAR(16) NOT NULL, -- CREATED, MOVED, DELETED
+    placement_id BIGINT NOT NULL,
+    object_id BIGINT NOT NULL,
+    x DOUBLE,                         -- after (null for deletes)
+    y DOUBLE,
+    rotation DOUBLE,
+    previous_x DOUBLE,                -- before (null for creates)
+    previous_y DOUBLE,
+    previous_rotation DOUBLE,
+    undo_of BIGINT,                   -- version reverted, for changes made by an undo
+    changed_at TIMESTAMP NOT NULL
+);
+CREATE INDEX idx_placement_changes_room_version ON placement_changes (room_id, version);
+
+-- Periodic snapshots of a room's placements (binary layout format)
+CREATE TABLE room_snapshots (
+    snapshot_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    placement_count INT NOT NULL,
+    data BLOB NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+CREATE INDEX idx_room_snapshots_room_version ON room_snapshots (room_id, version);
+
+-- Counters adjusted by every placement write in the same transaction
+CREATE TABLE room_stats (
+    room_id BIGINT PRIMARY KEY,
+    item_count BIGINT NOT NULL,
+    occupied_area DOUBLE NOT NULL    -- sum of width * height over the room's placements
+);
+
+CREATE TABLE object_usage (
+    object_id BIGINT PRIMARY KEY,
+    placement_count BIGINT NOT NULL
+);
+
+-- One row, stamped on the primary; its age on a read replica is the replication lag
+CREATE TABLE replica_heartbeat (
+    id INT PRIMARY KEY,
+    beat_at BIGINT NOT NULL          -- epoch milliseconds
+);
+
+-- Sharding only, on the home shard: rooms moved off the shard their id was issued on
+CREATE TABLE room_shard_moves (
+    room_id BIGINT PRIMARY KEY,
+    shard INT NOT NULL
+);
 
 -- Sample Data Inserts
 
@@ -50,11 +135,11 @@ INSERT INTO rooms (name, length, width) VALUES
 ('Sample Dorm Room', 15.0, 12.0);
 
 -- Insert sample placements (assuming room_id=1)
-INSERT INTO placements (room_id, object_id, x, y, rotation) VALUES
-(1, 1, 1.0, 1.0, 0),    -- Twin Bed at (1, 1)
-(1, 2, 8.0, 1.0, 0),    -- Desk at (8, 1)
-(1, 3, 8.0, 3.5, 0),    -- Chair at (8, 3.5)
-(1, 4, 1.0, 8.0, 0);    -- Dresser at (1, 8)
+INSERT INTO placements (placement_id, room_id, object_id, x, y, rotation) VALUES
+(NEXT VALUE FOR placement_seq, 1, 1, 1.0, 1.0, 0),    -- Twin Bed at (1, 1)
+(NEXT VALUE FOR placement_seq, 1, 2, 8.0, 1.0, 0),    -- Desk at (8, 1)
+(NEXT VALUE FOR placement_seq, 1, 3, 8.0, 3.5, 0),    -- Chair at (8, 3.5)
+(NEXT VALUE FOR placement_seq, 1, 4, 1.0, 8.0, 0);    -- Dresser at (1, 8)
 
 -- Useful Queries
 
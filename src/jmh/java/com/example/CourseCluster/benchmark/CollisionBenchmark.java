@@ -0,0 +1,104 @@
+package com.example.CourseCluster.benchmark;
+
+import com.example.CourseCluster.layout.OrientedBox;
+import com.example.CourseCluster.layout.RoomSpatialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Collision and bounds checks against a room already holding n placements
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollisionBenchmark {
+    
+    private static final double OBJECT_WIDTH = 2.0;
+    private static final double OBJECT_HEIGHT = 1.5;
+    private static final int CANDIDATES = 1024;
+    
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int placements;
+    
+    private GridLayout grid;
+    private double[] rotations;
+    private RoomSpatialIndex index;
+    private double[] candidateX;
+    private double[] candidateY;
+    private double[] candidateRotation;
+    private long[] conflicts;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        grid = new GridLayout(placements);
+        index = new RoomSpatialIndex(grid.roomLength(), grid.roomWidth(), 4.0);
+        SplittableRandom random = new SplittableRandom(42);
+        rotations = new double[placements];
+        for (int i = 0; i < placements; i++) {
+            rotations[i] = random.nextInt(4) * 90.0;
+            index.put(i + 1, grid.x(i), grid.y(i), OBJECT_WIDTH, OBJECT_HEIGHT, rotations[i]);
+        }
+        
+        // Uniformly random drops: some hit a neighbour, some land in free space
+        candidateX = new double[CANDIDATES];
+        candidateY = new double[CANDIDATES];
+        candidateRotation = new double[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidateX[i] = random.nextDouble(grid.roomLength() - OBJECT_WIDTH);
+            candidateY[i] = random.nextDouble(grid.roomWidth() - OBJECT_HEIGHT);
+            candidateRotation[i] = random.nextDouble(360.0);
+        }
+        conflicts = new long[64];
+    }
+    
+    private int nextCandidate() {
+        next = (next + 1) & (CANDIDATES - 1);
+        return next;
+    }
+    
+    @Benchmark
+    public boolean fitsInRoom() {
+        int i = nextCandidate();
+        return index.fitsInRoom(candidateX[i], candidateY[i], OBJECT_WIDTH, OBJECT_HEIGHT, candidateRotation[i]);
+    }
+    
+    @Benchmark
+    public long findOverlap() {
+        int i = nextCandidate();
+        return index.findOverlap(candidateX[i], candidateY[i], OBJECT_WIDTH, OBJECT_HEIGHT, candidateRotation[i], -1);
+    }
+    
+    @Benchmark
+    public int findOverlaps() {
+        int i = nextCandidate();
+        return index.findOverlaps(candidateX[i], candidateY[i], OBJECT_WIDTH, OBJECT_HEIGHT, candidateRotation[i],
+                -1, conflicts);
+    }
+    
+    // Moves one placement to a random spot and back, the index work behind an update
+    @Benchmark
+    public int move() {
+        int i = nextCandidate();
+        int p = i % placements;
+        index.put(p + 1, candidateX[i], candidateY[i], OBJECT_WIDTH, OBJECT_HEIGHT, candidateRotation[i]);
+        index.put(p + 1, grid.x(p), grid.y(p), OBJECT_WIDTH, OBJECT_HEIGHT, rotations[p]);
+        return index.size();
+    }
+    
+    // A single rotated pair test with no index lookup, as a floor for the numbers above
+    @Benchmark
+    public boolean orientedBoxOverlap() {
+        int i = nextCandidate();
+        double rad = Math.toRadians(candidateRotation[i]);
+        return OrientedBox.overlaps(candidateX[i], candidateY[i], 1.0, 0.75, Math.cos(rad), Math.sin(rad),
+                candidateX[(i + 1) & (CANDIDATES - 1)], candidateY[i], 1.0, 0.75, 1.0, 0.0);
+    }
+}
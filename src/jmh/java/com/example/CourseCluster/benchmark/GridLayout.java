@@ -0,0 +1,39 @@
+package com.example.CourseCluster.benchmark;
+
+// Lays out n footprints on a square grid of 4' cells so benchmark rooms never
+// start with overlaps. One extra column is left empty for creates and moves.
+final class GridLayout {
+    
+    static final double CELL = 4.0;
+    
+    private final int side;
+    
+    GridLayout(int placements) {
+        this.side = Math.max(1, (int) Math.ceil(Math.sqrt(placements)));
+    }
+    
+    double roomLength() {
+        return (side + 1) * CELL;
+    }
+    
+    double roomWidth() {
+        return side * CELL;
+    }
+    
+    double x(int i) {
+        return (i % side) * CELL + 1.0;
+    }
+    
+    double y(int i) {
+        return (i / side) * CELL + 1.0;
+    }
+    
+    // Slots in the empty last column
+    double freeX() {
+        return side * CELL + 1.0;
+    }
+    
+    double freeY(int i) {
+        return (i % side) * CELL + 1.0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.CourseCluster.benchmark;
+
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Placement;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Entity -> PlacementResponse mapping for a whole room, as done by the write
+// paths, next to the projection constructor used by the read queries
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlacementMappingBenchmark {
+    
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int placements;
+    
+    private List<Placement> entities;
+    private Object[][] rows;
+    
+    @Setup
+    public void setUp() {
+        GridLayout grid = new GridLayout(placements);
+        Room room = new Room("Benchmark Room", grid.roomLength(), grid.roomWidth());
+        room.setRoomId(1L);
+        RoomObject[] catalog = {
+                new RoomObject("Desk", 4.0, 2.0, "#D2691E"),
+                new RoomObject("Chair", 1.5, 1.5, "#A0522D"),
+                new RoomObject("Bookshelf", 2.5, 1.0, "#DEB887")
+        };
+        for (int i = 0; i < catalog.length; i++) {
+            catalog[i].setObjectId(i + 1L);
+        }
+        
+        entities = new ArrayList<>(placements);
+        rows = new Object[placements][];
+        for (int i = 0; i < placements; i++) {
+            RoomObject roomObject = catalog[i % catalog.length];
+            Placement placement = new Placement(room, roomObject, grid.x(i), grid.y(i));
+            placement.setPlacementId(i + 1L);
+            entities.add(placement);
+            rows[i] = new Object[] {
+                    placement.getPlacementId(), room.getRoomId(), roomObject.getObjectId(), roomObject.getName(),
+                    roomObject.getWidth(), roomObject.getHeight(), roomObject.getColor(),
+                    placement.getX(), placement.getY(), placement.getRotation()
+            };
+        }
+    }
+    
+    @Benchmark
+    public List<PlacementResponse> fromEntities() {
+        return entities.stream()
+                .map(PlacementResponse::new)
+                .toList();
+    }
+    
+    @Benchmark
+    public List<PlacementResponse> fromProjectionRows() {
+        List<PlacementResponse> responses = new ArrayList<>(rows.length);
+        for (Object[] row : rows) {
+            responses.add(new PlacementResponse((Long) row[0], (Long) row[1], (Long) row[2], (String) row[3],
+                    (Double) row[4], (Double) row[5], (String) row[6],
+                    (Double) row[7], (Double) row[8], (Double) row[9]));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.CourseCluster.benchmark;
+
+import com.example.CourseCluster.CourseClusterApplication;
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.repository.RoomObjectRepository;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// PlacementService create/update against the in-memory H2 database, with the
+// target room already holding n placements
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlacementServiceBenchmark {
+    
+    private static final int PREFILL_BATCH = 5000;
+    
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int placements;
+    
+    private ConfigurableApplicationContext context;
+    private PlacementService placementService;
+    private GridLayout grid;
+    private Long roomId;
+    private Long objectId;
+    private long[] placementIds;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CourseClusterApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        placementService = context.getBean(PlacementService.class);
+        
+        grid = new GridLayout(placements);
+        Room room = context.getBean(RoomService.class)
+                .createRoom(new Room("Benchmark Room", grid.roomLength(), grid.roomWidth()));
+        roomId = room.getRoomId();
+        objectId = context.getBean(RoomObjectRepository.class).findAll().stream()
+                .filter(roomObject -> "Chair".equals(roomObject.getName()))
+                .map(RoomObject::getObjectId)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Sample furniture was not initialized"));
+        
+        placementIds = new long[placements];
+        for (int start = 0; start < placements; start += PREFILL_BATCH) {
+            int end = Math.min(placements, start + PREFILL_BATCH);
+            List<PlacementRequest> batch = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                batch.add(new PlacementRequest(roomId, objectId, grid.x(i), grid.y(i), 0.0));
+            }
+            List<PlacementResponse> created = placementService.createPlacements(batch, null);
+            for (int i = 0; i < created.size(); i++) {
+                placementIds[start + i] = created.get(i).getPlacementId();
+            }
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    private int nextSlot() {
+        int slot = next;
+        next = (next + 1) % placements;
+        return slot;
+    }
+    
+    // Drops a new chair into the empty column and removes it again so the room
+    // stays at n placements across iterations
+    @Benchmark
+    public PlacementResponse createThenDelete() {
+        int slot = nextSlot();
+        PlacementResponse created = placementService.createPlacement(
+                new PlacementRequest(roomId, objectId, grid.freeX(), grid.freeY(slot), 0.0), null);
+        placementService.deletePlacement(created.getPlacementId(), null);
+        return created;
+    }
+    
+    // Moves one placement into the empty column and back; reported per update
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public PlacementResponse update() {
+        int i = nextSlot();
+        long id = placementIds[i];
+        placementService.updatePlacement(id,
+                new PlacementRequest(roomId, objectId, grid.freeX(), grid.freeY(i), 0.0), null);
+        return placementService.updatePlacement(id,
+                new PlacementRequest(roomId, objectId, grid.x(i), grid.y(i), 0.0), null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.CourseCluster.benchmark;
+
+import com.example.CourseCluster.dto.PlacementLayoutCodec;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of the payloads a room view pulls: the room itself and
+// GET /api/placements/room/{roomId}. Uses the same builder defaults as Spring MVC.
+// The placement list is also encoded and parsed in the binary layout format;
+// JSON is parsed into a tree, as a client without the DTO classes would.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoomPayloadSerializationBenchmark {
+    
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int placements;
+    
+    private Room room;
+    private List<PlacementResponse> payload;
+    private ObjectWriter roomWriter;
+    private ObjectWriter listWriter;
+    private ObjectReader treeReader;
+    private byte[] json;
+    private byte[] binary;
+    
+    @Setup
+    public void setUp() {
+        GridLayout grid = new GridLayout(placements);
+        room = new Room("Benchmark Room", grid.roomLength(), grid.roomWidth());
+        room.setRoomId(1L);
+        
+        payload = new ArrayList<>(placements);
+        for (int i = 0; i < placements; i++) {
+            payload.add(new PlacementResponse(i + 1L, 1L, (i % 10) + 1L, "Desk", 4.0, 2.0, "#D2691E",
+                    grid.x(i), grid.y(i), (i % 4) * 90.0));
+        }
+        
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        roomWriter = objectMapper.writerFor(Room.class);
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, PlacementResponse.class));
+        treeReader = objectMapper.readerFor(JsonNode.class);
+        try {
+            json = listWriter.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        binary = PlacementLayoutCodec.encode(1L, 1L, payload);
+    }
+    
+    @Benchmark
+    public byte[] writeRoom() throws IOException {
+        return roomWriter.writeValueAsBytes(room);
+    }
+    
+    @Benchmark
+    public byte[] writePlacements() throws IOException {
+        return listWriter.writeValueAsBytes(payload);
+    }
+    
+    @Benchmark
+    public byte[] writePlacementsBinary() {
+        return PlacementLayoutCodec.encode(1L, 1L, payload);
+    }
+    
+    @Benchmark
+    public JsonNode readPlacementsJson() throws IOException {
+        return treeReader.readValue(json);
+    }
+    
+    @Benchmark
+    public List<PlacementResponse> readPlacementsBinary() {
+        return PlacementLayoutCodec.decode(binary);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.CourseCluster.benchmark;
+
+import com.example.CourseCluster.CourseClusterApplication;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.repository.RoomObjectRepository;
+import com.example.CourseCluster.service.RoomService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Load comparison between Tomcat's platform-thread pool and the "virtual" profile.
+// Each JMH thread is a slow client: it sends half of a POST /api/placements/validate
+// body, stalls for clientDelayMs, then sends the rest. The request thread is blocked
+// reading the body the whole time, so with more clients than Tomcat workers (200)
+// the platform pool saturates while virtual threads keep accepting work.
+// Compare ops/s between the two values of virtualThreads in results.json.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(400)
+public class SlowClientThroughputBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+    
+    @Param({"0", "50"})
+    public long clientDelayMs;
+    
+    private ConfigurableApplicationContext context;
+    private int port;
+    private byte[] head;
+    private byte[] body;
+    
+    @Setup
+    public void setUp() {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(CourseClusterApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:slow-clients",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "logging.level.root=WARN");
+        if (virtualThreads) {
+            builder.profiles("virtual");
+        }
+        context = builder.run();
+        port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        
+        Room room = context.getBean(RoomService.class).createRoom(new Room("Load Test Room", 20.0, 20.0));
+        Long objectId = context.getBean(RoomObjectRepository.class).findAll().stream()
+                .map(RoomObject::getObjectId)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Sample furniture was not initialized"));
+        
+        body = ("{\"roomId\":" + room.getRoomId() + ",\"objectId\":" + objectId
+                + ",\"x\":1.0,\"y\":1.0,\"rotation\":0.0}").getBytes(StandardCharsets.UTF_8);
+        head = ("POST /api/placements/validate HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public int slowClient() throws IOException, InterruptedException {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            int half = body.length / 2;
+            out.write(head);
+            out.write(body, 0, half);
+            out.flush();
+            if (clientDelayMs > 0) {
+                Thread.sleep(clientDelayMs);
+            }
+            out.write(body, half, body.length - half);
+            out.flush();
+            
+            InputStream in = socket.getInputStream();
+            byte[] response = in.readAllBytes();
+            // "HTTP/1.1 200 ..." -> 200
+            if (response.length < 12) {
+                throw new IOException("Truncated response");
+            }
+            return Integer.parseInt(new String(response, 9, 3, StandardCharsets.US_ASCII));
+        }
+    }
+}
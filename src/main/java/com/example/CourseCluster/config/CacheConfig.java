@@ -0,0 +1,10 @@
+package com.example.CourseCluster.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Caches are defined in application.properties (spring.cache.*)
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
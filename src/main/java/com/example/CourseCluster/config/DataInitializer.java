@@ -2,6 +2,7 @@ package com.example.CourseCluster.config;
 
 import com.example.CourseCluster.entity.RoomObject;
 import com.example.CourseCluster.repository.RoomObjectRepository;
+import com.example.CourseCluster.service.RoomObjectService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -12,20 +13,23 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private RoomObjectRepository roomObjectRepository;
     
+    @Autowired
+    private RoomObjectService roomObjectService;
+    
     @Override
     public void run(String... args) throws Exception {
         // Initialize common dorm room furniture with realistic dimensions (in feet)
         if (roomObjectRepository.count() == 0) {
-            roomObjectRepository.save(new RoomObject("Twin Bed", 3.0, 6.5, "#8B4513"));
-            roomObjectRepository.save(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
-            roomObjectRepository.save(new RoomObject("Chair", 1.5, 1.5, "#A0522D"));
-            roomObjectRepository.save(new RoomObject("Dresser", 3.0, 1.5, "#CD853F"));
-            roomObjectRepository.save(new RoomObject("Bookshelf", 2.5, 1.0, "#DEB887"));
-            roomObjectRepository.save(new RoomObject("Nightstand", 1.5, 1.5, "#F4A460"));
-            roomObjectRepository.save(new RoomObject("Mini Fridge", 2.0, 2.0, "#C0C0C0"));
-            roomObjectRepository.save(new RoomObject("Wardrobe", 3.0, 2.0, "#8B7355"));
-            roomObjectRepository.save(new RoomObject("Bean Bag Chair", 2.5, 2.5, "#FF6347"));
-            roomObjectRepository.save(new RoomObject("Small Table", 2.0, 2.0, "#DAA520"));
+            roomObjectService.createObject(new RoomObject("Twin Bed", 3.0, 6.5, "#8B4513"));
+            roomObjectService.createObject(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
+            roomObjectService.createObject(new RoomObject("Chair", 1.5, 1.5, "#A0522D"));
+            roomObjectService.createObject(new RoomObject("Dresser", 3.0, 1.5, "#CD853F"));
+            roomObjectService.createObject(new RoomObject("Bookshelf", 2.5, 1.0, "#DEB887"));
+            roomObjectService.createObject(new RoomObject("Nightstand", 1.5, 1.5, "#F4A460"));
+            roomObjectService.createObject(new RoomObject("Mini Fridge", 2.0, 2.0, "#C0C0C0"));
+            roomObjectService.createObject(new RoomObject("Wardrobe", 3.0, 2.0, "#8B7355"));
+            roomObjectService.createObject(new RoomObject("Bean Bag Chair", 2.5, 2.5, "#FF6347"));
+            roomObjectService.createObject(new RoomObject("Small Table", 2.0, 2.0, "#DAA520"));
             
             System.out.println("Sample furniture objects initialized!");
         }
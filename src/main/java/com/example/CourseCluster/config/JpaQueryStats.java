@@ -0,0 +1,62 @@
+package com.example.CourseCluster.config;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Counts SQL statements and entity loads for the current web request.
+// Hibernate calls both hooks on the request thread, so a ThreadLocal is enough;
+// outside a request (scheduled flushes, startup) nothing is recorded.
+public class JpaQueryStats implements StatementInspector, Interceptor {
+    
+    private static final ThreadLocal<Counters> CURRENT = new ThreadLocal<>();
+    
+    static final class Counters {
+        int statements;
+        int entitiesLoaded;
+        // Identical select text run over and over in one request is the N+1 signature
+        final Map<String, Integer> selects = new HashMap<>();
+        
+        int mostRepeatedSelect() {
+            int max = 0;
+            for (int count : selects.values()) {
+                max = Math.max(max, count);
+            }
+            return max;
+        }
+    }
+    
+    static void begin() {
+        CURRENT.set(new Counters());
+    }
+    
+    static Counters end() {
+        Counters counters = CURRENT.get();
+        CURRENT.remove();
+        return counters;
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        Counters counters = CURRENT.get();
+        if (counters != null) {
+            counters.statements++;
+            if (sql.regionMatches(true, 0, "select", 0, 6)) {
+                counters.selects.merge(sql, 1, Integer::sum);
+            }
+        }
+        return sql;
+    }
+    
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        Counters counters = CURRENT.get();
+        if (counters != null) {
+            counters.entitiesLoaded++;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.CourseCluster.config;
+
+import com.example.CourseCluster.service.LiveRoomService;
+import com.example.CourseCluster.service.SpatialIndexService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Endpoint timers (http.server.requests), repository timers (spring.data.repository.invocations),
+// Hibernate statistics, Caffeine cache and Hikari pool metrics are auto-configured by Actuator;
+// see the management.* settings in application.properties. This adds the per-request
+// query counters and gauges for the in-memory room state.
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    
+    @Autowired
+    private QueryMetricsInterceptor queryMetricsInterceptor;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryMetricsInterceptor).addPathPatterns("/api/**");
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer queryStatsCustomizer() {
+        JpaQueryStats queryStats = new JpaQueryStats();
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryStats);
+            properties.put(AvailableSettings.INTERCEPTOR, queryStats);
+        };
+    }
+    
+    @Bean
+    public MeterBinder roomStateMetrics(SpatialIndexService spatialIndexService, LiveRoomService liveRoomService) {
+        return registry -> {
+            Gauge.builder("coursecluster.spatial.indexes", spatialIndexService, SpatialIndexService::indexedRoomCount)
+                    .description("Rooms with a spatial index in memory")
+                    .register(registry);
+            Gauge.builder("coursecluster.live_rooms", liveRoomService, LiveRoomService::liveRoomCount)
+                    .description("Rooms open in live mode")
+                    .register(registry);
+            Gauge.builder("coursecluster.live_rooms.dirty", liveRoomService, LiveRoomService::dirtyPlacementCount)
+                    .description("Live placement moves waiting to be written back")
+                    .register(registry);
+        };
+    }
+}
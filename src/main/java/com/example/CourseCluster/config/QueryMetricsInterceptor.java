@@ -0,0 +1,76 @@
+package com.example.CourseCluster.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Records per-request SQL statement and entity-load counts, tagged like
+// http.server.requests, and flags requests that look like N+1 selects
+@Component
+public class QueryMetricsInterceptor implements AsyncHandlerInterceptor {
+    
+    private static final Logger log = LoggerFactory.getLogger(QueryMetricsInterceptor.class);
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${coursecluster.metrics.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        JpaQueryStats.begin();
+        return true;
+    }
+    
+    // Streaming and SSE responses finish on another thread; drop the counters here
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        JpaQueryStats.end();
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        JpaQueryStats.Counters counters = JpaQueryStats.end();
+        if (counters == null) {
+            return;
+        }
+        
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+        
+        DistributionSummary.builder("coursecluster.jpa.statements")
+                .description("SQL statements executed per request")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(counters.statements);
+        DistributionSummary.builder("coursecluster.jpa.entities.loaded")
+                .description("Entities hydrated by Hibernate per request")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(counters.entitiesLoaded);
+        
+        int repeated = counters.mostRepeatedSelect();
+        if (repeated >= nPlusOneThreshold) {
+            Counter.builder("coursecluster.jpa.n_plus_one")
+                    .description("Requests that ran the same select at least n-plus-one-threshold times")
+                    .tags("uri", uri, "method", method)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("Possible N+1 on {} {}: same select ran {} times ({} statements, {} entities loaded)",
+                    method, uri, repeated, counters.statements, counters.entitiesLoaded);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.CourseCluster.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Measures replication lag with a heartbeat: the primary's replica_heartbeat
+// row is stamped with the current time, and each replica's copy of the row
+// shows how far behind it is. Works on any database, with no access to the
+// replication status commands.
+@Component
+@ConditionalOnProperty("coursecluster.replicas.urls")
+public class ReplicaLagMonitor {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    
+    private static final int QUERY_TIMEOUT_SECONDS = 2;
+    
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+    
+    private JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas = new HashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        primary = new JdbcTemplate(routingDataSource.getPrimary());
+        primary.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+        routingDataSource.getReplicas().forEach((name, dataSource) -> {
+            JdbcTemplate replica = new JdbcTemplate(dataSource);
+            replica.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            replicas.put(name, replica);
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${coursecluster.replicas.heartbeat-interval-ms:1000}")
+    public void check() {
+        try {
+            primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Writing the replica heartbeat failed: {}", e.getMessage());
+        }
+        replicas.forEach((name, replica) -> {
+            try {
+                Long beat = replica.queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+                long lag = Math.max(0, System.currentTimeMillis() - beat);
+                if (routingDataSource.recordLag(name, lag)) {
+                    log.info("Replica {} is {} (lag {} ms)", name,
+                            routingDataSource.isUsable(name) ? "back in use" : "lagging; reads go to the primary", lag);
+                }
+            } catch (RuntimeException e) {
+                if (routingDataSource.markUnreachable(name)) {
+                    log.warn("Replica {} is unreachable; reads go to the primary: {}", name, e.getMessage());
+                }
+            }
+        });
+    }
+}
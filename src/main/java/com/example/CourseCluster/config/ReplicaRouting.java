@@ -0,0 +1,35 @@
+package com.example.CourseCluster.config;
+
+import java.util.function.Supplier;
+
+// Per-thread override that keeps read-only transactions on the primary. Set for
+// a whole request by ReplicaStickinessFilter (read-your-writes after a mutation)
+// and around code that must not see replica lag. Has no effect without replicas.
+public final class ReplicaRouting {
+    
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+    
+    private ReplicaRouting() {}
+    
+    public static boolean isPrimaryOnly() {
+        return Boolean.TRUE.equals(primaryOnly.get());
+    }
+    
+    static void setPrimaryOnly(boolean value) {
+        if (value) {
+            primaryOnly.set(true);
+        } else {
+            primaryOnly.remove();
+        }
+    }
+    
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean previous = isPrimaryOnly();
+        setPrimaryOnly(true);
+        try {
+            return work.get();
+        } finally {
+            setPrimaryOnly(previous);
+        }
+    }
+}
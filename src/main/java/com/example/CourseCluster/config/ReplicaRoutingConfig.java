@@ -0,0 +1,107 @@
+package com.example.CourseCluster.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read replicas, switched on by listing their JDBC URLs in coursecluster.replicas.urls.
+// spring.datasource.* stays the primary; Flyway and every write use it. Replaces
+// the auto-configured pool with one Hikari pool per database behind a
+// ReplicaRoutingDataSource, itself behind the LazyConnectionDataSourceProxy that
+// JPA and JdbcTemplate see. With shards the router is the home shard's pool
+// instead, and ShardingConfig puts the proxy over the shards.
+@Configuration
+@ConditionalOnProperty("coursecluster.replicas.urls")
+public class ReplicaRoutingConfig {
+    
+    @Value("${coursecluster.replicas.urls}")
+    private List<String> replicaUrls;
+    
+    @Value("${coursecluster.replicas.username:${spring.datasource.username:}}")
+    private String username;
+    
+    @Value("${coursecluster.replicas.password:${spring.datasource.password:}}")
+    private String password;
+    
+    @Value("${coursecluster.replicas.max-lag-ms:5000}")
+    private long maxLagMs;
+    
+    @Value("${coursecluster.replicas.connection-timeout-ms:2000}")
+    private long connectionTimeoutMs;
+    
+    // Local testing only: a real replica gets its schema through replication
+    @Value("${coursecluster.replicas.migrate:false}")
+    private boolean migrate;
+    
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties properties,
+                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        meterRegistry.ifAvailable(primary::setMetricRegistry);
+        
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            String name = "replica-" + (replicas.size() + 1);
+            if (migrate) {
+                migrate(url.trim());
+            }
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName(name);
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.put(name, replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, maxLagMs);
+    }
+    
+    @Bean
+    @Primary
+    @ConditionalOnExpression("'${coursecluster.shards.urls:}'.isBlank()")
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+    
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaRoutingDataSource routingDataSource) {
+        return registry -> routingDataSource.getReplicas().keySet().forEach(replica ->
+                Gauge.builder("coursecluster.replica.lag", routingDataSource,
+                                routing -> routing.getLag(replica).map(Long::doubleValue).orElse(Double.NaN))
+                        .description("Replication lag from the heartbeat, in milliseconds (NaN when unreachable)")
+                        .tag("replica", replica)
+                        .baseUnit("milliseconds")
+                        .register(registry));
+    }
+    
+    private void migrate(String url) {
+        String vendor = DatabaseDriver.fromJdbcUrl(url).getId();
+        Flyway.configure()
+                .dataSource(url, username, password)
+                .locations("classpath:db/migration/" + vendor)
+                .load()
+                .migrate();
+    }
+}
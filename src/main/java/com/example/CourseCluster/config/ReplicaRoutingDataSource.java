@@ -0,0 +1,112 @@
+package com.example.CourseCluster.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends read-only transactions to a replica and everything else to the primary.
+// It must sit under a LazyConnectionDataSourceProxy: the transaction manager
+// takes its connection before marking the transaction read-only, and the proxy
+// defers the choice to the first statement. A replica is only used while its
+// last measured lag is within maxLagMs; otherwise reads fall back to the primary.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    public static final String PRIMARY = "primary";
+    
+    // Spring Data wraps each standalone repository call in its own read-only
+    // transaction; those stay on the primary, so only the read-only transactions
+    // this application declares are sent to replicas
+    private static final String REPOSITORY_TRANSACTIONS = "org.springframework.data.";
+    
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final long maxLagMs;
+    private final Map<String, Long> lags = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMs) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagMs = maxLagMs;
+        
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReplicaRouting.isPrimaryOnly()) {
+            return PRIMARY;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (name != null && name.startsWith(REPOSITORY_TRANSACTIONS)) {
+            return PRIMARY;
+        }
+        List<String> usable = new ArrayList<>(replicas.size());
+        for (String replica : replicas.keySet()) {
+            if (isUsable(replica)) {
+                usable.add(replica);
+            }
+        }
+        if (usable.isEmpty()) {
+            return PRIMARY;
+        }
+        return usable.get(Math.floorMod(next.getAndIncrement(), usable.size()));
+    }
+    
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+    
+    public DataSource getPrimary() {
+        return primary;
+    }
+    
+    // A replica that has not been measured yet, or could not be reached, is not used
+    public boolean isUsable(String replica) {
+        Long lag = lags.get(replica);
+        return lag != null && (maxLagMs <= 0 || lag <= maxLagMs);
+    }
+    
+    public Optional<Long> getLag(String replica) {
+        return Optional.ofNullable(lags.get(replica));
+    }
+    
+    // Both return whether the replica's usability changed
+    public boolean recordLag(String replica, long lagMs) {
+        boolean before = isUsable(replica);
+        lags.put(replica, lagMs);
+        return before != isUsable(replica);
+    }
+    
+    public boolean markUnreachable(String replica) {
+        boolean before = isUsable(replica);
+        lags.remove(replica);
+        return before;
+    }
+    
+    // Called by Spring when the context closes
+    public void close() {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+        if (primary instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+}
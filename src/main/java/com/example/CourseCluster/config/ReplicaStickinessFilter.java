@@ -0,0 +1,70 @@
+package com.example.CourseCluster.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+// Read-your-writes per client. A mutating request, and every request from the
+// same client for sticky-ms after it, reads from the primary. The deadline
+// travels in a cookie, so it holds across app instances without shared state.
+@Component
+@ConditionalOnProperty("coursecluster.replicas.urls")
+public class ReplicaStickinessFilter extends OncePerRequestFilter {
+    
+    static final String COOKIE = "CC_PRIMARY_UNTIL";
+    
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    
+    @Value("${coursecluster.replicas.sticky-ms:5000}")
+    private long stickyMs;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean mutation = !SAFE_METHODS.contains(request.getMethod());
+        if (mutation) {
+            // Set before the handler runs; streamed responses are committed early
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, String.valueOf(now + stickyMs))
+                    .path("/")
+                    .httpOnly(true)
+                    .maxAge(Duration.ofMillis(stickyMs).plusSeconds(1))
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+        ReplicaRouting.setPrimaryOnly(mutation || now < stickyUntil(request));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRouting.setPrimaryOnly(false);
+        }
+    }
+    
+    private static long stickyUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
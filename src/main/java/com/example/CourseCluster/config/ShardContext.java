@@ -0,0 +1,77 @@
+package com.example.CourseCluster.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+// The shard that the current thread's statements go to when sharding is on.
+// Unset means the home shard (0), which also holds the catalog and the jobs.
+// Has no effect without shards.
+public final class ShardContext {
+    
+    public static final int HOME = 0;
+    
+    private static final ThreadLocal<Integer> current = new ThreadLocal<>();
+    
+    private ShardContext() {}
+    
+    public static int current() {
+        Integer shard = current.get();
+        return shard != null ? shard : HOME;
+    }
+    
+    // Runs work with its statements on shard. Inside a transaction that has
+    // already run a statement this changes nothing; use bindTransaction there.
+    public static <T> T on(int shard, Supplier<T> work) {
+        Integer previous = current.get();
+        current.set(shard);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+    
+    public static void run(int shard, Runnable work) {
+        on(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+    
+    // Sends the rest of the current transaction to shard, and puts the thread
+    // back when it completes. The connection is only taken at the first
+    // statement (LazyConnectionDataSourceProxy), so this must come before it.
+    // A transaction spans one shard: binding it to a second one fails.
+    public static void bindTransaction(int shard) {
+        Integer bound = (Integer) TransactionSynchronizationManager.getResource(ShardContext.class);
+        if (bound != null) {
+            if (bound != shard) {
+                throw new IllegalStateException("Transaction is on shard " + bound + " and cannot use shard " + shard);
+            }
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("No transaction to bind to shard " + shard);
+        }
+        Integer previous = current.get();
+        TransactionSynchronizationManager.bindResource(ShardContext.class, shard);
+        current.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ShardContext.class);
+                restore(previous);
+            }
+        });
+    }
+    
+    private static void restore(Integer previous) {
+        if (previous != null) {
+            current.set(previous);
+        } else {
+            current.remove();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.CourseCluster.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One pool per shard, picked by ShardContext. Like the replica router it sits
+// under a LazyConnectionDataSourceProxy, so a transaction's shard can be chosen
+// after it has begun, as long as no statement has run yet.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    
+    // Ids generated on shard n start at n << 48, so they are unique across
+    // shards and still exact in JavaScript numbers (up to 32 shards)
+    public static final int ID_SHARD_SHIFT = 48;
+    public static final int MAX_SHARDS = 32;
+    
+    private final List<DataSource> shards;
+    
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = new ArrayList<>(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(ShardContext.HOME));
+        afterPropertiesSet();
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+    
+    public static long firstId(int shard) {
+        return Math.max(1, (long) shard << ID_SHARD_SHIFT);
+    }
+    
+    public int shardCount() {
+        return shards.size();
+    }
+    
+    // The shard's pool itself, for statements outside the routed transaction
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+    
+    // Called by Spring when the context closes
+    public void close() {
+        for (DataSource shard : shards) {
+            if (shard instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.CourseCluster.config;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// A pooled sequence generator with one block of ids per shard. The stock one
+// keeps a single block and hands it to whichever shard asks next, so an id
+// drawn from one shard's sequence could be written on another. Each shard's
+// sequence starts at ShardRoutingDataSource.firstId, so with a block per shard
+// a new id names the shard it was written on.
+public class ShardSequenceGenerator extends SequenceStyleGenerator {
+    
+    private final ConcurrentHashMap<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+    
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        // The session's connection is on the current shard, so the block comes from its sequence
+        Optimizer optimizer = optimizers.computeIfAbsent(ShardContext.current(), shard -> shard == ShardContext.HOME
+                ? getOptimizer()
+                : OptimizerFactory.buildOptimizer(descriptorOf(getOptimizer()), getOptimizer().getReturnClass(),
+                        getOptimizer().getIncrementSize(), -1));
+        return optimizer.generate(getDatabaseStructure().buildCallback(session));
+    }
+    
+    private static StandardOptimizerDescriptor descriptorOf(Optimizer optimizer) {
+        for (StandardOptimizerDescriptor descriptor : StandardOptimizerDescriptor.values()) {
+            if (descriptor.getOptimizerClass() == optimizer.getClass()) {
+                return descriptor;
+            }
+        }
+        return StandardOptimizerDescriptor.POOLED;
+    }
+}
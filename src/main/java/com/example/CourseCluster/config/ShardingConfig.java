@@ -0,0 +1,117 @@
+package com.example.CourseCluster.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Horizontal sharding, switched on by listing extra databases in
+// coursecluster.shards.urls. spring.datasource.* is shard 0 (home): it keeps
+// the catalog, the jobs and the shard directory, and its schema is migrated by
+// the usual Flyway run. The listed databases are shards 1..N; they are migrated
+// here, and a new one gets its id ranges moved to start at n << 48. Read
+// replicas (coursecluster.replicas.urls) are replicas of the home shard: its
+// pool is then the replica router, and the other shards read from their own
+// database.
+@Configuration
+@ConditionalOnProperty("coursecluster.shards.urls")
+public class ShardingConfig {
+    
+    // Allocation size of the entities' pooled id sequences
+    private static final int ID_BLOCK = 50;
+    private static final List<String> SEQUENCES = List.of("room_seq", "placement_seq", "placement_change_seq");
+    
+    @Value("${coursecluster.shards.urls}")
+    private List<String> shardUrls;
+    
+    @Value("${coursecluster.shards.username:${spring.datasource.username:}}")
+    private String username;
+    
+    @Value("${coursecluster.shards.password:${spring.datasource.password:}}")
+    private String password;
+    
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties,
+                                                         ObjectProvider<MeterRegistry> meterRegistry,
+                                                         ObjectProvider<ReplicaRoutingDataSource> replicaRouting) {
+        if (shardUrls.size() + 1 > ShardRoutingDataSource.MAX_SHARDS) {
+            throw new IllegalStateException("At most " + ShardRoutingDataSource.MAX_SHARDS + " shards are supported");
+        }
+        List<DataSource> shards = new ArrayList<>();
+        DataSource home = replicaRouting.getIfAvailable();
+        if (home == null) {
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            pool.setPoolName("shard-0");
+            meterRegistry.ifAvailable(pool::setMetricRegistry);
+            home = pool;
+        }
+        shards.add(home);
+        
+        for (String url : shardUrls) {
+            int shard = shards.size();
+            migrate(url.trim(), shard);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            pool.setPoolName("shard-" + shard);
+            meterRegistry.ifAvailable(pool::setMetricRegistry);
+            shards.add(pool);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+    
+    private void migrate(String url, int shard) {
+        String vendor = DatabaseDriver.fromJdbcUrl(url).getId();
+        Flyway flyway = Flyway.configure()
+                .dataSource(url, username, password)
+                .locations("classpath:db/migration/" + vendor)
+                .load();
+        MigrateResult result = flyway.migrate();
+        // Only on a database this run created: ids already handed out must never be reissued
+        if (result.initialSchemaVersion == null) {
+            moveIdRanges(new JdbcTemplate(flyway.getConfiguration().getDataSource()), vendor, shard);
+        }
+    }
+    
+    // The pooled generators use the block of ids up to each value they draw, so
+    // the sequences start one block in
+    private static void moveIdRanges(JdbcTemplate jdbcTemplate, String vendor, int shard) {
+        long start = ShardRoutingDataSource.firstId(shard);
+        long firstDraw = start + ID_BLOCK - 1;
+        if ("mysql".equals(vendor)) {
+            jdbcTemplate.execute("ALTER TABLE room_snapshots AUTO_INCREMENT = " + start);
+            for (String sequence : SEQUENCES) {
+                jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ?", firstDraw);
+            }
+        } else {
+            jdbcTemplate.execute("ALTER TABLE room_snapshots ALTER COLUMN snapshot_id RESTART WITH " + start);
+            for (String sequence : SEQUENCES) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + firstDraw);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.CourseCluster.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Helpers for keyset (?after=<id>&limit=) pagination on list endpoints.
+// The page body stays a plain JSON array; the cursor for the next page is
+// returned in the X-Next-Cursor header and is absent on the last page.
+final class CursorPages {
+    
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    
+    private CursorPages() {}
+    
+    static boolean requested(Long after, Integer limit) {
+        return after != null || limit != null;
+    }
+    
+    static long after(Long after) {
+        return after != null ? after : 0L;
+    }
+    
+    static int limit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+    
+    static <T> ResponseEntity<List<T>> page(List<T> items, int limit, Function<T, Long> id) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(id.apply(items.get(items.size() - 1))));
+        }
+        return response.body(items);
+    }
+}
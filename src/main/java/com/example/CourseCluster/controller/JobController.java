@@ -0,0 +1,72 @@
+package com.example.CourseCluster.controller;
+
+import com.example.CourseCluster.dto.JobRequest;
+import com.example.CourseCluster.entity.Job;
+import com.example.CourseCluster.service.JobQueueFullException;
+import com.example.CourseCluster.service.JobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "*")
+public class JobController {
+    
+    @Autowired
+    private JobService jobService;
+    
+    @PostMapping
+    public ResponseEntity<Job> submitJob(@RequestBody JobRequest request) {
+        try {
+            Job job = jobService.submit(request.getType(), request.getPayload());
+            return JobResponses.accepted(job, job);
+        } catch (JobQueueFullException e) {
+            return JobResponses.queueFull();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<Job> getJob(@PathVariable Long id) {
+        return jobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Server-Sent Events: a "progress" event per status or percent change; the
+    // stream completes when the job finishes
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProgress(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(jobService.subscribe(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping(value = "/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getResult(@PathVariable Long id) {
+        Optional<Job> job = jobService.getJob(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.get().getStatus() != Job.Status.SUCCEEDED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(job.get().getResult());
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Job> cancelJob(@PathVariable Long id) {
+        return jobService.cancel(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
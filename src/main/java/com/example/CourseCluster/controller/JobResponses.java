@@ -0,0 +1,29 @@
+package com.example.CourseCluster.controller;
+
+import com.example.CourseCluster.entity.Job;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+
+// Shared responses for endpoints that hand work to the job engine
+final class JobResponses {
+    
+    // Seconds a client should wait before retrying when the queue is full
+    static final String RETRY_AFTER_SECONDS = "5";
+    
+    private JobResponses() {}
+    
+    static <T> ResponseEntity<T> accepted(Job job, T body) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/jobs/" + job.getJobId()))
+                .body(body);
+    }
+    
+    static <T> ResponseEntity<T> queueFull() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+    }
+}
@@ -1,56 +1,237 @@
 package com.example.CourseCluster.controller;
 
+import com.example.CourseCluster.dto.PlacementLayoutCodec;
 import com.example.CourseCluster.dto.PlacementRequest;
 import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.dto.PlacementValidationResponse;
+import com.example.CourseCluster.entity.Job;
+import com.example.CourseCluster.service.CatalogDigestService;
+import com.example.CourseCluster.service.JobQueueFullException;
+import com.example.CourseCluster.service.JobService;
+import com.example.CourseCluster.service.LiveRoomService;
+import com.example.CourseCluster.service.PlacementBatchJobHandler;
+import com.example.CourseCluster.service.PlacementRejectedException;
 import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomVersionService;
+import com.example.CourseCluster.service.VersionMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/placements")
 @CrossOrigin(origins = "*")
 public class PlacementController {
     
+    private static final String NDJSON = "application/x-ndjson";
+    
     @Autowired
     private PlacementService placementService;
     
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private RoomVersionService roomVersionService;
+    
+    @Autowired
+    private JobService jobService;
+    
+    @Autowired
+    private CatalogDigestService catalogDigestService;
+    
     @GetMapping
-    public ResponseEntity<List<PlacementResponse>> getAllPlacements() {
-        return ResponseEntity.ok(placementService.getAllPlacements());
+    public ResponseEntity<List<PlacementResponse>> getAllPlacements(@RequestParam(required = false) Long after,
+                                                                    @RequestParam(required = false) Integer limit) {
+        if (!CursorPages.requested(after, limit)) {
+            return ResponseEntity.ok(placementService.getAllPlacements());
+        }
+        int pageSize = CursorPages.limit(limit);
+        List<PlacementResponse> page = placementService.getPlacementsPage(CursorPages.after(after), pageSize);
+        return CursorPages.page(page, pageSize, PlacementResponse::getPlacementId);
+    }
+    
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamPlacements() {
+        StreamingResponseBody body = placementService::streamAllPlacements;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
     
     @GetMapping("/room/{roomId}")
-    public ResponseEntity<List<PlacementResponse>> getPlacementsByRoomId(@PathVariable Long roomId) {
-        return ResponseEntity.ok(placementService.getPlacementsByRoomId(roomId));
+    public ResponseEntity<List<PlacementResponse>> getPlacementsByRoomId(
+            @PathVariable Long roomId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Read the version before the placements so the tag is never newer than the body
+        Optional<Long> version = roomVersionService.currentVersion(roomId);
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(placementService.getPlacementsByRoomId(roomId));
+        }
+        String etag = RoomETags.placements(roomId, version.get(), catalogDigestService.digest());
+        if (RoomETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(placementService.getPlacementsByRoomId(roomId));
+    }
+    
+    // Same list in the compact binary format, chosen with
+    // Accept: application/vnd.coursecluster.layout+binary
+    @GetMapping(value = "/room/{roomId}", produces = PlacementLayoutCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getPlacementLayoutByRoomId(
+            @PathVariable Long roomId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<Long> version = roomVersionService.currentVersion(roomId);
+        if (version.isEmpty()) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(PlacementLayoutCodec.MEDIA_TYPE))
+                    .body(PlacementLayoutCodec.encode(roomId, null, placementService.getPlacementsByRoomId(roomId)));
+        }
+        String etag = RoomETags.layout(roomId, version.get(), catalogDigestService.digest());
+        if (RoomETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.parseMediaType(PlacementLayoutCodec.MEDIA_TYPE))
+                .body(PlacementLayoutCodec.encode(roomId, version.get(),
+                        placementService.getPlacementsByRoomId(roomId)));
     }
     
     @PostMapping
-    public ResponseEntity<PlacementResponse> createPlacement(@RequestBody PlacementRequest request) {
+    public ResponseEntity<PlacementResponse> createPlacement(@RequestBody PlacementRequest request,
+                                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            PlacementResponse placement = placementService.createPlacement(request);
+            PlacementResponse placement = placementService.createPlacement(request,
+                    RoomETags.expectedVersion(ifMatch, request.getRoomId()));
             return ResponseEntity.status(HttpStatus.CREATED).body(placement);
+        } catch (PlacementRejectedException e) {
+            return rejected(e);
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/batch")
+    public ResponseEntity<List<PlacementResponse>> createPlacements(@RequestBody List<PlacementRequest> requests,
+                                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            Long roomId = requests.isEmpty() ? null : requests.get(0).getRoomId();
+            List<PlacementResponse> placements = placementService.createPlacements(requests,
+                    RoomETags.expectedVersion(ifMatch, roomId));
+            return ResponseEntity.status(HttpStatus.CREATED).body(placements);
+        } catch (PlacementRejectedException e) {
+            return rejected(e);
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Large batches: queued as a job and answered with 202 and the job's location
+    @PostMapping(value = "/batch", params = "async=true")
+    public ResponseEntity<Job> createPlacementsAsync(@RequestBody List<PlacementRequest> requests) {
+        try {
+            Job job = jobService.submit(PlacementBatchJobHandler.TYPE, requests);
+            return JobResponses.accepted(job, job);
+        } catch (JobQueueFullException e) {
+            return JobResponses.queueFull();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PutMapping("/batch")
+    public ResponseEntity<List<PlacementResponse>> updatePlacements(@RequestBody List<PlacementRequest> requests,
+                                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            Long placementId = requests.isEmpty() ? null : requests.get(0).getPlacementId();
+            return ResponseEntity.ok(placementService.updatePlacements(requests,
+                    expectedVersionOfPlacement(ifMatch, placementId)));
+        } catch (PlacementRejectedException e) {
+            return rejected(e);
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/validate")
+    public ResponseEntity<PlacementValidationResponse> validatePlacement(@RequestBody PlacementRequest request,
+                                                                         @RequestParam(required = false) Long placementId) {
+        try {
+            return ResponseEntity.ok(placementService.validatePlacement(request, placementId));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<PlacementResponse> updatePlacement(@PathVariable Long id, @RequestBody PlacementRequest request) {
+    public ResponseEntity<PlacementResponse> updatePlacement(@PathVariable Long id, @RequestBody PlacementRequest request,
+                                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            PlacementResponse placement = placementService.updatePlacement(id, request);
+            Long expectedVersion = expectedVersionOfPlacement(ifMatch, id);
+            // Moves inside a live room are applied in memory and written back later
+            PlacementResponse placement = liveRoomService.isLivePlacement(id)
+                    ? liveRoomService.move(id, request, expectedVersion)
+                    : placementService.updatePlacement(id, request, expectedVersion);
             return ResponseEntity.ok(placement);
+        } catch (PlacementRejectedException e) {
+            return rejected(e);
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (IllegalArgumentException e) {
+            // Malformed If-Match
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletePlacement(@PathVariable Long id) {
-        placementService.deletePlacement(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Void> deletePlacement(@PathVariable Long id, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            placementService.deletePlacement(id, expectedVersionOfPlacement(ifMatch, id));
+            return ResponseEntity.noContent().build();
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (IllegalArgumentException e) {
+            // Malformed If-Match
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // An If-Match on a placement names a version of the placement's room. A
+    // batch with a precondition keeps to one room, so its first placement tells.
+    private Long expectedVersionOfPlacement(String ifMatch, Long placementId) {
+        if (ifMatch == null || placementId == null) {
+            return RoomETags.expectedVersion(ifMatch, null);
+        }
+        return RoomETags.expectedVersion(ifMatch, placementService.findRoomId(placementId).orElse(null));
+    }
+    
+    private <T> ResponseEntity<T> rejected(PlacementRejectedException e) {
+        HttpStatus status = e.getReason() == PlacementRejectedException.Reason.OVERLAP
+                ? HttpStatus.CONFLICT
+                : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status).build();
     }
 }
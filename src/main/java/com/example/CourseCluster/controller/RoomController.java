@@ -1,34 +1,224 @@
 package com.example.CourseCluster.controller;
 
+import com.example.CourseCluster.dto.AutoLayoutRequest;
+import com.example.CourseCluster.dto.AutoLayoutResponse;
+import com.example.CourseCluster.dto.FreeSpaceResponse;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.dto.RoomStatsResponse;
+import com.example.CourseCluster.dto.RoomVersionInfo;
+import com.example.CourseCluster.dto.RoomVersionResponse;
+import com.example.CourseCluster.entity.Job;
 import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.service.AutoLayoutJobHandler;
+import com.example.CourseCluster.service.AutoLayoutService;
+import com.example.CourseCluster.service.JobQueueFullException;
+import com.example.CourseCluster.service.JobService;
+import com.example.CourseCluster.service.LiveRoomService;
+import com.example.CourseCluster.service.PlacementRejectedException;
+import com.example.CourseCluster.service.RoomCloneJobHandler;
+import com.example.CourseCluster.service.RoomCloneService;
+import com.example.CourseCluster.service.RoomEventService;
+import com.example.CourseCluster.service.RoomHistoryService;
+import com.example.CourseCluster.service.RoomRebalanceService;
 import com.example.CourseCluster.service.RoomService;
+import com.example.CourseCluster.service.RoomStatsService;
+import com.example.CourseCluster.service.RoomThumbnailService;
+import com.example.CourseCluster.service.RoomVersionService;
+import com.example.CourseCluster.service.SpatialIndexService;
+import com.example.CourseCluster.service.VersionMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/rooms")
 @CrossOrigin(origins = "*")
 public class RoomController {
     
+    private static final int DEFAULT_FREE_POSITIONS = 100;
+    private static final int MAX_FREE_POSITIONS = 10000;
+    
     @Autowired
     private RoomService roomService;
     
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private RoomEventService roomEventService;
+    
+    @Autowired
+    private RoomVersionService roomVersionService;
+    
+    @Autowired
+    private AutoLayoutService autoLayoutService;
+    
+    @Autowired
+    private JobService jobService;
+    
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+    
+    @Autowired
+    private RoomCloneService roomCloneService;
+    
+    @Autowired
+    private RoomHistoryService roomHistoryService;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    @Autowired
+    private RoomRebalanceService roomRebalanceService;
+    
+    @Autowired
+    private RoomThumbnailService roomThumbnailService;
+    
+    // ?thumbnails=<size> starts rendering the page's thumbnails in the background.
+    // Ignored without paging, which would queue a render for every room.
     @GetMapping
-    public ResponseEntity<List<Room>> getAllRooms() {
-        return ResponseEntity.ok(roomService.getAllRooms());
+    public ResponseEntity<List<Room>> getAllRooms(@RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) Integer thumbnails) {
+        if (!CursorPages.requested(after, limit)) {
+            return ResponseEntity.ok(roomService.getAllRooms());
+        }
+        int pageSize = CursorPages.limit(limit);
+        List<Room> page = roomService.getRoomsPage(CursorPages.after(after), pageSize);
+        prefetchThumbnails(page, thumbnails);
+        return CursorPages.page(page, pageSize, Room::getRoomId);
+    }
+    
+    private void prefetchThumbnails(List<Room> rooms, Integer size) {
+        if (size != null) {
+            roomThumbnailService.prefetch(rooms, RoomThumbnailService.clampSize(size));
+        }
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Room> getRoomById(@PathVariable Long id) {
+    public ResponseEntity<Room> getRoomById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Unchanged rooms are answered from the version column alone
+        Optional<Long> version = roomVersionService.currentVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = RoomETags.room(id, version.get());
+        if (RoomETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         return roomService.getRoomById(id)
+                .map(room -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache())
+                        .eTag(etag)
+                        .body(room))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // The room's placements as they were at a past layout version
+    @GetMapping(value = "/{id}", params = "version")
+    public ResponseEntity<RoomVersionResponse> getRoomAtVersion(@PathVariable Long id, @RequestParam long version) {
+        try {
+            return roomHistoryService.getRoomAtVersion(id, version)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // PNG drawn like the editor's canvas, scaled so its longer side is size pixels
+    @GetMapping(value = "/{id}/thumbnail.png", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getThumbnail(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        int pixels = RoomThumbnailService.clampSize(size);
+        Optional<String> key = roomThumbnailService.currentKey(id, pixels);
+        if (key.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = RoomETags.thumbnail(key.get());
+        if (RoomETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(etag)
+                    .contentType(MediaType.IMAGE_PNG)
+                    .body(roomThumbnailService.getThumbnail(id, pixels, key.get()));
+        } catch (RuntimeException e) {
+            // Deleted since the version lookup
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    // Item count and occupied area, read from the maintained counters
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<RoomStatsResponse> getRoomStats(@PathVariable Long id) {
+        return roomStatsService.getRoomStats(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Moves the room and everything in it to another shard
+    @PostMapping("/{id}/move")
+    public ResponseEntity<Void> moveRoom(@PathVariable Long id, @RequestParam int shard) {
+        if (roomService.getRoomById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            roomRebalanceService.moveRoom(id, shard);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/{id}/versions")
+    public ResponseEntity<List<RoomVersionInfo>> getVersions(@PathVariable Long id,
+                                                             @RequestParam(required = false) Long after,
+                                                             @RequestParam(required = false) Integer limit) {
+        if (roomService.getRoomById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        int pageSize = CursorPages.limit(limit);
+        List<RoomVersionInfo> page = roomHistoryService.getVersions(id, CursorPages.after(after), pageSize);
+        return CursorPages.page(page, pageSize, RoomVersionInfo::getVersion);
+    }
+    
+    // Reverts the latest placement change as a new version; returns the placements it restored
+    @PostMapping("/{id}/undo")
+    public ResponseEntity<List<PlacementResponse>> undo(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (roomService.getRoomById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(roomHistoryService.undo(id, RoomETags.expectedVersion(ifMatch, id)));
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (PlacementRejectedException | IllegalStateException e) {
+            // Nothing left to undo, or the old position is taken now
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @PostMapping
     public ResponseEntity<Room> createRoom(@RequestBody Room room) {
         Room createdRoom = roomService.createRoom(room);
@@ -36,10 +226,18 @@ public class RoomController {
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<Room> updateRoom(@PathVariable Long id, @RequestBody Room room) {
+    public ResponseEntity<Room> updateRoom(@PathVariable Long id, @RequestBody Room room,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Room updatedRoom = roomService.updateRoom(id, room);
-            return ResponseEntity.ok(updatedRoom);
+            Room updatedRoom = roomService.updateRoom(id, room, RoomETags.expectedVersion(ifMatch, id));
+            return ResponseEntity.ok()
+                    .eTag(RoomETags.room(id, updatedRoom.getVersion()))
+                    .body(updatedRoom);
+        } catch (VersionMismatchException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (IllegalArgumentException e) {
+            // Malformed If-Match
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -50,4 +248,110 @@ public class RoomController {
         roomService.deleteRoom(id);
         return ResponseEntity.noContent().build();
     }
+    
+    // Copies the room and all its placements count times
+    @PostMapping("/{id}/clone")
+    public ResponseEntity<List<Room>> cloneRoom(@PathVariable Long id,
+                                                @RequestParam(defaultValue = "1") int count,
+                                                @RequestParam(required = false) String name) {
+        if (roomService.getRoomById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(roomCloneService.cloneRoom(id, count, name));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping(value = "/{id}/clone", params = "async=true")
+    public ResponseEntity<Job> cloneRoomAsync(@PathVariable Long id,
+                                              @RequestParam(defaultValue = "1") int count,
+                                              @RequestParam(required = false) String name) {
+        if (roomService.getRoomById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (count < 1 || count > RoomCloneService.MAX_CLONES) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Job job = jobService.submit(RoomCloneJobHandler.TYPE, new RoomCloneJobHandler.Payload(id, count, name));
+            return JobResponses.accepted(job, job);
+        } catch (JobQueueFullException e) {
+            return JobResponses.queueFull();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Suggests non-overlapping positions for the given objects; nothing is saved
+    @PostMapping("/{id}/auto-layout")
+    public ResponseEntity<AutoLayoutResponse> autoLayout(@PathVariable Long id, @RequestBody AutoLayoutRequest request) {
+        if (roomService.getRoomById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(autoLayoutService.layout(id, request));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Where an item of the given size can go, from the room's occupancy grid
+    @GetMapping("/{id}/free-space")
+    public ResponseEntity<FreeSpaceResponse> getFreeSpace(@PathVariable Long id,
+                                                          @RequestParam(required = false) Double width,
+                                                          @RequestParam(required = false) Double height,
+                                                          @RequestParam(required = false) Double rotation,
+                                                          @RequestParam(required = false) Integer limit) {
+        if ((width == null) != (height == null) || (width != null && (width <= 0 || height <= 0))) {
+            return ResponseEntity.badRequest().build();
+        }
+        int maxPositions = Math.max(1, Math.min(limit != null ? limit : DEFAULT_FREE_POSITIONS, MAX_FREE_POSITIONS));
+        return roomService.getRoomById(id)
+                .map(room -> ResponseEntity.ok(
+                        spatialIndexService.freeSpace(room, width, height, rotation, maxPositions)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping(value = "/{id}/auto-layout", params = "async=true")
+    public ResponseEntity<Job> autoLayoutAsync(@PathVariable Long id, @RequestBody AutoLayoutRequest request) {
+        if (roomService.getRoomById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            Job job = jobService.submit(AutoLayoutJobHandler.TYPE, new AutoLayoutJobHandler.Payload(id, request));
+            return JobResponses.accepted(job, job);
+        } catch (JobQueueFullException e) {
+            return JobResponses.queueFull();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Live mode: placement moves are kept in memory and written back in batches
+    @PostMapping("/{id}/live")
+    public ResponseEntity<Void> openLiveRoom(@PathVariable Long id) {
+        try {
+            liveRoomService.open(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @DeleteMapping("/{id}/live")
+    public ResponseEntity<Void> closeLiveRoom(@PathVariable Long id) {
+        liveRoomService.close(id);
+        return ResponseEntity.noContent().build();
+    }
+    
+    // Server-Sent Events stream of placement deltas for one room. Reconnecting
+    // clients resume via the Last-Event-ID header (or ?after=<event id>).
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable Long id,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                @RequestParam(required = false) String after) {
+        return roomEventService.subscribe(id, lastEventId != null ? lastEventId : after);
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.CourseCluster.controller;
+
+import com.example.CourseCluster.service.VersionMismatchException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Strong ETags derived from a room's layout version. The room resource and its
+// placement list (JSON or binary) are different representations, so they get
+// different tags. Placement lists also show object names, sizes and colors,
+// which catalog edits change without bumping a room version, so their tags
+// carry the catalog digest too.
+final class RoomETags {
+    
+    private static final int CATALOG_DIGEST_LENGTH = 16;
+    private static final Pattern VERSION_TAG =
+            Pattern.compile("\"(room|placements|layout)-(\\d+)-v(\\d+)(?:-c[0-9a-f]+)?\"");
+    private static final Pattern ANY_TAG = Pattern.compile("(W/)?\"[^\"]*\"");
+    
+    private RoomETags() {}
+    
+    static String room(Long roomId, long version) {
+        return "\"room-" + roomId + "-v" + version + "\"";
+    }
+    
+    static String placements(Long roomId, long version, String catalogDigest) {
+        return "\"placements-" + roomId + "-v" + version + "-c" + shorten(catalogDigest) + "\"";
+    }
+    
+    static String layout(Long roomId, long version, String catalogDigest) {
+        return "\"layout-" + roomId + "-v" + version + "-c" + shorten(catalogDigest) + "\"";
+    }
+    
+    // Thumbnails also depend on the object catalog, so their tag is the image's cache key
+    static String thumbnail(String key) {
+        return "\"thumbnail-" + key + "\"";
+    }
+    
+    // True when an If-None-Match header lists the given tag (or *)
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Version named by an If-Match header, or null when the header is absent or *.
+    // The room, placements and layout tags of the room all name its version; a
+    // tag of another room or of a thumbnail fails the precondition like a stale
+    // one. roomId is null when the target does not exist, which the write then
+    // reports itself.
+    static Long expectedVersion(String ifMatch, Long roomId) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        Matcher matcher = VERSION_TAG.matcher(tag);
+        if (!matcher.matches()) {
+            if (ANY_TAG.matcher(tag).matches()) {
+                throw new VersionMismatchException(roomId, null);
+            }
+            throw new IllegalArgumentException("Unrecognised If-Match: " + ifMatch);
+        }
+        long version = Long.parseLong(matcher.group(3));
+        if (roomId != null && !matcher.group(2).equals(roomId.toString())) {
+            throw new VersionMismatchException(roomId, version);
+        }
+        return version;
+    }
+    
+    private static String shorten(String catalogDigest) {
+        return catalogDigest.substring(0, Math.min(CATALOG_DIGEST_LENGTH, catalogDigest.length()));
+    }
+}
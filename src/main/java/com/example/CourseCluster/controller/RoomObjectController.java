@@ -1,7 +1,9 @@
 package com.example.CourseCluster.controller;
 
+import com.example.CourseCluster.dto.ObjectUsageResponse;
 import com.example.CourseCluster.entity.RoomObject;
 import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,9 +19,24 @@ public class RoomObjectController {
     @Autowired
     private RoomObjectService roomObjectService;
     
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
     @GetMapping
-    public ResponseEntity<List<RoomObject>> getAllObjects() {
-        return ResponseEntity.ok(roomObjectService.getAllObjects());
+    public ResponseEntity<List<RoomObject>> getAllObjects(@RequestParam(required = false) Long after,
+                                                          @RequestParam(required = false) Integer limit) {
+        if (!CursorPages.requested(after, limit)) {
+            return ResponseEntity.ok(roomObjectService.getAllObjects());
+        }
+        int pageSize = CursorPages.limit(limit);
+        List<RoomObject> page = roomObjectService.getObjectsPage(CursorPages.after(after), pageSize);
+        return CursorPages.page(page, pageSize, RoomObject::getObjectId);
+    }
+    
+    // Catalog objects by how many placements use them, most used first
+    @GetMapping("/usage")
+    public ResponseEntity<List<ObjectUsageResponse>> getObjectUsage(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(roomStatsService.getObjectUsage(CursorPages.limit(limit)));
     }
     
     @GetMapping("/{id}")
@@ -50,4 +67,13 @@ public class RoomObjectController {
         roomObjectService.deleteObject(id);
         return ResponseEntity.noContent().build();
     }
+    
+    // Returns at once; the object leaves the catalog and its placements are removed in the background
+    @DeleteMapping(value = "/{id}", params = "async=true")
+    public ResponseEntity<Void> deleteObjectAsync(@PathVariable Long id) {
+        if (!roomObjectService.deleteObjectLater(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().build();
+    }
 }
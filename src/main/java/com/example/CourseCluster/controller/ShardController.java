@@ -0,0 +1,51 @@
+package com.example.CourseCluster.controller;
+
+import com.example.CourseCluster.dto.ShardResponse;
+import com.example.CourseCluster.entity.Job;
+import com.example.CourseCluster.service.JobQueueFullException;
+import com.example.CourseCluster.service.JobService;
+import com.example.CourseCluster.service.RoomRebalanceService;
+import com.example.CourseCluster.service.ShardRebalanceJobHandler;
+import com.example.CourseCluster.service.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/shards")
+@CrossOrigin(origins = "*")
+public class ShardController {
+    
+    @Autowired
+    private RoomRebalanceService roomRebalanceService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private JobService jobService;
+    
+    // Rooms and placements per shard; a single entry when sharding is off
+    @GetMapping
+    public ResponseEntity<List<ShardResponse>> getShards() {
+        return ResponseEntity.ok(roomRebalanceService.getShards());
+    }
+    
+    @PostMapping("/rebalance")
+    public ResponseEntity<Job> rebalance(@RequestParam(required = false) Integer maxMoves) {
+        if (!shardRouter.isSharded()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        try {
+            Job job = jobService.submit(ShardRebalanceJobHandler.TYPE, new ShardRebalanceJobHandler.Payload(maxMoves));
+            return JobResponses.accepted(job, job);
+        } catch (JobQueueFullException e) {
+            return JobResponses.queueFull();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
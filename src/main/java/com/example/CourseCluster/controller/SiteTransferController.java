@@ -0,0 +1,62 @@
+package com.example.CourseCluster.controller;
+
+import com.example.CourseCluster.dto.ImportResponse;
+import com.example.CourseCluster.service.LiveRoomService;
+import com.example.CourseCluster.service.SiteTransferService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class SiteTransferController {
+    
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String GZIP = "application/gzip";
+    private static final int GZIP_BUFFER = 64 * 1024;
+    
+    @Autowired
+    private SiteTransferService siteTransferService;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    // Streams every object, room and placement as NDJSON; ?gzip=true compresses it
+    @GetMapping(value = "/export", produces = {NDJSON, GZIP})
+    public ResponseEntity<StreamingResponseBody> exportSite(@RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = out -> {
+            liveRoomService.flushAll();
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER);
+                siteTransferService.exportSite(compressed);
+                compressed.finish();
+            } else {
+                siteTransferService.exportSite(out);
+            }
+        };
+        String filename = gzip ? "coursecluster-site.ndjson.gz" : "coursecluster-site.ndjson";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? GZIP : NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).toString())
+                .body(body);
+    }
+    
+    // Accepts what /export produces, compressed or not, and adds it as new rows
+    @PostMapping("/import")
+    public ResponseEntity<ImportResponse> importSite(InputStream body) {
+        try {
+            return ResponseEntity.ok(siteTransferService.importSite(body));
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
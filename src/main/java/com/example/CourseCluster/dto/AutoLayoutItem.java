@@ -0,0 +1,41 @@
+package com.example.CourseCluster.dto;
+
+public class AutoLayoutItem {
+    private Long objectId;
+    private Boolean wallAdjacent; // must touch a wall
+    private String group; // items sharing a group label are kept together
+    
+    // Constructors
+    public AutoLayoutItem() {}
+    
+    public AutoLayoutItem(Long objectId, Boolean wallAdjacent, String group) {
+        this.objectId = objectId;
+        this.wallAdjacent = wallAdjacent;
+        this.group = group;
+    }
+    
+    // Getters and Setters
+    public Long getObjectId() {
+        return objectId;
+    }
+    
+    public void setObjectId(Long objectId) {
+        this.objectId = objectId;
+    }
+    
+    public Boolean getWallAdjacent() {
+        return wallAdjacent;
+    }
+    
+    public void setWallAdjacent(Boolean wallAdjacent) {
+        this.wallAdjacent = wallAdjacent;
+    }
+    
+    public String getGroup() {
+        return group;
+    }
+    
+    public void setGroup(String group) {
+        this.group = group;
+    }
+}
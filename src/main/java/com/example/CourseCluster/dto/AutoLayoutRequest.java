@@ -0,0 +1,44 @@
+package com.example.CourseCluster.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AutoLayoutRequest {
+    private List<AutoLayoutItem> items = new ArrayList<>();
+    private Double clearance; // minimum gap in feet between items (and existing furniture)
+    private Long timeBudgetMs;
+    
+    // Constructors
+    public AutoLayoutRequest() {}
+    
+    public AutoLayoutRequest(List<AutoLayoutItem> items, Double clearance, Long timeBudgetMs) {
+        this.items = items;
+        this.clearance = clearance;
+        this.timeBudgetMs = timeBudgetMs;
+    }
+    
+    // Getters and Setters
+    public List<AutoLayoutItem> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<AutoLayoutItem> items) {
+        this.items = items;
+    }
+    
+    public Double getClearance() {
+        return clearance;
+    }
+    
+    public void setClearance(Double clearance) {
+        this.clearance = clearance;
+    }
+    
+    public Long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+    
+    public void setTimeBudgetMs(Long timeBudgetMs) {
+        this.timeBudgetMs = timeBudgetMs;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.CourseCluster.dto;
+
+import java.util.List;
+
+public class AutoLayoutResponse {
+    private List<PlacementRequest> placements; // can be posted as-is to /api/placements/batch
+    private List<Long> unplacedObjectIds;
+    private double score; // remaining penalty; 0 means every constraint is met
+    private long iterations;
+    private long elapsedMs;
+    
+    // Constructors
+    public AutoLayoutResponse() {}
+    
+    public AutoLayoutResponse(List<PlacementRequest> placements, List<Long> unplacedObjectIds,
+                              double score, long iterations, long elapsedMs) {
+        this.placements = placements;
+        this.unplacedObjectIds = unplacedObjectIds;
+        this.score = score;
+        this.iterations = iterations;
+        this.elapsedMs = elapsedMs;
+    }
+    
+    // Getters and Setters
+    public List<PlacementRequest> getPlacements() {
+        return placements;
+    }
+    
+    public void setPlacements(List<PlacementRequest> placements) {
+        this.placements = placements;
+    }
+    
+    public List<Long> getUnplacedObjectIds() {
+        return unplacedObjectIds;
+    }
+    
+    public void setUnplacedObjectIds(List<Long> unplacedObjectIds) {
+        this.unplacedObjectIds = unplacedObjectIds;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public void setScore(double score) {
+        this.score = score;
+    }
+    
+    public long getIterations() {
+        return iterations;
+    }
+    
+    public void setIterations(long iterations) {
+        this.iterations = iterations;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
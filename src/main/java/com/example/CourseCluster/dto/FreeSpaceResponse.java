@@ -0,0 +1,64 @@
+package com.example.CourseCluster.dto;
+
+import java.util.List;
+
+public class FreeSpaceResponse {
+    private double resolution; // grid cell size in feet
+    private Double rotation;
+    private int positionCount; // total valid positions, may exceed positions.size()
+    private List<double[]> positions; // [x, y] usable as a placement's x and y
+    private List<double[]> largestEmptyRectangles; // [x, y, width, height]
+    
+    // Constructors
+    public FreeSpaceResponse() {}
+    
+    public FreeSpaceResponse(double resolution, Double rotation, int positionCount, List<double[]> positions,
+                             List<double[]> largestEmptyRectangles) {
+        this.resolution = resolution;
+        this.rotation = rotation;
+        this.positionCount = positionCount;
+        this.positions = positions;
+        this.largestEmptyRectangles = largestEmptyRectangles;
+    }
+    
+    // Getters and Setters
+    public double getResolution() {
+        return resolution;
+    }
+    
+    public void setResolution(double resolution) {
+        this.resolution = resolution;
+    }
+    
+    public Double getRotation() {
+        return rotation;
+    }
+    
+    public void setRotation(Double rotation) {
+        this.rotation = rotation;
+    }
+    
+    public int getPositionCount() {
+        return positionCount;
+    }
+    
+    public void setPositionCount(int positionCount) {
+        this.positionCount = positionCount;
+    }
+    
+    public List<double[]> getPositions() {
+        return positions;
+    }
+    
+    public void setPositions(List<double[]> positions) {
+        this.positions = positions;
+    }
+    
+    public List<double[]> getLargestEmptyRectangles() {
+        return largestEmptyRectangles;
+    }
+    
+    public void setLargestEmptyRectangles(List<double[]> largestEmptyRectangles) {
+        this.largestEmptyRectangles = largestEmptyRectangles;
+    }
+}
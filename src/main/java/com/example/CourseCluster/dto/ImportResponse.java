@@ -0,0 +1,61 @@
+package com.example.CourseCluster.dto;
+
+public class ImportResponse {
+    private int objectsCreated;
+    private int objectsMatched; // already in the catalog with the same name, size and color
+    private int rooms;
+    private long placements;
+    private long elapsedMs;
+    
+    // Constructors
+    public ImportResponse() {}
+    
+    public ImportResponse(int objectsCreated, int objectsMatched, int rooms, long placements, long elapsedMs) {
+        this.objectsCreated = objectsCreated;
+        this.objectsMatched = objectsMatched;
+        this.rooms = rooms;
+        this.placements = placements;
+        this.elapsedMs = elapsedMs;
+    }
+    
+    // Getters and Setters
+    public int getObjectsCreated() {
+        return objectsCreated;
+    }
+    
+    public void setObjectsCreated(int objectsCreated) {
+        this.objectsCreated = objectsCreated;
+    }
+    
+    public int getObjectsMatched() {
+        return objectsMatched;
+    }
+    
+    public void setObjectsMatched(int objectsMatched) {
+        this.objectsMatched = objectsMatched;
+    }
+    
+    public int getRooms() {
+        return rooms;
+    }
+    
+    public void setRooms(int rooms) {
+        this.rooms = rooms;
+    }
+    
+    public long getPlacements() {
+        return placements;
+    }
+    
+    public void setPlacements(long placements) {
+        this.placements = placements;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
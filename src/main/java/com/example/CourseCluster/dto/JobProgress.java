@@ -0,0 +1,57 @@
+package com.example.CourseCluster.dto;
+
+import com.example.CourseCluster.entity.Job;
+
+public class JobProgress {
+    private Long jobId;
+    private Job.Status status;
+    private Integer progress;
+    private String message;
+    
+    // Constructors
+    public JobProgress() {}
+    
+    public JobProgress(Long jobId, Job.Status status, Integer progress, String message) {
+        this.jobId = jobId;
+        this.status = status;
+        this.progress = progress;
+        this.message = message;
+    }
+    
+    public JobProgress(Job job) {
+        this(job.getJobId(), job.getStatus(), job.getProgress(), job.getError() != null ? job.getError() : job.getMessage());
+    }
+    
+    // Getters and Setters
+    public Long getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+    
+    public Job.Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Job.Status status) {
+        this.status = status;
+    }
+    
+    public Integer getProgress() {
+        return progress;
+    }
+    
+    public void setProgress(Integer progress) {
+        this.progress = progress;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.CourseCluster.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class JobRequest {
+    private String type;
+    private JsonNode payload;
+    
+    // Constructors
+    public JobRequest() {}
+    
+    public JobRequest(String type, JsonNode payload) {
+        this.type = type;
+        this.payload = payload;
+    }
+    
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public JsonNode getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(JsonNode payload) {
+        this.payload = payload;
+    }
+}
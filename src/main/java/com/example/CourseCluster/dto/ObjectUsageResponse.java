@@ -0,0 +1,41 @@
+package com.example.CourseCluster.dto;
+
+public class ObjectUsageResponse {
+    private Long objectId;
+    private String name;
+    private long placementCount;
+    
+    // Constructors
+    public ObjectUsageResponse() {}
+    
+    public ObjectUsageResponse(Long objectId, String name, long placementCount) {
+        this.objectId = objectId;
+        this.name = name;
+        this.placementCount = placementCount;
+    }
+    
+    // Getters and Setters
+    public Long getObjectId() {
+        return objectId;
+    }
+    
+    public void setObjectId(Long objectId) {
+        this.objectId = objectId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public long getPlacementCount() {
+        return placementCount;
+    }
+    
+    public void setPlacementCount(long placementCount) {
+        this.placementCount = placementCount;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.CourseCluster.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Compact change record pushed to room subscribers. Object details are not
+// repeated; clients resolve objectId against the catalog they already hold.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlacementDelta {
+    private long seq;
+    private String type;
+    private Long placementId;
+    private Long objectId;
+    private Double x;
+    private Double y;
+    private Double rotation;
+    
+    // Constructors
+    public PlacementDelta() {}
+    
+    public PlacementDelta(long seq, String type, Long placementId, Long objectId, Double x, Double y, Double rotation) {
+        this.seq = seq;
+        this.type = type;
+        this.placementId = placementId;
+        this.objectId = objectId;
+        this.x = x;
+        this.y = y;
+        this.rotation = rotation;
+    }
+    
+    // Getters and Setters
+    public long getSeq() {
+        return seq;
+    }
+    
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Long getPlacementId() {
+        return placementId;
+    }
+    
+    public void setPlacementId(Long placementId) {
+        this.placementId = placementId;
+    }
+    
+    public Long getObjectId() {
+        return objectId;
+    }
+    
+    public void setObjectId(Long objectId) {
+        this.objectId = objectId;
+    }
+    
+    public Double getX() {
+        return x;
+    }
+    
+    public void setX(Double x) {
+        this.x = x;
+    }
+    
+    public Double getY() {
+        return y;
+    }
+    
+    public void setY(Double y) {
+        this.y = y;
+    }
+    
+    public Double getRotation() {
+        return rotation;
+    }
+    
+    public void setRotation(Double rotation) {
+        this.rotation = rotation;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.CourseCluster.dto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Binary form of a room's placement list (application/vnd.coursecluster.layout+binary).
+// Each catalog object used in the room is written once in a table, and the
+// placements follow as columns, so a 10k-item room costs about 17 bytes per item
+// instead of the ~170 of JSON. All numbers are big-endian:
+//
+//   "CCLB"  u8 format version (1)  i64 roomId  i64 layoutVersion (-1 if unknown)
+//   u32 objectCount, then per object:
+//       i64 objectId  f32 width  f32 height  str name  str color ("" if none)
+//   u32 placementCount, then the columns:
+//       placementId  unsigned varint deltas from the previous id (ids ascending)
+//       objectIndex  i32 index into the object table
+//       x, y         f32
+//       rotation     f32
+//
+// str is a u16 byte length followed by UTF-8, and a missing number is NaN.
+// Coordinates are single precision: positions on a 1/64 ft grid within
+// 100,000 ft are exact. Format version 2 (encodeExact, for history snapshots
+// that later layouts are rebuilt from) is the same with every f32 an f64.
+public final class PlacementLayoutCodec {
+    
+    public static final String MEDIA_TYPE = "application/vnd.coursecluster.layout+binary";
+    
+    private static final byte[] MAGIC = {'C', 'C', 'L', 'B'};
+    private static final int FORMAT_VERSION = 1;
+    private static final int EXACT_FORMAT_VERSION = 2;
+    
+    private PlacementLayoutCodec() {}
+    
+    public static byte[] encode(Long roomId, Long layoutVersion, List<PlacementResponse> placements) {
+        return encode(roomId, layoutVersion, placements, false);
+    }
+    
+    // Keeps every number exactly, at twice the size
+    public static byte[] encodeExact(Long roomId, Long layoutVersion, List<PlacementResponse> placements) {
+        return encode(roomId, layoutVersion, placements, true);
+    }
+    
+    private static byte[] encode(Long roomId, Long layoutVersion, List<PlacementResponse> placements,
+                                 boolean exact) {
+        List<PlacementResponse> sorted = new ArrayList<>(placements);
+        sorted.sort((a, b) -> Long.compare(a.getPlacementId(), b.getPlacementId()));
+        
+        Map<Long, Integer> objectIndexes = new HashMap<>();
+        List<PlacementResponse> objects = new ArrayList<>();
+        int[] indexes = new int[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            PlacementResponse placement = sorted.get(i);
+            Integer index = objectIndexes.get(placement.getObjectId());
+            if (index == null) {
+                index = objects.size();
+                objectIndexes.put(placement.getObjectId(), index);
+                objects.add(placement);
+            }
+            indexes[i] = index;
+        }
+        
+        int numberSize = exact ? 8 : 4;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                64 + objects.size() * (40 + 2 * numberSize) + sorted.size() * (6 + 3 * numberSize));
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.write(MAGIC);
+            out.writeByte(exact ? EXACT_FORMAT_VERSION : FORMAT_VERSION);
+            out.writeLong(roomId != null ? roomId : -1);
+            out.writeLong(layoutVersion != null ? layoutVersion : -1);
+            
+            out.writeInt(objects.size());
+            for (PlacementResponse object : objects) {
+                out.writeLong(object.getObjectId());
+                writeNumber(out, object.getObjectWidth(), exact);
+                writeNumber(out, object.getObjectHeight(), exact);
+                writeString(out, object.getObjectName());
+                writeString(out, object.getObjectColor());
+            }
+            
+            out.writeInt(sorted.size());
+            long previousId = 0;
+            for (PlacementResponse placement : sorted) {
+                writeVarint(out, placement.getPlacementId() - previousId);
+                previousId = placement.getPlacementId();
+            }
+            for (int index : indexes) {
+                out.writeInt(index);
+            }
+            for (PlacementResponse placement : sorted) {
+                writeNumber(out, placement.getX(), exact);
+            }
+            for (PlacementResponse placement : sorted) {
+                writeNumber(out, placement.getY(), exact);
+            }
+            for (PlacementResponse placement : sorted) {
+                writeNumber(out, placement.getRotation(), exact);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    // Reverse of encode, for clients and tests written in Java
+    public static List<PlacementResponse> decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        for (byte expected : MAGIC) {
+            if (in.get() != expected) {
+                throw new IllegalArgumentException("Not a layout payload");
+            }
+        }
+        int formatVersion = in.get();
+        if (formatVersion != FORMAT_VERSION && formatVersion != EXACT_FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported layout format version: " + formatVersion);
+        }
+        boolean exact = formatVersion == EXACT_FORMAT_VERSION;
+        long roomId = in.getLong();
+        in.getLong(); // layout version
+        
+        int objectCount = in.getInt();
+        long[] objectIds = new long[objectCount];
+        Double[] widths = new Double[objectCount];
+        Double[] heights = new Double[objectCount];
+        String[] names = new String[objectCount];
+        String[] colors = new String[objectCount];
+        for (int i = 0; i < objectCount; i++) {
+            objectIds[i] = in.getLong();
+            widths[i] = readNumber(in, exact);
+            heights[i] = readNumber(in, exact);
+            names[i] = readString(in);
+            String color = readString(in);
+            colors[i] = color.isEmpty() ? null : color;
+        }
+        
+        int count = in.getInt();
+        long[] placementIds = new long[count];
+        long previousId = 0;
+        for (int i = 0; i < count; i++) {
+            previousId += readVarint(in);
+            placementIds[i] = previousId;
+        }
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = in.getInt();
+        }
+        Double[] xs = new Double[count];
+        Double[] ys = new Double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = readNumber(in, exact);
+        }
+        for (int i = 0; i < count; i++) {
+            ys[i] = readNumber(in, exact);
+        }
+        
+        List<PlacementResponse> placements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Double rotation = readNumber(in, exact);
+            int o = indexes[i];
+            placements.add(new PlacementResponse(placementIds[i], roomId, objectIds[o], names[o], widths[o],
+                    heights[o], colors[o], xs[i], ys[i], rotation));
+        }
+        return placements;
+    }
+    
+    private static void writeNumber(DataOutputStream out, Double value, boolean exact) throws IOException {
+        if (exact) {
+            out.writeDouble(value != null ? value : Double.NaN);
+        } else {
+            out.writeFloat(value != null ? value.floatValue() : Float.NaN);
+        }
+    }
+    
+    private static Double readNumber(ByteBuffer in, boolean exact) {
+        double value = exact ? in.getDouble() : in.getFloat();
+        return Double.isNaN(value) ? null : value;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(utf8.length, 0xFFFF);
+        out.writeShort(length);
+        out.write(utf8, 0, length);
+    }
+    
+    private static String readString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+    
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.CourseCluster.dto;
 
 public class PlacementRequest {
+    private Long placementId; // only used by batch updates
     private Long roomId;
     private Long objectId;
     private Double x;
@@ -19,6 +20,14 @@ public class PlacementRequest {
     }
     
     // Getters and Setters
+    public Long getPlacementId() {
+        return placementId;
+    }
+    
+    public void setPlacementId(Long placementId) {
+        this.placementId = placementId;
+    }
+    
     public Long getRoomId() {
         return roomId;
     }
@@ -14,6 +14,22 @@ public class PlacementResponse {
     private Double y;
     private Double rotation;
     
+    // Constructor used by JPQL projection queries
+    public PlacementResponse(Long placementId, Long roomId, Long objectId, String objectName,
+                             Double objectWidth, Double objectHeight, String objectColor,
+                             Double x, Double y, Double rotation) {
+        this.placementId = placementId;
+        this.roomId = roomId;
+        this.objectId = objectId;
+        this.objectName = objectName;
+        this.objectWidth = objectWidth;
+        this.objectHeight = objectHeight;
+        this.objectColor = objectColor;
+        this.x = x;
+        this.y = y;
+        this.rotation = rotation;
+    }
+    
     // Constructor from Placement entity
     public PlacementResponse(Placement placement) {
         this.placementId = placement.getPlacementId();
@@ -0,0 +1,55 @@
+package com.example.CourseCluster.dto;
+
+import com.example.CourseCluster.service.PlacementRejectedException;
+
+import java.util.List;
+
+public class PlacementValidationResponse {
+    private boolean valid;
+    private PlacementRejectedException.Reason reason;
+    private List<Long> conflictingPlacementIds;
+    
+    // Constructors
+    public PlacementValidationResponse() {}
+    
+    public PlacementValidationResponse(boolean valid, PlacementRejectedException.Reason reason,
+                                       List<Long> conflictingPlacementIds) {
+        this.valid = valid;
+        this.reason = reason;
+        this.conflictingPlacementIds = conflictingPlacementIds;
+    }
+    
+    public static PlacementValidationResponse accepted() {
+        return new PlacementValidationResponse(true, null, List.of());
+    }
+    
+    public static PlacementValidationResponse rejected(PlacementRejectedException.Reason reason,
+                                                       List<Long> conflictingPlacementIds) {
+        return new PlacementValidationResponse(false, reason, conflictingPlacementIds);
+    }
+    
+    // Getters and Setters
+    public boolean isValid() {
+        return valid;
+    }
+    
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+    
+    public PlacementRejectedException.Reason getReason() {
+        return reason;
+    }
+    
+    public void setReason(PlacementRejectedException.Reason reason) {
+        this.reason = reason;
+    }
+    
+    public List<Long> getConflictingPlacementIds() {
+        return conflictingPlacementIds;
+    }
+    
+    public void setConflictingPlacementIds(List<Long> conflictingPlacementIds) {
+        this.conflictingPlacementIds = conflictingPlacementIds;
+    }
+}
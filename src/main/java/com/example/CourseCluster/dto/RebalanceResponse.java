@@ -0,0 +1,43 @@
+package com.example.CourseCluster.dto;
+
+import java.util.List;
+
+public class RebalanceResponse {
+    private int roomsMoved;
+    private List<ShardResponse> shards; // room counts after the moves
+    private long elapsedMs;
+    
+    // Constructors
+    public RebalanceResponse() {}
+    
+    public RebalanceResponse(int roomsMoved, List<ShardResponse> shards, long elapsedMs) {
+        this.roomsMoved = roomsMoved;
+        this.shards = shards;
+        this.elapsedMs = elapsedMs;
+    }
+    
+    // Getters and Setters
+    public int getRoomsMoved() {
+        return roomsMoved;
+    }
+    
+    public void setRoomsMoved(int roomsMoved) {
+        this.roomsMoved = roomsMoved;
+    }
+    
+    public List<ShardResponse> getShards() {
+        return shards;
+    }
+    
+    public void setShards(List<ShardResponse> shards) {
+        this.shards = shards;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
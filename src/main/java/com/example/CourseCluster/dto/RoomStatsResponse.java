@@ -0,0 +1,61 @@
+package com.example.CourseCluster.dto;
+
+public class RoomStatsResponse {
+    private Long roomId;
+    private long itemCount;
+    private double occupiedArea; // square feet covered by placed objects
+    private double floorArea; // length * width
+    private double fillRatio; // occupiedArea / floorArea
+    
+    // Constructors
+    public RoomStatsResponse() {}
+    
+    public RoomStatsResponse(Long roomId, long itemCount, double occupiedArea, double floorArea, double fillRatio) {
+        this.roomId = roomId;
+        this.itemCount = itemCount;
+        this.occupiedArea = occupiedArea;
+        this.floorArea = floorArea;
+        this.fillRatio = fillRatio;
+    }
+    
+    // Getters and Setters
+    public Long getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+    
+    public long getItemCount() {
+        return itemCount;
+    }
+    
+    public void setItemCount(long itemCount) {
+        this.itemCount = itemCount;
+    }
+    
+    public double getOccupiedArea() {
+        return occupiedArea;
+    }
+    
+    public void setOccupiedArea(double occupiedArea) {
+        this.occupiedArea = occupiedArea;
+    }
+    
+    public double getFloorArea() {
+        return floorArea;
+    }
+    
+    public void setFloorArea(double floorArea) {
+        this.floorArea = floorArea;
+    }
+    
+    public double getFillRatio() {
+        return fillRatio;
+    }
+    
+    public void setFillRatio(double fillRatio) {
+        this.fillRatio = fillRatio;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.CourseCluster.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+
+// One entry of GET /api/rooms/{id}/versions: a layout version produced by
+// placement changes
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomVersionInfo {
+    private Long version;
+    private Long changes; // placements created, moved or deleted
+    private Instant changedAt;
+    private Long undoOf; // set when the version was made by an undo
+    
+    // Constructors
+    public RoomVersionInfo() {}
+    
+    public RoomVersionInfo(Long version, Long changes, Instant changedAt, Long undoOf) {
+        this.version = version;
+        this.changes = changes;
+        this.changedAt = changedAt;
+        this.undoOf = undoOf;
+    }
+    
+    // Getters and Setters
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Long getChanges() {
+        return changes;
+    }
+    
+    public void setChanges(Long changes) {
+        this.changes = changes;
+    }
+    
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+    
+    public void setChangedAt(Instant changedAt) {
+        this.changedAt = changedAt;
+    }
+    
+    public Long getUndoOf() {
+        return undoOf;
+    }
+    
+    public void setUndoOf(Long undoOf) {
+        this.undoOf = undoOf;
+    }
+}
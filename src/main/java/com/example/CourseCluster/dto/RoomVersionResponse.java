@@ -0,0 +1,76 @@
+package com.example.CourseCluster.dto;
+
+import java.util.List;
+
+// A room as it was at a past layout version. Only placements are versioned;
+// name and dimensions are the room's current ones.
+public class RoomVersionResponse {
+    private Long roomId;
+    private String name;
+    private Double length;
+    private Double width;
+    private Long version;
+    private List<PlacementResponse> placements;
+    
+    // Constructors
+    public RoomVersionResponse() {}
+    
+    public RoomVersionResponse(Long roomId, String name, Double length, Double width, Long version,
+                               List<PlacementResponse> placements) {
+        this.roomId = roomId;
+        this.name = name;
+        this.length = length;
+        this.width = width;
+        this.version = version;
+        this.placements = placements;
+    }
+    
+    // Getters and Setters
+    public Long getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public Double getLength() {
+        return length;
+    }
+    
+    public void setLength(Double length) {
+        this.length = length;
+    }
+    
+    public Double getWidth() {
+        return width;
+    }
+    
+    public void setWidth(Double width) {
+        this.width = width;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public List<PlacementResponse> getPlacements() {
+        return placements;
+    }
+    
+    public void setPlacements(List<PlacementResponse> placements) {
+        this.placements = placements;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.CourseCluster.dto;
+
+public class ShardResponse {
+    private int shard;
+    private long roomCount;
+    private long placementCount;
+    
+    // Constructors
+    public ShardResponse() {}
+    
+    public ShardResponse(int shard, long roomCount, long placementCount) {
+        this.shard = shard;
+        this.roomCount = roomCount;
+        this.placementCount = placementCount;
+    }
+    
+    // Getters and Setters
+    public int getShard() {
+        return shard;
+    }
+    
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+    
+    public long getRoomCount() {
+        return roomCount;
+    }
+    
+    public void setRoomCount(long roomCount) {
+        this.roomCount = roomCount;
+    }
+    
+    public long getPlacementCount() {
+        return placementCount;
+    }
+    
+    public void setPlacementCount(long placementCount) {
+        this.placementCount = placementCount;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.CourseCluster.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One line of a site export: an object, a room or a placement, told apart by
+// type. Ids are those of the exporting database; import assigns new ones and
+// rewrites the references in placements.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SiteRecord {
+    
+    public static final String OBJECT = "object";
+    public static final String ROOM = "room";
+    public static final String PLACEMENT = "placement";
+    
+    private String type;
+    private Long id;
+    private String name;
+    private Double length; // room
+    private Double width; // room or object
+    private Double height; // object
+    private String color; // object
+    private Long roomId; // placement
+    private Long objectId; // placement
+    private Double x; // placement
+    private Double y; // placement
+    private Double rotation; // placement
+    
+    // Constructors
+    public SiteRecord() {}
+    
+    public static SiteRecord object(Long id, String name, Double width, Double height, String color) {
+        SiteRecord record = new SiteRecord();
+        record.type = OBJECT;
+        record.id = id;
+        record.name = name;
+        record.width = width;
+        record.height = height;
+        record.color = color;
+        return record;
+    }
+    
+    public static SiteRecord room(Long id, String name, Double length, Double width) {
+        SiteRecord record = new SiteRecord();
+        record.type = ROOM;
+        record.id = id;
+        record.name = name;
+        record.length = length;
+        record.width = width;
+        return record;
+    }
+    
+    public static SiteRecord placement(Long id, Long roomId, Long objectId, Double x, Double y, Double rotation) {
+        SiteRecord record = new SiteRecord();
+        record.type = PLACEMENT;
+        record.id = id;
+        record.roomId = roomId;
+        record.objectId = objectId;
+        record.x = x;
+        record.y = y;
+        record.rotation = rotation;
+        return record;
+    }
+    
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public Double getLength() {
+        return length;
+    }
+    
+    public void setLength(Double length) {
+        this.length = length;
+    }
+    
+    public Double getWidth() {
+        return width;
+    }
+    
+    public void setWidth(Double width) {
+        this.width = width;
+    }
+    
+    public Double getHeight() {
+        return height;
+    }
+    
+    public void setHeight(Double height) {
+        this.height = height;
+    }
+    
+    public String getColor() {
+        return color;
+    }
+    
+    public void setColor(String color) {
+        this.color = color;
+    }
+    
+    public Long getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+    
+    public Long getObjectId() {
+        return objectId;
+    }
+    
+    public void setObjectId(Long objectId) {
+        this.objectId = objectId;
+    }
+    
+    public Double getX() {
+        return x;
+    }
+    
+    public void setX(Double x) {
+        this.x = x;
+    }
+    
+    public Double getY() {
+        return y;
+    }
+    
+    public void setY(Double y) {
+        this.y = y;
+    }
+    
+    public Double getRotation() {
+        return rotation;
+    }
+    
+    public void setRotation(Double rotation) {
+        this.rotation = rotation;
+    }
+}
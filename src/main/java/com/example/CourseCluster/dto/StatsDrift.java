@@ -0,0 +1,75 @@
+package com.example.CourseCluster.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// A counter that did not match its recomputed value. Area fields are set for rooms only.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StatsDrift {
+    private String kind; // "room" or "object"
+    private Long id;
+    private Long storedCount; // null when the counter row was missing
+    private long actualCount;
+    private Double storedArea;
+    private Double actualArea;
+    
+    // Constructors
+    public StatsDrift() {}
+    
+    public StatsDrift(String kind, Long id, Long storedCount, long actualCount, Double storedArea, Double actualArea) {
+        this.kind = kind;
+        this.id = id;
+        this.storedCount = storedCount;
+        this.actualCount = actualCount;
+        this.storedArea = storedArea;
+        this.actualArea = actualArea;
+    }
+    
+    // Getters and Setters
+    public String getKind() {
+        return kind;
+    }
+    
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getStoredCount() {
+        return storedCount;
+    }
+    
+    public void setStoredCount(Long storedCount) {
+        this.storedCount = storedCount;
+    }
+    
+    public long getActualCount() {
+        return actualCount;
+    }
+    
+    public void setActualCount(long actualCount) {
+        this.actualCount = actualCount;
+    }
+    
+    public Double getStoredArea() {
+        return storedArea;
+    }
+    
+    public void setStoredArea(Double storedArea) {
+        this.storedArea = storedArea;
+    }
+    
+    public Double getActualArea() {
+        return actualArea;
+    }
+    
+    public void setActualArea(Double actualArea) {
+        this.actualArea = actualArea;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.CourseCluster.dto;
+
+import java.util.List;
+
+public class StatsVerifyResponse {
+    private int roomsChecked;
+    private int objectsChecked;
+    private int roomsDrifted;
+    private int objectsDrifted;
+    private boolean repaired;
+    private List<StatsDrift> drift; // the first few mismatches found
+    private long elapsedMs;
+    
+    // Constructors
+    public StatsVerifyResponse() {}
+    
+    public StatsVerifyResponse(int roomsChecked, int objectsChecked, int roomsDrifted, int objectsDrifted,
+                               boolean repaired, List<StatsDrift> drift, long elapsedMs) {
+        this.roomsChecked = roomsChecked;
+        this.objectsChecked = objectsChecked;
+        this.roomsDrifted = roomsDrifted;
+        this.objectsDrifted = objectsDrifted;
+        this.repaired = repaired;
+        this.drift = drift;
+        this.elapsedMs = elapsedMs;
+    }
+    
+    // Getters and Setters
+    public int getRoomsChecked() {
+        return roomsChecked;
+    }
+    
+    public void setRoomsChecked(int roomsChecked) {
+        this.roomsChecked = roomsChecked;
+    }
+    
+    public int getObjectsChecked() {
+        return objectsChecked;
+    }
+    
+    public void setObjectsChecked(int objectsChecked) {
+        this.objectsChecked = objectsChecked;
+    }
+    
+    public int getRoomsDrifted() {
+        return roomsDrifted;
+    }
+    
+    public void setRoomsDrifted(int roomsDrifted) {
+        this.roomsDrifted = roomsDrifted;
+    }
+    
+    public int getObjectsDrifted() {
+        return objectsDrifted;
+    }
+    
+    public void setObjectsDrifted(int objectsDrifted) {
+        this.objectsDrifted = objectsDrifted;
+    }
+    
+    public boolean isRepaired() {
+        return repaired;
+    }
+    
+    public void setRepaired(boolean repaired) {
+        this.repaired = repaired;
+    }
+    
+    public List<StatsDrift> getDrift() {
+        return drift;
+    }
+    
+    public void setDrift(List<StatsDrift> drift) {
+        this.drift = drift;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
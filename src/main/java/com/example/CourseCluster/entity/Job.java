@@ -0,0 +1,182 @@
+package com.example.CourseCluster.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.Instant;
+
+// A long-running operation (layout solving, imports, cloning) queued for the
+// job workers. Rows outlive restarts so queued work is picked up again.
+@Entity
+@Table(name = "jobs", indexes = @Index(name = "idx_jobs_status", columnList = "status, job_id"))
+public class Job {
+    
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED;
+        
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long jobId;
+    
+    @Column(nullable = false, length = 64)
+    private String type;
+    
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR) // plain varchar rather than a native enum column
+    @Column(nullable = false, length = 16)
+    private Status status = Status.QUEUED;
+    
+    @Column(nullable = false)
+    private Integer progress = 0; // percent
+    
+    private String message;
+    
+    @JsonIgnore // fetched through /api/jobs/{id}/result
+    @Lob
+    private String payload;
+    
+    @JsonIgnore
+    @Lob
+    private String result;
+    
+    @Column(length = 1000)
+    private String error;
+    
+    @Column(nullable = false)
+    private Instant createdAt;
+    
+    private Instant startedAt;
+    
+    private Instant finishedAt;
+    
+    @JsonIgnore
+    @Column(length = 64)
+    private String owner; // instance running the job
+    
+    @JsonIgnore
+    private Instant heartbeatAt;
+    
+    // Constructors
+    public Job() {}
+    
+    public Job(String type, String payload) {
+        this.type = type;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+    
+    // Getters and Setters
+    public Long getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public Integer getProgress() {
+        return progress;
+    }
+    
+    public void setProgress(Integer progress) {
+        this.progress = progress;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public String getResult() {
+        return result;
+    }
+    
+    public void setResult(String result) {
+        this.result = result;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+    
+    public void setHeartbeatAt(Instant heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+}
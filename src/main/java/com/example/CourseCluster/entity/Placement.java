@@ -1,14 +1,25 @@
 package com.example.CourseCluster.entity;
 
+import com.example.CourseCluster.config.ShardSequenceGenerator;
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
-@Table(name = "placements")
+@Table(name = "placements", indexes = {
+        @Index(name = "idx_placements_room_placement", columnList = "room_id, placement_id"),
+        @Index(name = "idx_placements_object", columnList = "object_id")})
 public class Placement {
     
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts; pooled
+    // per shard, so the id tells which shard the placement was created on
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "placement_seq")
+    @GenericGenerator(name = "placement_seq", type = ShardSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "placement_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")})
     private Long placementId;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -16,7 +27,7 @@ public class Placement {
     @JsonIgnore
     private Room room;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "object_id", nullable = false)
     private RoomObject roomObject;
     
@@ -0,0 +1,175 @@
+package com.example.CourseCluster.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.Instant;
+
+// One placement operation in a room's append-only change log. Positions are
+// kept both before and after the change, so the log can be replayed forwards
+// from an older snapshot or backwards from a newer one.
+@Entity
+@Table(name = "placement_changes", indexes = @Index(name = "idx_placement_changes_room_version",
+        columnList = "room_id, version"))
+public class PlacementChange {
+    
+    public enum Type {
+        CREATED,
+        MOVED,
+        DELETED
+    }
+    
+    // Pooled sequence so the history writer's inserts are batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "placement_change_seq")
+    @SequenceGenerator(name = "placement_change_seq", sequenceName = "placement_change_seq", allocationSize = 50)
+    private Long changeId;
+    
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+    
+    @Column(nullable = false)
+    private Long version; // room layout version produced by the change
+    
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private Type type;
+    
+    @Column(nullable = false)
+    private Long placementId;
+    
+    @Column(nullable = false)
+    private Long objectId;
+    
+    // After the change; null for deletes
+    private Double x;
+    private Double y;
+    private Double rotation;
+    
+    // Before the change; null for creates
+    private Double previousX;
+    private Double previousY;
+    private Double previousRotation;
+    
+    private Long undoOf; // version reverted by this change, when made by an undo
+    
+    @Column(nullable = false)
+    private Instant changedAt;
+    
+    // Constructors
+    public PlacementChange() {}
+    
+    // Getters and Setters
+    public Long getChangeId() {
+        return changeId;
+    }
+    
+    public void setChangeId(Long changeId) {
+        this.changeId = changeId;
+    }
+    
+    public Long getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public void setType(Type type) {
+        this.type = type;
+    }
+    
+    public Long getPlacementId() {
+        return placementId;
+    }
+    
+    public void setPlacementId(Long placementId) {
+        this.placementId = placementId;
+    }
+    
+    public Long getObjectId() {
+        return objectId;
+    }
+    
+    public void setObjectId(Long objectId) {
+        this.objectId = objectId;
+    }
+    
+    public Double getX() {
+        return x;
+    }
+    
+    public void setX(Double x) {
+        this.x = x;
+    }
+    
+    public Double getY() {
+        return y;
+    }
+    
+    public void setY(Double y) {
+        this.y = y;
+    }
+    
+    public Double getRotation() {
+        return rotation;
+    }
+    
+    public void setRotation(Double rotation) {
+        this.rotation = rotation;
+    }
+    
+    public Double getPreviousX() {
+        return previousX;
+    }
+    
+    public void setPreviousX(Double previousX) {
+        this.previousX = previousX;
+    }
+    
+    public Double getPreviousY() {
+        return previousY;
+    }
+    
+    public void setPreviousY(Double previousY) {
+        this.previousY = previousY;
+    }
+    
+    public Double getPreviousRotation() {
+        return previousRotation;
+    }
+    
+    public void setPreviousRotation(Double previousRotation) {
+        this.previousRotation = previousRotation;
+    }
+    
+    public Long getUndoOf() {
+        return undoOf;
+    }
+    
+    public void setUndoOf(Long undoOf) {
+        this.undoOf = undoOf;
+    }
+    
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+    
+    public void setChangedAt(Instant changedAt) {
+        this.changedAt = changedAt;
+    }
+}
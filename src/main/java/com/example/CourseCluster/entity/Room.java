@@ -1,6 +1,11 @@
 package com.example.CourseCluster.entity;
 
+import com.example.CourseCluster.config.ShardSequenceGenerator;
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,8 +13,14 @@ import java.util.List;
 @Table(name = "rooms")
 public class Room {
     
+    // Pooled per shard like placement ids, rather than the table's counter: a
+    // room moved in from another shard keeps its id, and MySQL would raise the
+    // counter past it
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "room_seq")
+    @GenericGenerator(name = "room_seq", type = ShardSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "room_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")})
     private Long roomId;
     
     @Column(nullable = false)
@@ -21,6 +32,11 @@ public class Room {
     @Column(nullable = false)
     private Double width; // in feet
     
+    // Bumped by every change to the room or its placements; exposed as the ETag
+    @Column(name = "layout_version", nullable = false)
+    private Long version = 0L;
+    
+    @JsonIgnore // placements are read through /api/placements, not walked per row
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Placement> placements = new ArrayList<>();
     
@@ -66,6 +82,14 @@ public class Room {
         this.width = width;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public List<Placement> getPlacements() {
         return placements;
     }
@@ -1,11 +1,16 @@
 package com.example.CourseCluster.entity;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.SQLRestriction;
 import java.util.ArrayList;
 import java.util.List;
 
+// Objects retired with DELETE ?async=true keep their row, with deleted_at set,
+// until their placements are swept; entity queries no longer see them
 @Entity
 @Table(name = "objects")
+@SQLRestriction("deleted_at is null")
 public class RoomObject {
     
     @Id
@@ -24,6 +29,7 @@ public class RoomObject {
     @Column
     private String color; // hex color for visualization
     
+    @JsonIgnore // placements are read through /api/placements, not walked per row
     @OneToMany(mappedBy = "roomObject", cascade = CascadeType.ALL)
     private List<Placement> placements = new ArrayList<>();
     
@@ -0,0 +1,105 @@
+package com.example.CourseCluster.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Full placement list of a room at one layout version, in the double precision
+// binary layout format (PlacementLayoutCodec.encodeExact). Past versions are rebuilt from the nearest
+// snapshot plus the change log in between.
+@Entity
+@Table(name = "room_snapshots", indexes = @Index(name = "idx_room_snapshots_room_version",
+        columnList = "room_id, version"))
+public class RoomSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long snapshotId;
+    
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(nullable = false)
+    private Integer placementCount;
+    
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+    
+    @Column(nullable = false)
+    private Instant createdAt;
+    
+    // Set when versions after gapAfter went missing from the change log; the
+    // layouts between gapAfter and this version cannot be rebuilt
+    private Long gapAfter;
+    
+    // Constructors
+    public RoomSnapshot() {}
+    
+    public RoomSnapshot(Long roomId, Long version, Integer placementCount, byte[] data) {
+        this.roomId = roomId;
+        this.version = version;
+        this.placementCount = placementCount;
+        this.data = data;
+        this.createdAt = Instant.now();
+    }
+    
+    // Getters and Setters
+    public Long getSnapshotId() {
+        return snapshotId;
+    }
+    
+    public void setSnapshotId(Long snapshotId) {
+        this.snapshotId = snapshotId;
+    }
+    
+    public Long getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Integer getPlacementCount() {
+        return placementCount;
+    }
+    
+    public void setPlacementCount(Integer placementCount) {
+        this.placementCount = placementCount;
+    }
+    
+    public byte[] getData() {
+        return data;
+    }
+    
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public Long getGapAfter() {
+        return gapAfter;
+    }
+    
+    public void setGapAfter(Long gapAfter) {
+        this.gapAfter = gapAfter;
+    }
+}
@@ -0,0 +1,416 @@
+package com.example.CourseCluster.layout;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+// Places rectangular items inside a room by simulated annealing. Items stay
+// axis-aligned (rotation 0 or 90) with their bounding box on a SNAP grid, and
+// furniture already in the room is passed in as fixed obstacles (its bounding box).
+// Independent runs with different seeds execute in parallel on a ForkJoinPool;
+// the lowest-energy layout found before the deadline wins.
+//
+// Energy = overlap area (inflated by the clearance) + distance of wall-adjacent
+// items from the nearest wall + gaps between members of a keep-together group.
+// Members of the same group may touch; the clearance applies between everything else.
+public class LayoutSolver {
+
+    public static final double SNAP = 0.25;
+    
+    private static final double EPSILON = OrientedBox.EPSILON;
+    private static final double OVERLAP_WEIGHT = 10.0;
+    private static final double WALL_WEIGHT = 2.0;
+    private static final double GROUP_WEIGHT = 1.0;
+    private static final double T_START = 20.0;
+    private static final double T_END = 0.01;
+    private static final int CHECK_INTERVAL = 256;
+    
+    private final double length;
+    private final double width;
+    private final double clearance;
+    
+    private final List<double[]> items = new ArrayList<>();       // {width, height}
+    private final List<Boolean> wallAdjacent = new ArrayList<>();
+    private final List<Integer> groups = new ArrayList<>();
+    private final List<double[]> obstacles = new ArrayList<>();   // {minX, minY, maxX, maxY}
+    
+    public LayoutSolver(double length, double width, double clearance) {
+        this.length = length;
+        this.width = width;
+        this.clearance = Math.max(0, clearance);
+    }
+    
+    // group < 0 means the item is not part of a keep-together group
+    public int addItem(double itemWidth, double itemHeight, boolean mustTouchWall, int group) {
+        items.add(new double[] {itemWidth, itemHeight});
+        wallAdjacent.add(mustTouchWall);
+        groups.add(group);
+        return items.size() - 1;
+    }
+    
+    public void addObstacle(double minX, double minY, double maxX, double maxY) {
+        obstacles.add(new double[] {minX, minY, maxX, maxY});
+    }
+    
+    // True if the item fits the room in at least one of its two orientations
+    public boolean fits(double itemWidth, double itemHeight) {
+        return (itemWidth <= length + EPSILON && itemHeight <= width + EPSILON)
+                || (itemHeight <= length + EPSILON && itemWidth <= width + EPSILON);
+    }
+    
+    public Solution solve(ForkJoinPool pool, int runs, long budgetNanos) {
+        Problem problem = new Problem();
+        long deadline = System.nanoTime() + budgetNanos;
+        AtomicBoolean solved = new AtomicBoolean();
+        try {
+            List<Solution> results = pool.submit(() -> IntStream.range(0, Math.max(1, runs))
+                    .parallel()
+                    .mapToObj(seed -> new Run(problem, seed, deadline, budgetNanos, solved).anneal())
+                    .toList()).get();
+            long iterations = results.stream().mapToLong(Solution::getIterations).sum();
+            return results.stream()
+                    .min(Comparator.comparingDouble(Solution::getEnergy))
+                    .orElseThrow()
+                    .withIterations(iterations);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Layout search interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    // Positions follow the placement model: (x, y) is the top-left of the unrotated
+    // footprint and rotation is about its center
+    public static final class Solution {
+        private final double[] x;
+        private final double[] y;
+        private final double[] rotation;
+        private final double energy;
+        private final long iterations;
+        
+        Solution(double[] x, double[] y, double[] rotation, double energy, long iterations) {
+            this.x = x;
+            this.y = y;
+            this.rotation = rotation;
+            this.energy = energy;
+            this.iterations = iterations;
+        }
+        
+        public double getX(int item) {
+            return x[item];
+        }
+        
+        public double getY(int item) {
+            return y[item];
+        }
+        
+        public double getRotation(int item) {
+            return rotation[item];
+        }
+        
+        public double getEnergy() {
+            return energy;
+        }
+        
+        public long getIterations() {
+            return iterations;
+        }
+        
+        Solution withIterations(long total) {
+            return new Solution(x, y, rotation, energy, total);
+        }
+    }
+    
+    // Immutable arrays shared by all runs
+    private final class Problem {
+        final int n = items.size();
+        final double[] w = new double[n];
+        final double[] h = new double[n];
+        final boolean[] wall = new boolean[n];
+        final int[] group = new int[n];
+        final boolean[] canStay = new boolean[n];
+        final boolean[] canTurn = new boolean[n];
+        final int[][] members;
+        final double[][] obstacle = obstacles.toArray(new double[0][]);
+        
+        Problem() {
+            int groupCount = 0;
+            for (int i = 0; i < n; i++) {
+                w[i] = items.get(i)[0];
+                h[i] = items.get(i)[1];
+                wall[i] = wallAdjacent.get(i);
+                group[i] = groups.get(i);
+                canStay[i] = w[i] <= length + EPSILON && h[i] <= width + EPSILON;
+                canTurn[i] = h[i] <= length + EPSILON && w[i] <= width + EPSILON;
+                if (!canStay[i] && !canTurn[i]) {
+                    throw new IllegalArgumentException("Item " + i + " does not fit in the room");
+                }
+                groupCount = Math.max(groupCount, group[i] + 1);
+            }
+            int[] sizes = new int[groupCount];
+            for (int i = 0; i < n; i++) {
+                if (group[i] >= 0) {
+                    sizes[group[i]]++;
+                }
+            }
+            members = new int[groupCount][];
+            for (int g = 0; g < groupCount; g++) {
+                members[g] = new int[sizes[g]];
+                sizes[g] = 0;
+            }
+            for (int i = 0; i < n; i++) {
+                if (group[i] >= 0) {
+                    members[group[i]][sizes[group[i]]++] = i;
+                }
+            }
+        }
+    }
+    
+    // One annealing run. State is the bounding-box corner (bx, by) and whether
+    // the item is turned 90 degrees.
+    private final class Run {
+        private final Problem p;
+        private final SplittableRandom random;
+        private final long deadline;
+        private final long budgetNanos;
+        private final AtomicBoolean solved;
+        
+        private final double[] bx;
+        private final double[] by;
+        private final boolean[] turned;
+        private final double[] bestX;
+        private final double[] bestY;
+        private final boolean[] bestTurned;
+        
+        Run(Problem p, int seed, long deadline, long budgetNanos, AtomicBoolean solved) {
+            this.p = p;
+            this.random = new SplittableRandom(0x5DEECE66DL * (seed + 1));
+            this.deadline = deadline;
+            this.budgetNanos = budgetNanos;
+            this.solved = solved;
+            bx = new double[p.n];
+            by = new double[p.n];
+            turned = new boolean[p.n];
+            bestX = new double[p.n];
+            bestY = new double[p.n];
+            bestTurned = new boolean[p.n];
+        }
+        
+        Solution anneal() {
+            for (int i = 0; i < p.n; i++) {
+                turned[i] = !p.canStay[i] || (p.canTurn[i] && random.nextBoolean());
+                jump(i);
+            }
+            double energy = totalEnergy();
+            double best = energy;
+            saveBest();
+            
+            long iterations = 0;
+            double temperature = T_START;
+            while (p.n > 0 && best > EPSILON && !solved.get()) {
+                if (iterations % CHECK_INTERVAL == 0) {
+                    long now = System.nanoTime();
+                    if (now >= deadline) {
+                        break;
+                    }
+                    double progress = 1.0 - (double) (deadline - now) / budgetNanos;
+                    temperature = T_START * Math.pow(T_END / T_START, Math.max(0, progress));
+                }
+                iterations++;
+                
+                int i = random.nextInt(p.n);
+                double oldX = bx[i];
+                double oldY = by[i];
+                boolean oldTurned = turned[i];
+                double before = itemEnergy(i);
+                
+                double move = random.nextDouble();
+                if (move < 0.1) {
+                    jump(i);
+                } else if (move < 0.2 && p.canStay[i] && p.canTurn[i]) {
+                    turn(i);
+                } else {
+                    double step = Math.max(SNAP, 0.5 * Math.max(length, width) * Math.sqrt(temperature / T_START));
+                    bx[i] = snapX(bx[i] + random.nextGaussian() * step, boxWidth(i));
+                    by[i] = snapY(by[i] + random.nextGaussian() * step, boxHeight(i));
+                }
+                
+                double delta = itemEnergy(i) - before;
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    energy += delta;
+                    if (energy < best - EPSILON) {
+                        best = energy;
+                        saveBest();
+                    }
+                } else {
+                    bx[i] = oldX;
+                    by[i] = oldY;
+                    turned[i] = oldTurned;
+                }
+            }
+            
+            restoreBest();
+            double finalEnergy = totalEnergy();
+            if (finalEnergy <= EPSILON) {
+                solved.set(true);
+            }
+            return toSolution(finalEnergy, iterations);
+        }
+        
+        private double boxWidth(int i) {
+            return turned[i] ? p.h[i] : p.w[i];
+        }
+        
+        private double boxHeight(int i) {
+            return turned[i] ? p.w[i] : p.h[i];
+        }
+        
+        // Clamps into the room and snaps to the grid; the far wall is always reachable
+        private double snapX(double value, double size) {
+            return snap(value, length - size);
+        }
+        
+        private double snapY(double value, double size) {
+            return snap(value, width - size);
+        }
+        
+        private double snap(double value, double max) {
+            if (value >= max) {
+                return Math.max(0, max);
+            }
+            return Math.max(0, Math.min(Math.round(value / SNAP) * SNAP, max));
+        }
+        
+        private void jump(int i) {
+            bx[i] = snapX(random.nextDouble() * Math.max(SNAP, length - boxWidth(i)), boxWidth(i));
+            by[i] = snapY(random.nextDouble() * Math.max(SNAP, width - boxHeight(i)), boxHeight(i));
+        }
+        
+        // Rotates about the center, then re-clamps
+        private void turn(int i) {
+            double cx = bx[i] + boxWidth(i) / 2;
+            double cy = by[i] + boxHeight(i) / 2;
+            turned[i] = !turned[i];
+            bx[i] = snapX(cx - boxWidth(i) / 2, boxWidth(i));
+            by[i] = snapY(cy - boxHeight(i) / 2, boxHeight(i));
+        }
+        
+        // Every energy term that changes when item i moves
+        private double itemEnergy(int i) {
+            double overlap = obstacleOverlap(i);
+            for (int j = 0; j < p.n; j++) {
+                if (j != i) {
+                    overlap += pairOverlap(i, j);
+                }
+            }
+            double energy = OVERLAP_WEIGHT * overlap + WALL_WEIGHT * wallGap(i);
+            if (p.group[i] >= 0) {
+                energy += GROUP_WEIGHT * groupSpread(p.group[i]);
+            }
+            return energy;
+        }
+        
+        private double totalEnergy() {
+            double overlap = 0;
+            double wall = 0;
+            for (int i = 0; i < p.n; i++) {
+                overlap += obstacleOverlap(i);
+                for (int j = i + 1; j < p.n; j++) {
+                    overlap += pairOverlap(i, j);
+                }
+                wall += wallGap(i);
+            }
+            double spread = 0;
+            for (int g = 0; g < p.members.length; g++) {
+                spread += groupSpread(g);
+            }
+            return OVERLAP_WEIGHT * overlap + WALL_WEIGHT * wall + GROUP_WEIGHT * spread;
+        }
+        
+        private double pairOverlap(int i, int j) {
+            double gap = p.group[i] >= 0 && p.group[i] == p.group[j] ? 0 : clearance;
+            double ox = Math.min(bx[i] + boxWidth(i), bx[j] + boxWidth(j)) - Math.max(bx[i], bx[j]) + gap;
+            if (ox <= EPSILON) {
+                return 0;
+            }
+            double oy = Math.min(by[i] + boxHeight(i), by[j] + boxHeight(j)) - Math.max(by[i], by[j]) + gap;
+            return oy <= EPSILON ? 0 : ox * oy;
+        }
+        
+        private double obstacleOverlap(int i) {
+            double overlap = 0;
+            for (double[] o : p.obstacle) {
+                double ox = Math.min(bx[i] + boxWidth(i), o[2]) - Math.max(bx[i], o[0]) + clearance;
+                double oy = Math.min(by[i] + boxHeight(i), o[3]) - Math.max(by[i], o[1]) + clearance;
+                if (ox > EPSILON && oy > EPSILON) {
+                    overlap += ox * oy;
+                }
+            }
+            return overlap;
+        }
+        
+        private double wallGap(int i) {
+            if (!p.wall[i]) {
+                return 0;
+            }
+            double right = length - bx[i] - boxWidth(i);
+            double bottom = width - by[i] - boxHeight(i);
+            return Math.max(0, Math.min(Math.min(bx[i], by[i]), Math.min(right, bottom)));
+        }
+        
+        // Sum over members of the distance to the nearest other member
+        private double groupSpread(int g) {
+            int[] group = p.members[g];
+            double spread = 0;
+            for (int a : group) {
+                double nearest = Double.MAX_VALUE;
+                for (int b : group) {
+                    if (a != b) {
+                        double dx = Math.max(0, Math.max(bx[b] - bx[a] - boxWidth(a), bx[a] - bx[b] - boxWidth(b)));
+                        double dy = Math.max(0, Math.max(by[b] - by[a] - boxHeight(a), by[a] - by[b] - boxHeight(b)));
+                        nearest = Math.min(nearest, Math.hypot(dx, dy));
+                    }
+                }
+                if (group.length > 1) {
+                    spread += nearest;
+                }
+            }
+            return spread;
+        }
+        
+        private void saveBest() {
+            System.arraycopy(bx, 0, bestX, 0, p.n);
+            System.arraycopy(by, 0, bestY, 0, p.n);
+            System.arraycopy(turned, 0, bestTurned, 0, p.n);
+        }
+        
+        private void restoreBest() {
+            System.arraycopy(bestX, 0, bx, 0, p.n);
+            System.arraycopy(bestY, 0, by, 0, p.n);
+            System.arraycopy(bestTurned, 0, turned, 0, p.n);
+        }
+        
+        private Solution toSolution(double energy, long iterations) {
+            double[] x = new double[p.n];
+            double[] y = new double[p.n];
+            double[] rotation = new double[p.n];
+            for (int i = 0; i < p.n; i++) {
+                double cx = bx[i] + boxWidth(i) / 2;
+                double cy = by[i] + boxHeight(i) / 2;
+                x[i] = cx - p.w[i] / 2;
+                y[i] = cy - p.h[i] / 2;
+                rotation[i] = turned[i] ? 90.0 : 0.0;
+            }
+            return new Solution(x, y, rotation, energy, iterations);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.CourseCluster.layout;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Rasterised occupancy of one room at a fixed resolution. A cell is occupied
+// when any footprint overlaps its interior, so a block of free cells is always
+// safe to place into. Each cell also keeps a coverage count, because a cell on
+// the boundary between two footprints must stay occupied when one is removed.
+// Queries go through a summed-area table that is rebuilt only after a change.
+// Not thread-safe: RoomSpatialIndex updates and queries it under its lock.
+public class OccupancyGrid {
+    
+    private static final double EPSILON = OrientedBox.EPSILON;
+    private static final int MAX_CELLS = 1 << 22;
+    private static final int RECTANGLE_CANDIDATES = 256;
+    
+    private final double length;
+    private final double width;
+    private final double resolution;
+    private final int columns;
+    private final int rows;
+    private final BitSet occupied;
+    private final short[] coverage;
+    
+    private int[] summedArea;
+    private boolean dirty = true;
+    
+    public OccupancyGrid(double length, double width, double resolution) {
+        double cell = resolution > 0 ? resolution : 0.5;
+        while (Math.ceil(length / cell) * Math.ceil(width / cell) > MAX_CELLS) {
+            cell *= 2;
+        }
+        this.length = length;
+        this.width = width;
+        this.resolution = cell;
+        this.columns = Math.max(1, (int) Math.ceil(length / cell - EPSILON));
+        this.rows = Math.max(1, (int) Math.ceil(width / cell - EPSILON));
+        this.occupied = new BitSet(columns * rows);
+        this.coverage = new short[columns * rows];
+    }
+    
+    public double getResolution() {
+        return resolution;
+    }
+    
+    public int occupiedCells() {
+        return occupied.cardinality();
+    }
+    
+    // Footprint as stored by RoomSpatialIndex: oriented box plus its axis-aligned bounds
+    void add(double cx, double cy, double halfX, double halfY, double cos, double sin,
+             double minX, double minY, double maxX, double maxY) {
+        rasterize(cx, cy, halfX, halfY, cos, sin, minX, minY, maxX, maxY, 1);
+    }
+    
+    void remove(double cx, double cy, double halfX, double halfY, double cos, double sin,
+                double minX, double minY, double maxX, double maxY) {
+        rasterize(cx, cy, halfX, halfY, cos, sin, minX, minY, maxX, maxY, -1);
+    }
+    
+    // Writes up to out.length positions (x, y of the item's unrotated top-left,
+    // as used by placements) where an item of the given size and rotation fits
+    // without overlapping anything, scanning row by row. Returns how many
+    // positions exist in total, which may exceed what was written.
+    public int findFreePositions(double objectWidth, double objectHeight, double rotation, double[][] out) {
+        double radians = Math.toRadians(rotation);
+        double c = Math.cos(radians);
+        double s = Math.sin(radians);
+        // The rotated footprint is covered by its bounding box
+        double boxWidth = 2 * OrientedBox.boundingHalfX(objectWidth / 2, objectHeight / 2, c, s);
+        double boxHeight = 2 * OrientedBox.boundingHalfY(objectWidth / 2, objectHeight / 2, c, s);
+        if (boxWidth > length + EPSILON || boxHeight > width + EPSILON) {
+            return 0;
+        }
+        
+        int spanX = Math.max(1, (int) Math.ceil(boxWidth / resolution - EPSILON));
+        int spanY = Math.max(1, (int) Math.ceil(boxHeight / resolution - EPSILON));
+        int lastColumn = Math.min(columns - spanX, (int) Math.floor((length - boxWidth) / resolution + EPSILON));
+        int lastRow = Math.min(rows - spanY, (int) Math.floor((width - boxHeight) / resolution + EPSILON));
+        int[] sat = summedAreaTable();
+        
+        int found = 0;
+        for (int r = 0; r <= lastRow; r++) {
+            for (int col = 0; col <= lastColumn; col++) {
+                if (blockSum(sat, col, r, col + spanX, r + spanY) == 0) {
+                    if (found < out.length) {
+                        double boxX = col * resolution;
+                        double boxY = r * resolution;
+                        out[found] = new double[] {
+                                boxX + boxWidth / 2 - objectWidth / 2,
+                                boxY + boxHeight / 2 - objectHeight / 2
+                        };
+                    }
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+    
+    // The largest empty axis-aligned rectangles as {x, y, width, height}, largest
+    // first, skipping any that lie inside one already returned
+    public List<double[]> largestEmptyRectangles(int limit) {
+        // Per row, heights[c] is the run of free cells ending at this row in column c;
+        // every bar popped from the stack bounds a maximal rectangle
+        PriorityQueue<int[]> candidates = new PriorityQueue<>((a, b) -> Integer.compare(area(a), area(b)));
+        int[] heights = new int[columns];
+        int[] stack = new int[columns + 1];
+        for (int r = 0; r < rows; r++) {
+            for (int col = 0; col < columns; col++) {
+                heights[col] = occupied.get(r * columns + col) ? 0 : heights[col] + 1;
+            }
+            int top = 0;
+            for (int col = 0; col <= columns; col++) {
+                int h = col < columns ? heights[col] : 0;
+                while (top > 0 && heights[stack[top - 1]] >= h) {
+                    int barHeight = heights[stack[--top]];
+                    int left = top > 0 ? stack[top - 1] + 1 : 0;
+                    if (barHeight > 0) {
+                        // {column, row, columns wide, rows high}
+                        candidates.add(new int[] {left, r - barHeight + 1, col - left, barHeight});
+                        if (candidates.size() > RECTANGLE_CANDIDATES) {
+                            candidates.poll();
+                        }
+                    }
+                }
+                stack[top++] = col;
+            }
+        }
+        
+        List<int[]> sorted = new ArrayList<>(candidates);
+        sorted.sort((a, b) -> Integer.compare(area(b), area(a)));
+        List<int[]> chosen = new ArrayList<>();
+        for (int[] candidate : sorted) {
+            if (chosen.size() == limit) {
+                break;
+            }
+            boolean contained = false;
+            for (int[] kept : chosen) {
+                if (candidate[0] >= kept[0] && candidate[1] >= kept[1]
+                        && candidate[0] + candidate[2] <= kept[0] + kept[2]
+                        && candidate[1] + candidate[3] <= kept[1] + kept[3]) {
+                    contained = true;
+                    break;
+                }
+            }
+            if (!contained) {
+                chosen.add(candidate);
+            }
+        }
+        
+        List<double[]> rectangles = new ArrayList<>(chosen.size());
+        for (int[] cells : chosen) {
+            double x = cells[0] * resolution;
+            double y = cells[1] * resolution;
+            // The last row and column may extend past the walls
+            rectangles.add(new double[] {
+                    x, y, Math.min(cells[2] * resolution, length - x), Math.min(cells[3] * resolution, width - y)
+            });
+        }
+        return rectangles;
+    }
+    
+    private static int area(int[] rectangle) {
+        return rectangle[2] * rectangle[3];
+    }
+    
+    private void rasterize(double cx, double cy, double halfX, double halfY, double cos, double sin,
+                           double minX, double minY, double maxX, double maxY, int delta) {
+        double cellHalf = resolution / 2;
+        int firstColumn = clampColumn((int) Math.floor(minX / resolution));
+        int lastColumn = clampColumn((int) Math.ceil(maxX / resolution) - 1);
+        int firstRow = clampRow((int) Math.floor(minY / resolution));
+        int lastRow = clampRow((int) Math.ceil(maxY / resolution) - 1);
+        boolean axisAligned = Math.abs(sin) < EPSILON || Math.abs(cos) < EPSILON;
+        
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                // Axis-aligned footprints cover every cell of their bounds; rotated ones
+                // only the cells their oriented box actually overlaps
+                if (!axisAligned && !OrientedBox.overlaps(cx, cy, halfX, halfY, cos, sin,
+                        (c + 0.5) * resolution, (r + 0.5) * resolution, cellHalf, cellHalf, 1.0, 0.0)) {
+                    continue;
+                }
+                if (axisAligned && (maxX - c * resolution <= EPSILON || (c + 1) * resolution - minX <= EPSILON
+                        || maxY - r * resolution <= EPSILON || (r + 1) * resolution - minY <= EPSILON)) {
+                    continue;
+                }
+                int cell = r * columns + c;
+                coverage[cell] += delta;
+                occupied.set(cell, coverage[cell] > 0);
+            }
+        }
+        dirty = true;
+    }
+    
+    private int clampColumn(int c) {
+        return Math.min(columns - 1, Math.max(0, c));
+    }
+    
+    private int clampRow(int r) {
+        return Math.min(rows - 1, Math.max(0, r));
+    }
+    
+    // sat[(r) * (columns + 1) + c] = occupied cells in rows [0, r) and columns [0, c)
+    private int[] summedAreaTable() {
+        if (!dirty) {
+            return summedArea;
+        }
+        int stride = columns + 1;
+        if (summedArea == null) {
+            summedArea = new int[(rows + 1) * stride];
+        }
+        for (int r = 0; r < rows; r++) {
+            int rowSum = 0;
+            for (int c = 0; c < columns; c++) {
+                if (occupied.get(r * columns + c)) {
+                    rowSum++;
+                }
+                summedArea[(r + 1) * stride + c + 1] = summedArea[r * stride + c + 1] + rowSum;
+            }
+        }
+        dirty = false;
+        return summedArea;
+    }
+    
+    // Occupied cells in columns [c0, c1) and rows [r0, r1)
+    private int blockSum(int[] sat, int c0, int r0, int c1, int r1) {
+        int stride = columns + 1;
+        return sat[r1 * stride + c1] - sat[r0 * stride + c1] - sat[r1 * stride + c0] + sat[r0 * stride + c0];
+    }
+}
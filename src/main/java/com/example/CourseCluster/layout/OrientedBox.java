@@ -0,0 +1,54 @@
+package com.example.CourseCluster.layout;
+
+// Separating-axis test for rotated rectangles. A box is described by its
+// center, half extents and the cosine/sine of its rotation; everything is
+// passed as primitives so a test allocates nothing.
+//
+// Placements use the canvas convention: (x, y) is the top-left corner of the
+// unrotated footprint and the rotation (degrees) turns it about its center.
+public final class OrientedBox {
+    
+    public static final double EPSILON = 1e-9;
+    
+    private OrientedBox() {}
+    
+    public static double centerX(double x, double objectWidth) {
+        return x + objectWidth / 2;
+    }
+    
+    public static double centerY(double y, double objectHeight) {
+        return y + objectHeight / 2;
+    }
+    
+    // Half extent along x of the axis-aligned box that encloses the rotated box
+    public static double boundingHalfX(double halfX, double halfY, double cos, double sin) {
+        return Math.abs(cos) * halfX + Math.abs(sin) * halfY;
+    }
+    
+    // Half extent along y of the axis-aligned box that encloses the rotated box
+    public static double boundingHalfY(double halfX, double halfY, double cos, double sin) {
+        return Math.abs(sin) * halfX + Math.abs(cos) * halfY;
+    }
+    
+    // True when the interiors intersect; boxes that only share an edge do not overlap
+    public static boolean overlaps(double ax, double ay, double aHalfX, double aHalfY, double aCos, double aSin,
+                                   double bx, double by, double bHalfX, double bHalfY, double bCos, double bSin) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        return !separatedOn(aCos, aSin, dx, dy, aHalfX, aHalfY, aCos, aSin, bHalfX, bHalfY, bCos, bSin)
+                && !separatedOn(-aSin, aCos, dx, dy, aHalfX, aHalfY, aCos, aSin, bHalfX, bHalfY, bCos, bSin)
+                && !separatedOn(bCos, bSin, dx, dy, aHalfX, aHalfY, aCos, aSin, bHalfX, bHalfY, bCos, bSin)
+                && !separatedOn(-bSin, bCos, dx, dy, aHalfX, aHalfY, aCos, aSin, bHalfX, bHalfY, bCos, bSin);
+    }
+    
+    private static boolean separatedOn(double axisX, double axisY, double dx, double dy,
+                                       double aHalfX, double aHalfY, double aCos, double aSin,
+                                       double bHalfX, double bHalfY, double bCos, double bSin) {
+        double distance = Math.abs(dx * axisX + dy * axisY);
+        double aRadius = aHalfX * Math.abs(aCos * axisX + aSin * axisY)
+                + aHalfY * Math.abs(-aSin * axisX + aCos * axisY);
+        double bRadius = bHalfX * Math.abs(bCos * axisX + bSin * axisY)
+                + bHalfY * Math.abs(-bSin * axisX + bCos * axisY);
+        return distance >= aRadius + bRadius - EPSILON;
+    }
+}
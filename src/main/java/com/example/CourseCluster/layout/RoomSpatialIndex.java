@@ -0,0 +1,350 @@
+package com.example.CourseCluster.layout;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Uniform-grid index over the footprints placed in a single room.
+// Footprints live in parallel primitive arrays addressed by slot: the oriented
+// box (center, half extents, rotation) for the exact separating-axis test and
+// its axis-aligned bounds for the grid. Each grid cell holds the slots it
+// overlaps, so a lookup only touches the cells under the candidate and
+// allocates nothing.
+// Not thread-safe on its own: callers hold lock() around check-then-write.
+// An index made with a refresher starts out stale and is filled by it on the
+// first lock(), and again on the first lock() after markStale(), with the lock
+// held, so no caller ever sees it half built.
+public class RoomSpatialIndex {
+    
+    private static final double EPSILON = OrientedBox.EPSILON;
+    private static final int MAX_CELLS = 1 << 20;
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private double length; // room extent along x, in feet
+    private double width;  // room extent along y, in feet
+    private final double requestedCellSize;
+    private double cellSize;
+    private int columns;
+    private int rows;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Consumer<RoomSpatialIndex> refresher;
+    private volatile boolean stale;
+    
+    // Oriented footprint, one entry per slot
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] centerX = new double[INITIAL_CAPACITY];
+    private double[] centerY = new double[INITIAL_CAPACITY];
+    private double[] halfX = new double[INITIAL_CAPACITY];
+    private double[] halfY = new double[INITIAL_CAPACITY];
+    private double[] cos = new double[INITIAL_CAPACITY];
+    private double[] sin = new double[INITIAL_CAPACITY];
+    
+    // Axis-aligned bounds of each footprint, used for grid bucketing
+    private double[] minX = new double[INITIAL_CAPACITY];
+    private double[] minY = new double[INITIAL_CAPACITY];
+    private double[] maxX = new double[INITIAL_CAPACITY];
+    private double[] maxY = new double[INITIAL_CAPACITY];
+    
+    // Last query that visited each slot, so multi-cell footprints are tested once
+    private int[] visited = new int[INITIAL_CAPACITY];
+    private int queryStamp;
+    private final long[] firstHit = new long[1];
+    
+    private int slotCount;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    
+    // Grid cells, each holding the slots whose bounds overlap it
+    private int[][] cells;
+    private int[] cellCounts;
+    
+    // Rasterised view for free-space queries, created on first use
+    private OccupancyGrid occupancy;
+    
+    public RoomSpatialIndex(double length, double width, double cellSize) {
+        this.requestedCellSize = cellSize;
+        this.refresher = null;
+        reset(length, width);
+    }
+    
+    public RoomSpatialIndex(double cellSize, Consumer<RoomSpatialIndex> refresher) {
+        this.requestedCellSize = cellSize;
+        this.refresher = refresher;
+        this.stale = true;
+        reset(0, 0);
+    }
+    
+    public void lock() {
+        lock.lock();
+        // Not in the middle of a nested hold, whose caller relies on what it read
+        if (stale && refresher != null && lock.getHoldCount() == 1) {
+            // Cleared first, so a markStale() during the refresh is not lost
+            stale = false;
+            try {
+                refresher.accept(this);
+            } catch (RuntimeException | Error e) {
+                stale = true;
+                lock.unlock();
+                throw e;
+            }
+        }
+    }
+    
+    public void unlock() {
+        lock.unlock();
+    }
+    
+    // The footprints may be out of date; the next lock() refreshes them
+    public void markStale() {
+        stale = true;
+    }
+    
+    // Empties the index and sizes it for a room of the given extent. For the
+    // refresher, or with the lock held.
+    public void reset(double length, double width) {
+        double cell = requestedCellSize > 0 ? requestedCellSize : 1.0;
+        while (Math.ceil(length / cell) * Math.ceil(width / cell) > MAX_CELLS) {
+            cell *= 2;
+        }
+        this.length = length;
+        this.width = width;
+        this.cellSize = cell;
+        this.columns = Math.max(1, (int) Math.ceil(length / cell));
+        this.rows = Math.max(1, (int) Math.ceil(width / cell));
+        this.cells = new int[columns * rows][];
+        this.cellCounts = new int[columns * rows];
+        
+        ids = new long[INITIAL_CAPACITY];
+        centerX = new double[INITIAL_CAPACITY];
+        centerY = new double[INITIAL_CAPACITY];
+        halfX = new double[INITIAL_CAPACITY];
+        halfY = new double[INITIAL_CAPACITY];
+        cos = new double[INITIAL_CAPACITY];
+        sin = new double[INITIAL_CAPACITY];
+        minX = new double[INITIAL_CAPACITY];
+        minY = new double[INITIAL_CAPACITY];
+        maxX = new double[INITIAL_CAPACITY];
+        maxY = new double[INITIAL_CAPACITY];
+        visited = new int[INITIAL_CAPACITY];
+        queryStamp = 0;
+        slotCount = 0;
+        freeCount = 0;
+        slotsById.clear();
+        occupancy = null;
+    }
+    
+    public double getLength() {
+        return length;
+    }
+    
+    public double getWidth() {
+        return width;
+    }
+    
+    public int size() {
+        return slotsById.size();
+    }
+    
+    // Built from the current footprints on first use, then kept up to date by put/remove
+    public OccupancyGrid occupancy(double resolution) {
+        if (occupancy == null) {
+            occupancy = new OccupancyGrid(length, width, resolution);
+            for (int slot : slotsById.values()) {
+                occupancy.add(centerX[slot], centerY[slot], halfX[slot], halfY[slot], cos[slot], sin[slot],
+                        minX[slot], minY[slot], maxX[slot], maxY[slot]);
+            }
+        }
+        return occupancy;
+    }
+    
+    public boolean contains(long id) {
+        return slotsById.containsKey(id);
+    }
+    
+    // True when the rotated footprint lies entirely inside the room
+    public boolean fitsInRoom(double x, double y, double objectWidth, double objectHeight, double rotation) {
+        double radians = Math.toRadians(rotation);
+        double c = Math.cos(radians);
+        double s = Math.sin(radians);
+        double cx = OrientedBox.centerX(x, objectWidth);
+        double cy = OrientedBox.centerY(y, objectHeight);
+        double ex = OrientedBox.boundingHalfX(objectWidth / 2, objectHeight / 2, c, s);
+        double ey = OrientedBox.boundingHalfY(objectWidth / 2, objectHeight / 2, c, s);
+        return cx - ex >= -EPSILON && cy - ey >= -EPSILON
+                && cx + ex <= length + EPSILON && cy + ey <= width + EPSILON;
+    }
+    
+    // Returns the id of a placement whose footprint overlaps the given one, or -1.
+    // Edges that merely touch do not count as an overlap.
+    public long findOverlap(double x, double y, double objectWidth, double objectHeight, double rotation,
+                            long ignoreId) {
+        return findOverlaps(x, y, objectWidth, objectHeight, rotation, ignoreId, firstHit) > 0 ? firstHit[0] : -1;
+    }
+    
+    // Writes the ids of up to out.length overlapping placements into out and
+    // returns how many were written
+    public int findOverlaps(double x, double y, double objectWidth, double objectHeight, double rotation,
+                            long ignoreId, long[] out) {
+        double radians = Math.toRadians(rotation);
+        double c = Math.cos(radians);
+        double s = Math.sin(radians);
+        double hx = objectWidth / 2;
+        double hy = objectHeight / 2;
+        double cx = OrientedBox.centerX(x, objectWidth);
+        double cy = OrientedBox.centerY(y, objectHeight);
+        double ex = OrientedBox.boundingHalfX(hx, hy, c, s);
+        double ey = OrientedBox.boundingHalfY(hx, hy, c, s);
+        double x0 = cx - ex;
+        double y0 = cy - ey;
+        double x1 = cx + ex;
+        double y1 = cy + ey;
+        
+        int stamp = nextStamp();
+        int found = 0;
+        for (int r = row(y0); r <= row(y1); r++) {
+            for (int col = column(x0); col <= column(x1); col++) {
+                int cell = r * columns + col;
+                int[] slots = cells[cell];
+                for (int i = 0; i < cellCounts[cell]; i++) {
+                    int slot = slots[i];
+                    if (visited[slot] == stamp || ids[slot] == ignoreId) {
+                        continue;
+                    }
+                    visited[slot] = stamp;
+                    if (minX[slot] < x1 - EPSILON && x0 < maxX[slot] - EPSILON
+                            && minY[slot] < y1 - EPSILON && y0 < maxY[slot] - EPSILON
+                            && OrientedBox.overlaps(cx, cy, hx, hy, c, s,
+                                    centerX[slot], centerY[slot], halfX[slot], halfY[slot], cos[slot], sin[slot])) {
+                        out[found++] = ids[slot];
+                        if (found == out.length) {
+                            return found;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+    
+    // Inserts the footprint, replacing any previous one with the same id
+    public void put(long id, double x, double y, double objectWidth, double objectHeight, double rotation) {
+        remove(id);
+        
+        int slot = allocateSlot();
+        double radians = Math.toRadians(rotation);
+        ids[slot] = id;
+        cos[slot] = Math.cos(radians);
+        sin[slot] = Math.sin(radians);
+        halfX[slot] = objectWidth / 2;
+        halfY[slot] = objectHeight / 2;
+        centerX[slot] = OrientedBox.centerX(x, objectWidth);
+        centerY[slot] = OrientedBox.centerY(y, objectHeight);
+        double ex = OrientedBox.boundingHalfX(halfX[slot], halfY[slot], cos[slot], sin[slot]);
+        double ey = OrientedBox.boundingHalfY(halfX[slot], halfY[slot], cos[slot], sin[slot]);
+        minX[slot] = centerX[slot] - ex;
+        minY[slot] = centerY[slot] - ey;
+        maxX[slot] = centerX[slot] + ex;
+        maxY[slot] = centerY[slot] + ey;
+        visited[slot] = 0;
+        slotsById.put(id, slot);
+        if (occupancy != null) {
+            occupancy.add(centerX[slot], centerY[slot], halfX[slot], halfY[slot], cos[slot], sin[slot],
+                    minX[slot], minY[slot], maxX[slot], maxY[slot]);
+        }
+        
+        for (int r = row(minY[slot]); r <= row(maxY[slot]); r++) {
+            for (int c = column(minX[slot]); c <= column(maxX[slot]); c++) {
+                addToCell(r * columns + c, slot);
+            }
+        }
+    }
+    
+    public void remove(long id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        
+        for (int r = row(minY[slot]); r <= row(maxY[slot]); r++) {
+            for (int c = column(minX[slot]); c <= column(maxX[slot]); c++) {
+                removeFromCell(r * columns + c, slot);
+            }
+        }
+        if (occupancy != null) {
+            occupancy.remove(centerX[slot], centerY[slot], halfX[slot], halfY[slot], cos[slot], sin[slot],
+                    minX[slot], minY[slot], maxX[slot], maxY[slot]);
+        }
+        
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+    
+    private int nextStamp() {
+        if (++queryStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+    
+    private int column(double x) {
+        int c = (int) Math.floor(x / cellSize);
+        return Math.min(columns - 1, Math.max(0, c));
+    }
+    
+    private int row(double y) {
+        int r = (int) Math.floor(y / cellSize);
+        return Math.min(rows - 1, Math.max(0, r));
+    }
+    
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            halfX = Arrays.copyOf(halfX, capacity);
+            halfY = Arrays.copyOf(halfY, capacity);
+            cos = Arrays.copyOf(cos, capacity);
+            sin = Arrays.copyOf(sin, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+        }
+        return slotCount++;
+    }
+    
+    private void addToCell(int cell, int slot) {
+        int[] slots = cells[cell];
+        if (slots == null) {
+            slots = new int[4];
+            cells[cell] = slots;
+        } else if (cellCounts[cell] == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+            cells[cell] = slots;
+        }
+        slots[cellCounts[cell]++] = slot;
+    }
+    
+    private void removeFromCell(int cell, int slot) {
+        int[] slots = cells[cell];
+        int count = cellCounts[cell];
+        for (int i = 0; i < count; i++) {
+            if (slots[i] == slot) {
+                slots[i] = slots[count - 1];
+                cellCounts[cell] = count - 1;
+                return;
+            }
+        }
+    }
+}
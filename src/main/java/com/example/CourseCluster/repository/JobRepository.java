@@ -0,0 +1,74 @@
+package com.example.CourseCluster.repository;
+
+import com.example.CourseCluster.entity.Job;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+// Status changes are conditional updates so a worker, a cancel request and an
+// instance taking the job back cannot overwrite each other
+@Repository
+public interface JobRepository extends JpaRepository<Job, Long> {
+    @Query("select j.jobId from Job j where j.status = :status order by j.jobId")
+    List<Long> findIdsByStatus(@Param("status") Job.Status status);
+    
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = :to, j.startedAt = :at, j.owner = :owner, j.heartbeatAt = :at"
+            + " where j.jobId = :jobId and j.status = :from")
+    int start(@Param("jobId") Long jobId, @Param("from") Job.Status from, @Param("to") Job.Status to,
+              @Param("owner") String owner, @Param("at") Instant at);
+    
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.heartbeatAt = :at"
+            + " where j.jobId in :jobIds and j.status = :status and j.owner = :owner")
+    int heartbeat(@Param("jobIds") Collection<Long> jobIds, @Param("status") Job.Status status,
+                  @Param("owner") String owner, @Param("at") Instant at);
+    
+    // Running jobs that may have lost their worker: left by an earlier run of
+    // this instance, from before owners were recorded, or no longer heartbeating
+    @Query("select j from Job j where j.status = :status"
+            + " and (j.owner is null or j.owner = :owner or j.heartbeatAt < :staleBefore) order by j.jobId")
+    List<Job> findAbandoned(@Param("status") Job.Status status, @Param("owner") String owner,
+                            @Param("staleBefore") Instant staleBefore);
+    
+    // Same conditions as findAbandoned, so of two instances taking the same job
+    // back only one succeeds
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = :to, j.owner = null, j.heartbeatAt = null, j.error = :error,"
+            + " j.finishedAt = :finishedAt where j.jobId = :jobId and j.status = :from"
+            + " and (j.owner is null or j.owner = :owner or j.heartbeatAt < :staleBefore)")
+    int reclaim(@Param("jobId") Long jobId, @Param("from") Job.Status from, @Param("to") Job.Status to,
+                @Param("error") String error, @Param("finishedAt") Instant finishedAt,
+                @Param("owner") String owner, @Param("staleBefore") Instant staleBefore);
+    
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.progress = :progress, j.message = :message where j.jobId = :jobId")
+    int updateProgress(@Param("jobId") Long jobId, @Param("progress") Integer progress,
+                       @Param("message") String message);
+    
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = :status, j.result = :result, j.error = :error, j.finishedAt = :at"
+            + " where j.jobId = :jobId and j.status in :from")
+    int finish(@Param("jobId") Long jobId, @Param("from") List<Job.Status> from, @Param("status") Job.Status status,
+               @Param("result") String result, @Param("error") String error, @Param("at") Instant at);
+    
+    // A worker's own finish; does nothing once another instance has taken the job back
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = :status, j.result = :result, j.error = :error, j.finishedAt = :at"
+            + " where j.jobId = :jobId and j.status = :from and j.owner = :owner")
+    int finishOwned(@Param("jobId") Long jobId, @Param("from") Job.Status from, @Param("owner") String owner,
+                    @Param("status") Job.Status status, @Param("result") String result,
+                    @Param("error") String error, @Param("at") Instant at);
+}
@@ -0,0 +1,45 @@
+package com.example.CourseCluster.repository;
+
+import com.example.CourseCluster.dto.RoomVersionInfo;
+import com.example.CourseCluster.entity.PlacementChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PlacementChangeRepository extends JpaRepository<PlacementChange, Long> {
+    
+    // Changes with from <= version <= to, in the order they were made
+    @Query("select c from PlacementChange c where c.roomId = :roomId and c.version between :from and :to"
+            + " order by c.version, c.changeId")
+    List<PlacementChange> findRange(@Param("roomId") Long roomId, @Param("from") Long from, @Param("to") Long to);
+    
+    @Query("select new com.example.CourseCluster.dto.RoomVersionInfo(c.version, count(c), max(c.changedAt), max(c.undoOf))"
+            + " from PlacementChange c where c.roomId = :roomId and c.version > :after"
+            + " group by c.version order by c.version")
+    List<RoomVersionInfo> findVersions(@Param("roomId") Long roomId, @Param("after") Long after, Pageable pageable);
+    
+    @Query("select min(c.version) from PlacementChange c where c.roomId = :roomId")
+    Optional<Long> findEarliestVersion(@Param("roomId") Long roomId);
+    
+    @Query("select max(c.version) from PlacementChange c where c.roomId = :roomId")
+    Optional<Long> findLatestVersion(@Param("roomId") Long roomId);
+    
+    @Query("select count(c) from PlacementChange c where c.roomId = :roomId and c.version > :after")
+    long countAfter(@Param("roomId") Long roomId, @Param("after") Long after);
+    
+    // Newest version that is neither an undo nor already undone
+    @Query("select max(c.version) from PlacementChange c where c.roomId = :roomId and c.undoOf is null"
+            + " and c.version not in (select u.undoOf from PlacementChange u"
+            + " where u.roomId = :roomId and u.undoOf is not null)")
+    Optional<Long> findLatestUndoableVersion(@Param("roomId") Long roomId);
+    
+    @Modifying
+    @Query("delete from PlacementChange c where c.roomId = :roomId")
+    int deleteByRoomId(@Param("roomId") Long roomId);
+}
@@ -1,11 +1,59 @@
 package com.example.CourseCluster.repository;
 
+import com.example.CourseCluster.dto.PlacementResponse;
 import com.example.CourseCluster.entity.Placement;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PlacementRepository extends JpaRepository<Placement, Long> {
+    
+    String RESPONSE_PROJECTION = "select new com.example.CourseCluster.dto.PlacementResponse("
+            + "p.placementId, p.room.roomId, o.objectId, o.name, o.width, o.height, o.color, p.x, p.y, p.rotation) "
+            + "from Placement p join p.roomObject o ";
+    
     List<Placement> findByRoom_RoomId(Long roomId);
+    
+    // Read paths map rows straight into PlacementResponse in a single joined
+    // select, without creating managed entities
+    @Query(RESPONSE_PROJECTION + "order by p.placementId")
+    List<PlacementResponse> findAllResponses();
+    
+    @Query(RESPONSE_PROJECTION + "where p.room.roomId = :roomId order by p.placementId")
+    List<PlacementResponse> findResponsesByRoomId(@Param("roomId") Long roomId);
+    
+    @Query(RESPONSE_PROJECTION + "where p.placementId > :after order by p.placementId")
+    List<PlacementResponse> findResponsesAfter(@Param("after") Long after, Pageable pageable);
+    
+    // Must be consumed inside a transaction and closed by the caller. MySQL only
+    // fetches in chunks with useCursorFetch=true on the URL.
+    @Query(RESPONSE_PROJECTION + "order by p.placementId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<PlacementResponse> streamAllResponses();
+    
+    @Query("select p.room.roomId from Placement p where p.placementId = :id")
+    Optional<Long> findRoomIdById(@Param("id") Long id);
+    
+    @Query("select p from Placement p join fetch p.room join fetch p.roomObject where p.placementId in :ids")
+    List<Placement> findAllWithRoomAndObjectByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Set-based deletes: one statement, no entities loaded or cascaded
+    @Modifying
+    @Query("delete from Placement p where p.room.roomId = :roomId")
+    int deleteByRoomId(@Param("roomId") Long roomId);
+    
+    @Modifying
+    @Query("delete from Placement p where p.placementId in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,9 +1,35 @@
 package com.example.CourseCluster.repository;
 
 import com.example.CourseCluster.entity.RoomObject;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.List;
 
 @Repository
 public interface RoomObjectRepository extends JpaRepository<RoomObject, Long> {
+    List<RoomObject> findByObjectIdGreaterThanOrderByObjectId(Long after, Pageable pageable);
+    
+    // Tombstones are invisible to entity queries (see RoomObject), so these are native
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE objects SET deleted_at = :at WHERE object_id = :objectId AND deleted_at IS NULL",
+            nativeQuery = true)
+    int markDeleted(@Param("objectId") Long objectId, @Param("at") Instant at);
+    
+    @Query(value = "SELECT object_id FROM objects WHERE deleted_at IS NOT NULL ORDER BY object_id", nativeQuery = true)
+    List<Long> findDeletedIds();
+    
+    // Only once no placement refers to the object: the cascade would otherwise
+    // drop placements written since the sweep looked, without their events
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM objects WHERE object_id = :objectId"
+            + " AND NOT EXISTS (SELECT 1 FROM placements p WHERE p.object_id = :objectId)", nativeQuery = true)
+    int deleteRowIfUnplaced(@Param("objectId") Long objectId);
 }
@@ -1,9 +1,39 @@
 package com.example.CourseCluster.repository;
 
 import com.example.CourseCluster.entity.Room;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
+    List<Room> findByRoomIdGreaterThanOrderByRoomId(Long after, Pageable pageable);
+    
+    @Query("select r.version from Room r where r.roomId = :roomId")
+    Optional<Long> findVersionById(@Param("roomId") Long roomId);
+    
+    @Modifying
+    @Query("update Room r set r.version = r.version + 1 where r.roomId = :roomId")
+    int incrementVersion(@Param("roomId") Long roomId);
+    
+    @Modifying
+    @Query("update Room r set r.version = r.version + 1 where r.roomId = :roomId and r.version = :expected")
+    int incrementVersionIfMatches(@Param("roomId") Long roomId, @Param("expected") Long expected);
+    
+    // Placements are removed first with PlacementRepository.deleteByRoomId
+    @Modifying
+    @Query("delete from Room r where r.roomId = :roomId")
+    int deleteRoomById(@Param("roomId") Long roomId);
+    
+    // Catches the stored version up with one kept in memory (live rooms). The row
+    // is updated, and so locked, even when the stored version is already current.
+    @Modifying
+    @Query("update Room r set r.version = case when r.version < :version then :version else r.version end"
+            + " where r.roomId = :roomId")
+    int raiseVersion(@Param("roomId") Long roomId, @Param("version") Long version);
 }
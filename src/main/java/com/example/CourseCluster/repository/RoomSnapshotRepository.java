@@ -0,0 +1,29 @@
+package com.example.CourseCluster.repository;
+
+import com.example.CourseCluster.entity.RoomSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface RoomSnapshotRepository extends JpaRepository<RoomSnapshot, Long> {
+    
+    Optional<RoomSnapshot> findFirstByRoomIdAndVersionLessThanEqualOrderByVersionDesc(Long roomId, Long version);
+    
+    Optional<RoomSnapshot> findFirstByRoomIdAndVersionGreaterThanEqualOrderByVersionAsc(Long roomId, Long version);
+    
+    Optional<RoomSnapshot> findFirstByRoomIdOrderByVersionDesc(Long roomId);
+    
+    // Whether version lies in a stretch missing from the change log
+    boolean existsByRoomIdAndGapAfterLessThanAndVersionGreaterThan(Long roomId, Long gapAfter, Long version);
+    
+    @Query("select min(s.version) from RoomSnapshot s where s.roomId = :roomId")
+    Optional<Long> findEarliestVersion(@Param("roomId") Long roomId);
+    
+    @Modifying
+    @Query("delete from RoomSnapshot s where s.roomId = :roomId")
+    int deleteByRoomId(@Param("roomId") Long roomId);
+}
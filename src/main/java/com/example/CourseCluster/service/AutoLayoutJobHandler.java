@@ -0,0 +1,59 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.AutoLayoutRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Runs POST /api/rooms/{id}/auto-layout as a job; the result is the AutoLayoutResponse
+@Component
+public class AutoLayoutJobHandler implements JobHandler<AutoLayoutJobHandler.Payload> {
+    
+    public static final String TYPE = "auto-layout";
+    
+    @Autowired
+    private AutoLayoutService autoLayoutService;
+    
+    public static class Payload {
+        private Long roomId;
+        private AutoLayoutRequest request;
+        
+        public Payload() {}
+        
+        public Payload(Long roomId, AutoLayoutRequest request) {
+            this.roomId = roomId;
+            this.request = request;
+        }
+        
+        public Long getRoomId() {
+            return roomId;
+        }
+        
+        public void setRoomId(Long roomId) {
+            this.roomId = roomId;
+        }
+        
+        public AutoLayoutRequest getRequest() {
+            return request;
+        }
+        
+        public void setRequest(AutoLayoutRequest request) {
+            this.request = request;
+        }
+    }
+    
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+    
+    @Override
+    public Class<Payload> getPayloadType() {
+        return Payload.class;
+    }
+    
+    @Override
+    public Object run(Payload payload, JobContext context) {
+        context.progress(0, "Searching");
+        return autoLayoutService.layout(payload.getRoomId(), payload.getRequest());
+    }
+}
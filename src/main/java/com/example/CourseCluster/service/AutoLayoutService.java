@@ -0,0 +1,152 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.AutoLayoutItem;
+import com.example.CourseCluster.dto.AutoLayoutRequest;
+import com.example.CourseCluster.dto.AutoLayoutResponse;
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.layout.LayoutSolver;
+import com.example.CourseCluster.layout.OrientedBox;
+import com.example.CourseCluster.layout.RoomSpatialIndex;
+import com.example.CourseCluster.repository.RoomRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Suggests positions for a list of objects in a room. Nothing is saved: the
+// returned placements can be reviewed and then posted to /api/placements/batch.
+@Service
+public class AutoLayoutService {
+    
+    private static final int MAX_ITEMS = 2000;
+    
+    @Autowired
+    private RoomRepository roomRepository;
+    
+    @Autowired
+    private RoomObjectService roomObjectService;
+    
+    @Autowired
+    private PlacementService placementService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Value("${coursecluster.spatial.cell-size:4.0}")
+    private double cellSize;
+    
+    // 0 = one worker per core
+    @Value("${coursecluster.auto-layout.parallelism:0}")
+    private int parallelism;
+    
+    @Value("${coursecluster.auto-layout.default-time-ms:2000}")
+    private long defaultTimeMs;
+    
+    @Value("${coursecluster.auto-layout.max-time-ms:30000}")
+    private long maxTimeMs;
+    
+    // Dedicated pool so long searches don't starve the common pool
+    private ForkJoinPool pool;
+    
+    @PostConstruct
+    public void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    // Not transactional: the search can run for seconds and needs no connection
+    public AutoLayoutResponse layout(Long roomId, AutoLayoutRequest request) {
+        List<AutoLayoutItem> items = request.getItems();
+        if (items == null || items.isEmpty()) {
+            throw new RuntimeException("No items to lay out");
+        }
+        if (items.size() > MAX_ITEMS) {
+            throw new RuntimeException("At most " + MAX_ITEMS + " items can be laid out at once");
+        }
+        
+        Room room = shardRouter.onRoom(roomId, () -> roomRepository.findById(roomId))
+                .orElseThrow(() -> new RuntimeException("Room not found with id: " + roomId));
+        double clearance = request.getClearance() != null ? request.getClearance() : 0.0;
+        LayoutSolver solver = new LayoutSolver(room.getLength(), room.getWidth(), clearance);
+        
+        // Existing furniture stays where it is
+        List<PlacementResponse> existing = placementService.getPlacementsByRoomId(roomId);
+        for (PlacementResponse placement : existing) {
+            double rotation = Math.toRadians(placement.getRotation() != null ? placement.getRotation() : 0.0);
+            double cx = OrientedBox.centerX(placement.getX(), placement.getObjectWidth());
+            double cy = OrientedBox.centerY(placement.getY(), placement.getObjectHeight());
+            double ex = OrientedBox.boundingHalfX(placement.getObjectWidth() / 2, placement.getObjectHeight() / 2,
+                    Math.cos(rotation), Math.sin(rotation));
+            double ey = OrientedBox.boundingHalfY(placement.getObjectWidth() / 2, placement.getObjectHeight() / 2,
+                    Math.cos(rotation), Math.sin(rotation));
+            solver.addObstacle(cx - ex, cy - ey, cx + ex, cy + ey);
+        }
+        
+        Map<Long, RoomObject> objects = new HashMap<>();
+        Map<String, Integer> groups = new HashMap<>();
+        List<RoomObject> itemObjects = new ArrayList<>(items.size());
+        for (AutoLayoutItem item : items) {
+            RoomObject roomObject = objects.computeIfAbsent(item.getObjectId(), objectId ->
+                    roomObjectService.getObjectById(objectId)
+                            .orElseThrow(() -> new RuntimeException("Object not found with id: " + objectId)));
+            if (!solver.fits(roomObject.getWidth(), roomObject.getHeight())) {
+                throw new PlacementRejectedException(PlacementRejectedException.Reason.OUT_OF_BOUNDS, null,
+                        roomObject.getName() + " does not fit in room " + roomId);
+            }
+            int group = item.getGroup() != null ? groups.computeIfAbsent(item.getGroup(), g -> groups.size()) : -1;
+            solver.addItem(roomObject.getWidth(), roomObject.getHeight(),
+                    Boolean.TRUE.equals(item.getWallAdjacent()), group);
+            itemObjects.add(roomObject);
+        }
+        
+        long budgetMs = request.getTimeBudgetMs() != null
+                ? Math.max(1, Math.min(request.getTimeBudgetMs(), maxTimeMs))
+                : defaultTimeMs;
+        long started = System.nanoTime();
+        LayoutSolver.Solution solution = solver.solve(pool, pool.getParallelism(),
+                TimeUnit.MILLISECONDS.toNanos(budgetMs));
+        
+        // The search works with bounding boxes; re-check the result with the same
+        // index the placement endpoints use and hold back anything that still collides
+        RoomSpatialIndex index = new RoomSpatialIndex(room.getLength(), room.getWidth(), cellSize);
+        for (PlacementResponse placement : existing) {
+            index.put(placement.getPlacementId(), placement.getX(), placement.getY(),
+                    placement.getObjectWidth(), placement.getObjectHeight(),
+                    placement.getRotation() != null ? placement.getRotation() : 0.0);
+        }
+        List<PlacementRequest> placements = new ArrayList<>();
+        List<Long> unplaced = new ArrayList<>();
+        for (int i = 0; i < itemObjects.size(); i++) {
+            RoomObject roomObject = itemObjects.get(i);
+            double x = solution.getX(i);
+            double y = solution.getY(i);
+            double rotation = solution.getRotation(i);
+            if (!index.fitsInRoom(x, y, roomObject.getWidth(), roomObject.getHeight(), rotation)
+                    || index.findOverlap(x, y, roomObject.getWidth(), roomObject.getHeight(), rotation, -1) >= 0) {
+                unplaced.add(roomObject.getObjectId());
+                continue;
+            }
+            // Ids above any real placement id
+            index.put(Long.MAX_VALUE - i, x, y, roomObject.getWidth(), roomObject.getHeight(), rotation);
+            placements.add(new PlacementRequest(roomId, roomObject.getObjectId(), x, y, rotation));
+        }
+        
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return new AutoLayoutResponse(placements, unplaced, solution.getEnergy(), solution.getIterations(), elapsedMs);
+    }
+}
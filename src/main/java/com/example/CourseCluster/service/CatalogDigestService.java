@@ -0,0 +1,54 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.entity.RoomObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+// Digest of the object catalog (ids, names, sizes and colors). Placement lists
+// and thumbnails show catalog data, and catalog edits do not bump room
+// versions, so their ETags and cache keys carry this as well. The content is
+// hashed rather than counted so every instance arrives at the same value.
+@Service
+public class CatalogDigestService {
+    
+    @Autowired
+    private RoomObjectService roomObjectService;
+    
+    private volatile CatalogStamp catalogStamp;
+    
+    // The cached catalog list is replaced on every catalog write, so its identity
+    // tells whether the digest is still current
+    private record CatalogStamp(List<RoomObject> catalog, String digest) {}
+    
+    public String digest() {
+        List<RoomObject> catalog = roomObjectService.getAllObjects();
+        CatalogStamp stamp = catalogStamp;
+        if (stamp == null || stamp.catalog() != catalog) {
+            StringBuilder text = new StringBuilder();
+            catalog.stream()
+                    .sorted(Comparator.comparing(RoomObject::getObjectId))
+                    .forEach(object -> text.append(object.getObjectId()).append('|').append(object.getName())
+                            .append('|').append(object.getWidth()).append('|').append(object.getHeight())
+                            .append('|').append(object.getColor()).append('\n'));
+            stamp = new CatalogStamp(catalog, sha256(text.toString()));
+            catalogStamp = stamp;
+        }
+        return stamp.digest();
+    }
+    
+    public static String sha256(String text) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.config.ShardContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Copies the object catalog from the home shard to the other shards, whose
+// placements reference it in foreign keys and joins. Catalog writes go to home
+// and are copied as soon as they commit; a scheduled pass catches anything
+// missed, e.g. while a shard was unreachable. A size change also moves the
+// occupied area of the rooms on each shard, as objectResized does on home.
+@Service
+public class CatalogSyncService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CatalogSyncService.class);
+    
+    private static final String SELECT_CATALOG =
+            "SELECT object_id, name, width, height, color, deleted_at FROM objects";
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    private final ReentrantLock syncLock = new ReentrantLock();
+    
+    private record CatalogRow(long objectId, String name, double width, double height, String color,
+                              Timestamp deletedAt) {}
+    
+    @Scheduled(fixedDelayString = "${coursecluster.shards.catalog-sync-interval-ms:30000}")
+    public void syncScheduled() {
+        if (!shardRouter.isSharded()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Catalog sync failed; will retry", e);
+        }
+    }
+    
+    // Copies once the current transaction commits, or right away outside one
+    public void syncAfterCommit() {
+        if (!shardRouter.isSharded()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    syncScheduled();
+                }
+            });
+        } else {
+            syncScheduled();
+        }
+    }
+    
+    public void sync() {
+        if (!shardRouter.isSharded()) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            List<CatalogRow> catalog = shardRouter.jdbc(ShardContext.HOME).query(SELECT_CATALOG, this::row);
+            for (int shard = 1; shard < shardRouter.shardCount(); shard++) {
+                int target = shard;
+                try {
+                    ShardContext.run(target,
+                            () -> transactionTemplate.executeWithoutResult(status -> syncShard(catalog)));
+                } catch (RuntimeException e) {
+                    log.warn("Copying the catalog to shard {} failed", target, e);
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+    
+    // Runs in a transaction on the target shard. Rows the shard has but home no
+    // longer does were swept there already and are left alone, and a tombstoned
+    // object the shard never had is not copied: nothing can be placed with it.
+    private void syncShard(List<CatalogRow> catalog) {
+        Map<Long, CatalogRow> existing = new HashMap<>();
+        for (CatalogRow row : jdbcTemplate.query(SELECT_CATALOG, this::row)) {
+            existing.put(row.objectId(), row);
+        }
+        
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> usage = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (CatalogRow row : catalog) {
+            CatalogRow current = existing.get(row.objectId());
+            if (current == null) {
+                if (row.deletedAt() != null) {
+                    continue;
+                }
+                inserts.add(new Object[] {row.objectId(), row.name(), row.width(), row.height(), row.color(),
+                        row.deletedAt()});
+                usage.add(new Object[] {row.objectId(), 0});
+            } else if (!row.equals(current)) {
+                updates.add(new Object[] {row.name(), row.width(), row.height(), row.color(), row.deletedAt(),
+                        row.objectId()});
+                roomStatsService.objectResized(row.objectId(),
+                        row.width() * row.height() - current.width() * current.height());
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO objects (object_id, name, width, height, color, deleted_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)", inserts);
+            jdbcTemplate.batchUpdate("INSERT INTO object_usage (object_id, placement_count) VALUES (?, ?)", usage);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE objects SET name = ?, width = ?, height = ?, color = ?, deleted_at = ?"
+                    + " WHERE object_id = ?", updates);
+        }
+    }
+    
+    private CatalogRow row(ResultSet rs, int rowNum) throws SQLException {
+        return new CatalogRow(rs.getLong("object_id"), rs.getString("name"), rs.getDouble("width"),
+                rs.getDouble("height"), rs.getString("color"), rs.getTimestamp("deleted_at"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.entity.Placement;
+import com.example.CourseCluster.entity.Room;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Component;
+
+// Hands out room and placement ids for rows written with plain SQL. The ids come
+// from the same pooled generators that JPA inserts use, so the two never
+// collide; they arrive in contiguous runs of up to the sequence's allocation
+// size (50). Must be called inside a transaction.
+@Component
+public class IdAllocator {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public long[] placementIds(int count) {
+        return allocate(Placement.class, count);
+    }
+    
+    public long[] roomIds(int count) {
+        return allocate(Room.class, count);
+    }
+    
+    private long[] allocate(Class<?> entityClass, int count) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entityClass).getGenerator();
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = ((Number) generator.generate(session, null)).longValue();
+        }
+        return ids;
+    }
+}
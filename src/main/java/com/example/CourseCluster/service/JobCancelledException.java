@@ -0,0 +1,8 @@
+package com.example.CourseCluster.service;
+
+public class JobCancelledException extends RuntimeException {
+    
+    public JobCancelledException(Long jobId) {
+        super("Job cancelled: " + jobId);
+    }
+}
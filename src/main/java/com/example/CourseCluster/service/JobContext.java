@@ -0,0 +1,42 @@
+package com.example.CourseCluster.service;
+
+// Handed to a running JobHandler for progress reporting and cancellation checks
+public class JobContext {
+    
+    private final Long jobId;
+    private final JobService jobService;
+    private volatile boolean cancelled;
+    private int lastPercent = -1;
+    
+    JobContext(Long jobId, JobService jobService) {
+        this.jobId = jobId;
+        this.jobService = jobService;
+    }
+    
+    public Long getJobId() {
+        return jobId;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled || Thread.currentThread().isInterrupted();
+    }
+    
+    public void checkCancelled() {
+        if (isCancelled()) {
+            throw new JobCancelledException(jobId);
+        }
+    }
+    
+    // Only percent changes are written through, so calling this per item is cheap
+    public void progress(int percent, String message) {
+        int clamped = Math.max(0, Math.min(100, percent));
+        if (clamped != lastPercent) {
+            lastPercent = clamped;
+            jobService.reportProgress(jobId, clamped, message);
+        }
+    }
+    
+    void cancel() {
+        cancelled = true;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.CourseCluster.service;
+
+// One kind of job. Implementations are Spring beans and are picked up by
+// JobService by their type name.
+public interface JobHandler<P> {
+    
+    String getType();
+    
+    // Jobs are persisted with their payload as JSON and read back into this type
+    Class<P> getPayloadType();
+    
+    // Runs on a job worker thread; the returned value is stored as the job's JSON result.
+    // Long loops should call context.checkCancelled() and context.progress(...).
+    Object run(P payload, JobContext context) throws Exception;
+    
+    // Whether a job cut off by a restart can simply be run again from the start
+    default boolean isRestartable() {
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.CourseCluster.service;
+
+// Thrown when the job queue is at capacity; surfaced as 429 Too Many Requests
+public class JobQueueFullException extends RuntimeException {
+    
+    public JobQueueFullException(int capacity) {
+        super("Job queue is full (" + capacity + " waiting)");
+    }
+}
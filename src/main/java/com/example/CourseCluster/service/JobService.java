@@ -0,0 +1,327 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.JobProgress;
+import com.example.CourseCluster.entity.Job;
+import com.example.CourseCluster.repository.JobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs long operations off the request thread. Jobs are persisted in the jobs
+// table first and then handed to a fixed worker pool with a bounded queue; when
+// the queue is full new submissions are refused (429) rather than piling up.
+// Queued jobs that did not fit in memory, or were queued before a restart, are
+// dispatched by a periodic sweep of the table. Each running job carries the id
+// of the instance running it and a heartbeat; only jobs whose owner has gone
+// quiet (or is this instance, before a restart) are ever taken over.
+@Service
+public class JobService {
+    
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    public static final String PROGRESS_EVENT = "progress";
+    
+    @Autowired
+    private JobRepository jobRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private List<JobHandler<?>> handlers;
+    
+    @Value("${coursecluster.jobs.workers:2}")
+    private int workers;
+    
+    @Value("${coursecluster.jobs.queue-capacity:100}")
+    private int queueCapacity;
+    
+    @Value("${coursecluster.events.timeout-ms:1800000}")
+    private long emitterTimeout;
+    
+    // Random unless configured, so a restarted instance waits for its old jobs to go stale
+    @Value("${coursecluster.jobs.instance-id:${random.uuid}}")
+    private String instanceId;
+    
+    @Value("${coursecluster.jobs.stale-after-ms:60000}")
+    private long staleAfterMs;
+    
+    private final Map<String, JobHandler<?>> handlersByType = new HashMap<>();
+    private final ConcurrentHashMap<Long, ActiveJob> active = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private volatile boolean shuttingDown;
+    
+    private static class ActiveJob {
+        private final JobContext context;
+        private volatile Future<?> future;
+        
+        ActiveJob(JobContext context) {
+            this.context = context;
+        }
+    }
+    
+    @PostConstruct
+    public void start() {
+        for (JobHandler<?> handler : handlers) {
+            handlersByType.put(handler.getType(), handler);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "job-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        reclaimAbandoned();
+        dispatchQueued();
+    }
+    
+    // Keeps this instance's running jobs from looking abandoned, and takes back
+    // the jobs of instances that stopped
+    @Scheduled(fixedDelayString = "${coursecluster.jobs.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        if (!active.isEmpty()) {
+            jobRepository.heartbeat(List.copyOf(active.keySet()), Job.Status.RUNNING, instanceId, Instant.now());
+        }
+        reclaimAbandoned();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        executor.shutdownNow();
+    }
+    
+    public Job submit(String type, Object payload) {
+        return submit(type, objectMapper.valueToTree(payload));
+    }
+    
+    public Job submit(String type, JsonNode payload) {
+        JobHandler<?> handler = handlersByType.get(type);
+        if (handler == null) {
+            throw new RuntimeException("Unknown job type: " + type);
+        }
+        try {
+            objectMapper.treeToValue(payload, handler.getPayloadType());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid payload for job type " + type + ": " + e.getMessage(), e);
+        }
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new JobQueueFullException(queueCapacity);
+        }
+        
+        Job job = jobRepository.save(new Job(type, payload.toString()));
+        // If the queue filled up in the meantime the job stays queued in the table
+        // and the next sweep picks it up
+        dispatch(job.getJobId());
+        return job;
+    }
+    
+    public Optional<Job> getJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+    
+    // Queued jobs are cancelled immediately; running ones are asked to stop and
+    // interrupted, and finish as CANCELLED once the handler notices
+    public Optional<Job> cancel(Long jobId) {
+        ActiveJob activeJob = active.get(jobId);
+        if (activeJob != null) {
+            activeJob.context.cancel();
+        }
+        int cancelled = jobRepository.finish(jobId, List.of(Job.Status.QUEUED), Job.Status.CANCELLED, null, null,
+                Instant.now());
+        if (activeJob != null) {
+            Future<?> future = activeJob.future;
+            if (future != null) {
+                future.cancel(cancelled == 0);
+            }
+            if (cancelled > 0) {
+                active.remove(jobId);
+            }
+        }
+        Optional<Job> job = jobRepository.findById(jobId);
+        if (cancelled > 0) {
+            job.ifPresent(this::completeSubscribers);
+        }
+        return job;
+    }
+    
+    public SseEmitter subscribe(Long jobId) {
+        Job job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Job not found with id: " + jobId));
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        send(emitter, new JobProgress(job));
+        if (job.getStatus().isFinished()) {
+            emitter.complete();
+            return emitter;
+        }
+        
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        
+        // The job may have finished between the lookup and registering
+        jobRepository.findById(jobId)
+                .filter(current -> current.getStatus().isFinished())
+                .ifPresent(this::completeSubscribers);
+        return emitter;
+    }
+    
+    @Scheduled(fixedDelayString = "${coursecluster.jobs.dispatch-interval-ms:5000}")
+    public void dispatchQueued() {
+        for (Long jobId : jobRepository.findIdsByStatus(Job.Status.QUEUED)) {
+            if (!active.containsKey(jobId) && !dispatch(jobId)) {
+                return;
+            }
+        }
+    }
+    
+    void reportProgress(Long jobId, int percent, String message) {
+        jobRepository.updateProgress(jobId, percent, message);
+        publish(jobId, new JobProgress(jobId, Job.Status.RUNNING, percent, message));
+    }
+    
+    // Running jobs that lost their worker are queued again, or failed if their
+    // handler cannot safely start over
+    private void reclaimAbandoned() {
+        Instant staleBefore = Instant.now().minusMillis(staleAfterMs);
+        for (Job job : jobRepository.findAbandoned(Job.Status.RUNNING, instanceId, staleBefore)) {
+            if (active.containsKey(job.getJobId())) {
+                continue; // still running here, only the heartbeat is late
+            }
+            JobHandler<?> handler = handlersByType.get(job.getType());
+            if (handler != null && handler.isRestartable()) {
+                jobRepository.reclaim(job.getJobId(), Job.Status.RUNNING, Job.Status.QUEUED, null, null,
+                        instanceId, staleBefore);
+            } else {
+                jobRepository.reclaim(job.getJobId(), Job.Status.RUNNING, Job.Status.FAILED,
+                        "Interrupted: the instance running it stopped", Instant.now(), instanceId, staleBefore);
+            }
+        }
+    }
+    
+    private boolean dispatch(Long jobId) {
+        ActiveJob activeJob = new ActiveJob(new JobContext(jobId, this));
+        if (active.putIfAbsent(jobId, activeJob) != null) {
+            return true;
+        }
+        try {
+            activeJob.future = executor.submit(() -> execute(jobId, activeJob));
+            return true;
+        } catch (RejectedExecutionException e) {
+            active.remove(jobId);
+            return false;
+        }
+    }
+    
+    private void execute(Long jobId, ActiveJob activeJob) {
+        JobContext context = activeJob.context;
+        try {
+            if (jobRepository.start(jobId, Job.Status.QUEUED, Job.Status.RUNNING, instanceId, Instant.now()) == 0) {
+                return; // cancelled while waiting
+            }
+            Job job = jobRepository.findById(jobId).orElseThrow();
+            publish(jobId, new JobProgress(job));
+            
+            JobHandler<?> handler = handlersByType.get(job.getType());
+            if (handler == null) {
+                throw new IllegalStateException("Unknown job type: " + job.getType());
+            }
+            Object result = run(handler, job.getPayload(), context);
+            context.checkCancelled();
+            finish(jobId, Job.Status.SUCCEEDED, objectMapper.writeValueAsString(result), null);
+        } catch (Exception e) {
+            if (shuttingDown) {
+                // Left RUNNING; taken back on the next start with the same instance id,
+                // or by another instance once its heartbeat is stale
+                return;
+            }
+            if (context.isCancelled() || e instanceof JobCancelledException) {
+                finish(jobId, Job.Status.CANCELLED, null, null);
+            } else {
+                log.warn("Job {} failed", jobId, e);
+                finish(jobId, Job.Status.FAILED, null, errorMessage(e));
+            }
+        } finally {
+            active.remove(jobId);
+        }
+    }
+    
+    private <P> Object run(JobHandler<P> handler, String payload, JobContext context) throws Exception {
+        return handler.run(objectMapper.readValue(payload, handler.getPayloadType()), context);
+    }
+    
+    private void finish(Long jobId, Job.Status status, String result, String error) {
+        jobRepository.finishOwned(jobId, Job.Status.RUNNING, instanceId, status, result, error, Instant.now());
+        jobRepository.findById(jobId).ifPresent(this::completeSubscribers);
+    }
+    
+    private void completeSubscribers(Job job) {
+        List<SseEmitter> emitters = subscribers.remove(job.getJobId());
+        if (emitters != null) {
+            JobProgress progress = new JobProgress(job);
+            for (SseEmitter emitter : emitters) {
+                send(emitter, progress);
+                emitter.complete();
+            }
+        }
+    }
+    
+    private void publish(Long jobId, JobProgress progress) {
+        List<SseEmitter> emitters = subscribers.get(jobId);
+        if (emitters != null) {
+            for (SseEmitter emitter : emitters) {
+                send(emitter, progress);
+            }
+        }
+    }
+    
+    private void send(SseEmitter emitter, JobProgress progress) {
+        try {
+            emitter.send(SseEmitter.event().name(PROGRESS_EVENT).data(progress));
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+    
+    private static String errorMessage(Exception e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Placement;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.layout.RoomSpatialIndex;
+import com.example.CourseCluster.repository.PlacementRepository;
+import com.example.CourseCluster.repository.RoomRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Opt-in "live room" mode. While a room is live its placements are held in
+// memory and position updates are applied there immediately; dirty placements
+// are written back to the database in batches on a fixed interval, when the
+// room is closed, and at shutdown. Creates and deletes still go straight to
+// the database and are mirrored here by PlacementService.
+@Service
+public class LiveRoomService {
+    
+    private static final Logger log = LoggerFactory.getLogger(LiveRoomService.class);
+    
+    @Autowired
+    private RoomRepository roomRepository;
+    
+    @Autowired
+    private PlacementRepository placementRepository;
+    
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    private final ConcurrentHashMap<Long, LiveRoom> liveRooms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> roomsByPlacement = new ConcurrentHashMap<>();
+    private TransactionTemplate flushTransaction;
+    
+    private static class LiveRoom {
+        private volatile Room room;
+        private final Map<Long, PlacementResponse> placements = new ConcurrentHashMap<>();
+        private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+        private final AtomicLong version;
+        
+        LiveRoom(Room room) {
+            this.room = room;
+            this.version = new AtomicLong(room.getVersion());
+        }
+    }
+    
+    // Flushes commit on their own even when called inside another transaction:
+    // the dirty marks are cleared as they are copied, so moves written by an
+    // outer transaction that then rolled back would never be written again
+    @PostConstruct
+    public void start() {
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    // Not read-only, so it loads from the primary: the live copy's moves are written back there.
+    // The room's row is locked first, the way database-path writes bump it, so
+    // a write that is already under way commits before the copy is loaded and
+    // one that starts later waits until the room is live. A write that checked
+    // for a live room before that and then waited catches the version up once
+    // it gets the row (see RoomVersionService.bump).
+    @Transactional
+    public void open(Long roomId) {
+        if (liveRooms.containsKey(roomId)) {
+            return;
+        }
+        shardRouter.useRoom(roomId);
+        if (roomRepository.raiseVersion(roomId, 0L) == 0) {
+            throw new RuntimeException("Room not found with id: " + roomId);
+        }
+        Room room = roomRepository.findById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found with id: " + roomId));
+        
+        LiveRoom live = new LiveRoom(room);
+        for (PlacementResponse placement : placementRepository.findResponsesByRoomId(roomId)) {
+            live.placements.put(placement.getPlacementId(), placement);
+            roomsByPlacement.put(placement.getPlacementId(), roomId);
+        }
+        if (liveRooms.putIfAbsent(roomId, live) == null) {
+            spatialIndexService.registerOverlay(roomId, live.placements::values);
+        }
+    }
+    
+    // Flushes outstanding moves and leaves live mode
+    public void close(Long roomId) {
+        LiveRoom live = liveRooms.get(roomId);
+        if (live == null) {
+            return;
+        }
+        flush(live);
+        discard(roomId);
+    }
+    
+    // Writes outstanding moves now, for callers that read the placements table
+    // directly. Call it before the caller's transaction reads anything: the write
+    // commits separately and a snapshot taken earlier would not see it.
+    public void flush(Long roomId) {
+        LiveRoom live = liveRooms.get(roomId);
+        if (live != null) {
+            flush(live);
+        }
+    }
+    
+    // Leaves live mode without flushing once the caller's transaction commits,
+    // e.g. when the room itself is deleted; a rolled back delete keeps the room live
+    public void discardAfterCommit(Long roomId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    discard(roomId);
+                }
+            });
+        } else {
+            discard(roomId);
+        }
+    }
+    
+    // Leaves live mode without flushing
+    public void discard(Long roomId) {
+        LiveRoom live = liveRooms.remove(roomId);
+        if (live != null) {
+            spatialIndexService.removeOverlay(roomId);
+            live.placements.keySet().forEach(roomsByPlacement::remove);
+        }
+    }
+    
+    public boolean isLive(Long roomId) {
+        return liveRooms.containsKey(roomId);
+    }
+    
+    public int liveRoomCount() {
+        return liveRooms.size();
+    }
+    
+    public int dirtyPlacementCount() {
+        int dirty = 0;
+        for (LiveRoom live : liveRooms.values()) {
+            dirty += live.dirty.size();
+        }
+        return dirty;
+    }
+    
+    public boolean isLivePlacement(Long placementId) {
+        return roomsByPlacement.containsKey(placementId);
+    }
+    
+    public long getVersion(Long roomId) {
+        LiveRoom live = liveRooms.get(roomId);
+        if (live == null) {
+            throw new RuntimeException("Room is not live: " + roomId);
+        }
+        return live.version.get();
+    }
+    
+    // Bumps the in-memory version, failing if it no longer matches expectedVersion
+    public long bumpVersion(Long roomId, Long expectedVersion) {
+        LiveRoom live = liveRooms.get(roomId);
+        if (live == null) {
+            throw new RuntimeException("Room is not live: " + roomId);
+        }
+        return bumpVersion(live, expectedVersion);
+    }
+    
+    // Raises the in-memory version to one a database-path write has already
+    // taken, for a write that started before the room went live
+    public void raiseVersion(Long roomId, long version) {
+        LiveRoom live = liveRooms.get(roomId);
+        if (live != null) {
+            live.version.accumulateAndGet(version, Math::max);
+        }
+    }
+    
+    // Takes back a bump whose transaction rolled back. If a later bump has
+    // already built on it, the version stays used.
+    public void undoBump(Long roomId, long version) {
+        LiveRoom live = liveRooms.get(roomId);
+        if (live != null) {
+            live.version.compareAndSet(version, version - 1);
+        }
+    }
+    
+    public List<PlacementResponse> getPlacements(Long roomId) {
+        LiveRoom live = liveRooms.get(roomId);
+        if (live == null) {
+            return List.of();
+        }
+        return live.placements.values().stream()
+                .sorted(Comparator.comparing(PlacementResponse::getPlacementId))
+                .collect(Collectors.toList());
+    }
+    
+    // Applies a position update in memory; it reaches the database on the next flush
+    public PlacementResponse move(Long placementId, PlacementRequest request, Long expectedVersion) {
+        Long roomId = roomsByPlacement.get(placementId);
+        LiveRoom live = roomId != null ? liveRooms.get(roomId) : null;
+        if (live == null) {
+            throw new RuntimeException("Placement not found in a live room with id: " + placementId);
+        }
+        
+        RoomSpatialIndex index = spatialIndexService.getIndex(live.room);
+        PlacementResponse current;
+        PlacementResponse moved;
+        long version;
+        index.lock();
+        try {
+            current = live.placements.get(placementId);
+            if (current == null) {
+                throw new RuntimeException("Placement not found with id: " + placementId);
+            }
+            Double rotation = request.getRotation() != null ? request.getRotation() : current.getRotation();
+            spatialIndexService.checkFootprint(index, placementId, current.getObjectId(),
+                    current.getObjectWidth(), current.getObjectHeight(), request.getX(), request.getY(), rotation);
+            
+            version = bumpVersion(live, expectedVersion);
+            moved = new PlacementResponse(placementId, roomId, current.getObjectId(),
+                    current.getObjectName(), current.getObjectWidth(), current.getObjectHeight(),
+                    current.getObjectColor(), request.getX(), request.getY(), rotation);
+            live.placements.put(placementId, moved);
+            live.dirty.add(placementId);
+            spatialIndexService.put(index, moved);
+        } finally {
+            index.unlock();
+        }
+        eventPublisher.publishEvent(PlacementChangedEvent.moved(moved, current, version));
+        return moved;
+    }
+    
+    // Mirrors a placement written through the database path. The database now
+    // holds its latest state, so it no longer needs flushing.
+    public void placementSaved(PlacementResponse placement) {
+        LiveRoom live = liveRooms.get(placement.getRoomId());
+        if (live != null) {
+            live.placements.put(placement.getPlacementId(), placement);
+            live.dirty.remove(placement.getPlacementId());
+            roomsByPlacement.put(placement.getPlacementId(), placement.getRoomId());
+        }
+    }
+    
+    public void placementDeleted(Long roomId, Long placementId) {
+        LiveRoom live = liveRooms.get(roomId);
+        if (live != null) {
+            live.placements.remove(placementId);
+            live.dirty.remove(placementId);
+            roomsByPlacement.remove(placementId);
+        }
+    }
+    
+    // Keeps the room's dimensions in step with room edits
+    public void roomUpdated(Room room) {
+        LiveRoom live = liveRooms.get(room.getRoomId());
+        if (live != null) {
+            live.room = room;
+        }
+    }
+    
+    // Keeps cached object details in step with catalog edits
+    public void objectUpdated(RoomObject roomObject) {
+        for (LiveRoom live : liveRooms.values()) {
+            live.placements.replaceAll((id, p) -> !roomObject.getObjectId().equals(p.getObjectId()) ? p
+                    : new PlacementResponse(id, p.getRoomId(), p.getObjectId(), roomObject.getName(),
+                            roomObject.getWidth(), roomObject.getHeight(), roomObject.getColor(),
+                            p.getX(), p.getY(), p.getRotation()));
+        }
+    }
+    
+    public void objectDeleted(Long objectId) {
+        for (LiveRoom live : liveRooms.values()) {
+            live.placements.values().removeIf(p -> {
+                if (!objectId.equals(p.getObjectId())) {
+                    return false;
+                }
+                live.dirty.remove(p.getPlacementId());
+                roomsByPlacement.remove(p.getPlacementId());
+                return true;
+            });
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${coursecluster.live-rooms.flush-interval-ms:1000}")
+    public void flushAll() {
+        liveRooms.values().forEach(this::flush);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+    }
+    
+    private long bumpVersion(LiveRoom live, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return live.version.incrementAndGet();
+        }
+        if (!live.version.compareAndSet(expectedVersion, expectedVersion + 1)) {
+            throw new VersionMismatchException(live.room.getRoomId(), expectedVersion);
+        }
+        return expectedVersion + 1;
+    }
+    
+    // Writes the latest position of every dirty placement in one transaction.
+    // Several moves of the same placement since the last flush become one update.
+    // The room's version is raised first, which locks its row: a database-path
+    // write bumps that row before it calls placementSaved, so it either shows up
+    // here as a replaced entry, which is skipped, or waits and commits after us.
+    private void flush(LiveRoom live) {
+        Map<Long, PlacementResponse> pending = new HashMap<>();
+        RoomSpatialIndex index = spatialIndexService.getIndex(live.room);
+        index.lock();
+        try {
+            for (Long placementId : new ArrayList<>(live.dirty)) {
+                live.dirty.remove(placementId);
+                PlacementResponse placement = live.placements.get(placementId);
+                if (placement != null) {
+                    pending.put(placementId, placement);
+                }
+            }
+        } finally {
+            index.unlock();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        try {
+            shardRouter.runOnRoom(live.room.getRoomId(), () -> flushTransaction.executeWithoutResult(status -> {
+                roomRepository.raiseVersion(live.room.getRoomId(), live.version.get());
+                List<Placement> placements = new ArrayList<>();
+                for (Placement placement : placementRepository.findAllById(pending.keySet())) {
+                    PlacementResponse latest = pending.get(placement.getPlacementId());
+                    // Saved through the database since it was copied, with a newer position
+                    if (live.placements.get(placement.getPlacementId()) != latest) {
+                        continue;
+                    }
+                    placement.setX(latest.getX());
+                    placement.setY(latest.getY());
+                    placement.setRotation(latest.getRotation());
+                    placements.add(placement);
+                }
+                placementRepository.saveAll(placements);
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Flushing live room {} failed; will retry", live.room.getRoomId(), e);
+            pending.forEach((placementId, placement) -> {
+                if (live.placements.get(placementId) == placement) {
+                    live.dirty.add(placementId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Creates a large list of placements in chunks, one transaction per chunk, so
+// progress can be reported and the job cancelled between chunks. Chunks that
+// already committed stay committed if a later one is rejected. With shards a
+// chunk is split by the shard of its rooms, as a transaction spans one shard.
+@Component
+public class PlacementBatchJobHandler implements JobHandler<PlacementRequest[]> {
+    
+    public static final String TYPE = "placement-batch";
+    
+    private static final int CHUNK_SIZE = 1000;
+    
+    @Autowired
+    private PlacementService placementService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+    
+    @Override
+    public Class<PlacementRequest[]> getPayloadType() {
+        return PlacementRequest[].class;
+    }
+    
+    // Re-running would create the committed chunks a second time
+    @Override
+    public boolean isRestartable() {
+        return false;
+    }
+    
+    @Override
+    public Object run(PlacementRequest[] payload, JobContext context) {
+        List<PlacementRequest> requests = Arrays.asList(payload);
+        List<Long> createdIds = new ArrayList<>(requests.size());
+        for (int start = 0; start < requests.size(); start += CHUNK_SIZE) {
+            context.checkCancelled();
+            int end = Math.min(requests.size(), start + CHUNK_SIZE);
+            Map<Integer, List<PlacementRequest>> byShard = requests.subList(start, end).stream()
+                    .collect(Collectors.groupingBy(request -> shardRouter.shardOfRoom(request.getRoomId()),
+                            LinkedHashMap::new, Collectors.toList()));
+            for (List<PlacementRequest> shardRequests : byShard.values()) {
+                for (PlacementResponse placement : placementService.createPlacements(shardRequests, null)) {
+                    createdIds.add(placement.getPlacementId());
+                }
+            }
+            context.progress(end * 100 / requests.size(), end + " of " + requests.size() + " placements created");
+        }
+        return createdIds;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.PlacementResponse;
+
+// Published by PlacementService and LiveRoomService whenever a placement is
+// created, moved or deleted. Listeners that care about durability observe it
+// after the surrounding transaction commits.
+public class PlacementChangedEvent {
+    
+    public enum Type {
+        CREATED,
+        MOVED,
+        DELETED
+    }
+    
+    private final Type type;
+    private final Long roomId;
+    private final Long placementId;
+    private final PlacementResponse placement; // state after the change, null for deletes
+    private final PlacementResponse previous; // state before the change, null for creates
+    private final long version; // room layout version the change produced
+    private final Long undoOf; // version this change reverts, for changes made by an undo
+    
+    public PlacementChangedEvent(Type type, Long roomId, Long placementId, PlacementResponse placement,
+                                 PlacementResponse previous, long version, Long undoOf) {
+        this.type = type;
+        this.roomId = roomId;
+        this.placementId = placementId;
+        this.placement = placement;
+        this.previous = previous;
+        this.version = version;
+        this.undoOf = undoOf;
+    }
+    
+    public static PlacementChangedEvent created(PlacementResponse placement, long version) {
+        return new PlacementChangedEvent(Type.CREATED, placement.getRoomId(), placement.getPlacementId(), placement,
+                null, version, null);
+    }
+    
+    public static PlacementChangedEvent moved(PlacementResponse placement, PlacementResponse previous, long version) {
+        return new PlacementChangedEvent(Type.MOVED, placement.getRoomId(), placement.getPlacementId(), placement,
+                previous, version, null);
+    }
+    
+    public static PlacementChangedEvent deleted(PlacementResponse previous, long version) {
+        return new PlacementChangedEvent(Type.DELETED, previous.getRoomId(), previous.getPlacementId(), null,
+                previous, version, null);
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public Long getRoomId() {
+        return roomId;
+    }
+    
+    public Long getPlacementId() {
+        return placementId;
+    }
+    
+    public PlacementResponse getPlacement() {
+        return placement;
+    }
+    
+    public PlacementResponse getPrevious() {
+        return previous;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public Long getUndoOf() {
+        return undoOf;
+    }
+}
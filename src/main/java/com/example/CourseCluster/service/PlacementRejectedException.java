@@ -0,0 +1,26 @@
+package com.example.CourseCluster.service;
+
+public class PlacementRejectedException extends RuntimeException {
+    
+    public enum Reason {
+        OUT_OF_BOUNDS,
+        OVERLAP
+    }
+    
+    private final Reason reason;
+    private final Long conflictingPlacementId;
+    
+    public PlacementRejectedException(Reason reason, Long conflictingPlacementId, String message) {
+        super(message);
+        this.reason = reason;
+        this.conflictingPlacementId = conflictingPlacementId;
+    }
+    
+    public Reason getReason() {
+        return reason;
+    }
+    
+    public Long getConflictingPlacementId() {
+        return conflictingPlacementId;
+    }
+}
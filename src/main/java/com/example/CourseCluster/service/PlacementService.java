@@ -1,21 +1,44 @@
 package com.example.CourseCluster.service;
 
+import com.example.CourseCluster.config.ReplicaRouting;
 import com.example.CourseCluster.dto.PlacementRequest;
 import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.dto.PlacementValidationResponse;
 import com.example.CourseCluster.entity.Placement;
+import com.example.CourseCluster.entity.PlacementChange;
 import com.example.CourseCluster.entity.Room;
 import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.layout.RoomSpatialIndex;
 import com.example.CourseCluster.repository.PlacementRepository;
 import com.example.CourseCluster.repository.RoomRepository;
-import com.example.CourseCluster.repository.RoomObjectRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 
 @Service
 public class PlacementService {
     
+    private static final int STREAM_FLUSH_INTERVAL = 500;
+    
     @Autowired
     private PlacementRepository placementRepository;
     
@@ -23,25 +46,116 @@ public class PlacementService {
     private RoomRepository roomRepository;
     
     @Autowired
-    private RoomObjectRepository roomObjectRepository;
+    private RoomObjectService roomObjectService;
+    
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private RoomVersionService roomVersionService;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Transactional(readOnly = true)
     public List<PlacementResponse> getAllPlacements() {
-        return placementRepository.findAll().stream()
-                .map(PlacementResponse::new)
-                .collect(Collectors.toList());
+        return ShardRouter.mergeSorted(shardRouter.fanOut(shard -> placementRepository.findAllResponses()),
+                Comparator.comparing(PlacementResponse::getPlacementId), Integer.MAX_VALUE);
     }
     
+    @Transactional(readOnly = true)
+    public List<PlacementResponse> getPlacementsPage(long after, int limit) {
+        return ShardRouter.mergeSorted(
+                shardRouter.fanOut(shard -> placementRepository.findResponsesAfter(after, PageRequest.of(0, limit))),
+                Comparator.comparing(PlacementResponse::getPlacementId), limit);
+    }
+    
+    // Writes every placement as one JSON object per line while rows are read,
+    // so memory use does not grow with the size of the table. With shards the
+    // shards are read together and merged by id.
+    @Transactional(readOnly = true)
+    public void streamAllPlacements(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(PlacementResponse.class);
+        int[] written = {0};
+        try {
+            shardRouter.mergeStreams(shard -> placementRepository.streamAllResponses(),
+                    Comparator.comparing(PlacementResponse::getPlacementId), placement -> {
+                        try {
+                            out.write(writer.writeValueAsBytes(placement));
+                            out.write('\n');
+                            if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                                out.flush();
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+    
+    @Transactional(readOnly = true)
     public List<PlacementResponse> getPlacementsByRoomId(Long roomId) {
-        return placementRepository.findByRoom_RoomId(roomId).stream()
-                .map(PlacementResponse::new)
-                .collect(Collectors.toList());
+        if (liveRoomService.isLive(roomId)) {
+            return liveRoomService.getPlacements(roomId);
+        }
+        shardRouter.useRoom(roomId);
+        return placementRepository.findResponsesByRoomId(roomId);
     }
     
-    public PlacementResponse createPlacement(PlacementRequest request) {
+    // Room a placement is in, to check an If-Match against. Read from the primary,
+    // as the placement may have been created a moment ago.
+    public Optional<Long> findRoomId(Long placementId) {
+        return shardRouter.onPlacement(placementId,
+                () -> ReplicaRouting.onPrimary(() -> placementRepository.findRoomIdById(placementId)));
+    }
+    
+    // Checks a prospective placement without saving it. placementId, when given,
+    // is the placement being moved and is ignored in the overlap test. Not
+    // read-only, so it runs on the primary: it may load the room's cached
+    // spatial index, which later writes are checked against.
+    @Transactional
+    public PlacementValidationResponse validatePlacement(PlacementRequest request, Long placementId) {
+        shardRouter.useRoom(request.getRoomId());
         Room room = roomRepository.findById(request.getRoomId())
                 .orElseThrow(() -> new RuntimeException("Room not found with id: " + request.getRoomId()));
         
-        RoomObject roomObject = roomObjectRepository.findById(request.getObjectId())
+        RoomObject roomObject = roomObjectService.getObjectById(request.getObjectId())
+                .orElseThrow(() -> new RuntimeException("Object not found with id: " + request.getObjectId()));
+        
+        RoomSpatialIndex index = spatialIndexService.getIndex(room);
+        index.lock();
+        try {
+            return spatialIndexService.validate(index, placementId, roomObject,
+                    request.getX(), request.getY(), request.getRotation());
+        } finally {
+            index.unlock();
+        }
+    }
+    
+    // expectedVersion (from If-Match) is optional; when given the write only
+    // succeeds if the room is still at that version
+    @Transactional
+    public PlacementResponse createPlacement(PlacementRequest request, Long expectedVersion) {
+        shardRouter.useRoom(request.getRoomId());
+        Room room = roomRepository.findById(request.getRoomId())
+                .orElseThrow(() -> new RuntimeException("Room not found with id: " + request.getRoomId()));
+        
+        RoomObject roomObject = roomObjectService.getObjectById(request.getObjectId())
                 .orElseThrow(() -> new RuntimeException("Object not found with id: " + request.getObjectId()));
         
         Placement placement = new Placement(room, roomObject, request.getX(), request.getY());
@@ -49,25 +163,299 @@ public class PlacementService {
             placement.setRotation(request.getRotation());
         }
         
-        Placement savedPlacement = placementRepository.save(placement);
-        return new PlacementResponse(savedPlacement);
+        RoomSpatialIndex index = spatialIndexService.getIndex(room);
+        index.lock();
+        try {
+            spatialIndexService.checkPlacement(index, null, roomObject,
+                    placement.getX(), placement.getY(), placement.getRotation());
+            long version = roomVersionService.bump(room.getRoomId(), expectedVersion);
+            Placement savedPlacement = placementRepository.save(placement);
+            roomStatsService.placementAdded(room.getRoomId(), roomObject);
+            spatialIndexService.evictOnRollback(room.getRoomId());
+            spatialIndexService.put(index, savedPlacement);
+            PlacementResponse response = new PlacementResponse(savedPlacement);
+            liveRoomService.placementSaved(response);
+            eventPublisher.publishEvent(PlacementChangedEvent.created(response, version));
+            return response;
+        } finally {
+            index.unlock();
+        }
     }
     
-    public PlacementResponse updatePlacement(Long id, PlacementRequest request) {
+    @Transactional
+    public PlacementResponse updatePlacement(Long id, PlacementRequest request, Long expectedVersion) {
+        shardRouter.usePlacement(id);
         Placement placement = placementRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Placement not found with id: " + id));
         
-        placement.setX(request.getX());
-        placement.setY(request.getY());
-        if (request.getRotation() != null) {
-            placement.setRotation(request.getRotation());
+        RoomSpatialIndex index = spatialIndexService.getIndex(placement.getRoom());
+        index.lock();
+        try {
+            PlacementResponse previous = positionOf(placement);
+            Double rotation = request.getRotation() != null ? request.getRotation() : placement.getRotation();
+            spatialIndexService.checkPlacement(index, id, placement.getRoomObject(),
+                    request.getX(), request.getY(), rotation);
+            
+            placement.setX(request.getX());
+            placement.setY(request.getY());
+            if (request.getRotation() != null) {
+                placement.setRotation(request.getRotation());
+            }
+            
+            long version = roomVersionService.bump(placement.getRoom().getRoomId(), expectedVersion);
+            Placement updatedPlacement = placementRepository.save(placement);
+            spatialIndexService.evictOnRollback(placement.getRoom().getRoomId());
+            spatialIndexService.put(index, updatedPlacement);
+            PlacementResponse response = new PlacementResponse(updatedPlacement);
+            liveRoomService.placementSaved(response);
+            eventPublisher.publishEvent(PlacementChangedEvent.moved(response, previous, version));
+            return response;
+        } finally {
+            index.unlock();
         }
+    }
+    
+    // Creates every placement in one transaction. Rooms are resolved with one
+    // query, objects from the cache plus one query for the rest, and pooled
+    // sequence ids let Hibernate batch the inserts. With shards, the rooms must
+    // all be on one shard.
+    @Transactional
+    public List<PlacementResponse> createPlacements(List<PlacementRequest> requests, Long expectedVersion) {
+        Set<Long> roomIds = distinctIds(requests, PlacementRequest::getRoomId);
+        shardRouter.useRooms(roomIds);
+        Map<Long, Room> rooms = roomRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(Room::getRoomId, Function.identity()));
+        Map<Long, RoomObject> objects = roomObjectService.getObjectsById(
+                distinctIds(requests, PlacementRequest::getObjectId));
+        
+        List<Placement> placements = new ArrayList<>(requests.size());
+        for (PlacementRequest request : requests) {
+            Room room = rooms.get(request.getRoomId());
+            if (room == null) {
+                throw new RuntimeException("Room not found with id: " + request.getRoomId());
+            }
+            RoomObject roomObject = objects.get(request.getObjectId());
+            if (roomObject == null) {
+                throw new RuntimeException("Object not found with id: " + request.getObjectId());
+            }
+            
+            Placement placement = new Placement(room, roomObject, request.getX(), request.getY());
+            if (request.getRotation() != null) {
+                placement.setRotation(request.getRotation());
+            }
+            placements.add(placement);
+        }
+        
+        // Check and save room by room so each room's index is locked once
+        Map<Room, List<Placement>> placementsByRoom = placements.stream()
+                .collect(Collectors.groupingBy(Placement::getRoom, LinkedHashMap::new, Collectors.toList()));
+        checkSingleRoom(placementsByRoom.size(), expectedVersion);
+        Map<Long, Long> versions = new HashMap<>();
+        RoomStatsService.Tally tally = new RoomStatsService.Tally();
+        placementsByRoom.forEach((room, roomPlacements) -> {
+            RoomSpatialIndex index = spatialIndexService.getIndex(room);
+            spatialIndexService.evictOnRollback(room.getRoomId());
+            index.lock();
+            try {
+                for (Placement placement : roomPlacements) {
+                    spatialIndexService.checkPlacement(index, null, placement.getRoomObject(),
+                            placement.getX(), placement.getY(), placement.getRotation());
+                    placementRepository.save(placement);
+                    spatialIndexService.put(index, placement);
+                    tally.added(room.getRoomId(), placement.getRoomObject().getObjectId(),
+                            RoomStatsService.area(placement.getRoomObject()));
+                }
+                versions.put(room.getRoomId(), roomVersionService.bump(room.getRoomId(), expectedVersion));
+            } finally {
+                index.unlock();
+            }
+        });
+        roomStatsService.apply(tally);
         
-        Placement updatedPlacement = placementRepository.save(placement);
-        return new PlacementResponse(updatedPlacement);
+        List<PlacementResponse> responses = placements.stream()
+                .map(PlacementResponse::new)
+                .collect(Collectors.toList());
+        responses.forEach(liveRoomService::placementSaved);
+        responses.forEach(response -> eventPublisher.publishEvent(
+                PlacementChangedEvent.created(response, versions.get(response.getRoomId()))));
+        return responses;
     }
     
-    public void deletePlacement(Long id) {
-        placementRepository.deleteById(id);
+    // Moves every placement in one transaction; each request must carry its
+    // placementId. With shards, the placements must all be on one shard.
+    @Transactional
+    public List<PlacementResponse> updatePlacements(List<PlacementRequest> requests, Long expectedVersion) {
+        Set<Long> placementIds = distinctIds(requests, PlacementRequest::getPlacementId);
+        shardRouter.usePlacements(placementIds);
+        Map<Long, Placement> placementsById = placementRepository
+                .findAllWithRoomAndObjectByIdIn(placementIds).stream()
+                .collect(Collectors.toMap(Placement::getPlacementId, Function.identity()));
+        
+        List<Placement> placements = new ArrayList<>(requests.size());
+        for (PlacementRequest request : requests) {
+            Placement placement = placementsById.get(request.getPlacementId());
+            if (placement == null) {
+                throw new RuntimeException("Placement not found with id: " + request.getPlacementId());
+            }
+            placements.add(placement);
+        }
+        Map<Long, PlacementResponse> previous = new HashMap<>();
+        placementsById.forEach((id, placement) -> previous.put(id, positionOf(placement)));
+        
+        Map<Room, List<PlacementRequest>> requestsByRoom = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            requestsByRoom.computeIfAbsent(placements.get(i).getRoom(), room -> new ArrayList<>()).add(requests.get(i));
+        }
+        checkSingleRoom(requestsByRoom.size(), expectedVersion);
+        Map<Long, Long> versions = new HashMap<>();
+        requestsByRoom.forEach((room, roomRequests) -> {
+            RoomSpatialIndex index = spatialIndexService.getIndex(room);
+            spatialIndexService.evictOnRollback(room.getRoomId());
+            index.lock();
+            try {
+                for (PlacementRequest request : roomRequests) {
+                    Placement placement = placementsById.get(request.getPlacementId());
+                    Double rotation = request.getRotation() != null ? request.getRotation() : placement.getRotation();
+                    spatialIndexService.checkPlacement(index, placement.getPlacementId(), placement.getRoomObject(),
+                            request.getX(), request.getY(), rotation);
+                    
+                    placement.setX(request.getX());
+                    placement.setY(request.getY());
+                    placement.setRotation(rotation);
+                    spatialIndexService.put(index, placement);
+                }
+                versions.put(room.getRoomId(), roomVersionService.bump(room.getRoomId(), expectedVersion));
+            } finally {
+                index.unlock();
+            }
+        });
+        
+        List<PlacementResponse> responses = placements.stream()
+                .map(PlacementResponse::new)
+                .collect(Collectors.toList());
+        responses.forEach(liveRoomService::placementSaved);
+        responses.forEach(response -> eventPublisher.publishEvent(PlacementChangedEvent.moved(response,
+                previous.get(response.getPlacementId()), versions.get(response.getRoomId()))));
+        return responses;
+    }
+    
+    @Transactional
+    public void deletePlacement(Long id, Long expectedVersion) {
+        shardRouter.usePlacement(id);
+        placementRepository.findById(id).ifPresent(placement -> {
+            Long roomId = placement.getRoom().getRoomId();
+            PlacementResponse previous = positionOf(placement);
+            long version = roomVersionService.bump(roomId, expectedVersion);
+            placementRepository.delete(placement);
+            roomStatsService.placementRemoved(roomId, placement.getRoomObject());
+            spatialIndexService.evictOnRollback(roomId);
+            spatialIndexService.remove(roomId, id);
+            liveRoomService.placementDeleted(roomId, id);
+            eventPublisher.publishEvent(PlacementChangedEvent.deleted(previous, version));
+        });
+    }
+    
+    // Applies the inverse of one logged version as a new version: created
+    // placements are deleted, moved ones go back and deleted ones are created
+    // again (with new ids). Every step is checked like a normal write.
+    @Transactional
+    public List<PlacementResponse> revert(Long roomId, List<PlacementChange> changes, long undoneVersion,
+                                          Long expectedVersion) {
+        // Live moves not yet written would otherwise overwrite the reverted positions
+        liveRoomService.flush(roomId);
+        shardRouter.useRoom(roomId);
+        Room room = roomRepository.findById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found with id: " + roomId));
+        
+        // Built once every step has been checked and the version bumped
+        List<LongFunction<PlacementChangedEvent>> events = new ArrayList<>();
+        List<PlacementResponse> restored = new ArrayList<>();
+        RoomStatsService.Tally tally = new RoomStatsService.Tally();
+        RoomSpatialIndex index = spatialIndexService.getIndex(room);
+        spatialIndexService.evictOnRollback(roomId);
+        long version;
+        index.lock();
+        try {
+            for (int i = changes.size() - 1; i >= 0; i--) {
+                PlacementChange change = changes.get(i);
+                if (change.getType() == PlacementChange.Type.CREATED) {
+                    placementRepository.findById(change.getPlacementId()).ifPresent(placement -> {
+                        PlacementResponse previous = positionOf(placement);
+                        placementRepository.delete(placement);
+                        tally.removed(roomId, placement.getRoomObject().getObjectId(),
+                                RoomStatsService.area(placement.getRoomObject()));
+                        spatialIndexService.remove(roomId, placement.getPlacementId());
+                        liveRoomService.placementDeleted(roomId, placement.getPlacementId());
+                        events.add(newVersion -> new PlacementChangedEvent(PlacementChangedEvent.Type.DELETED,
+                                roomId, placement.getPlacementId(), null, previous, newVersion, undoneVersion));
+                    });
+                } else if (change.getType() == PlacementChange.Type.MOVED) {
+                    Placement placement = placementRepository.findById(change.getPlacementId()).orElse(null);
+                    if (placement == null) {
+                        continue;
+                    }
+                    PlacementResponse previous = positionOf(placement);
+                    spatialIndexService.checkPlacement(index, placement.getPlacementId(), placement.getRoomObject(),
+                            change.getPreviousX(), change.getPreviousY(), change.getPreviousRotation());
+                    placement.setX(change.getPreviousX());
+                    placement.setY(change.getPreviousY());
+                    placement.setRotation(change.getPreviousRotation());
+                    spatialIndexService.put(index, placement);
+                    PlacementResponse response = new PlacementResponse(placement);
+                    restored.add(response);
+                    events.add(newVersion -> new PlacementChangedEvent(PlacementChangedEvent.Type.MOVED, roomId,
+                            placement.getPlacementId(), response, previous, newVersion, undoneVersion));
+                } else {
+                    RoomObject roomObject = roomObjectService.getObjectById(change.getObjectId()).orElse(null);
+                    if (roomObject == null) {
+                        continue; // the object has left the catalog since
+                    }
+                    Placement placement = new Placement(room, roomObject, change.getPreviousX(), change.getPreviousY());
+                    placement.setRotation(change.getPreviousRotation());
+                    spatialIndexService.checkPlacement(index, null, roomObject,
+                            placement.getX(), placement.getY(), placement.getRotation());
+                    placementRepository.save(placement);
+                    tally.added(roomId, roomObject.getObjectId(), RoomStatsService.area(roomObject));
+                    spatialIndexService.put(index, placement);
+                    PlacementResponse response = new PlacementResponse(placement);
+                    restored.add(response);
+                    events.add(newVersion -> new PlacementChangedEvent(PlacementChangedEvent.Type.CREATED, roomId,
+                            placement.getPlacementId(), response, null, newVersion, undoneVersion));
+                }
+            }
+            version = roomVersionService.bump(roomId, expectedVersion);
+            roomStatsService.apply(tally);
+        } finally {
+            index.unlock();
+        }
+        
+        restored.forEach(liveRoomService::placementSaved);
+        events.forEach(event -> eventPublisher.publishEvent(event.apply(version)));
+        return restored;
+    }
+    
+    // The position part of a placement, without loading its object
+    private static PlacementResponse positionOf(Placement placement) {
+        return new PlacementResponse(placement.getPlacementId(), placement.getRoom().getRoomId(),
+                placement.getRoomObject().getObjectId(), null, null, null, null,
+                placement.getX(), placement.getY(), placement.getRotation());
+    }
+    
+    // An If-Match version names one room, so it cannot guard a batch spanning several
+    private static void checkSingleRoom(int roomCount, Long expectedVersion) {
+        if (expectedVersion != null && roomCount > 1) {
+            throw new RuntimeException("If-Match is only supported for batches within a single room");
+        }
+    }
+    
+    private static Set<Long> distinctIds(List<PlacementRequest> requests, Function<PlacementRequest, Long> id) {
+        Set<Long> ids = new HashSet<>();
+        for (PlacementRequest request : requests) {
+            if (id.apply(request) == null) {
+                throw new RuntimeException("Batch request is missing an id");
+            }
+            ids.add(id.apply(request));
+        }
+        return ids;
     }
 }
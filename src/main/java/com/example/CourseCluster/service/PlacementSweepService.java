@@ -0,0 +1,175 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.config.ShardContext;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.repository.PlacementRepository;
+import com.example.CourseCluster.repository.RoomObjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Removes the placements of a deleted catalog object with set-based statements,
+// one bounded chunk per transaction, instead of loading and cascading every
+// entity. Each room touched by a chunk gets one version bump and every removed
+// placement still gets its DELETED event, so the change log, live rooms and
+// event streams stay in step. Objects are tombstoned first (deleted_at); the
+// scheduled sweep finishes any that are left, including after a restart. With
+// shards each shard is swept in turn, and the object row goes from home last.
+// Placing an object takes no lock on it: writes that still had it cached can
+// add placements during the sweep, and the sweep goes round again for them.
+@Service
+public class PlacementSweepService {
+    
+    private static final Logger log = LoggerFactory.getLogger(PlacementSweepService.class);
+    
+    // Plain SQL so the lookup does not go through the tombstoned object's entity
+    private static final String SELECT_CHUNK = "SELECT placement_id, room_id, object_id, x, y, rotation"
+            + " FROM placements WHERE object_id = ? ORDER BY placement_id LIMIT ?";
+    // Rounds of chunks before the sweep leaves an object that keeps being placed to its next run
+    private static final int ROW_DELETE_ATTEMPTS = 3;
+    
+    @Value("${coursecluster.sweep.chunk-size:500}")
+    private int chunkSize;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlacementRepository placementRepository;
+    
+    @Autowired
+    private RoomObjectRepository roomObjectRepository;
+    
+    @Autowired
+    private RoomVersionService roomVersionService;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    private final Set<Long> sweeping = ConcurrentHashMap.newKeySet();
+    
+    private record ShardSweep(long removed, boolean finished) {}
+    
+    @Scheduled(fixedDelayString = "${coursecluster.sweep.interval-ms:2000}")
+    public void sweepDeleted() {
+        for (Long objectId : roomObjectRepository.findDeletedIds()) {
+            try {
+                sweepObject(objectId);
+            } catch (RuntimeException e) {
+                log.warn("Sweeping deleted object {} failed; will retry", objectId, e);
+            }
+        }
+    }
+    
+    // Deletes every placement of a tombstoned object, then the object row, and
+    // returns how many placements went. Does nothing if another thread is
+    // already sweeping the object.
+    public long sweepObject(Long objectId) {
+        if (!sweeping.add(objectId)) {
+            return 0;
+        }
+        try {
+            // The DELETED events carry the stored positions, so write pending live moves first
+            liveRoomService.flushAll();
+            double area = jdbcTemplate.queryForObject("SELECT width * height FROM objects WHERE object_id = ?",
+                    Double.class, objectId);
+            long removed = 0;
+            for (int shard = shardRouter.shardCount() - 1; shard >= 0; shard--) {
+                ShardSweep swept = ShardContext.on(shard, () -> sweepShard(objectId, area));
+                removed += swept.removed();
+                if (!swept.finished()) {
+                    // Still tombstoned, so the scheduled sweep picks it up again
+                    log.info("Object {} is still being placed; its sweep will be retried", objectId);
+                    return removed;
+                }
+            }
+            liveRoomService.objectDeleted(objectId);
+            return removed;
+        } finally {
+            sweeping.remove(objectId);
+        }
+    }
+    
+    // Writes that found the object in a cache may still place it after the last
+    // chunk. The row only goes once nothing refers to it, and otherwise the
+    // late placements are swept as well.
+    private ShardSweep sweepShard(Long objectId, double area) {
+        long removed = 0;
+        for (int attempt = 0; attempt < ROW_DELETE_ATTEMPTS; attempt++) {
+            int chunk;
+            do {
+                chunk = transactionTemplate.execute(status -> deleteChunk(objectId, area));
+                removed += chunk;
+            } while (chunk > 0);
+            boolean deleted = transactionTemplate.execute(status -> {
+                if (roomObjectRepository.deleteRowIfUnplaced(objectId) == 0 && objectRowExists(objectId)) {
+                    return false;
+                }
+                roomStatsService.objectDeleted(objectId);
+                return true;
+            });
+            if (deleted) {
+                return new ShardSweep(removed, true);
+            }
+        }
+        return new ShardSweep(removed, false);
+    }
+    
+    private boolean objectRowExists(Long objectId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM objects WHERE object_id = ?",
+                Integer.class, objectId) > 0;
+    }
+    
+    private int deleteChunk(Long objectId, double area) {
+        List<PlacementResponse> chunk = jdbcTemplate.query(SELECT_CHUNK, (rs, rowNum) -> new PlacementResponse(
+                rs.getLong("placement_id"), rs.getLong("room_id"), rs.getLong("object_id"), null, null, null, null,
+                rs.getDouble("x"), rs.getDouble("y"), rs.getObject("rotation", Double.class)), objectId, chunkSize);
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        placementRepository.deleteByIdIn(chunk.stream().map(PlacementResponse::getPlacementId).toList());
+        
+        Map<Long, List<PlacementResponse>> byRoom = chunk.stream()
+                .collect(Collectors.groupingBy(PlacementResponse::getRoomId));
+        RoomStatsService.Tally tally = new RoomStatsService.Tally();
+        byRoom.forEach((roomId, removed) -> {
+            long version = roomVersionService.bump(roomId, null);
+            spatialIndexService.evictOnRollback(roomId);
+            for (PlacementResponse placement : removed) {
+                spatialIndexService.remove(roomId, placement.getPlacementId());
+                liveRoomService.placementDeleted(roomId, placement.getPlacementId());
+                tally.removed(roomId, objectId, area);
+                eventPublisher.publishEvent(PlacementChangedEvent.deleted(placement, version));
+            }
+        });
+        roomStatsService.apply(tally);
+        return chunk.size();
+    }
+}
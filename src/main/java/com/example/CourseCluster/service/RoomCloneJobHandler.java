@@ -0,0 +1,93 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.entity.Room;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs POST /api/rooms/{id}/clone as a job, one transaction per chunk of clones.
+// The result is the list of new room ids.
+@Component
+public class RoomCloneJobHandler implements JobHandler<RoomCloneJobHandler.Payload> {
+    
+    public static final String TYPE = "room-clone";
+    
+    private static final int CHUNK_SIZE = 50;
+    
+    @Autowired
+    private RoomCloneService roomCloneService;
+    
+    public static class Payload {
+        private Long roomId;
+        private int count;
+        private String name;
+        
+        public Payload() {}
+        
+        public Payload(Long roomId, int count, String name) {
+            this.roomId = roomId;
+            this.count = count;
+            this.name = name;
+        }
+        
+        public Long getRoomId() {
+            return roomId;
+        }
+        
+        public void setRoomId(Long roomId) {
+            this.roomId = roomId;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+        
+        public void setCount(int count) {
+            this.count = count;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+    
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+    
+    @Override
+    public Class<Payload> getPayloadType() {
+        return Payload.class;
+    }
+    
+    // Re-running would create the committed chunks a second time
+    @Override
+    public boolean isRestartable() {
+        return false;
+    }
+    
+    @Override
+    public Object run(Payload payload, JobContext context) {
+        if (payload.getCount() < 1 || payload.getCount() > RoomCloneService.MAX_CLONES) {
+            throw new IllegalArgumentException("count must be between 1 and " + RoomCloneService.MAX_CLONES);
+        }
+        List<Long> roomIds = new ArrayList<>(payload.getCount());
+        for (int start = 0; start < payload.getCount(); start += CHUNK_SIZE) {
+            context.checkCancelled();
+            int chunk = Math.min(CHUNK_SIZE, payload.getCount() - start);
+            for (Room room : roomCloneService.cloneRoom(payload.getRoomId(), chunk, payload.getName(), start + 1)) {
+                roomIds.add(room.getRoomId());
+            }
+            int done = start + chunk;
+            context.progress(done * 100 / payload.getCount(), done + " of " + payload.getCount() + " rooms cloned");
+        }
+        return roomIds;
+    }
+}
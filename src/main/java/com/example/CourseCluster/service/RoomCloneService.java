@@ -0,0 +1,105 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Stamps copies of a room. The room rows go through JPA, but the placements are
+// copied inside the database with INSERT ... SELECT, so no placement entity is
+// ever loaded. Each statement copies one slice of the template's placements
+// (ranked by id) into one clone, using one contiguous run of allocated ids; all
+// statements go to the database as a single JDBC batch. With shards the clones
+// are created on the template's shard, where its placements are.
+@Service
+public class RoomCloneService {
+    
+    public static final int MAX_CLONES = 1000;
+    
+    private static final String COPY_PLACEMENTS =
+            "INSERT INTO placements (placement_id, room_id, object_id, x, y, rotation) "
+            + "SELECT ? + src.rn, ?, src.object_id, src.x, src.y, src.rotation FROM ("
+            + "SELECT object_id, x, y, rotation, ROW_NUMBER() OVER (ORDER BY placement_id) AS rn "
+            + "FROM placements WHERE room_id = ?) src "
+            + "WHERE src.rn BETWEEN ? AND ?";
+    
+    @Autowired
+    private RoomRepository roomRepository;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Transactional
+    public List<Room> cloneRoom(Long roomId, int count, String name) {
+        return cloneRoom(roomId, count, name, 1);
+    }
+    
+    // Clones are named "<name> <n>" counting from firstNumber; the name defaults
+    // to "<template name> copy"
+    @Transactional
+    public List<Room> cloneRoom(Long roomId, int count, String name, int firstNumber) {
+        if (count < 1 || count > MAX_CLONES) {
+            throw new IllegalArgumentException("count must be between 1 and " + MAX_CLONES);
+        }
+        // Moves still held in memory, or pending in the session, would not be seen by the copy
+        liveRoomService.flush(roomId);
+        shardRouter.useRoom(roomId);
+        roomRepository.flush();
+        Room template = roomRepository.findById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found with id: " + roomId));
+        
+        String baseName = name != null && !name.isBlank() ? name : template.getName() + " copy";
+        List<Room> clones = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Room clone = new Room(baseName + " " + (firstNumber + i), template.getLength(), template.getWidth());
+            clone.setVersion(0L);
+            clones.add(clone);
+        }
+        clones = roomRepository.saveAll(clones);
+        roomStatsService.roomsCopied(roomId, clones.stream().map(Room::getRoomId).toList());
+        
+        Integer placementCount = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM placements WHERE room_id = ?", Integer.class, roomId);
+        if (placementCount == null || placementCount == 0) {
+            return clones;
+        }
+        
+        long[] ids = idAllocator.placementIds(placementCount * count);
+        List<Object[]> batch = new ArrayList<>();
+        int next = 0;
+        for (Room clone : clones) {
+            // Template rows rank..last take ids[next..]; a new statement starts wherever the ids jump
+            int rank = 1;
+            while (rank <= placementCount) {
+                int runStart = next;
+                int last = rank;
+                next++;
+                while (last < placementCount && ids[next] == ids[next - 1] + 1) {
+                    last++;
+                    next++;
+                }
+                batch.add(new Object[] {ids[runStart] - rank, clone.getRoomId(), roomId, rank, last});
+                rank = last + 1;
+            }
+        }
+        jdbcTemplate.batchUpdate(COPY_PLACEMENTS, batch);
+        return clones;
+    }
+}
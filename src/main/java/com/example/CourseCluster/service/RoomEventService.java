@@ -0,0 +1,289 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.PlacementDelta;
+import com.example.CourseCluster.dto.PlacementResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Pushes placement deltas to per-room Server-Sent Event subscribers. Every
+// delta gets a per-room sequence number and the most recent ones are kept so a
+// reconnecting client can resume from Last-Event-ID. The event id is the
+// sequence number prefixed with an id drawn when the process starts, since the
+// numbers start over after a restart and differ between instances. When the
+// requested position is from another process or no longer buffered the
+// client is told to resync, i.e. re-fetch the room once.
+// While a room has deltas queued, a thread of its own sends them in order, so
+// a slow client holds up its room's deliveries but never other rooms or the
+// writer that committed the change. A room has a channel (and a replay buffer)
+// only while it has subscribers or had some within the idle window.
+@Service
+public class RoomEventService {
+    
+    public static final String RESYNC_EVENT = "resync";
+    
+    @Value("${coursecluster.events.replay-buffer:1000}")
+    private int replayBufferSize;
+    
+    @Value("${coursecluster.events.timeout-ms:1800000}")
+    private long emitterTimeout;
+    
+    @Value("${coursecluster.events.idle-ms:300000}")
+    private long idleMs;
+    
+    private final ConcurrentHashMap<Long, RoomChannel> channels = new ConcurrentHashMap<>();
+    // Highest sequence number of any dropped channel. A new channel starts above
+    // it, so a client resuming from the old one is told to resync.
+    private final AtomicLong seqFloor = new AtomicLong();
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private ExecutorService dispatcher;
+    
+    private static class RoomChannel {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<PlacementDelta> recent = new ArrayDeque<>();
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private final ArrayDeque<Outgoing> outgoing = new ArrayDeque<>();
+        private long seq;
+        private boolean sending;
+        private boolean closed;
+        private volatile long lastActive = System.currentTimeMillis();
+        
+        RoomChannel(long seq) {
+            this.seq = seq;
+        }
+    }
+    
+    // A delta and the subscribers it goes to, fixed when it was numbered; later
+    // subscribers get it from the replay buffer instead
+    private record Outgoing(long seq, String name, PlacementDelta delta, List<SseEmitter> emitters) {}
+    
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // Unbounded: one thread per room that is sending, reused once its queue is empty
+        dispatcher = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "room-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+    
+    // Subscribes to a room; lastEventId is the id of the last event the client saw, if any
+    public SseEmitter subscribe(Long roomId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        RoomChannel channel;
+        while (true) {
+            channel = channels.computeIfAbsent(roomId, id -> new RoomChannel(seqFloor.get() + 1));
+            channel.lock.lock();
+            if (!channel.closed) {
+                break;
+            }
+            // Dropped as idle between the lookup and the lock
+            channel.lock.unlock();
+        }
+        
+        try {
+            if (lastEventId != null) {
+                Long lastSeq = sequenceOf(lastEventId);
+                PlacementDelta oldest = channel.recent.peekFirst();
+                if (lastSeq == null || lastSeq > channel.seq
+                        || (lastSeq < channel.seq && (oldest == null || oldest.getSeq() > lastSeq + 1))) {
+                    send(emitter, channel.seq, RESYNC_EVENT, new PlacementDelta(channel.seq, RESYNC_EVENT,
+                            null, null, null, null, null));
+                } else {
+                    for (PlacementDelta delta : channel.recent) {
+                        if (delta.getSeq() > lastSeq) {
+                            send(emitter, delta.getSeq(), delta.getType(), delta);
+                        }
+                    }
+                }
+            }
+            channel.emitters.add(emitter);
+            channel.lastActive = System.currentTimeMillis();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        } finally {
+            channel.lock.unlock();
+        }
+        
+        RoomChannel subscribed = channel;
+        emitter.onCompletion(() -> unsubscribe(subscribed, emitter));
+        emitter.onTimeout(() -> unsubscribe(subscribed, emitter));
+        emitter.onError(e -> unsubscribe(subscribed, emitter));
+        return emitter;
+    }
+    
+    // Deltas go out only once the change is committed. Rooms nobody watches are skipped.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlacementChanged(PlacementChangedEvent event) {
+        RoomChannel channel = channels.get(event.getRoomId());
+        if (channel == null) {
+            return;
+        }
+        
+        channel.lock.lock();
+        try {
+            if (channel.closed) {
+                return;
+            }
+            long seq = ++channel.seq;
+            PlacementResponse placement = event.getPlacement();
+            PlacementDelta delta = placement == null
+                    ? new PlacementDelta(seq, event.getType().name(), event.getPlacementId(), null, null, null, null)
+                    : new PlacementDelta(seq, event.getType().name(), event.getPlacementId(),
+                            event.getType() == PlacementChangedEvent.Type.CREATED ? placement.getObjectId() : null,
+                            placement.getX(), placement.getY(), placement.getRotation());
+            
+            channel.recent.addLast(delta);
+            while (channel.recent.size() > replayBufferSize) {
+                channel.recent.removeFirst();
+            }
+            enqueue(channel, new Outgoing(seq, delta.getType(), delta, List.copyOf(channel.emitters)));
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+    
+    // Tells every subscriber of the room to re-fetch it, e.g. after a bulk change
+    public void requestResync(Long roomId) {
+        RoomChannel channel = channels.get(roomId);
+        if (channel == null) {
+            return;
+        }
+        channel.lock.lock();
+        try {
+            if (channel.closed) {
+                return;
+            }
+            long seq = ++channel.seq;
+            // Older deltas cannot be replayed past a resync point
+            channel.recent.clear();
+            enqueue(channel, new Outgoing(seq, RESYNC_EVENT,
+                    new PlacementDelta(seq, RESYNC_EVENT, null, null, null, null, null),
+                    List.copyOf(channel.emitters)));
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+    
+    // Drops channels that have had no subscribers for the idle window, with
+    // their replay buffers
+    @Scheduled(fixedDelayString = "${coursecluster.events.idle-ms:300000}")
+    public void dropIdleChannels() {
+        long idleSince = System.currentTimeMillis() - idleMs;
+        channels.forEach((roomId, channel) -> {
+            if (!channel.emitters.isEmpty() || channel.lastActive > idleSince) {
+                return;
+            }
+            channel.lock.lock();
+            try {
+                if (channel.emitters.isEmpty() && !channel.sending && channel.lastActive <= idleSince) {
+                    channel.closed = true;
+                    seqFloor.accumulateAndGet(channel.seq, Math::max);
+                    channels.remove(roomId, channel);
+                }
+            } finally {
+                channel.lock.unlock();
+            }
+        });
+    }
+    
+    public int channelCount() {
+        return channels.size();
+    }
+    
+    private void unsubscribe(RoomChannel channel, SseEmitter emitter) {
+        channel.emitters.remove(emitter);
+        channel.lastActive = System.currentTimeMillis();
+    }
+    
+    // Called under the channel lock; starts a drain unless one is running
+    private void enqueue(RoomChannel channel, Outgoing outgoing) {
+        channel.lastActive = System.currentTimeMillis();
+        if (outgoing.emitters().isEmpty()) {
+            return;
+        }
+        channel.outgoing.addLast(outgoing);
+        if (!channel.sending) {
+            channel.sending = true;
+            try {
+                dispatcher.execute(() -> drain(channel));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                channel.sending = false;
+                channel.outgoing.clear();
+            }
+        }
+    }
+    
+    // Sends the channel's queued deltas in order, outside the lock
+    private void drain(RoomChannel channel) {
+        while (true) {
+            Outgoing next;
+            channel.lock.lock();
+            try {
+                next = channel.outgoing.pollFirst();
+                if (next == null) {
+                    channel.sending = false;
+                    return;
+                }
+            } finally {
+                channel.lock.unlock();
+            }
+            for (SseEmitter emitter : next.emitters()) {
+                if (!channel.emitters.contains(emitter)) {
+                    continue;
+                }
+                try {
+                    send(emitter, next.seq(), next.name(), next.delta());
+                } catch (IOException | IllegalStateException e) {
+                    channel.emitters.remove(emitter);
+                }
+            }
+        }
+    }
+    
+    // Sequence number of an event id sent by this process, or null for one from
+    // before a restart or from another instance
+    private Long sequenceOf(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private void send(SseEmitter emitter, long seq, String name, PlacementDelta delta) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(epoch + "-" + seq)
+                .name(name)
+                .data(delta));
+    }
+}
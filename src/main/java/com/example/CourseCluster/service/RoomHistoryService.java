@@ -0,0 +1,423 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.config.ReplicaRouting;
+import com.example.CourseCluster.config.ShardContext;
+import com.example.CourseCluster.dto.PlacementLayoutCodec;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.dto.RoomVersionInfo;
+import com.example.CourseCluster.dto.RoomVersionResponse;
+import com.example.CourseCluster.entity.PlacementChange;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.entity.RoomSnapshot;
+import com.example.CourseCluster.repository.PlacementChangeRepository;
+import com.example.CourseCluster.repository.RoomRepository;
+import com.example.CourseCluster.repository.RoomSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Layout history: an append-only log of placement changes per room plus
+// periodic snapshots, from which any logged version is rebuilt as the nearest
+// snapshot (older or newer) and at most about snapshot-interval changes.
+// Committed changes are only queued in memory on the edit path; a background
+// writer stores them in batches, so history adds no round trip to an edit.
+// A batch that fails is retried a few times. Changes lost anyway (or still
+// queued when the process dies) leave versions missing from the log; the
+// writer notices when it next logs the room and takes a new snapshot, and the
+// versions in between are refused rather than rebuilt wrongly.
+@Service
+public class RoomHistoryService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RoomHistoryService.class);
+    private static final int BASELINE_ATTEMPTS = 5;
+    private static final int WRITE_ATTEMPTS = 3;
+    
+    @Autowired
+    private PlacementChangeRepository changeRepository;
+    
+    @Autowired
+    private RoomSnapshotRepository snapshotRepository;
+    
+    @Autowired
+    private RoomRepository roomRepository;
+    
+    @Autowired
+    private PlacementService placementService;
+    
+    @Autowired
+    private RoomVersionService roomVersionService;
+    
+    @Autowired
+    private RoomObjectService roomObjectService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Value("${coursecluster.history.snapshot-interval:100}")
+    private int snapshotInterval;
+    
+    private final ConcurrentLinkedQueue<PlacementChange> pending = new ConcurrentLinkedQueue<>();
+    // Committed versions that changed no placement, so they are not missing from the log
+    private final ConcurrentLinkedQueue<Unlogged> unlogged = new ConcurrentLinkedQueue<>();
+    // Batches whose write failed, retried before anything newer
+    private List<FailedBatch> failed = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Highest version per room stored by the previous pass. Snapshots only go
+    // up to it, so a change committed just before another but queued just
+    // after it is never left out of one.
+    private Map<Long, Long> settled = new HashMap<>();
+    
+    private record Unlogged(Long roomId, long version) {}
+    
+    private record FailedBatch(List<PlacementChange> changes, int attempts) {}
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlacementChanged(PlacementChangedEvent event) {
+        pending.add(toChange(event));
+    }
+    
+    // For writes that bump the room's version without touching a placement, such
+    // as a resize. Called inside the writing transaction.
+    public void versionUnlogged(Long roomId, long version) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                unlogged.add(new Unlogged(roomId, version));
+            }
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${coursecluster.history.flush-interval-ms:500}")
+    public void flushPending() {
+        writeLock.lock();
+        try {
+            settled.forEach(this::snapshotIfDue);
+            settled = writeQueued();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flushPending();
+    }
+    
+    public List<RoomVersionInfo> getVersions(Long roomId, long after, int limit) {
+        flushPending();
+        return shardRouter.onRoom(roomId,
+                () -> changeRepository.findVersions(roomId, after, PageRequest.of(0, limit)));
+    }
+    
+    public Optional<RoomVersionResponse> getRoomAtVersion(Long roomId, long version) {
+        Optional<Room> room = shardRouter.onRoom(roomId, () -> roomRepository.findById(roomId));
+        Optional<Long> current = roomVersionService.currentVersion(roomId);
+        if (room.isEmpty() || current.isEmpty()) {
+            return Optional.empty();
+        }
+        if (version < 0 || version > current.get()) {
+            throw new IllegalArgumentException("Room " + roomId + " has no version " + version);
+        }
+        List<PlacementResponse> placements;
+        if (version == current.get()) {
+            placements = placementService.getPlacementsByRoomId(roomId);
+        } else {
+            flushPending();
+            placements = shardRouter.onRoom(roomId, () -> rebuild(roomId, version));
+        }
+        return Optional.of(new RoomVersionResponse(roomId, room.get().getName(), room.get().getLength(),
+                room.get().getWidth(), version, placements));
+    }
+    
+    // Reverts the newest version that is not an undo and not undone yet, so
+    // repeated undos walk back through the history
+    public List<PlacementResponse> undo(Long roomId, Long expectedVersion) {
+        flushPending();
+        long target = shardRouter.onRoom(roomId, () -> changeRepository.findLatestUndoableVersion(roomId))
+                .orElseThrow(() -> new IllegalStateException("Nothing to undo in room " + roomId));
+        if (shardRouter.onRoom(roomId, () -> inGap(roomId, target))) {
+            throw new IllegalStateException("Version " + target + " of room " + roomId
+                    + " is not completely recorded and cannot be undone");
+        }
+        List<PlacementChange> changes = shardRouter.onRoom(roomId,
+                () -> changeRepository.findRange(roomId, target, target));
+        return placementService.revert(roomId, changes, target, expectedVersion);
+    }
+    
+    @Transactional
+    public void deleteHistory(Long roomId) {
+        unlogged.removeIf(version -> version.roomId().equals(roomId));
+        changeRepository.deleteByRoomId(roomId);
+        snapshotRepository.deleteByRoomId(roomId);
+    }
+    
+    private Map<Long, Long> writeQueued() {
+        // Failed batches were prepared already and go first, being older
+        List<FailedBatch> retries = failed;
+        failed = new ArrayList<>();
+        Map<Long, Long> written = new HashMap<>();
+        for (FailedBatch batch : retries) {
+            int shard = shardRouter.shardOfRoom(batch.changes().get(0).getRoomId());
+            write(shard, batch.changes(), batch.attempts(), written);
+        }
+        
+        Map<Long, List<PlacementChange>> byRoom = new LinkedHashMap<>();
+        PlacementChange change;
+        while ((change = pending.poll()) != null) {
+            byRoom.computeIfAbsent(change.getRoomId(), id -> new ArrayList<>()).add(change);
+        }
+        Map<Long, List<Long>> unloggedByRoom = new HashMap<>();
+        Unlogged version;
+        while ((version = unlogged.poll()) != null) {
+            unloggedByRoom.computeIfAbsent(version.roomId(), id -> new ArrayList<>()).add(version.version());
+        }
+        
+        // History lives on the room's shard, so the writes are one transaction per shard
+        Map<Integer, List<PlacementChange>> changesByShard = new HashMap<>();
+        byRoom.forEach((roomId, roomChanges) -> {
+            roomChanges.sort(Comparator.comparing(PlacementChange::getVersion));
+            List<Long> roomUnlogged = unloggedByRoom.getOrDefault(roomId, List.of());
+            // Changes to a room deleted since are dropped with it. The baseline is
+            // read from the primary, where the versions being logged were written.
+            if (shardRouter.onRoom(roomId, () -> roomRepository.existsById(roomId)
+                    && ReplicaRouting.onPrimary(() -> prepare(roomId, roomChanges, roomUnlogged)))) {
+                changesByShard.computeIfAbsent(shardRouter.shardOfRoom(roomId), s -> new ArrayList<>())
+                        .addAll(roomChanges);
+            }
+        });
+        changesByShard.forEach((shard, changes) -> write(shard, changes, 0, written));
+        
+        // Kept until the room's next change is logged, which they are checked with
+        unloggedByRoom.forEach((roomId, versions) -> {
+            if (!byRoom.containsKey(roomId)) {
+                versions.forEach(v -> unlogged.add(new Unlogged(roomId, v)));
+            }
+        });
+        return written;
+    }
+    
+    private void write(int shard, List<PlacementChange> changes, int attempts, Map<Long, Long> written) {
+        try {
+            ShardContext.run(shard, () -> transactionTemplate.executeWithoutResult(
+                    status -> changeRepository.saveAll(changes)));
+            changes.forEach(change -> written.merge(change.getRoomId(), change.getVersion(), Math::max));
+        } catch (RuntimeException e) {
+            // Ids drawn in the rolled back transaction are not reused
+            changes.forEach(change -> change.setChangeId(null));
+            if (attempts + 1 < WRITE_ATTEMPTS) {
+                log.warn("Writing {} history entries failed; retrying", changes.size(), e);
+                failed.add(new FailedBatch(changes, attempts + 1));
+            } else {
+                // The next change logged for these rooms finds the gap
+                log.warn("Writing {} history entries failed {} times; they are lost", changes.size(),
+                        WRITE_ATTEMPTS, e);
+            }
+        }
+    }
+    
+    // A room's changes can only be replayed from a snapshot, and only as long as
+    // no version is missing in between. The first change logged for a room
+    // therefore takes its first snapshot, and one that does not follow on from
+    // what is logged already (changes were lost, or a version was never
+    // reported) takes a new one, which rebuilds never read past.
+    private boolean prepare(Long roomId, List<PlacementChange> changes, List<Long> unloggedVersions) {
+        Optional<RoomSnapshot> latest = snapshotRepository.findFirstByRoomIdOrderByVersionDesc(roomId);
+        if (latest.isEmpty()) {
+            return takeSnapshot(roomId, null);
+        }
+        long expected = Math.max(latest.get().getVersion(),
+                changeRepository.findLatestVersion(roomId).orElse(0L));
+        TreeSet<Long> versions = new TreeSet<>(unloggedVersions);
+        changes.forEach(change -> versions.add(change.getVersion()));
+        for (long version : versions) {
+            if (version > expected + 1) {
+                log.info("History of room {} is missing versions after {}; taking a new snapshot",
+                        roomId, expected);
+                return takeSnapshot(roomId, expected);
+            }
+            expected = Math.max(expected, version);
+        }
+        return true;
+    }
+    
+    // The current state is read between two version reads and retried if an
+    // edit slipped in, so the snapshot matches its version exactly
+    private boolean takeSnapshot(Long roomId, Long gapAfter) {
+        for (int attempt = 0; attempt < BASELINE_ATTEMPTS; attempt++) {
+            Optional<Long> before = roomVersionService.currentVersion(roomId);
+            List<PlacementResponse> placements = placementService.getPlacementsByRoomId(roomId);
+            Optional<Long> after = roomVersionService.currentVersion(roomId);
+            if (before.isEmpty()) {
+                return false;
+            }
+            if (before.equals(after)) {
+                RoomSnapshot snapshot = snapshot(roomId, before.get(), placements);
+                snapshot.setGapAfter(gapAfter);
+                snapshotRepository.save(snapshot);
+                return true;
+            }
+        }
+        log.warn("Room {} kept changing while taking a history snapshot; changes dropped", roomId);
+        return false;
+    }
+    
+    private void snapshotIfDue(Long roomId, Long version) {
+        try {
+            shardRouter.runOnRoom(roomId, () -> {
+                RoomSnapshot latest = snapshotRepository.findFirstByRoomIdOrderByVersionDesc(roomId).orElse(null);
+                if (latest == null || version <= latest.getVersion()
+                        || changeRepository.countAfter(roomId, latest.getVersion()) < snapshotInterval) {
+                    return;
+                }
+                snapshotRepository.save(snapshot(roomId, version, replay(roomId, latest, version)));
+            });
+        } catch (RuntimeException e) {
+            log.warn("Snapshot of room {} at version {} failed", roomId, version, e);
+        }
+    }
+    
+    private static RoomSnapshot snapshot(Long roomId, long version, List<PlacementResponse> placements) {
+        return new RoomSnapshot(roomId, version, placements.size(),
+                PlacementLayoutCodec.encodeExact(roomId, version, placements));
+    }
+    
+    private boolean inGap(Long roomId, long version) {
+        return snapshotRepository.existsByRoomIdAndGapAfterLessThanAndVersionGreaterThan(roomId, version, version);
+    }
+    
+    private List<PlacementResponse> rebuild(Long roomId, long version) {
+        long earliest = Math.min(
+                snapshotRepository.findEarliestVersion(roomId).orElse(Long.MAX_VALUE),
+                changeRepository.findEarliestVersion(roomId).map(v -> v - 1).orElse(Long.MAX_VALUE));
+        if (version < earliest) {
+            throw new IllegalArgumentException("Version " + version + " of room " + roomId
+                    + " is older than its recorded history");
+        }
+        if (inGap(roomId, version)) {
+            throw new IllegalArgumentException("Version " + version + " of room " + roomId
+                    + " is missing from its recorded history");
+        }
+        Optional<RoomSnapshot> older = snapshotRepository
+                .findFirstByRoomIdAndVersionLessThanEqualOrderByVersionDesc(roomId, version);
+        // Rewinding a snapshot taken after a gap would go back across the gap
+        Optional<RoomSnapshot> newer = snapshotRepository
+                .findFirstByRoomIdAndVersionGreaterThanEqualOrderByVersionAsc(roomId, version)
+                .filter(snapshot -> snapshot.getGapAfter() == null || snapshot.getVersion() == version);
+        if (older.isPresent()
+                && (newer.isEmpty() || version - older.get().getVersion() <= newer.get().getVersion() - version)) {
+            return replay(roomId, older.get(), version);
+        }
+        if (newer.isPresent()) {
+            return rewind(roomId, newer.get(), version);
+        }
+        throw new IllegalArgumentException("Room " + roomId + " has no history");
+    }
+    
+    // Snapshot, then the changes after it up to version, applied forwards
+    private List<PlacementResponse> replay(Long roomId, RoomSnapshot snapshot, long version) {
+        Map<Long, PlacementResponse> objects = new HashMap<>();
+        TreeMap<Long, PlacementResponse> state = decode(snapshot, objects);
+        for (PlacementChange change : changeRepository.findRange(roomId, snapshot.getVersion() + 1, version)) {
+            if (change.getType() == PlacementChange.Type.DELETED) {
+                state.remove(change.getPlacementId());
+            } else {
+                state.put(change.getPlacementId(), placement(roomId, change.getPlacementId(), change.getObjectId(),
+                        change.getX(), change.getY(), change.getRotation(), objects));
+            }
+        }
+        return new ArrayList<>(state.values());
+    }
+    
+    // Snapshot, then the changes after version up to it, undone newest first
+    private List<PlacementResponse> rewind(Long roomId, RoomSnapshot snapshot, long version) {
+        Map<Long, PlacementResponse> objects = new HashMap<>();
+        TreeMap<Long, PlacementResponse> state = decode(snapshot, objects);
+        List<PlacementChange> changes = changeRepository.findRange(roomId, version + 1, snapshot.getVersion());
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            PlacementChange change = changes.get(i);
+            if (change.getType() == PlacementChange.Type.CREATED) {
+                state.remove(change.getPlacementId());
+            } else {
+                state.put(change.getPlacementId(), placement(roomId, change.getPlacementId(), change.getObjectId(),
+                        change.getPreviousX(), change.getPreviousY(), change.getPreviousRotation(), objects));
+            }
+        }
+        return new ArrayList<>(state.values());
+    }
+    
+    private static TreeMap<Long, PlacementResponse> decode(RoomSnapshot snapshot, Map<Long, PlacementResponse> objects) {
+        TreeMap<Long, PlacementResponse> state = new TreeMap<>();
+        for (PlacementResponse placement : PlacementLayoutCodec.decode(snapshot.getData())) {
+            state.put(placement.getPlacementId(), placement);
+            objects.putIfAbsent(placement.getObjectId(), placement);
+        }
+        return state;
+    }
+    
+    // Object details come from the snapshot when it has them, else from the catalog
+    private PlacementResponse placement(Long roomId, Long placementId, Long objectId, Double x, Double y,
+                                        Double rotation, Map<Long, PlacementResponse> objects) {
+        PlacementResponse known = objects.get(objectId);
+        if (known == null) {
+            RoomObject roomObject = roomObjectService.getObjectById(objectId).orElse(null);
+            known = roomObject == null
+                    ? new PlacementResponse(null, roomId, objectId, null, null, null, null, null, null, null)
+                    : new PlacementResponse(null, roomId, objectId, roomObject.getName(), roomObject.getWidth(),
+                            roomObject.getHeight(), roomObject.getColor(), null, null, null);
+            objects.put(objectId, known);
+        }
+        return new PlacementResponse(placementId, roomId, objectId, known.getObjectName(), known.getObjectWidth(),
+                known.getObjectHeight(), known.getObjectColor(), x, y, rotation);
+    }
+    
+    private static PlacementChange toChange(PlacementChangedEvent event) {
+        PlacementResponse after = event.getPlacement();
+        PlacementResponse before = event.getPrevious();
+        PlacementChange change = new PlacementChange();
+        change.setRoomId(event.getRoomId());
+        change.setVersion(event.getVersion());
+        change.setType(PlacementChange.Type.valueOf(event.getType().name()));
+        change.setPlacementId(event.getPlacementId());
+        change.setObjectId(after != null ? after.getObjectId() : before.getObjectId());
+        if (after != null) {
+            change.setX(after.getX());
+            change.setY(after.getY());
+            change.setRotation(after.getRotation());
+        }
+        if (before != null) {
+            change.setPreviousX(before.getX());
+            change.setPreviousY(before.getY());
+            change.setPreviousRotation(before.getRotation());
+        }
+        change.setUndoOf(event.getUndoOf());
+        change.setChangedAt(Instant.now());
+        return change;
+    }
+}
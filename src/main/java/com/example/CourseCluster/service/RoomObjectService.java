@@ -3,8 +3,20 @@ package com.example.CourseCluster.service;
 import com.example.CourseCluster.entity.RoomObject;
 import com.example.CourseCluster.repository.RoomObjectRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -13,31 +25,129 @@ public class RoomObjectService {
     @Autowired
     private RoomObjectRepository roomObjectRepository;
     
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private PlacementSweepService placementSweepService;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    // The cached reads are not read-only transactions, so they load from the
+    // primary; a lagging replica could otherwise leave stale rows in the cache.
+    // With shards the catalog is written on the home shard and copied to the
+    // others once the write commits.
+    @Cacheable(value = "objectCatalog", key = "'all'")
     public List<RoomObject> getAllObjects() {
         return roomObjectRepository.findAll();
     }
     
+    @Transactional(readOnly = true)
+    public List<RoomObject> getObjectsPage(long after, int limit) {
+        return roomObjectRepository.findByObjectIdGreaterThanOrderByObjectId(after, PageRequest.of(0, limit));
+    }
+    
+    @Cacheable(value = "objects", key = "#id", unless = "#result == null")
     public Optional<RoomObject> getObjectById(Long id) {
         return roomObjectRepository.findById(id);
     }
     
+    // getObjectById for many ids: cached objects are taken from the cache and
+    // the rest loaded with one query and cached. Unknown ids are left out.
+    public Map<Long, RoomObject> getObjectsById(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache("objects");
+        Map<Long, RoomObject> objects = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Cache.ValueWrapper cached = cache != null ? cache.get(id) : null;
+            if (cached != null && cached.get() instanceof RoomObject roomObject) {
+                objects.put(id, roomObject);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (RoomObject roomObject : roomObjectRepository.findAllById(missing)) {
+                objects.put(roomObject.getObjectId(), roomObject);
+                if (cache != null) {
+                    cache.put(roomObject.getObjectId(), roomObject);
+                }
+            }
+        }
+        return objects;
+    }
+    
+    @CacheEvict(value = "objectCatalog", allEntries = true)
+    @Transactional
     public RoomObject createObject(RoomObject roomObject) {
-        return roomObjectRepository.save(roomObject);
+        RoomObject savedObject = roomObjectRepository.save(roomObject);
+        roomStatsService.objectsCreated(List.of(savedObject.getObjectId()));
+        catalogSyncService.syncAfterCommit();
+        return savedObject;
     }
     
+    @Caching(evict = {
+            @CacheEvict(value = "objects", key = "#id"),
+            @CacheEvict(value = "objectCatalog", allEntries = true)
+    })
+    @Transactional
     public RoomObject updateObject(Long id, RoomObject objectDetails) {
         RoomObject roomObject = roomObjectRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Object not found with id: " + id));
+        double previousArea = RoomStatsService.area(roomObject);
         
         roomObject.setName(objectDetails.getName());
         roomObject.setWidth(objectDetails.getWidth());
         roomObject.setHeight(objectDetails.getHeight());
         roomObject.setColor(objectDetails.getColor());
         
-        return roomObjectRepository.save(roomObject);
+        RoomObject savedObject = roomObjectRepository.save(roomObject);
+        roomStatsService.objectResized(id, RoomStatsService.area(savedObject) - previousArea);
+        liveRoomService.objectUpdated(savedObject);
+        // Footprints of every room using this object may have changed size
+        spatialIndexService.evictAll();
+        catalogSyncService.syncAfterCommit();
+        return savedObject;
+    }
+    
+    // Evicted up front: the sweep can take a while, and placing the object must
+    // not find it in the cache meanwhile
+    @Caching(evict = {
+            @CacheEvict(value = "objects", key = "#id", beforeInvocation = true),
+            @CacheEvict(value = "objectCatalog", allEntries = true, beforeInvocation = true)
+    })
+    // Tombstones the object, then removes its placements chunk by chunk before
+    // returning (unless the background sweep got to it first)
+    public boolean deleteObject(Long id) {
+        if (roomObjectRepository.markDeleted(id, Instant.now()) == 0) {
+            return false;
+        }
+        catalogSyncService.syncAfterCommit();
+        placementSweepService.sweepObject(id);
+        return true;
     }
     
-    public void deleteObject(Long id) {
-        roomObjectRepository.deleteById(id);
+    // Only tombstones the object: it leaves the catalog now and the scheduled
+    // sweep removes its placements
+    @Caching(evict = {
+            @CacheEvict(value = "objects", key = "#id", beforeInvocation = true),
+            @CacheEvict(value = "objectCatalog", allEntries = true, beforeInvocation = true)
+    })
+    public boolean deleteObjectLater(Long id) {
+        if (roomObjectRepository.markDeleted(id, Instant.now()) == 0) {
+            return false;
+        }
+        catalogSyncService.syncAfterCommit();
+        return true;
     }
 }
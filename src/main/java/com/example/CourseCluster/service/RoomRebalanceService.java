@@ -0,0 +1,279 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.config.ShardContext;
+import com.example.CourseCluster.dto.RebalanceResponse;
+import com.example.CourseCluster.dto.ShardResponse;
+import com.example.CourseCluster.repository.PlacementRepository;
+import com.example.CourseCluster.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Moves rooms between shards. A room's rows (the room, its counters, placements
+// and history) are copied to the target in one transaction there, the move is
+// recorded in the shard directory, and the rows are deleted from the source in a
+// transaction that has held the room row locked since before the copy, so no
+// write to the room can fall between the two. Ids are kept. Room and placement
+// ids come from sequences rather than the tables' counters, so a copied row
+// never changes the ids its new shard hands out and a room can move to any
+// shard.
+@Service
+public class RoomRebalanceService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RoomRebalanceService.class);
+    
+    // Copied in this order; snapshot ids are left for the target to assign
+    private static final List<String> ROOM_TABLES =
+            List.of("rooms", "room_stats", "placements", "placement_changes", "room_snapshots");
+    private static final String GENERATED_KEY = "snapshot_id";
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private RoomRepository roomRepository;
+    
+    @Autowired
+    private PlacementRepository placementRepository;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    @Autowired
+    private RoomHistoryService roomHistoryService;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+    
+    @Autowired
+    private RoomEventService roomEventService;
+    
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+    
+    public List<ShardResponse> getShards() {
+        List<ShardResponse> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            JdbcTemplate jdbc = shardRouter.isSharded() ? shardRouter.jdbc(shard) : jdbcTemplate;
+            shards.add(new ShardResponse(shard, count(jdbc, "rooms"), count(jdbc, "placements")));
+        }
+        return shards;
+    }
+    
+    public void moveRoom(Long roomId, int target) {
+        // The copied placements need their objects on the target
+        catalogSyncService.sync();
+        move(roomId, target);
+    }
+    
+    private void move(Long roomId, int target) {
+        if (!shardRouter.isSharded()) {
+            throw new IllegalStateException("Sharding is not enabled");
+        }
+        if (target < 0 || target >= shardRouter.shardCount()) {
+            throw new IllegalArgumentException("No shard " + target);
+        }
+        int source = shardRouter.shardOfRoom(roomId);
+        if (source == target) {
+            return;
+        }
+        // Moves held in memory and queued history would otherwise be left on the source
+        liveRoomService.close(roomId);
+        roomHistoryService.flushPending();
+        
+        boolean[] copied = {false};
+        List<Long> placementIds = new ArrayList<>();
+        try {
+            ShardContext.run(source, () -> transactionTemplate.executeWithoutResult(status -> {
+                // Placement writes bump the room's version first, so they wait here
+                if (jdbcTemplate.queryForList("SELECT room_id FROM rooms WHERE room_id = ? FOR UPDATE",
+                        Long.class, roomId).isEmpty()) {
+                    throw new RuntimeException("Room not found with id: " + roomId);
+                }
+                placementIds.addAll(jdbcTemplate.queryForList(
+                        "SELECT placement_id FROM placements WHERE room_id = ?", Long.class, roomId));
+                copy(roomId, target);
+                copied[0] = true;
+                shardRouter.recordMove(roomId, target, placementIds);
+                
+                roomStatsService.roomDeleted(roomId);
+                placementRepository.deleteByRoomId(roomId);
+                roomHistoryService.deleteHistory(roomId);
+                roomRepository.deleteRoomById(roomId);
+            }));
+        } catch (RuntimeException e) {
+            if (copied[0]) {
+                log.warn("Moving room {} to shard {} failed after the copy; removing the copy", roomId, target, e);
+                try {
+                    shardRouter.recordMove(roomId, source, placementIds);
+                    inTargetTransaction(target, targetJdbc -> deleteRoomRows(targetJdbc, roomId));
+                } catch (RuntimeException undo) {
+                    log.error("Room {} may now be on both shard {} and shard {}", roomId, source, target, undo);
+                    e.addSuppressed(undo);
+                }
+            }
+            throw e;
+        }
+        spatialIndexService.evict(roomId);
+        roomEventService.requestResync(roomId);
+    }
+    
+    // Moves rooms from the fullest shard to the emptiest until room counts differ by at most one
+    public RebalanceResponse rebalance(int maxMoves, JobContext context) {
+        long started = System.nanoTime();
+        if (!shardRouter.isSharded()) {
+            return new RebalanceResponse(0, getShards(), 0);
+        }
+        long[] counts = new long[shardRouter.shardCount()];
+        for (int shard = 0; shard < counts.length; shard++) {
+            counts[shard] = count(shardRouter.jdbc(shard), "rooms");
+        }
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long ceiling = (total + counts.length - 1) / counts.length;
+        long planned = 0;
+        for (long count : counts) {
+            planned += Math.max(0, count - ceiling);
+        }
+        planned = Math.max(1, Math.min(planned, maxMoves));
+        catalogSyncService.sync();
+        
+        int moved = 0;
+        while (moved < maxMoves) {
+            context.checkCancelled();
+            List<Integer> shards = byCount(counts);
+            int to = shards.get(0);
+            int from = shards.get(shards.size() - 1);
+            if (counts[from] - counts[to] <= 1) {
+                break;
+            }
+            Long roomId = newestRoom(from);
+            if (roomId == null) {
+                // Emptied by deletes since it was counted
+                counts[from] = 0;
+                continue;
+            }
+            move(roomId, to);
+            counts[from]--;
+            counts[to]++;
+            moved++;
+            context.progress((int) Math.min(99, moved * 100 / planned),
+                    moved + " rooms moved, last " + roomId + " from shard " + from + " to " + to);
+        }
+        return new RebalanceResponse(moved, getShards(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    private static List<Integer> byCount(long[] counts) {
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < counts.length; shard++) {
+            shards.add(shard);
+        }
+        shards.sort(Comparator.comparingLong(shard -> counts[shard]));
+        return shards;
+    }
+    
+    private Long newestRoom(int shard) {
+        List<Long> ids = shardRouter.jdbc(shard).queryForList(
+                "SELECT room_id FROM rooms ORDER BY room_id DESC LIMIT 1", Long.class);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+    
+    // Reads through the source transaction, writes in one transaction on target
+    private void copy(Long roomId, int target) {
+        List<Object[]> usage = jdbcTemplate.query(
+                "SELECT COUNT(*), object_id FROM placements WHERE room_id = ? GROUP BY object_id ORDER BY object_id",
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getLong(2)}, roomId);
+        inTargetTransaction(target, targetJdbc -> {
+            // Leftovers of an earlier move away from this shard
+            deleteRoomRows(targetJdbc, roomId);
+            for (String table : ROOM_TABLES) {
+                copyRows(table, roomId, targetJdbc);
+            }
+            if (!usage.isEmpty()) {
+                targetJdbc.batchUpdate(
+                        "UPDATE object_usage SET placement_count = placement_count + ? WHERE object_id = ?", usage);
+            }
+        });
+    }
+    
+    // Blob and Clob columns come back as bytes and strings, so rows copy as plain values
+    private void copyRows(String table, Long roomId, JdbcTemplate targetJdbc) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT * FROM " + table + " WHERE room_id = ?", roomId);
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = rows.get(0).keySet().stream()
+                .filter(column -> !column.equalsIgnoreCase(GENERATED_KEY))
+                .toList();
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        targetJdbc.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList());
+    }
+    
+    private static void deleteRoomRows(JdbcTemplate jdbc, Long roomId) {
+        List<Object[]> usage = jdbc.query(
+                "SELECT -COUNT(*), object_id FROM placements WHERE room_id = ? GROUP BY object_id ORDER BY object_id",
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getLong(2)}, roomId);
+        if (!usage.isEmpty()) {
+            jdbc.batchUpdate("UPDATE object_usage SET placement_count = placement_count + ? WHERE object_id = ?",
+                    usage);
+        }
+        for (int i = ROOM_TABLES.size() - 1; i >= 0; i--) {
+            jdbc.update("DELETE FROM " + ROOM_TABLES.get(i) + " WHERE room_id = ?", roomId);
+        }
+    }
+    
+    private interface TargetWork {
+        void run(JdbcTemplate targetJdbc);
+    }
+    
+    // A plain JDBC transaction on the target's own pool, apart from the routed
+    // transaction on the source
+    private void inTargetTransaction(int target, TargetWork work) {
+        try (Connection connection = shardRouter.jdbc(target).getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                work.run(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+                connection.commit();
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Writing to shard " + target + " failed: " + e.getMessage(), e);
+        }
+    }
+    
+    private static long count(JdbcTemplate jdbc, String table) {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count != null ? count : 0;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.CourseCluster.service;
 
 import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.repository.PlacementRepository;
 import com.example.CourseCluster.repository.RoomRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,19 +17,69 @@ public class RoomService {
     @Autowired
     private RoomRepository roomRepository;
     
+    @Autowired
+    private PlacementRepository placementRepository;
+    
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private RoomVersionService roomVersionService;
+    
+    @Autowired
+    private RoomHistoryService roomHistoryService;
+    
+    @Autowired
+    private RoomEventService roomEventService;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Transactional(readOnly = true)
     public List<Room> getAllRooms() {
-        return roomRepository.findAll();
+        return ShardRouter.mergeSorted(shardRouter.fanOut(shard -> roomRepository.findAll()),
+                Comparator.comparing(Room::getRoomId), Integer.MAX_VALUE);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Room> getRoomsPage(long after, int limit) {
+        return ShardRouter.mergeSorted(
+                shardRouter.fanOut(shard -> roomRepository.findByRoomIdGreaterThanOrderByRoomId(after,
+                        PageRequest.of(0, limit))),
+                Comparator.comparing(Room::getRoomId), limit);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Room> getRoomById(Long id) {
+        shardRouter.useRoom(id);
         return roomRepository.findById(id);
     }
     
+    // With shards, the room goes to the next shard in turn
+    @Transactional
     public Room createRoom(Room room) {
-        return roomRepository.save(room);
+        shardRouter.useNewRoom();
+        room.setVersion(0L);
+        Room savedRoom = roomRepository.save(room);
+        roomStatsService.roomsCreated(List.of(savedRoom.getRoomId()));
+        return savedRoom;
     }
     
-    public Room updateRoom(Long id, Room roomDetails) {
+    @Transactional
+    public Room updateRoom(Long id, Room roomDetails, Long expectedVersion) {
+        shardRouter.useRoom(id);
+        if (!roomRepository.existsById(id)) {
+            throw new RuntimeException("Room not found with id: " + id);
+        }
+        // Bump first so the room loaded below already carries the new version
+        long version = roomVersionService.bump(id, expectedVersion);
+        roomHistoryService.versionUnlogged(id, version);
         Room room = roomRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Room not found with id: " + id));
         
@@ -33,10 +87,23 @@ public class RoomService {
         room.setLength(roomDetails.getLength());
         room.setWidth(roomDetails.getWidth());
         
-        return roomRepository.save(room);
+        Room savedRoom = roomRepository.save(room);
+        liveRoomService.roomUpdated(savedRoom);
+        spatialIndexService.evict(id);
+        return savedRoom;
     }
     
+    // Two set-based deletes; the room's placements are never loaded one by one
+    @Transactional
     public void deleteRoom(Long id) {
-        roomRepository.deleteById(id);
+        shardRouter.useRoom(id);
+        liveRoomService.discardAfterCommit(id);
+        roomStatsService.roomDeleted(id);
+        placementRepository.deleteByRoomId(id);
+        roomRepository.deleteRoomById(id);
+        spatialIndexService.discard(id);
+        roomHistoryService.deleteHistory(id);
+        roomEventService.requestResync(id);
+        shardRouter.forgetRoom(id);
     }
 }
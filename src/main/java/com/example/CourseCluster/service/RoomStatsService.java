@@ -0,0 +1,422 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.config.ShardContext;
+import com.example.CourseCluster.dto.ObjectUsageResponse;
+import com.example.CourseCluster.dto.RoomStatsResponse;
+import com.example.CourseCluster.dto.StatsDrift;
+import com.example.CourseCluster.dto.StatsVerifyResponse;
+import com.example.CourseCluster.entity.RoomObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Per-room counters (room_stats: item count and occupied area) and per-object
+// usage counts (object_usage). Every write path adjusts them in the same
+// transaction as the change, so reading them is a primary-key lookup instead of
+// a GROUP BY over all placements. verify() recomputes them from the placements,
+// one id range per task in parallel, to find drift and optionally repair it.
+// With shards both tables live on every shard and count that shard's
+// placements; object usage is summed across them when read.
+@Service
+public class RoomStatsService {
+    
+    public static final int MAX_REPORTED_DRIFT = 100;
+    
+    private static final double AREA_TOLERANCE = 1e-6;
+    
+    private static final String ADJUST_ROOM =
+            "UPDATE room_stats SET item_count = item_count + ?, occupied_area = occupied_area + ? WHERE room_id = ?";
+    private static final String ADJUST_OBJECT =
+            "UPDATE object_usage SET placement_count = placement_count + ? WHERE object_id = ?";
+    private static final String INSERT_ROOM =
+            "INSERT INTO room_stats (room_id, item_count, occupied_area) VALUES (?, ?, ?)";
+    private static final String INSERT_OBJECT = "INSERT INTO object_usage (object_id, placement_count) VALUES (?, ?)";
+    private static final String ROOM_TOTALS = "SELECT COUNT(*), COALESCE(SUM(o.width * o.height), 0)"
+            + " FROM placements p JOIN objects o ON o.object_id = p.object_id WHERE p.room_id = ?";
+    private static final String ROOM_OBJECT_COUNTS =
+            "SELECT object_id, COUNT(*) FROM placements WHERE room_id = ? GROUP BY object_id ORDER BY object_id";
+    
+    @Value("${coursecluster.stats.verify-parallelism:4}")
+    private int verifyParallelism;
+    
+    @Value("${coursecluster.stats.verify-range:1000}")
+    private int verifyRange;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    // Net change to the counters made by one write. The maps are sorted so that
+    // concurrent writers update counter rows in the same order.
+    public static class Tally {
+        private final Map<Long, Long> roomCounts = new TreeMap<>();
+        private final Map<Long, Double> roomAreas = new HashMap<>();
+        private final Map<Long, Long> objectCounts = new TreeMap<>();
+        
+        public void added(Long roomId, Long objectId, double area) {
+            add(roomId, objectId, 1, area);
+        }
+        
+        public void removed(Long roomId, Long objectId, double area) {
+            add(roomId, objectId, -1, -area);
+        }
+        
+        private void add(Long roomId, Long objectId, long count, double area) {
+            roomCounts.merge(roomId, count, Long::sum);
+            roomAreas.merge(roomId, area, Double::sum);
+            objectCounts.merge(objectId, count, Long::sum);
+        }
+    }
+    
+    public static double area(RoomObject roomObject) {
+        return roomObject.getWidth() * roomObject.getHeight();
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Tally tally) {
+        List<Object[]> rooms = new ArrayList<>();
+        tally.roomCounts.forEach((roomId, count) -> {
+            double area = tally.roomAreas.get(roomId);
+            if (count != 0 || area != 0) {
+                rooms.add(new Object[] {count, area, roomId});
+            }
+        });
+        List<Object[]> objects = new ArrayList<>();
+        tally.objectCounts.forEach((objectId, count) -> {
+            if (count != 0) {
+                objects.add(new Object[] {count, objectId});
+            }
+        });
+        if (!rooms.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADJUST_ROOM, rooms);
+        }
+        if (!objects.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADJUST_OBJECT, objects);
+        }
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void placementAdded(Long roomId, RoomObject roomObject) {
+        Tally tally = new Tally();
+        tally.added(roomId, roomObject.getObjectId(), area(roomObject));
+        apply(tally);
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void placementRemoved(Long roomId, RoomObject roomObject) {
+        Tally tally = new Tally();
+        tally.removed(roomId, roomObject.getObjectId(), area(roomObject));
+        apply(tally);
+    }
+    
+    // New rooms and objects start with zeroed counters
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void roomsCreated(Collection<Long> roomIds) {
+        jdbcTemplate.batchUpdate(INSERT_ROOM, roomIds.stream().map(id -> new Object[] {id, 0, 0.0}).toList());
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void objectsCreated(Collection<Long> objectIds) {
+        jdbcTemplate.batchUpdate(INSERT_OBJECT, objectIds.stream().map(id -> new Object[] {id, 0}).toList());
+    }
+    
+    // Clones start with the template's totals, and every object in the template
+    // gains its count there once per clone. Reads one room's placements.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void roomsCopied(Long templateId, List<Long> cloneIds) {
+        Object[] totals = jdbcTemplate.queryForObject(ROOM_TOTALS,
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getDouble(2)}, templateId);
+        jdbcTemplate.batchUpdate(INSERT_ROOM, cloneIds.stream()
+                .map(id -> new Object[] {id, totals[0], totals[1]})
+                .toList());
+        List<Object[]> objects = jdbcTemplate.query(ROOM_OBJECT_COUNTS,
+                (rs, rowNum) -> new Object[] {rs.getLong(2) * cloneIds.size(), rs.getLong(1)}, templateId);
+        if (!objects.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADJUST_OBJECT, objects);
+        }
+    }
+    
+    // Must run before the room's placements are deleted
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void roomDeleted(Long roomId) {
+        List<Object[]> objects = jdbcTemplate.query(ROOM_OBJECT_COUNTS,
+                (rs, rowNum) -> new Object[] {-rs.getLong(2), rs.getLong(1)}, roomId);
+        if (!objects.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADJUST_OBJECT, objects);
+        }
+        jdbcTemplate.update("DELETE FROM room_stats WHERE room_id = ?", roomId);
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void objectDeleted(Long objectId) {
+        jdbcTemplate.update("DELETE FROM object_usage WHERE object_id = ?", objectId);
+    }
+    
+    // A size change moves the occupied area of every room holding the object by
+    // the difference, once per placement
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void objectResized(Long objectId, double areaDelta) {
+        if (areaDelta == 0) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE room_stats SET occupied_area = occupied_area + ? * (SELECT COUNT(*) FROM placements p"
+                + " WHERE p.room_id = room_stats.room_id AND p.object_id = ?)"
+                + " WHERE room_id IN (SELECT room_id FROM placements WHERE object_id = ?)",
+                areaDelta, objectId, objectId);
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<RoomStatsResponse> getRoomStats(Long roomId) {
+        shardRouter.useRoom(roomId);
+        return jdbcTemplate.query("SELECT r.room_id, r.length, r.width, s.item_count, s.occupied_area FROM rooms r"
+                + " LEFT JOIN room_stats s ON s.room_id = r.room_id WHERE r.room_id = ?", (rs, rowNum) -> {
+                    double floorArea = rs.getDouble("length") * rs.getDouble("width");
+                    double occupiedArea = rs.getDouble("occupied_area");
+                    return new RoomStatsResponse(rs.getLong("room_id"), rs.getLong("item_count"), occupiedArea,
+                            floorArea, floorArea > 0 ? occupiedArea / floorArea : 0);
+                }, roomId).stream().findFirst();
+    }
+    
+    // Most used first; reads the counters, not the placements
+    @Transactional(readOnly = true)
+    public List<ObjectUsageResponse> getObjectUsage(int limit) {
+        if (shardRouter.isSharded()) {
+            return getShardedObjectUsage(limit);
+        }
+        return jdbcTemplate.query("SELECT o.object_id, o.name, COALESCE(u.placement_count, 0) AS placement_count"
+                + " FROM objects o LEFT JOIN object_usage u ON u.object_id = o.object_id WHERE o.deleted_at IS NULL"
+                + " ORDER BY placement_count DESC, o.object_id LIMIT ?",
+                (rs, rowNum) -> new ObjectUsageResponse(rs.getLong("object_id"), rs.getString("name"),
+                        rs.getLong("placement_count")), limit);
+    }
+    
+    // Recomputes every counter from the placements and compares. Rooms and
+    // objects are split into runs of ids that are checked concurrently, each on its
+    // own connection. With repair, a drifted room counter is rewritten while the
+    // room row is locked, so it cannot race a placement write to that room.
+    // Every shard is checked against its own placements.
+    public StatsVerifyResponse verify(boolean repair, JobContext context) {
+        long started = System.nanoTime();
+        List<Callable<RangeResult>> roomTasks = new ArrayList<>();
+        List<Callable<RangeResult>> objectTasks = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int target = shard;
+            ShardContext.run(target, () -> {
+                for (long[] range : ranges("rooms", "room_id")) {
+                    roomTasks.add(() -> ShardContext.on(target, () -> verifyRooms(range[0], range[1], repair)));
+                }
+                for (long[] range : ranges("objects", "object_id")) {
+                    objectTasks.add(() -> ShardContext.on(target, () -> verifyObjects(range[0], range[1], repair)));
+                }
+            });
+        }
+        int total = roomTasks.size() + objectTasks.size();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, verifyParallelism));
+        try {
+            List<Future<RangeResult>> futures = new ArrayList<>(total);
+            for (Callable<RangeResult> task : roomTasks) {
+                futures.add(pool.submit(task));
+            }
+            for (Callable<RangeResult> task : objectTasks) {
+                futures.add(pool.submit(task));
+            }
+            
+            int roomsChecked = 0;
+            int objectsChecked = 0;
+            int roomsDrifted = 0;
+            int objectsDrifted = 0;
+            List<StatsDrift> reported = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                context.checkCancelled();
+                RangeResult result = futures.get(i).get();
+                if (i < roomTasks.size()) {
+                    roomsChecked += result.checked;
+                    roomsDrifted += result.drift.size();
+                } else {
+                    objectsChecked += result.checked;
+                    objectsDrifted += result.drift.size();
+                }
+                for (StatsDrift drift : result.drift) {
+                    if (reported.size() < MAX_REPORTED_DRIFT) {
+                        reported.add(drift);
+                    }
+                }
+                context.progress((i + 1) * 100 / total, (i + 1) + " of " + total + " ranges checked");
+            }
+            return new StatsVerifyResponse(roomsChecked, objectsChecked, roomsDrifted, objectsDrifted, repair,
+                    reported, (System.nanoTime() - started) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobCancelledException(context.getJobId());
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Verifying counters failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static class RangeResult {
+        private final int checked;
+        private final List<StatsDrift> drift;
+        
+        RangeResult(int checked, List<StatsDrift> drift) {
+            this.checked = checked;
+            this.drift = drift;
+        }
+    }
+    
+    // Cut at every verifyRange-th id rather than by arithmetic on the ids: a
+    // shard holding moved rooms has ids from several far-apart ranges
+    private List<long[]> ranges(String table, String idColumn) {
+        List<long[]> ranges = new ArrayList<>();
+        long[] current = {0, 0};
+        int[] count = {0};
+        jdbcTemplate.query("SELECT " + idColumn + " FROM " + table + " ORDER BY " + idColumn, rs -> {
+            long id = rs.getLong(1);
+            if (count[0] % verifyRange == 0) {
+                current[0] = id;
+            }
+            current[1] = id;
+            if (++count[0] % verifyRange == 0) {
+                ranges.add(current.clone());
+            }
+        });
+        if (count[0] % verifyRange != 0) {
+            ranges.add(current);
+        }
+        return ranges;
+    }
+    
+    // Object names come from the home shard's catalog, the counts from every shard
+    private List<ObjectUsageResponse> getShardedObjectUsage(int limit) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Map<Long, Long> shardCounts : shardRouter.fanOut(shard -> {
+            Map<Long, Long> found = new HashMap<>();
+            jdbcTemplate.query("SELECT object_id, placement_count FROM object_usage WHERE placement_count <> 0", rs -> {
+                found.put(rs.getLong(1), rs.getLong(2));
+            });
+            return found;
+        })) {
+            shardCounts.forEach((objectId, count) -> counts.merge(objectId, count, Long::sum));
+        }
+        List<ObjectUsageResponse> usage = ShardContext.on(ShardContext.HOME, () -> jdbcTemplate.query(
+                "SELECT object_id, name FROM objects WHERE deleted_at IS NULL",
+                (rs, rowNum) -> new ObjectUsageResponse(rs.getLong("object_id"), rs.getString("name"),
+                        counts.getOrDefault(rs.getLong("object_id"), 0L))));
+        return usage.stream()
+                .sorted(Comparator.comparingLong(ObjectUsageResponse::getPlacementCount).reversed()
+                        .thenComparing(ObjectUsageResponse::getObjectId))
+                .limit(limit)
+                .toList();
+    }
+    
+    private RangeResult verifyRooms(long from, long to, boolean repair) {
+        Map<Long, Object[]> actual = new HashMap<>();
+        jdbcTemplate.query("SELECT p.room_id, COUNT(*), COALESCE(SUM(o.width * o.height), 0) FROM placements p"
+                + " JOIN objects o ON o.object_id = p.object_id WHERE p.room_id BETWEEN ? AND ? GROUP BY p.room_id",
+                rs -> {
+                    actual.put(rs.getLong(1), new Object[] {rs.getLong(2), rs.getDouble(3)});
+                }, from, to);
+        
+        List<StatsDrift> drift = new ArrayList<>();
+        int[] checked = {0};
+        jdbcTemplate.query("SELECT r.room_id, s.item_count, s.occupied_area FROM rooms r"
+                + " LEFT JOIN room_stats s ON s.room_id = r.room_id WHERE r.room_id BETWEEN ? AND ?", rs -> {
+                    checked[0]++;
+                    long roomId = rs.getLong("room_id");
+                    Long storedCount = rs.getObject("item_count", Long.class);
+                    Double storedArea = rs.getObject("occupied_area", Double.class);
+                    Object[] totals = actual.getOrDefault(roomId, new Object[] {0L, 0.0});
+                    long actualCount = (Long) totals[0];
+                    double actualArea = (Double) totals[1];
+                    if (storedCount == null || storedCount != actualCount
+                            || Math.abs(storedArea - actualArea) > AREA_TOLERANCE * Math.max(1, Math.abs(actualArea))) {
+                        drift.add(new StatsDrift("room", roomId, storedCount, actualCount, storedArea, actualArea));
+                    }
+                }, from, to);
+        
+        if (repair) {
+            drift.forEach(d -> repairRoom(d.getId()));
+        }
+        return new RangeResult(checked[0], drift);
+    }
+    
+    private RangeResult verifyObjects(long from, long to, boolean repair) {
+        Map<Long, Long> actual = new HashMap<>();
+        jdbcTemplate.query("SELECT object_id, COUNT(*) FROM placements WHERE object_id BETWEEN ? AND ? GROUP BY object_id",
+                rs -> {
+                    actual.put(rs.getLong(1), rs.getLong(2));
+                }, from, to);
+        
+        List<StatsDrift> drift = new ArrayList<>();
+        int[] checked = {0};
+        jdbcTemplate.query("SELECT o.object_id, u.placement_count FROM objects o"
+                + " LEFT JOIN object_usage u ON u.object_id = o.object_id WHERE o.object_id BETWEEN ? AND ?", rs -> {
+                    checked[0]++;
+                    long objectId = rs.getLong("object_id");
+                    Long storedCount = rs.getObject("placement_count", Long.class);
+                    long actualCount = actual.getOrDefault(objectId, 0L);
+                    if (storedCount == null || storedCount != actualCount) {
+                        drift.add(new StatsDrift("object", objectId, storedCount, actualCount, null, null));
+                    }
+                }, from, to);
+        
+        if (repair) {
+            drift.forEach(d -> repairObject(d.getId()));
+        }
+        return new RangeResult(checked[0], drift);
+    }
+    
+    private void repairRoom(Long roomId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Placement writes bump the room's version first, so this waits for them
+            List<Long> locked = jdbcTemplate.queryForList(
+                    "SELECT room_id FROM rooms WHERE room_id = ? FOR UPDATE", Long.class, roomId);
+            if (locked.isEmpty()) {
+                return;
+            }
+            Object[] totals = jdbcTemplate.queryForObject(ROOM_TOTALS,
+                    (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getDouble(2)}, roomId);
+            if (jdbcTemplate.update("UPDATE room_stats SET item_count = ?, occupied_area = ? WHERE room_id = ?",
+                    totals[0], totals[1], roomId) == 0) {
+                jdbcTemplate.update(INSERT_ROOM, roomId, totals[0], totals[1]);
+            }
+        });
+    }
+    
+    // One statement each, so the count is taken and written together
+    private void repairObject(Long objectId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update("UPDATE object_usage SET placement_count ="
+                    + " (SELECT COUNT(*) FROM placements WHERE object_id = ?) WHERE object_id = ?",
+                    objectId, objectId) == 0) {
+                jdbcTemplate.update("INSERT INTO object_usage (object_id, placement_count)"
+                        + " SELECT ?, COUNT(*) FROM placements WHERE object_id = ?", objectId, objectId);
+            }
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// Draws a room the way drawRoom in app.js does: the same grid, boundary,
+// rotated rectangles and labels, in the canvas's own units (40 pixels per
+// foot), scaled down so the longer side of the image is size pixels. The
+// boundary stroke is inset by half its width so it is not clipped at the edge.
+public final class RoomThumbnailRenderer {
+    
+    private static final double PIXELS_PER_FOOT = 40;
+    private static final double BOUNDARY_WIDTH = 3;
+    // Labels smaller than this are unreadable and left out
+    private static final double MIN_LABEL_PIXELS = 6;
+    
+    private static final Color GRID = Color.decode("#e0e0e0");
+    private static final Color BOUNDARY = Color.decode("#333333");
+    private static final Font LABEL = new Font("Arial", Font.BOLD, 12);
+    
+    private RoomThumbnailRenderer() {}
+    
+    public static byte[] renderPng(Room room, List<PlacementResponse> placements, int size) {
+        double length = room.getLength() != null ? room.getLength() : 0;
+        double width = room.getWidth() != null ? room.getWidth() : 0;
+        double roomPixelWidth = length * PIXELS_PER_FOOT;
+        double roomPixelHeight = width * PIXELS_PER_FOOT;
+        double zoom = size / (Math.max(Math.max(roomPixelWidth, roomPixelHeight), 1) + BOUNDARY_WIDTH);
+        
+        BufferedImage image = new BufferedImage(
+                Math.max(1, (int) Math.round((roomPixelWidth + BOUNDARY_WIDTH) * zoom)),
+                Math.max(1, (int) Math.round((roomPixelHeight + BOUNDARY_WIDTH) * zoom)),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.scale(zoom, zoom);
+            g.translate(BOUNDARY_WIDTH / 2, BOUNDARY_WIDTH / 2);
+            
+            // Grid
+            g.setColor(GRID);
+            g.setStroke(new BasicStroke(1));
+            for (int i = 0; i <= length; i++) {
+                double x = i * PIXELS_PER_FOOT;
+                g.draw(new Line2D.Double(x, 0, x, roomPixelHeight));
+            }
+            for (int i = 0; i <= width; i++) {
+                double y = i * PIXELS_PER_FOOT;
+                g.draw(new Line2D.Double(0, y, roomPixelWidth, y));
+            }
+            
+            // Room boundary
+            g.setColor(BOUNDARY);
+            g.setStroke(new BasicStroke((float) BOUNDARY_WIDTH));
+            g.draw(new Rectangle2D.Double(0, 0, roomPixelWidth, roomPixelHeight));
+            
+            boolean labels = LABEL.getSize2D() * zoom >= MIN_LABEL_PIXELS;
+            g.setFont(LABEL);
+            for (PlacementResponse placement : placements) {
+                drawPlacement(g, placement, labels);
+            }
+        } finally {
+            g.dispose();
+        }
+        
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return png.toByteArray();
+    }
+    
+    private static void drawPlacement(Graphics2D g, PlacementResponse placement, boolean label) {
+        double x = placement.getX() * PIXELS_PER_FOOT;
+        double y = placement.getY() * PIXELS_PER_FOOT;
+        double width = placement.getObjectWidth() * PIXELS_PER_FOOT;
+        double height = placement.getObjectHeight() * PIXELS_PER_FOOT;
+        Rectangle2D.Double body = new Rectangle2D.Double(-width / 2, -height / 2, width, height);
+        
+        // Rotate about the object's center
+        AffineTransform saved = g.getTransform();
+        g.translate(x + width / 2, y + height / 2);
+        g.rotate(Math.toRadians(placement.getRotation() != null ? placement.getRotation() : 0));
+        
+        g.setColor(color(placement.getObjectColor()));
+        g.fill(body);
+        
+        g.setColor(Color.BLACK);
+        g.setStroke(new BasicStroke(2));
+        g.draw(body);
+        
+        if (label && placement.getObjectName() != null) {
+            g.setColor(Color.WHITE);
+            FontMetrics metrics = g.getFontMetrics();
+            g.drawString(placement.getObjectName(), -metrics.stringWidth(placement.getObjectName()) / 2f,
+                    (metrics.getAscent() - metrics.getDescent()) / 2f);
+        }
+        g.setTransform(saved);
+    }
+    
+    // The canvas accepts any CSS color; anything that is not #rrggbb is drawn grey
+    private static Color color(String css) {
+        try {
+            return css != null ? Color.decode(css) : Color.GRAY;
+        } catch (NumberFormatException e) {
+            return Color.GRAY;
+        }
+    }
+}
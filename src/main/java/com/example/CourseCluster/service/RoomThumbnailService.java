@@ -0,0 +1,318 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.config.ReplicaRouting;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// PNG thumbnails of rooms, cached under a digest of everything the drawing
+// depends on: the room's layout version, the image size and the object catalog
+// (names, sizes and colors are drawn but do not bump room versions). A changed
+// room therefore gets a new key and old images simply age out. Images are kept
+// in memory up to a byte budget, where Caffeine evicts the least useful first,
+// and on disk up to another, where the least recently read go first. Renders
+// run on a small pool with a bounded queue; a second request for an image being
+// rendered waits for the same render. Prefetches that do not fit in the queue
+// are skipped, and image requests that do not fit render on their own thread.
+@Service
+public class RoomThumbnailService {
+    
+    public static final int DEFAULT_SIZE = 256;
+    public static final int MIN_SIZE = 16;
+    public static final int MAX_SIZE = 1024;
+    
+    private static final Logger log = LoggerFactory.getLogger(RoomThumbnailService.class);
+    
+    // Bump when the drawing changes so existing images are not served
+    private static final String RENDERER_VERSION = "1";
+    // Disk pruning stops at this share of the limit, so it does not run on every write
+    private static final double PRUNE_TARGET = 0.9;
+    
+    @Autowired
+    private RoomService roomService;
+    
+    @Autowired
+    private PlacementService placementService;
+    
+    @Autowired
+    private RoomVersionService roomVersionService;
+    
+    @Autowired
+    private CatalogDigestService catalogDigestService;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Value("${coursecluster.thumbnails.dir:${java.io.tmpdir}/coursecluster-thumbnails}")
+    private String directoryName;
+    
+    @Value("${coursecluster.thumbnails.memory-max-bytes:33554432}")
+    private long memoryMaxBytes;
+    
+    @Value("${coursecluster.thumbnails.disk-max-bytes:268435456}")
+    private long diskMaxBytes;
+    
+    @Value("${coursecluster.thumbnails.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${coursecluster.thumbnails.queue-capacity:64}")
+    private int queueCapacity;
+    
+    private Path directory;
+    private Cache<String, byte[]> memory;
+    private ThreadPoolExecutor renderPool;
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> rendering = new ConcurrentHashMap<>();
+    private final AtomicLong diskBytes = new AtomicLong();
+    private volatile boolean diskCache;
+    
+    @PostConstruct
+    public void start() {
+        directory = Path.of(directoryName);
+        memory = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxBytes)
+                .<String, byte[]>weigher((key, png) -> png.length)
+                .build();
+        AtomicInteger threadCount = new AtomicInteger();
+        renderPool = new ThreadPoolExecutor(Math.max(1, parallelism), Math.max(1, parallelism),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        try {
+            Files.createDirectories(directory);
+            diskBytes.set(diskUsage());
+            diskCache = true;
+        } catch (IOException e) {
+            log.warn("Thumbnail directory {} is not usable; images are cached in memory only", directory, e);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+    
+    public static int clampSize(Integer size) {
+        return Math.max(MIN_SIZE, Math.min(size != null ? size : DEFAULT_SIZE, MAX_SIZE));
+    }
+    
+    // Cache key of the room's current image, or empty when there is no such room.
+    // Costs a version lookup, so unchanged images can be answered with a 304.
+    public Optional<String> currentKey(Long roomId, int size) {
+        return roomVersionService.currentVersion(roomId).map(version -> key(roomId, version, size));
+    }
+    
+    public byte[] getThumbnail(Long roomId, int size, String key) {
+        while (true) {
+            try {
+                return load(roomId, size, key, false).join();
+            } catch (CancellationException e) {
+                // Joined a prefetch that was skipped; load it here instead
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+    
+    // Starts rendering the images of a listing page that are not cached yet and
+    // returns without waiting; the image requests that follow join those renders.
+    // Stops at the first image the render queue has no room for. Keys come from
+    // the current version, as the image requests' do, so the renders match them.
+    // Live rooms change too often to be worth rendering ahead.
+    public void prefetch(List<Room> rooms, int size) {
+        for (Room room : rooms) {
+            if (liveRoomService.isLive(room.getRoomId())) {
+                continue;
+            }
+            Optional<String> key = currentKey(room.getRoomId(), size);
+            if (key.isPresent() && memory.getIfPresent(key.get()) == null
+                    && load(room.getRoomId(), size, key.get(), true).isCancelled()) {
+                return;
+            }
+        }
+    }
+    
+    private CompletableFuture<byte[]> load(Long roomId, int size, String key, boolean prefetch) {
+        byte[] cached = memory.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = rendering.putIfAbsent(key, future);
+        if (running != null) {
+            return running;
+        }
+        Runnable render = () -> {
+            try {
+                future.complete(loadOrRender(roomId, size, key));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                rendering.remove(key, future);
+            }
+        };
+        try {
+            renderPool.execute(render);
+        } catch (RejectedExecutionException e) {
+            if (prefetch) {
+                rendering.remove(key, future);
+                future.cancel(false);
+            } else {
+                render.run();
+            }
+        }
+        return future;
+    }
+    
+    private byte[] loadOrRender(Long roomId, int size, String key) {
+        byte[] png = readFile(key);
+        if (png == null) {
+            // From the primary, so the image is never older than the version in its key
+            png = ReplicaRouting.onPrimary(() -> {
+                Room room = roomService.getRoomById(roomId)
+                        .orElseThrow(() -> new RuntimeException("Room not found with id: " + roomId));
+                List<PlacementResponse> placements = placementService.getPlacementsByRoomId(roomId);
+                return RoomThumbnailRenderer.renderPng(room, placements, size);
+            });
+            writeFile(key, png);
+        }
+        memory.put(key, png);
+        return png;
+    }
+    
+    private String key(Long roomId, long version, int size) {
+        return CatalogDigestService.sha256(RENDERER_VERSION + "/" + roomId + "/" + version + "/" + size + "/"
+                + catalogDigestService.digest());
+    }
+    
+    // Spread over subdirectories by the first two hex digits of the key
+    private Path file(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".png");
+    }
+    
+    private byte[] readFile(String key) {
+        if (!diskCache) {
+            return null;
+        }
+        Path file = file(key);
+        try {
+            byte[] png = Files.readAllBytes(file);
+            // The modification time orders files for pruning
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return png;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Reading thumbnail {} failed", file, e);
+            return null;
+        }
+    }
+    
+    // Written under a temporary name and renamed, so a reader never sees half a file
+    private void writeFile(String key, byte[] png) {
+        if (!diskCache) {
+            return;
+        }
+        Path file = file(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), key, ".tmp");
+            Files.write(temporary, png);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Writing thumbnail {} failed", file, e);
+            return;
+        }
+        if (diskBytes.addAndGet(png.length) > diskMaxBytes) {
+            prune();
+        }
+    }
+    
+    // Deletes the least recently used files until the cache is back under its limit
+    private synchronized void prune() {
+        if (diskBytes.get() <= diskMaxBytes) {
+            return;
+        }
+        try {
+            List<Path> files = new ArrayList<>(files());
+            files.sort(Comparator.comparing(RoomThumbnailService::lastModified));
+            long total = 0;
+            for (Path file : files) {
+                total += Files.size(file);
+            }
+            long target = (long) (diskMaxBytes * PRUNE_TARGET);
+            for (Path file : files) {
+                if (total <= target) {
+                    break;
+                }
+                long length = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    total -= length;
+                }
+            }
+            diskBytes.set(total);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Pruning thumbnails in {} failed", directory, e);
+        }
+    }
+    
+    private long diskUsage() throws IOException {
+        long total = 0;
+        for (Path file : files()) {
+            total += Files.size(file);
+        }
+        return total;
+    }
+    
+    private List<Path> files() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(path -> path.toString().endsWith(".png")).toList();
+        }
+    }
+    
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+// Room layout versions back the ETags on room and placement reads and the
+// If-Match checks on writes. Live rooms keep their version in memory.
+@Service
+public class RoomVersionService {
+    
+    @Autowired
+    private RoomRepository roomRepository;
+    
+    @Autowired
+    private LiveRoomService liveRoomService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    // Reads only the version column, never the placements
+    @Transactional(readOnly = true)
+    public Optional<Long> currentVersion(Long roomId) {
+        if (liveRoomService.isLive(roomId)) {
+            return Optional.of(liveRoomService.getVersion(roomId));
+        }
+        shardRouter.useRoom(roomId);
+        return roomRepository.findVersionById(roomId);
+    }
+    
+    // Bumps the version inside the caller's transaction and returns the new one.
+    // With an expected version the bump is conditional, which makes the write
+    // optimistic. Callers check the write first, so a rejected write does not
+    // use up a version.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long bump(Long roomId, Long expectedVersion) {
+        Long liveVersion = null;
+        if (liveRoomService.isLive(roomId)) {
+            liveVersion = liveRoomService.bumpVersion(roomId, expectedVersion);
+            undoLiveBumpOnRollback(roomId, liveVersion);
+            expectedVersion = null;
+        }
+        
+        int updated = expectedVersion == null
+                ? roomRepository.incrementVersion(roomId)
+                : roomRepository.incrementVersionIfMatches(roomId, expectedVersion);
+        if (updated == 0) {
+            throw new VersionMismatchException(roomId, expectedVersion);
+        }
+        if (liveVersion != null) {
+            return liveVersion;
+        }
+        // Only an unconditional bump has to read the new value back
+        long version = expectedVersion != null ? expectedVersion + 1 : roomRepository.findVersionById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found with id: " + roomId));
+        // The room went live while this write waited for its row. It was loaded
+        // at the version before ours, so the live copy takes this one over.
+        if (liveRoomService.isLive(roomId)) {
+            liveRoomService.raiseVersion(roomId, version);
+            undoLiveBumpOnRollback(roomId, version);
+        }
+        return version;
+    }
+    
+    // The in-memory version is not part of the transaction
+    private void undoLiveBumpOnRollback(Long roomId, long liveVersion) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    liveRoomService.undoBump(roomId, liveVersion);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.CourseCluster.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Evens out the number of rooms per shard by moving rooms one at a time, at
+// most maxMoves of them. The result is a RebalanceResponse.
+@Component
+public class ShardRebalanceJobHandler implements JobHandler<ShardRebalanceJobHandler.Payload> {
+    
+    public static final String TYPE = "shard-rebalance";
+    
+    public static final int DEFAULT_MAX_MOVES = 1000;
+    
+    @Autowired
+    private RoomRebalanceService roomRebalanceService;
+    
+    public static class Payload {
+        private Integer maxMoves;
+        
+        public Payload() {}
+        
+        public Payload(Integer maxMoves) {
+            this.maxMoves = maxMoves;
+        }
+        
+        public Integer getMaxMoves() {
+            return maxMoves;
+        }
+        
+        public void setMaxMoves(Integer maxMoves) {
+            this.maxMoves = maxMoves;
+        }
+    }
+    
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+    
+    @Override
+    public Class<Payload> getPayloadType() {
+        return Payload.class;
+    }
+    
+    @Override
+    public Object run(Payload payload, JobContext context) {
+        int maxMoves = payload.getMaxMoves() != null ? payload.getMaxMoves() : DEFAULT_MAX_MOVES;
+        return roomRebalanceService.rebalance(maxMoves, context);
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.config.ReplicaRouting;
+import com.example.CourseCluster.config.ShardContext;
+import com.example.CourseCluster.config.ShardRoutingDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Decides which shard a room lives on and runs work there. A room lives on the
+// shard its id was issued on (the id's top bits) unless the rebalancer has
+// moved it, which is recorded in room_shard_moves on the home shard. A
+// placement lives with its room; the placements a move took off the shard of
+// their id are recorded in placement_shard_moves. Both tables are held in
+// memory. Without coursecluster.shards.urls there is a single shard and
+// everything here passes straight through.
+@Service
+public class ShardRouter {
+    
+    private static final int MERGE_BUFFER = 256;
+    private static final Object END = new Object();
+    
+    @Autowired(required = false)
+    private ShardRoutingDataSource shards;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final ConcurrentHashMap<Long, Integer> moved = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Integer> movedPlacements = new ConcurrentHashMap<>();
+    private final AtomicInteger nextNewRoomShard = new AtomicInteger();
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+    private TransactionTemplate readOnlyTransaction;
+    private ExecutorService fanOutPool;
+    
+    @PostConstruct
+    public void start() {
+        if (!isSharded()) {
+            return;
+        }
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            jdbcTemplates.add(new JdbcTemplate(shards.getShard(shard)));
+        }
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // Unbounded: a merged stream holds one thread per shard until its reader is done
+        fanOutPool = Executors.newCachedThreadPool();
+        refreshDirectory();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (fanOutPool != null) {
+            fanOutPool.shutdownNow();
+        }
+    }
+    
+    public boolean isSharded() {
+        return shards != null;
+    }
+    
+    public int shardCount() {
+        return isSharded() ? shards.shardCount() : 1;
+    }
+    
+    // The shard an id was issued on
+    public int originShard(long id) {
+        int shard = (int) (id >>> ShardRoutingDataSource.ID_SHARD_SHIFT);
+        return shard < shardCount() ? shard : ShardContext.HOME;
+    }
+    
+    public int shardOfRoom(Long roomId) {
+        if (!isSharded() || roomId == null) {
+            return ShardContext.HOME;
+        }
+        Integer shard = moved.get(roomId);
+        return shard != null ? shard : originShard(roomId);
+    }
+    
+    // A placement's id names the shard it was created on (ShardSequenceGenerator).
+    // It keeps the id when the rebalancer moves its room.
+    public int shardOfPlacement(Long placementId) {
+        if (!isSharded() || placementId == null) {
+            return ShardContext.HOME;
+        }
+        Integer shard = movedPlacements.get(placementId);
+        return shard != null ? shard : originShard(placementId);
+    }
+    
+    // These bind the current transaction to a shard; call them before its first statement
+    public void useRoom(Long roomId) {
+        if (isSharded()) {
+            ShardContext.bindTransaction(shardOfRoom(roomId));
+        }
+    }
+    
+    public void usePlacement(Long placementId) {
+        if (isSharded()) {
+            ShardContext.bindTransaction(shardOfPlacement(placementId));
+        }
+    }
+    
+    // New rooms are dealt out round-robin; the shard then shows in their ids
+    public void useNewRoom() {
+        if (isSharded()) {
+            ShardContext.bindTransaction(Math.floorMod(nextNewRoomShard.getAndIncrement(), shardCount()));
+        }
+    }
+    
+    // A transaction spans one shard, so a batch must keep to the rooms of one
+    public void useRooms(Collection<Long> roomIds) {
+        if (isSharded()) {
+            Set<Integer> roomShards = roomIds.stream().map(this::shardOfRoom).collect(Collectors.toSet());
+            ShardContext.bindTransaction(singleShard(roomShards));
+        }
+    }
+    
+    // Placements are looked up by id on one shard, chosen by the first of them
+    public void usePlacements(Collection<Long> placementIds) {
+        if (isSharded() && !placementIds.isEmpty()) {
+            ShardContext.bindTransaction(shardOfPlacement(placementIds.iterator().next()));
+        }
+    }
+    
+    public void useShard(int shard) {
+        if (isSharded()) {
+            ShardContext.bindTransaction(shard);
+        }
+    }
+    
+    // For code outside a transaction, or that starts its own
+    public <T> T onRoom(Long roomId, Supplier<T> work) {
+        return isSharded() ? ShardContext.on(shardOfRoom(roomId), work) : work.get();
+    }
+    
+    public <T> T onPlacement(Long placementId, Supplier<T> work) {
+        return isSharded() ? ShardContext.on(shardOfPlacement(placementId), work) : work.get();
+    }
+    
+    public void runOnRoom(Long roomId, Runnable work) {
+        onRoom(roomId, () -> {
+            work.run();
+            return null;
+        });
+    }
+    
+    // The shard's own pool, outside any routed transaction
+    public JdbcTemplate jdbc(int shard) {
+        if (!isSharded()) {
+            throw new IllegalStateException("Sharding is not enabled");
+        }
+        return jdbcTemplates.get(shard);
+    }
+    
+    public Map<Long, Integer> getMovedRooms() {
+        return Collections.unmodifiableMap(moved);
+    }
+    
+    // Records a move of the room and its placements on the home shard; readers
+    // elsewhere pick it up on their next refresh
+    public void recordMove(Long roomId, int shard, List<Long> placementIds) {
+        JdbcTemplate home = jdbc(ShardContext.HOME);
+        if (shard == originShard(roomId)) {
+            home.update("DELETE FROM room_shard_moves WHERE room_id = ?", roomId);
+            moved.remove(roomId);
+        } else {
+            if (home.update("UPDATE room_shard_moves SET shard = ? WHERE room_id = ?", shard, roomId) == 0) {
+                home.update("INSERT INTO room_shard_moves (room_id, shard) VALUES (?, ?)", roomId, shard);
+            }
+            moved.put(roomId, shard);
+        }
+        
+        home.update("DELETE FROM placement_shard_moves WHERE room_id = ?", roomId);
+        List<Object[]> away = new ArrayList<>();
+        for (Long placementId : placementIds) {
+            if (shard == originShard(placementId)) {
+                movedPlacements.remove(placementId);
+            } else {
+                away.add(new Object[] {placementId, roomId, shard});
+                movedPlacements.put(placementId, shard);
+            }
+        }
+        if (!away.isEmpty()) {
+            home.batchUpdate("INSERT INTO placement_shard_moves (placement_id, room_id, shard) VALUES (?, ?, ?)", away);
+        }
+    }
+    
+    // Drops a deleted room from the directory once its deletion commits. A room
+    // moved back to the shard of its id may still have placements listed.
+    public void forgetRoom(Long roomId) {
+        if (!isSharded() || (moved.isEmpty() && movedPlacements.isEmpty())) {
+            return;
+        }
+        Runnable forget = () -> {
+            JdbcTemplate home = jdbc(ShardContext.HOME);
+            home.update("DELETE FROM room_shard_moves WHERE room_id = ?", roomId);
+            home.update("DELETE FROM placement_shard_moves WHERE room_id = ?", roomId);
+            moved.remove(roomId);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget.run();
+                }
+            });
+        } else {
+            forget.run();
+        }
+    }
+    
+    // Other instances may have moved rooms
+    @Scheduled(fixedDelayString = "${coursecluster.shards.directory-refresh-ms:10000}")
+    public void refreshDirectory() {
+        if (!isSharded()) {
+            return;
+        }
+        replace(moved, "SELECT room_id AS id, shard FROM room_shard_moves");
+        replace(movedPlacements, "SELECT placement_id AS id, shard FROM placement_shard_moves");
+    }
+    
+    private void replace(Map<Long, Integer> directory, String sql) {
+        Map<Long, Integer> current = new HashMap<>();
+        jdbc(ShardContext.HOME).query(sql, rs -> {
+            current.put(rs.getLong("id"), rs.getInt("shard"));
+        });
+        directory.keySet().retainAll(current.keySet());
+        directory.putAll(current);
+    }
+    
+    // Runs work once per shard, in parallel, each in a read-only transaction on
+    // that shard. Results come back in shard order.
+    public <T> List<T> fanOut(IntFunction<T> work) {
+        if (!isSharded()) {
+            return Collections.singletonList(work.apply(ShardContext.HOME));
+        }
+        boolean primaryOnly = ReplicaRouting.isPrimaryOnly();
+        List<Future<T>> futures = new ArrayList<>(shardCount());
+        for (int shard = 0; shard < shardCount(); shard++) {
+            int target = shard;
+            futures.add(fanOutPool.submit(() -> withPrimaryOnly(primaryOnly, () -> ShardContext.on(target,
+                    () -> readOnlyTransaction.execute(status -> work.apply(target))))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime
+                    ? runtime
+                    : new IllegalStateException("Shard query failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+    
+    // Merges lists that are each sorted by order, keeping the first limit items
+    public static <T> List<T> mergeSorted(List<List<T>> lists, Comparator<? super T> order, int limit) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+                (a, b) -> order.compare(lists.get(a[0]).get(a[1]), lists.get(b[0]).get(b[1])));
+        for (int i = 0; i < lists.size(); i++) {
+            if (!lists.get(i).isEmpty()) {
+                heads.add(new int[] {i, 0});
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<T> list = lists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (head[1] + 1 < list.size()) {
+                heads.add(new int[] {head[0], head[1] + 1});
+            }
+        }
+        return merged;
+    }
+    
+    // Streams every shard at once, each in a read-only transaction on its own
+    // thread feeding a small buffer, and hands the items to sink in order. Memory
+    // stays bounded by the buffers whatever the size of the shards.
+    public <T> void mergeStreams(IntFunction<Stream<T>> perShard, Comparator<? super T> order,
+                                 Consumer<? super T> sink) {
+        if (!isSharded()) {
+            try (Stream<T> items = perShard.apply(ShardContext.HOME)) {
+                items.forEach(sink);
+            }
+            return;
+        }
+        boolean primaryOnly = ReplicaRouting.isPrimaryOnly();
+        List<BlockingQueue<Object>> buffers = new ArrayList<>(shardCount());
+        List<Future<?>> readers = new ArrayList<>(shardCount());
+        for (int shard = 0; shard < shardCount(); shard++) {
+            int target = shard;
+            BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(MERGE_BUFFER);
+            buffers.add(buffer);
+            readers.add(fanOutPool.submit(() -> {
+                Object last = END;
+                try {
+                    withPrimaryOnly(primaryOnly, () -> ShardContext.on(target,
+                            () -> readOnlyTransaction.execute(status -> {
+                                try (Stream<T> items = perShard.apply(target)) {
+                                    items.forEach(item -> put(buffer, item));
+                                }
+                                return null;
+                            })));
+                } catch (RuntimeException e) {
+                    last = e;
+                }
+                put(buffer, last);
+            }));
+        }
+        
+        try {
+            PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.item, b.item));
+            for (int shard = 0; shard < buffers.size(); shard++) {
+                advance(heads, buffers, shard);
+            }
+            while (!heads.isEmpty()) {
+                Head<T> head = heads.poll();
+                sink.accept(head.item);
+                advance(heads, buffers, head.shard);
+            }
+        } finally {
+            readers.forEach(reader -> reader.cancel(true));
+        }
+    }
+    
+    private static class Head<T> {
+        private final int shard;
+        private final T item;
+        
+        Head(int shard, T item) {
+            this.shard = shard;
+            this.item = item;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> void advance(PriorityQueue<Head<T>> heads, List<BlockingQueue<Object>> buffers, int shard) {
+        Object next;
+        try {
+            next = buffers.get(shard).take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while merging shards", e);
+        }
+        if (next instanceof RuntimeException failure) {
+            throw failure;
+        }
+        if (next != END) {
+            heads.add(new Head<>(shard, (T) next));
+        }
+    }
+    
+    private static void put(BlockingQueue<Object> buffer, Object item) {
+        try {
+            buffer.put(item);
+        } catch (InterruptedException e) {
+            // The merge was abandoned
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Shard stream cancelled", e);
+        }
+    }
+    
+    // Pool threads do not see the caller's override that keeps reads off the
+    // home shard's replicas (read-your-writes), so it is carried over
+    private static <T> T withPrimaryOnly(boolean primaryOnly, Supplier<T> work) {
+        return primaryOnly ? ReplicaRouting.onPrimary(work) : work.get();
+    }
+    
+    private static int singleShard(Set<Integer> roomShards) {
+        if (roomShards.size() > 1) {
+            throw new RuntimeException("Batch spans rooms on different shards; split it by room");
+        }
+        return roomShards.isEmpty() ? ShardContext.HOME : roomShards.iterator().next();
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.config.ShardContext;
+import com.example.CourseCluster.dto.ImportResponse;
+import com.example.CourseCluster.dto.SiteRecord;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+// Moves a whole site (objects, rooms, placements) between databases as NDJSON,
+// one SiteRecord per line, objects first, then rooms, then placements. Both
+// directions use plain JDBC and hold at most one batch of rows in memory, plus
+// the old-to-new id maps for rooms and objects on import.
+@Service
+public class SiteTransferService {
+    
+    private static final int BATCH_SIZE = 1000;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final int STREAM_FLUSH_INTERVAL = 500;
+    
+    private static final String INSERT_OBJECT = "INSERT INTO objects (name, width, height, color) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_ROOM =
+            "INSERT INTO rooms (room_id, name, length, width, layout_version) VALUES (?, ?, ?, ?, 0)";
+    private static final String INSERT_PLACEMENT =
+            "INSERT INTO placements (placement_id, room_id, object_id, x, y, rotation) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+    
+    // Reads in one transaction so the three tables are exported consistently.
+    // Callers flush live rooms first. With shards the rooms and placements are
+    // read shard by shard, each shard on its own connection, so the export is
+    // only consistent per shard.
+    @Transactional(readOnly = true)
+    public void exportSite(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(SiteRecord.class);
+        int[] written = {0};
+        RecordSink sink = record -> {
+            try {
+                out.write(writer.writeValueAsBytes(record));
+                out.write('\n');
+                if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        
+        try {
+            // Objects deleted but not yet swept are left out, with their placements
+            stream("SELECT object_id, name, width, height, color FROM objects WHERE deleted_at IS NULL"
+                            + " ORDER BY object_id",
+                    rs -> sink.write(SiteRecord.object(rs.getLong("object_id"), rs.getString("name"),
+                            rs.getDouble("width"), rs.getDouble("height"), rs.getString("color"))));
+            streamShards("SELECT room_id, name, length, width FROM rooms ORDER BY room_id",
+                    rs -> sink.write(SiteRecord.room(rs.getLong("room_id"), rs.getString("name"),
+                            rs.getDouble("length"), rs.getDouble("width"))));
+            streamShards("SELECT p.placement_id, p.room_id, p.object_id, p.x, p.y, p.rotation FROM placements p"
+                            + " JOIN objects o ON o.object_id = p.object_id WHERE o.deleted_at IS NULL"
+                            + " ORDER BY p.placement_id",
+                    rs -> sink.write(SiteRecord.placement(rs.getLong("placement_id"), rs.getLong("room_id"),
+                            rs.getLong("object_id"), rs.getDouble("x"), rs.getDouble("y"),
+                            rs.getObject("rotation", Double.class))));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+    
+    // Adds everything in the stream (plain or gzip-compressed NDJSON) as new rows in
+    // one transaction. Objects identical to one already in the catalog (same name,
+    // size and color) are reused rather than duplicated. With shards everything
+    // lands on the home shard; the rebalancer can spread the rooms out later.
+    @Transactional(rollbackFor = IOException.class)
+    @CacheEvict(value = "objectCatalog", allEntries = true)
+    public ImportResponse importSite(InputStream in) throws IOException {
+        shardRouter.useShard(ShardContext.HOME);
+        long started = System.nanoTime();
+        Importer importer = new Importer();
+        try (MappingIterator<SiteRecord> records = objectMapper.readerFor(SiteRecord.class)
+                .readValues(decompressed(in))) {
+            while (records.hasNextValue()) {
+                importer.add(records.nextValue());
+            }
+        }
+        importer.flushAll();
+        roomStatsService.apply(importer.tally);
+        catalogSyncService.syncAfterCommit();
+        return new ImportResponse(importer.objectsCreated, importer.objectsMatched, importer.roomIds.size(),
+                importer.placements, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    private interface RecordSink {
+        void write(SiteRecord record);
+    }
+    
+    private void stream(String sql, RowCallbackHandler handler) {
+        stream(jdbcTemplate, sql, handler);
+    }
+    
+    private void streamShards(String sql, RowCallbackHandler handler) {
+        if (!shardRouter.isSharded()) {
+            stream(sql, handler);
+            return;
+        }
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            stream(shardRouter.jdbc(shard), sql, handler);
+        }
+    }
+    
+    private static void stream(JdbcTemplate jdbcTemplate, String sql, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            // Honored by MySQL only with useCursorFetch=true on the URL
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, handler);
+    }
+    
+    private static InputStream decompressed(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        boolean gzip = first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+        return gzip ? new GZIPInputStream(buffered) : buffered;
+    }
+    
+    private static List<Object> catalogKey(String name, Double width, Double height, String color) {
+        return Arrays.asList(name, width, height, color);
+    }
+    
+    private List<Long> insertReturningKeys(String sql, String keyColumn, List<SiteRecord> records,
+                                           ParameterizedPreparedStatementSetter<SiteRecord> setter) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[] {keyColumn}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.setValues(ps, records.get(i));
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return records.size();
+                    }
+                }, keys);
+        List<Long> ids = new ArrayList<>(records.size());
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+    
+    // Buffers records per table and writes each buffer as one JDBC batch when it
+    // fills up. Pending objects and rooms are written before the first placement
+    // that follows them, so its references can be remapped.
+    private class Importer {
+        private final Map<List<Object>, Long> catalog = new HashMap<>();
+        private final Map<Long, Long> objectIds = new HashMap<>();
+        private final Map<Long, Long> roomIds = new HashMap<>();
+        private final List<SiteRecord> pendingObjects = new ArrayList<>();
+        private final List<SiteRecord> pendingRooms = new ArrayList<>();
+        private final List<SiteRecord> pendingPlacements = new ArrayList<>();
+        private final Map<Long, Double> areas = new HashMap<>();
+        private final RoomStatsService.Tally tally = new RoomStatsService.Tally();
+        private int objectsCreated;
+        private int objectsMatched;
+        private long placements;
+        
+        Importer() {
+            String sql = "SELECT object_id, name, width, height, color FROM objects WHERE deleted_at IS NULL";
+            jdbcTemplate.query(sql, rs -> {
+                catalog.putIfAbsent(catalogKey(rs.getString("name"), rs.getDouble("width"),
+                        rs.getDouble("height"), rs.getString("color")), rs.getLong("object_id"));
+            });
+        }
+        
+        void add(SiteRecord record) {
+            if (record.getId() == null) {
+                throw new IllegalArgumentException("Record without an id: " + record.getType());
+            }
+            if (SiteRecord.OBJECT.equals(record.getType())) {
+                Long existing = catalog.get(catalogKey(record.getName(), record.getWidth(), record.getHeight(),
+                        record.getColor()));
+                if (existing != null) {
+                    objectIds.put(record.getId(), existing);
+                    areas.put(existing, record.getWidth() * record.getHeight());
+                    objectsMatched++;
+                } else {
+                    add(pendingObjects, record);
+                }
+            } else if (SiteRecord.ROOM.equals(record.getType())) {
+                add(pendingRooms, record);
+            } else if (SiteRecord.PLACEMENT.equals(record.getType())) {
+                flushObjects();
+                flushRooms();
+                add(pendingPlacements, record);
+            } else {
+                throw new IllegalArgumentException("Unknown record type: " + record.getType());
+            }
+        }
+        
+        void flushAll() {
+            flushObjects();
+            flushRooms();
+            flushPlacements();
+        }
+        
+        private void add(List<SiteRecord> pending, SiteRecord record) {
+            pending.add(record);
+            if (pending.size() == BATCH_SIZE) {
+                flushAll();
+            }
+        }
+        
+        private void flushObjects() {
+            if (pendingObjects.isEmpty()) {
+                return;
+            }
+            List<Long> ids = insertReturningKeys(INSERT_OBJECT, "object_id", pendingObjects, (ps, record) -> {
+                ps.setString(1, record.getName());
+                ps.setDouble(2, record.getWidth());
+                ps.setDouble(3, record.getHeight());
+                ps.setString(4, record.getColor());
+            });
+            for (int i = 0; i < ids.size(); i++) {
+                SiteRecord record = pendingObjects.get(i);
+                objectIds.put(record.getId(), ids.get(i));
+                areas.put(ids.get(i), record.getWidth() * record.getHeight());
+                catalog.putIfAbsent(catalogKey(record.getName(), record.getWidth(), record.getHeight(),
+                        record.getColor()), ids.get(i));
+            }
+            roomStatsService.objectsCreated(ids);
+            objectsCreated += ids.size();
+            pendingObjects.clear();
+        }
+        
+        private void flushRooms() {
+            if (pendingRooms.isEmpty()) {
+                return;
+            }
+            long[] ids = idAllocator.roomIds(pendingRooms.size());
+            int[] next = {0};
+            jdbcTemplate.batchUpdate(INSERT_ROOM, pendingRooms, BATCH_SIZE, (ps, record) -> {
+                ps.setLong(1, ids[next[0]++]);
+                ps.setString(2, record.getName());
+                ps.setDouble(3, record.getLength());
+                ps.setDouble(4, record.getWidth());
+            });
+            List<Long> created = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                roomIds.put(pendingRooms.get(i).getId(), ids[i]);
+                created.add(ids[i]);
+            }
+            roomStatsService.roomsCreated(created);
+            pendingRooms.clear();
+        }
+        
+        private void flushPlacements() {
+            if (pendingPlacements.isEmpty()) {
+                return;
+            }
+            long[] ids = idAllocator.placementIds(pendingPlacements.size());
+            int[] next = {0};
+            jdbcTemplate.batchUpdate(INSERT_PLACEMENT, pendingPlacements, BATCH_SIZE, (ps, record) -> {
+                Long roomId = roomIds.get(record.getRoomId());
+                Long objectId = objectIds.get(record.getObjectId());
+                if (roomId == null || objectId == null) {
+                    throw new IllegalArgumentException("Placement " + record.getId()
+                            + " refers to a room or object that is not in the import");
+                }
+                ps.setLong(1, ids[next[0]++]);
+                ps.setLong(2, roomId);
+                ps.setLong(3, objectId);
+                ps.setDouble(4, record.getX());
+                ps.setDouble(5, record.getY());
+                ps.setObject(6, record.getRotation());
+                tally.added(roomId, objectId, areas.get(objectId));
+            });
+            placements += pendingPlacements.size();
+            pendingPlacements.clear();
+        }
+    }
+}
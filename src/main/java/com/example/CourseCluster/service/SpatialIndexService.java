@@ -0,0 +1,298 @@
+package com.example.CourseCluster.service;
+
+import com.example.CourseCluster.dto.FreeSpaceResponse;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.dto.PlacementValidationResponse;
+import com.example.CourseCluster.entity.Placement;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.layout.OccupancyGrid;
+import com.example.CourseCluster.layout.RoomSpatialIndex;
+import com.example.CourseCluster.repository.PlacementRepository;
+import com.example.CourseCluster.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Keeps one RoomSpatialIndex per room in memory. An index is built from the
+// database the first time its room is locked and is then maintained
+// incrementally by PlacementService. Evicting only marks it stale; it is
+// rebuilt under the room's lock on next use. Footprints written by
+// transactions that have not committed yet are not in the database, so they
+// are remembered here and put back into a rebuilt index.
+@Service
+public class SpatialIndexService {
+    
+    private static final int MAX_REPORTED_CONFLICTS = 64;
+    private static final int MAX_EMPTY_RECTANGLES = 5;
+    
+    @Autowired
+    private PlacementRepository placementRepository;
+    
+    @Autowired
+    private RoomRepository roomRepository;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Value("${coursecluster.spatial.cell-size:4.0}")
+    private double cellSize;
+    
+    @Value("${coursecluster.spatial.occupancy-resolution:0.5}")
+    private double occupancyResolution;
+    
+    private final ConcurrentHashMap<Long, RoomSpatialIndex> indexes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Supplier<Collection<PlacementResponse>>> overlays = new ConcurrentHashMap<>();
+    // Per room, the footprints of open transactions by placement id (REMOVED for deletes)
+    private final ConcurrentHashMap<Long, Map<Long, Footprint>> uncommitted = new ConcurrentHashMap<>();
+    
+    private record Footprint(double x, double y, double width, double height, double rotation) {}
+    
+    private static final Footprint REMOVED = new Footprint(0, 0, 0, 0, 0);
+    
+    // Cheap: the index is loaded by its first lock(), outside the map
+    public RoomSpatialIndex getIndex(Room room) {
+        return indexes.computeIfAbsent(room.getRoomId(),
+                roomId -> new RoomSpatialIndex(cellSize, index -> rebuild(roomId, index)));
+    }
+    
+    // Rejects footprints that leave the room or overlap another placement
+    public void checkPlacement(RoomSpatialIndex index, Long placementId, RoomObject roomObject,
+                               Double x, Double y, Double rotation) {
+        checkFootprint(index, placementId, roomObject.getObjectId(), roomObject.getWidth(), roomObject.getHeight(),
+                x, y, rotation);
+    }
+    
+    public void checkFootprint(RoomSpatialIndex index, Long placementId, Long objectId,
+                               double objectWidth, double objectHeight, Double x, Double y, Double rotation) {
+        double angle = rotation != null ? rotation : 0.0;
+        
+        if (!index.fitsInRoom(x, y, objectWidth, objectHeight, angle)) {
+            throw new PlacementRejectedException(PlacementRejectedException.Reason.OUT_OF_BOUNDS, null,
+                    "Object " + objectId + " does not fit inside the room at (" + x + ", " + y + ")");
+        }
+        
+        long ignoreId = placementId != null ? placementId : -1;
+        long conflict = index.findOverlap(x, y, objectWidth, objectHeight, angle, ignoreId);
+        if (conflict >= 0) {
+            throw new PlacementRejectedException(PlacementRejectedException.Reason.OVERLAP, conflict,
+                    "Object " + objectId + " overlaps placement " + conflict);
+        }
+    }
+    
+    // Same checks as checkPlacement, reported instead of thrown
+    public PlacementValidationResponse validate(RoomSpatialIndex index, Long placementId, RoomObject roomObject,
+                                                Double x, Double y, Double rotation) {
+        double objectWidth = roomObject.getWidth();
+        double objectHeight = roomObject.getHeight();
+        double angle = rotation != null ? rotation : 0.0;
+        
+        if (!index.fitsInRoom(x, y, objectWidth, objectHeight, angle)) {
+            return PlacementValidationResponse.rejected(PlacementRejectedException.Reason.OUT_OF_BOUNDS, List.of());
+        }
+        
+        long ignoreId = placementId != null ? placementId : -1;
+        long[] conflicts = new long[MAX_REPORTED_CONFLICTS];
+        int count = index.findOverlaps(x, y, objectWidth, objectHeight, angle, ignoreId, conflicts);
+        if (count > 0) {
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(conflicts[i]);
+            }
+            return PlacementValidationResponse.rejected(PlacementRejectedException.Reason.OVERLAP, ids);
+        }
+        return PlacementValidationResponse.accepted();
+    }
+    
+    public void put(RoomSpatialIndex index, PlacementResponse placement) {
+        Footprint footprint = new Footprint(placement.getX(), placement.getY(), placement.getObjectWidth(),
+                placement.getObjectHeight(), placement.getRotation() != null ? placement.getRotation() : 0.0);
+        put(index, placement.getPlacementId(), footprint);
+        track(placement.getRoomId(), placement.getPlacementId(), footprint);
+    }
+    
+    public void put(RoomSpatialIndex index, Placement placement) {
+        Footprint footprint = new Footprint(placement.getX(), placement.getY(), placement.getRoomObject().getWidth(),
+                placement.getRoomObject().getHeight(), placement.getRotation() != null ? placement.getRotation() : 0.0);
+        put(index, placement.getPlacementId(), footprint);
+        track(placement.getRoom().getRoomId(), placement.getPlacementId(), footprint);
+    }
+    
+    public void remove(Long roomId, Long placementId) {
+        RoomSpatialIndex index = indexes.get(roomId);
+        if (index != null) {
+            index.lock();
+            try {
+                index.remove(placementId);
+            } finally {
+                index.unlock();
+            }
+        }
+        track(roomId, placementId, REMOVED);
+    }
+    
+    // The index is written before commit, so rebuild it if the transaction rolls back
+    public void evictOnRollback(Long roomId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        markStale(roomId);
+                    }
+                }
+            });
+        }
+    }
+    
+    // Registers in-memory positions that take precedence over the database when
+    // the room's index is (re)built
+    public void registerOverlay(Long roomId, Supplier<Collection<PlacementResponse>> overlay) {
+        overlays.put(roomId, overlay);
+    }
+    
+    public void removeOverlay(Long roomId) {
+        overlays.remove(roomId);
+    }
+    
+    // Marked again once the caller's transaction completes, in case the index
+    // was rebuilt from the database before the change that made it stale committed
+    public void evict(Long roomId) {
+        markStale(roomId);
+        afterCompletion(() -> markStale(roomId));
+    }
+    
+    public void evictAll() {
+        indexes.values().forEach(RoomSpatialIndex::markStale);
+        afterCompletion(() -> indexes.values().forEach(RoomSpatialIndex::markStale));
+    }
+    
+    // For a deleted room: its index goes once the deletion commits
+    public void discard(Long roomId) {
+        markStale(roomId);
+        afterCompletion(() -> indexes.remove(roomId));
+    }
+    
+    // Positions where an item of the given size fits (when width and height are
+    // given) and the largest empty rectangles, read from the room's occupancy grid
+    public FreeSpaceResponse freeSpace(Room room, Double objectWidth, Double objectHeight, Double rotation,
+                                       int limit) {
+        RoomSpatialIndex index = getIndex(room);
+        index.lock();
+        try {
+            OccupancyGrid grid = index.occupancy(occupancyResolution);
+            List<double[]> positions = new ArrayList<>();
+            int positionCount = 0;
+            if (objectWidth != null && objectHeight != null) {
+                double[][] out = new double[limit][];
+                positionCount = grid.findFreePositions(objectWidth, objectHeight,
+                        rotation != null ? rotation : 0.0, out);
+                for (int i = 0; i < Math.min(positionCount, limit); i++) {
+                    positions.add(out[i]);
+                }
+            }
+            return new FreeSpaceResponse(grid.getResolution(), rotation, positionCount, positions,
+                    grid.largestEmptyRectangles(MAX_EMPTY_RECTANGLES));
+        } finally {
+            index.unlock();
+        }
+    }
+    
+    public int indexedRoomCount() {
+        return indexes.size();
+    }
+    
+    // Called by the index under its lock
+    private void rebuild(Long roomId, RoomSpatialIndex index) {
+        Room room = shardRouter.onRoom(roomId, () -> roomRepository.findById(roomId)).orElse(null);
+        if (room == null) {
+            index.reset(0, 0);
+            return;
+        }
+        index.reset(room.getLength(), room.getWidth());
+        List<PlacementResponse> placements = shardRouter.onRoom(roomId,
+                () -> placementRepository.findResponsesByRoomId(roomId));
+        for (PlacementResponse placement : placements) {
+            put(index, placement.getPlacementId(), footprint(placement));
+        }
+        // Live rooms hold positions that may not have been flushed yet
+        Supplier<Collection<PlacementResponse>> overlay = overlays.get(roomId);
+        if (overlay != null) {
+            for (PlacementResponse placement : overlay.get()) {
+                put(index, placement.getPlacementId(), footprint(placement));
+            }
+        }
+        Map<Long, Footprint> open = uncommitted.get(roomId);
+        if (open != null) {
+            open.forEach((placementId, footprint) -> {
+                if (footprint == REMOVED) {
+                    index.remove(placementId);
+                } else {
+                    put(index, placementId, footprint);
+                }
+            });
+        }
+    }
+    
+    private static Footprint footprint(PlacementResponse placement) {
+        return new Footprint(placement.getX(), placement.getY(), placement.getObjectWidth(),
+                placement.getObjectHeight(), placement.getRotation() != null ? placement.getRotation() : 0.0);
+    }
+    
+    private static void put(RoomSpatialIndex index, long placementId, Footprint footprint) {
+        index.put(placementId, footprint.x(), footprint.y(), footprint.width(), footprint.height(),
+                footprint.rotation());
+    }
+    
+    // Remembered until the writing transaction completes; after a rollback the
+    // index holds a change that never happened, so it is rebuilt
+    private void track(Long roomId, Long placementId, Footprint footprint) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        uncommitted.compute(roomId, (id, open) -> {
+            Map<Long, Footprint> entries = open != null ? open : new ConcurrentHashMap<>();
+            entries.put(placementId, footprint);
+            return entries;
+        });
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                uncommitted.computeIfPresent(roomId, (id, open) -> {
+                    open.remove(placementId, footprint);
+                    return open.isEmpty() ? null : open;
+                });
+                if (status != STATUS_COMMITTED) {
+                    markStale(roomId);
+                }
+            }
+        });
+    }
+    
+    private void markStale(Long roomId) {
+        RoomSpatialIndex index = indexes.get(roomId);
+        if (index != null) {
+            index.markStale();
+        }
+    }
+    
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
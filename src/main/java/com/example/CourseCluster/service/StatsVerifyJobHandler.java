@@ -0,0 +1,49 @@
+package com.example.CourseCluster.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Recomputes room_stats and object_usage from the placements and reports any
+// counter that drifted; with repair set, also rewrites those counters. The result
+// is a StatsVerifyResponse.
+@Component
+public class StatsVerifyJobHandler implements JobHandler<StatsVerifyJobHandler.Payload> {
+    
+    public static final String TYPE = "stats-verify";
+    
+    @Autowired
+    private RoomStatsService roomStatsService;
+    
+    public static class Payload {
+        private boolean repair;
+        
+        public Payload() {}
+        
+        public Payload(boolean repair) {
+            this.repair = repair;
+        }
+        
+        public boolean isRepair() {
+            return repair;
+        }
+        
+        public void setRepair(boolean repair) {
+            this.repair = repair;
+        }
+    }
+    
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+    
+    @Override
+    public Class<Payload> getPayloadType() {
+        return Payload.class;
+    }
+    
+    @Override
+    public Object run(Payload payload, JobContext context) {
+        return roomStatsService.verify(payload.isRepair(), context);
+    }
+}
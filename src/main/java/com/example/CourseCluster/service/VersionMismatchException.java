@@ -0,0 +1,12 @@
+package com.example.CourseCluster.service;
+
+// Thrown when an If-Match version no longer matches the room's current version,
+// or the tag belongs to another room or resource
+public class VersionMismatchException extends RuntimeException {
+    
+    public VersionMismatchException(Long roomId, Long expectedVersion) {
+        super(expectedVersion == null
+                ? "If-Match does not name a version of room " + roomId
+                : "Room " + roomId + " is no longer at version " + expectedVersion);
+    }
+}
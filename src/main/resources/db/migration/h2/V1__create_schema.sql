@@ -0,0 +1,81 @@
+-- Initial schema (H2). Keep in step with db/migration/mysql and the entities;
+-- Hibernate validates the mapping against it at startup.
+
+CREATE TABLE rooms (
+    room_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    length DOUBLE PRECISION NOT NULL,
+    width DOUBLE PRECISION NOT NULL,
+    layout_version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE objects (
+    object_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    width DOUBLE PRECISION NOT NULL,
+    height DOUBLE PRECISION NOT NULL,
+    color VARCHAR(255)
+);
+
+CREATE SEQUENCE placement_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE placements (
+    placement_id BIGINT PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    object_id BIGINT NOT NULL,
+    x DOUBLE PRECISION NOT NULL,
+    y DOUBLE PRECISION NOT NULL,
+    rotation DOUBLE PRECISION,
+    CONSTRAINT fk_placements_room FOREIGN KEY (room_id) REFERENCES rooms (room_id) ON DELETE CASCADE,
+    CONSTRAINT fk_placements_object FOREIGN KEY (object_id) REFERENCES objects (object_id) ON DELETE CASCADE
+);
+-- Placements of a room in id order (room load, room delete); object_id backs catalog deletes
+CREATE INDEX idx_placements_room_placement ON placements (room_id, placement_id);
+CREATE INDEX idx_placements_object ON placements (object_id);
+
+CREATE TABLE jobs (
+    job_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    type VARCHAR(64) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    progress INTEGER NOT NULL,
+    message VARCHAR(255),
+    payload CLOB,
+    result CLOB,
+    error VARCHAR(1000),
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    started_at TIMESTAMP(6) WITH TIME ZONE,
+    finished_at TIMESTAMP(6) WITH TIME ZONE
+);
+CREATE INDEX idx_jobs_status ON jobs (status, job_id);
+
+-- History rows carry no foreign key: they are written after the change commits,
+-- possibly after the room is gone, and are removed with the room explicitly
+CREATE SEQUENCE placement_change_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE placement_changes (
+    change_id BIGINT PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    placement_id BIGINT NOT NULL,
+    object_id BIGINT NOT NULL,
+    x DOUBLE PRECISION,
+    y DOUBLE PRECISION,
+    rotation DOUBLE PRECISION,
+    previous_x DOUBLE PRECISION,
+    previous_y DOUBLE PRECISION,
+    previous_rotation DOUBLE PRECISION,
+    undo_of BIGINT,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+CREATE INDEX idx_placement_changes_room_version ON placement_changes (room_id, version);
+
+CREATE TABLE room_snapshots (
+    snapshot_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    placement_count INTEGER NOT NULL,
+    data BLOB NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+CREATE INDEX idx_room_snapshots_room_version ON room_snapshots (room_id, version);
@@ -0,0 +1,2 @@
+-- Set when an object is deleted; the row stays until its placements are swept
+ALTER TABLE objects ADD COLUMN deleted_at TIMESTAMP(6) WITH TIME ZONE;
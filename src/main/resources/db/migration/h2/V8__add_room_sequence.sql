@@ -0,0 +1,6 @@
+-- Room ids come from a pooled sequence, like placement ids, so a room moved in
+-- from another shard (keeping its id) never affects the ids this one hands out.
+-- The pooled generator uses the 50 ids up to each value it draws, so the
+-- sequence starts 50 past the last room. room_id keeps its identity default,
+-- which nothing uses any more.
+CREATE SEQUENCE room_seq START WITH (SELECT COALESCE(MAX(room_id), 0) + 50 FROM rooms) INCREMENT BY 50;
@@ -0,0 +1,9 @@
+-- Placements of moved rooms that now live off the shard their id was issued on
+-- (read on the home shard), so a placement's shard is known without a query.
+-- Any other placement lives on the shard encoded in its id.
+CREATE TABLE placement_shard_moves (
+    placement_id BIGINT NOT NULL PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    shard INT NOT NULL
+);
+CREATE INDEX idx_placement_shard_moves_room ON placement_shard_moves (room_id);
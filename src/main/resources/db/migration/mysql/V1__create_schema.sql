@@ -0,0 +1,89 @@
+-- Initial schema (MySQL 8, InnoDB). Keep in step with db/migration/h2 and the
+-- entities; Hibernate validates the mapping against it at startup.
+
+CREATE TABLE rooms (
+    room_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    length DOUBLE NOT NULL,
+    width DOUBLE NOT NULL,
+    layout_version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE objects (
+    object_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    width DOUBLE NOT NULL,
+    height DOUBLE NOT NULL,
+    color VARCHAR(255)
+);
+
+-- MySQL has no sequences; Hibernate emulates placement_seq with this table
+CREATE TABLE placement_seq (
+    next_val BIGINT
+);
+INSERT INTO placement_seq VALUES (1);
+
+-- The composite indexes are created with the table so InnoDB uses them for the
+-- foreign keys instead of adding single-column ones
+CREATE TABLE placements (
+    placement_id BIGINT NOT NULL PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    object_id BIGINT NOT NULL,
+    x DOUBLE NOT NULL,
+    y DOUBLE NOT NULL,
+    rotation DOUBLE,
+    INDEX idx_placements_room_placement (room_id, placement_id),
+    INDEX idx_placements_object (object_id),
+    CONSTRAINT fk_placements_room FOREIGN KEY (room_id) REFERENCES rooms (room_id) ON DELETE CASCADE,
+    CONSTRAINT fk_placements_object FOREIGN KEY (object_id) REFERENCES objects (object_id) ON DELETE CASCADE
+);
+
+CREATE TABLE jobs (
+    job_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(64) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    progress INT NOT NULL,
+    message VARCHAR(255),
+    payload LONGTEXT,
+    result LONGTEXT,
+    error VARCHAR(1000),
+    created_at DATETIME(6) NOT NULL,
+    started_at DATETIME(6),
+    finished_at DATETIME(6),
+    INDEX idx_jobs_status (status, job_id)
+);
+
+-- History rows carry no foreign key: they are written after the change commits,
+-- possibly after the room is gone, and are removed with the room explicitly
+CREATE TABLE placement_change_seq (
+    next_val BIGINT
+);
+INSERT INTO placement_change_seq VALUES (1);
+
+CREATE TABLE placement_changes (
+    change_id BIGINT NOT NULL PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    placement_id BIGINT NOT NULL,
+    object_id BIGINT NOT NULL,
+    x DOUBLE,
+    y DOUBLE,
+    rotation DOUBLE,
+    previous_x DOUBLE,
+    previous_y DOUBLE,
+    previous_rotation DOUBLE,
+    undo_of BIGINT,
+    changed_at DATETIME(6) NOT NULL,
+    INDEX idx_placement_changes_room_version (room_id, version)
+);
+
+CREATE TABLE room_snapshots (
+    snapshot_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    room_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    placement_count INT NOT NULL,
+    data LONGBLOB NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    INDEX idx_room_snapshots_room_version (room_id, version)
+);
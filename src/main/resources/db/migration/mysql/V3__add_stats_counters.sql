@@ -0,0 +1,25 @@
+-- Counters kept up to date by every placement write, so room totals and object
+-- usage are read by primary key instead of aggregated from placements
+CREATE TABLE room_stats (
+    room_id BIGINT NOT NULL PRIMARY KEY,
+    item_count BIGINT NOT NULL,
+    occupied_area DOUBLE NOT NULL
+);
+
+CREATE TABLE object_usage (
+    object_id BIGINT NOT NULL PRIMARY KEY,
+    placement_count BIGINT NOT NULL
+);
+
+INSERT INTO room_stats (room_id, item_count, occupied_area)
+SELECT r.room_id, COUNT(o.object_id), COALESCE(SUM(o.width * o.height), 0)
+FROM rooms r
+LEFT JOIN placements p ON p.room_id = r.room_id
+LEFT JOIN objects o ON o.object_id = p.object_id
+GROUP BY r.room_id;
+
+INSERT INTO object_usage (object_id, placement_count)
+SELECT o.object_id, COUNT(p.placement_id)
+FROM objects o
+LEFT JOIN placements p ON p.object_id = o.object_id
+GROUP BY o.object_id;
@@ -0,0 +1,8 @@
+-- Stamped on the primary every coursecluster.replicas.heartbeat-interval-ms
+-- (epoch millis); how old a replica's copy is gives its replication lag
+CREATE TABLE replica_heartbeat (
+    id INT NOT NULL PRIMARY KEY,
+    beat_at BIGINT NOT NULL
+);
+
+INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, 0);
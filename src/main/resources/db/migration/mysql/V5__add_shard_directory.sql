@@ -0,0 +1,6 @@
+-- Rooms moved off the shard their id was issued on (read on the home shard).
+-- Any other room lives on the shard encoded in its id.
+CREATE TABLE room_shard_moves (
+    room_id BIGINT NOT NULL PRIMARY KEY,
+    shard INT NOT NULL
+);
@@ -0,0 +1,3 @@
+-- Set on a snapshot taken after versions went missing from the change log;
+-- the layouts between gap_after and the snapshot's version are unknown
+ALTER TABLE room_snapshots ADD COLUMN gap_after BIGINT;
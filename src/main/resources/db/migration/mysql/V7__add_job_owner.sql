@@ -0,0 +1,5 @@
+-- The instance running a job and when it last said so. A RUNNING job whose
+-- heartbeat is older than coursecluster.jobs.stale-after-ms is taken back by
+-- whichever instance notices first.
+ALTER TABLE jobs ADD COLUMN owner VARCHAR(64);
+ALTER TABLE jobs ADD COLUMN heartbeat_at DATETIME(6);
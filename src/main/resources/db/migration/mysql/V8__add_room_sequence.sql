@@ -0,0 +1,18 @@
+-- Room ids come from a pooled sequence, like placement ids. InnoDB raises the
+-- AUTO_INCREMENT counter past any id inserted explicitly, so a room moved in
+-- from a higher shard (keeping its id) would have made this shard hand out
+-- that shard's ids. room_id keeps AUTO_INCREMENT, which the foreign keys on it
+-- prevent changing, but nothing uses it any more.
+CREATE TABLE room_seq (
+    next_val BIGINT
+);
+
+-- The pooled generator uses the 50 ids up to each value it draws, so the
+-- sequence starts 50 past the counter (which marks the shard's id range on a
+-- shard without rooms yet)
+SET SESSION information_schema_stats_expiry = 0;
+INSERT INTO room_seq
+SELECT GREATEST(COALESCE(MAX(r.room_id), 0) + 1,
+                (SELECT COALESCE(MAX(t.AUTO_INCREMENT), 1) FROM information_schema.TABLES t
+                 WHERE t.TABLE_SCHEMA = DATABASE() AND t.TABLE_NAME = 'rooms')) + 49
+FROM rooms r;
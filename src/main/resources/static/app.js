@@ -6,6 +6,7 @@ let currentRoom = null;
 let selectedObject = null;
 let availableObjects = [];
 let placements = [];
+let roomEvents = null;
 
 // Canvas setup
 const canvas = document.getElementById('roomCanvas');
@@ -85,6 +86,7 @@ async function createRoom() {
         
         currentRoom = await response.json();
         placements = [];
+        subscribeToRoom(currentRoom.roomId);
         updateRoomDisplay();
         drawRoom();
         alert('Room created successfully!');
@@ -127,6 +129,9 @@ async function loadRooms() {
 // Load a specific room
 async function loadRoom(roomId) {
     try {
+        // Subscribe first so no change made while fetching is missed
+        subscribeToRoom(roomId);
+        
         const roomResponse = await fetch(`${API_BASE}/rooms/${roomId}`);
         currentRoom = await roomResponse.json();
         
@@ -141,6 +146,57 @@ async function loadRoom(roomId) {
     }
 }
 
+// Receive other users' edits as they happen instead of re-fetching the room.
+// EventSource reconnects on its own and resumes from the last event id.
+function subscribeToRoom(roomId) {
+    if (roomEvents) {
+        roomEvents.close();
+    }
+    roomEvents = new EventSource(`${API_BASE}/rooms/${roomId}/events`);
+    ['CREATED', 'MOVED', 'DELETED'].forEach(type => {
+        roomEvents.addEventListener(type, event => applyPlacementDelta(JSON.parse(event.data)));
+    });
+    roomEvents.addEventListener('resync', () => refreshPlacements(roomId));
+}
+
+async function refreshPlacements(roomId) {
+    const response = await fetch(`${API_BASE}/placements/room/${roomId}`);
+    placements = await response.json();
+    drawRoom();
+}
+
+function applyPlacementDelta(delta) {
+    if (delta.type === 'DELETED') {
+        placements = placements.filter(p => p.placementId !== delta.placementId);
+    } else {
+        const existing = placements.find(p => p.placementId === delta.placementId);
+        if (existing) {
+            existing.x = delta.x;
+            existing.y = delta.y;
+            existing.rotation = delta.rotation;
+        } else if (delta.type === 'CREATED') {
+            const obj = availableObjects.find(o => o.objectId === delta.objectId);
+            if (!obj) {
+                refreshPlacements(currentRoom.roomId);
+                return;
+            }
+            placements.push({
+                placementId: delta.placementId,
+                roomId: currentRoom.roomId,
+                objectId: obj.objectId,
+                objectName: obj.name,
+                objectWidth: obj.width,
+                objectHeight: obj.height,
+                objectColor: obj.color,
+                x: delta.x,
+                y: delta.y,
+                rotation: delta.rotation
+            });
+        }
+    }
+    drawRoom();
+}
+
 // Update room display info
 function updateRoomDisplay() {
     if (currentRoom) {
@@ -198,9 +254,15 @@ function findPlacementAt(pixelX, pixelY) {
     const x = pixelX / PIXELS_PER_FOOT;
     const y = pixelY / PIXELS_PER_FOOT;
     
+    // Rotate the click into each placement's local frame (rotation is about its center)
     return placements.find(p => {
-        return x >= p.x && x <= p.x + p.objectWidth &&
-               y >= p.y && y <= p.y + p.objectHeight;
+        const angle = (p.rotation || 0) * Math.PI / 180;
+        const dx = x - (p.x + p.objectWidth / 2);
+        const dy = y - (p.y + p.objectHeight / 2);
+        const localX = dx * Math.cos(angle) + dy * Math.sin(angle);
+        const localY = -dx * Math.sin(angle) + dy * Math.cos(angle);
+        return Math.abs(localX) <= p.objectWidth / 2 &&
+               Math.abs(localY) <= p.objectHeight / 2;
     });
 }
 
@@ -219,7 +281,18 @@ async function createPlacement(x, y) {
             })
         });
         
+        if (response.status === 409) {
+            alert('That spot overlaps another piece of furniture!');
+            return;
+        }
+        if (!response.ok) {
+            alert('Object doesn\'t fit at this position!');
+            return;
+        }
+        
         const newPlacement = await response.json();
+        // The change may already have arrived over the event stream
+        placements = placements.filter(p => p.placementId !== newPlacement.placementId);
         placements.push(newPlacement);
         drawRoom();
     } catch (error) {
@@ -289,21 +362,27 @@ function drawRoom() {
         const width = placement.objectWidth * PIXELS_PER_FOOT;
         const height = placement.objectHeight * PIXELS_PER_FOOT;
         
+        // Rotate about the object's center
+        ctx.save();
+        ctx.translate(x + width / 2, y + height / 2);
+        ctx.rotate((placement.rotation || 0) * Math.PI / 180);
+        
         // Draw object rectangle
         ctx.fillStyle = placement.objectColor;
-        ctx.fillRect(x, y, width, height);
+        ctx.fillRect(-width / 2, -height / 2, width, height);
         
         // Draw border
         ctx.strokeStyle = '#000';
         ctx.lineWidth = 2;
-        ctx.strokeRect(x, y, width, height);
+        ctx.strokeRect(-width / 2, -height / 2, width, height);
         
         // Draw label
         ctx.fillStyle = '#fff';
         ctx.font = 'bold 12px Arial';
         ctx.textAlign = 'center';
         ctx.textBaseline = 'middle';
-        ctx.fillText(placement.objectName, x + width / 2, y + height / 2);
+        ctx.fillText(placement.objectName, 0, 0);
+        ctx.restore();
     });
 }
 
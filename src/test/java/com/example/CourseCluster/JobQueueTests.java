@@ -0,0 +1,185 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.entity.Job;
+import com.example.CourseCluster.repository.JobRepository;
+import com.example.CourseCluster.service.JobContext;
+import com.example.CourseCluster.service.JobHandler;
+import com.example.CourseCluster.service.JobQueueFullException;
+import com.example.CourseCluster.service.JobService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The job engine with one worker and room for one queued job: what a full
+// queue answers, and how running jobs of a stopped instance are taken back.
+// The periodic sweeps are held off so each test runs them itself.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:jobs;DB_CLOSE_DELAY=-1",
+		"coursecluster.jobs.workers=1",
+		"coursecluster.jobs.queue-capacity=1",
+		"coursecluster.jobs.dispatch-interval-ms=3600000",
+		"coursecluster.jobs.heartbeat-interval-ms=3600000",
+		"coursecluster.jobs.stale-after-ms=60000"})
+@AutoConfigureMockMvc
+class JobQueueTests {
+
+	private static final String WAITING = "test-waiting";
+	private static final String ONE_SHOT = "test-one-shot";
+
+	// Held by every waiting job until the test lets them finish
+	private static volatile CountDownLatch release;
+
+	@TestConfiguration
+	static class Handlers {
+
+		@Bean
+		JobHandler<String> waitingJobHandler() {
+			return new JobHandler<>() {
+				@Override
+				public String getType() {
+					return WAITING;
+				}
+
+				@Override
+				public Class<String> getPayloadType() {
+					return String.class;
+				}
+
+				@Override
+				public Object run(String payload, JobContext context) throws Exception {
+					release.await();
+					return payload;
+				}
+			};
+		}
+
+		@Bean
+		JobHandler<String> oneShotJobHandler() {
+			return new JobHandler<>() {
+				@Override
+				public String getType() {
+					return ONE_SHOT;
+				}
+
+				@Override
+				public Class<String> getPayloadType() {
+					return String.class;
+				}
+
+				@Override
+				public Object run(String payload, JobContext context) {
+					return payload;
+				}
+
+				@Override
+				public boolean isRestartable() {
+					return false;
+				}
+			};
+		}
+
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JobService jobService;
+
+	@Autowired
+	private JobRepository jobRepository;
+
+	@BeforeEach
+	void holdJobs() {
+		release = new CountDownLatch(1);
+	}
+
+	@AfterEach
+	void releaseJobs() {
+		release.countDown();
+	}
+
+	@Test
+	void fullQueueRefusesWith429AndRetryAfter() throws Exception {
+		Job running = jobService.submit(WAITING, "first");
+		awaitStatus(running, Job.Status.RUNNING);
+		Job queued = jobService.submit(WAITING, "second");
+
+		assertThatThrownBy(() -> jobService.submit(WAITING, "third")).isInstanceOf(JobQueueFullException.class);
+		mockMvc.perform(post("/api/placements/batch").param("async", "true")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[]"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+
+		release.countDown();
+		assertThat(awaitStatus(running, Job.Status.SUCCEEDED).getResult()).isEqualTo("\"first\"");
+		awaitStatus(queued, Job.Status.SUCCEEDED);
+		assertThat(jobService.submit(WAITING, "fourth")).isNotNull();
+	}
+
+	@Test
+	void staleJobsAreRequeuedOrFailedAndLiveOnesLeftAlone() throws Exception {
+		release.countDown();
+		Instant stale = Instant.now().minusSeconds(120);
+		Job restartable = runningJob(WAITING, "gone", stale);
+		Job oneShot = runningJob(ONE_SHOT, "gone", stale);
+		Job alive = runningJob(WAITING, "elsewhere", Instant.now());
+
+		jobService.heartbeat();
+
+		Job requeued = jobRepository.findById(restartable.getJobId()).orElseThrow();
+		assertThat(requeued.getStatus()).isEqualTo(Job.Status.QUEUED);
+		assertThat(requeued.getOwner()).isNull();
+		Job failed = jobRepository.findById(oneShot.getJobId()).orElseThrow();
+		assertThat(failed.getStatus()).isEqualTo(Job.Status.FAILED);
+		assertThat(failed.getError()).startsWith("Interrupted");
+		Job untouched = jobRepository.findById(alive.getJobId()).orElseThrow();
+		assertThat(untouched.getStatus()).isEqualTo(Job.Status.RUNNING);
+		assertThat(untouched.getOwner()).isEqualTo("elsewhere");
+
+		jobService.dispatchQueued();
+
+		assertThat(awaitStatus(restartable, Job.Status.SUCCEEDED).getResult()).isEqualTo("\"restart\"");
+	}
+
+	// A job some other instance started and last heartbeated at the given time
+	private Job runningJob(String type, String owner, Instant heartbeatAt) {
+		Job job = new Job(type, "\"restart\"");
+		job.setStatus(Job.Status.RUNNING);
+		job.setStartedAt(heartbeatAt);
+		job.setOwner(owner);
+		job.setHeartbeatAt(heartbeatAt);
+		return jobRepository.save(job);
+	}
+
+	private Job awaitStatus(Job job, Job.Status status) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+		Job current = jobRepository.findById(job.getJobId()).orElseThrow();
+		while (current.getStatus() != status && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			current = jobRepository.findById(job.getJobId()).orElseThrow();
+		}
+		assertThat(current.getStatus()).isEqualTo(status);
+		return current;
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.layout.LayoutSolver;
+import com.example.CourseCluster.layout.RoomSpatialIndex;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+// Small layouts in a 12' x 10' room that the solver should always solve
+// outright (energy 0) well within its budget. Results are checked against the
+// geometry, not against particular positions.
+class LayoutSolverTests {
+
+	private static final double LENGTH = 12;
+	private static final double WIDTH = 10;
+	private static final long BUDGET = TimeUnit.SECONDS.toNanos(5);
+
+	private static ForkJoinPool pool;
+
+	@BeforeAll
+	static void createPool() {
+		pool = new ForkJoinPool(2);
+	}
+
+	@AfterAll
+	static void closePool() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void itemFitsInEitherOrientation() {
+		LayoutSolver solver = new LayoutSolver(LENGTH, WIDTH, 0);
+
+		assertThat(solver.fits(11, 3)).isTrue();
+		assertThat(solver.fits(3, 11)).isTrue();
+		assertThat(solver.fits(13, 1)).isFalse();
+		assertThat(solver.fits(11, 11)).isFalse();
+	}
+
+	@Test
+	void itemThatFitsNeitherWayIsRejected() {
+		LayoutSolver solver = new LayoutSolver(LENGTH, WIDTH, 0);
+		solver.addItem(11, 11, false, -1);
+
+		assertThatThrownBy(() -> solver.solve(pool, 1, BUDGET)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void itemsKeepTheClearanceAndStayInTheRoom() {
+		LayoutSolver solver = new LayoutSolver(LENGTH, WIDTH, 0.5);
+		double[][] sizes = {{4, 2}, {3, 3}, {2, 2}, {6.5, 3}};
+		for (double[] size : sizes) {
+			solver.addItem(size[0], size[1], false, -1);
+		}
+
+		LayoutSolver.Solution solution = solver.solve(pool, 2, BUDGET);
+
+		assertThat(solution.getEnergy()).isCloseTo(0, within(1e-9));
+		RoomSpatialIndex index = new RoomSpatialIndex(LENGTH, WIDTH, 1);
+		for (int i = 0; i < sizes.length; i++) {
+			double[] box = box(solution, i, sizes[i][0], sizes[i][1]);
+			assertThat(index.fitsInRoom(solution.getX(i), solution.getY(i), sizes[i][0], sizes[i][1],
+					solution.getRotation(i))).isTrue();
+			// Grown by half the clearance on every side, no two may overlap
+			assertThat(index.findOverlap(box[0] - 0.25, box[1] - 0.25, box[2] - box[0] + 0.5, box[3] - box[1] + 0.5,
+					0, -1)).isEqualTo(-1);
+			index.put(i, box[0] - 0.25, box[1] - 0.25, box[2] - box[0] + 0.5, box[3] - box[1] + 0.5, 0);
+		}
+	}
+
+	@Test
+	void itemsAvoidObstaclesAndReachTheWall() {
+		LayoutSolver solver = new LayoutSolver(LENGTH, WIDTH, 0);
+		solver.addObstacle(0, 0, 8, WIDTH);
+		solver.addItem(3, 3, true, -1);
+
+		LayoutSolver.Solution solution = solver.solve(pool, 2, BUDGET);
+
+		assertThat(solution.getEnergy()).isCloseTo(0, within(1e-9));
+		double[] box = box(solution, 0, 3, 3);
+		assertThat(box[0]).isGreaterThanOrEqualTo(8);
+		assertThat(Math.min(Math.min(box[1], WIDTH - box[3]), LENGTH - box[2])).isCloseTo(0, within(1e-9));
+	}
+
+	@Test
+	void groupMembersEndUpTouching() {
+		LayoutSolver solver = new LayoutSolver(LENGTH, WIDTH, 1);
+		solver.addItem(4, 2, false, 0);
+		solver.addItem(1.5, 1.5, false, 0);
+
+		LayoutSolver.Solution solution = solver.solve(pool, 2, BUDGET);
+
+		assertThat(solution.getEnergy()).isCloseTo(0, within(1e-9));
+		double[] desk = box(solution, 0, 4, 2);
+		double[] chair = box(solution, 1, 1.5, 1.5);
+		double dx = Math.max(0, Math.max(chair[0] - desk[2], desk[0] - chair[2]));
+		double dy = Math.max(0, Math.max(chair[1] - desk[3], desk[1] - chair[3]));
+		assertThat(Math.hypot(dx, dy)).isCloseTo(0, within(1e-9));
+	}
+
+	// {minX, minY, maxX, maxY} of the item's footprint; rotations are 0 or 90
+	private static double[] box(LayoutSolver.Solution solution, int item, double itemWidth, double itemHeight) {
+		boolean turned = solution.getRotation(item) == 90.0;
+		double cx = solution.getX(item) + itemWidth / 2;
+		double cy = solution.getY(item) + itemHeight / 2;
+		double halfX = (turned ? itemHeight : itemWidth) / 2;
+		double halfY = (turned ? itemWidth : itemHeight) / 2;
+		return new double[] {cx - halfX, cy - halfY, cx + halfX, cy + halfY};
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.LiveRoomService;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Live rooms next to writes that go through the database. The scheduled flush
+// is held off so each test decides when moves are written back.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:live;DB_CLOSE_DELAY=-1",
+		"coursecluster.live-rooms.flush-interval-ms=3600000"})
+class LiveRoomTests {
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	@Autowired
+	private LiveRoomService liveRoomService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Room room;
+	private RoomObject desk;
+	private PlacementResponse placement;
+
+	@BeforeEach
+	void createRoom() {
+		room = roomService.createRoom(new Room("Dorm", 12.0, 10.0));
+		desk = roomObjectService.createObject(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
+		placement = placementService.createPlacement(at(0), null);
+	}
+
+	@AfterEach
+	void closeRoom() {
+		liveRoomService.discard(room.getRoomId());
+	}
+
+	@Test
+	void flushKeepsANewerDatabaseWrite() {
+		liveRoomService.open(room.getRoomId());
+		liveRoomService.move(placement.getPlacementId(), at(1), null);
+
+		placementService.updatePlacement(placement.getPlacementId(), at(3), null);
+		liveRoomService.flushAll();
+
+		assertThat(storedX()).isEqualTo(3.0);
+		assertThat(liveRoomService.getPlacements(room.getRoomId()))
+				.extracting(PlacementResponse::getX)
+				.containsExactly(3.0);
+	}
+
+	@Test
+	void flushWritesLiveMovesAndRaisesTheStoredVersion() {
+		liveRoomService.open(room.getRoomId());
+		liveRoomService.move(placement.getPlacementId(), at(1), null);
+		liveRoomService.move(placement.getPlacementId(), at(2), null);
+
+		liveRoomService.flushAll();
+
+		assertThat(storedX()).isEqualTo(2.0);
+		assertThat(storedVersion()).isEqualTo(liveRoomService.getVersion(room.getRoomId())).isEqualTo(3);
+	}
+
+	@Test
+	void openWaitsForAWriteInFlightAndLoadsItsResult() throws Exception {
+		AtomicReference<CompletableFuture<Void>> opening = new AtomicReference<>();
+		transactionTemplate.executeWithoutResult(status -> {
+			placementService.updatePlacement(placement.getPlacementId(), at(5), null);
+			opening.set(CompletableFuture.runAsync(() -> liveRoomService.open(room.getRoomId())));
+			// Held on the room row until this write commits
+			assertThat(opening.get()).failsWithin(300, TimeUnit.MILLISECONDS);
+		});
+		opening.get().get(10, TimeUnit.SECONDS);
+
+		assertThat(liveRoomService.getPlacements(room.getRoomId()))
+				.extracting(PlacementResponse::getX)
+				.containsExactly(5.0);
+		assertThat(liveRoomService.getVersion(room.getRoomId())).isEqualTo(storedVersion()).isEqualTo(2);
+	}
+
+	@Test
+	void rolledBackRoomDeleteKeepsTheRoomLive() {
+		liveRoomService.open(room.getRoomId());
+
+		transactionTemplate.executeWithoutResult(status -> {
+			roomService.deleteRoom(room.getRoomId());
+			assertThat(liveRoomService.isLive(room.getRoomId())).isTrue();
+			status.setRollbackOnly();
+		});
+		assertThat(liveRoomService.isLive(room.getRoomId())).isTrue();
+
+		roomService.deleteRoom(room.getRoomId());
+		assertThat(liveRoomService.isLive(room.getRoomId())).isFalse();
+	}
+
+	private PlacementRequest at(double x) {
+		return new PlacementRequest(room.getRoomId(), desk.getObjectId(), x, 0.0, 0.0);
+	}
+
+	private double storedX() {
+		return jdbcTemplate.queryForObject("SELECT x FROM placements WHERE placement_id = ?", Double.class,
+				placement.getPlacementId());
+	}
+
+	private long storedVersion() {
+		return jdbcTemplate.queryForObject("SELECT layout_version FROM rooms WHERE room_id = ?", Long.class,
+				room.getRoomId());
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.layout.OccupancyGrid;
+import com.example.CourseCluster.layout.RoomSpatialIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+// Free positions and empty rectangles in a 4' x 3' room on a 1' grid. The
+// grid is reached through the spatial index, which keeps it in step with the
+// footprints.
+class OccupancyGridTests {
+
+	private static final double RESOLUTION = 1;
+
+	@Test
+	void gridBuiltLaterMatchesOneKeptUpToDate() {
+		RoomSpatialIndex early = new RoomSpatialIndex(4, 3, 1);
+		OccupancyGrid kept = early.occupancy(RESOLUTION);
+		early.put(1, 0, 0, 2, 2, 0);
+
+		RoomSpatialIndex late = new RoomSpatialIndex(4, 3, 1);
+		late.put(1, 0, 0, 2, 2, 0);
+
+		assertThat(kept.occupiedCells()).isEqualTo(4);
+		assertThat(late.occupancy(RESOLUTION).occupiedCells()).isEqualTo(4);
+	}
+
+	@Test
+	void footprintsOnlyTouchingACellLeaveItFree() {
+		RoomSpatialIndex index = new RoomSpatialIndex(4, 3, 1);
+		index.put(1, 0, 0, 1, 1, 0);
+		index.put(2, 1, 0, 1, 1, 0);
+
+		assertThat(index.occupancy(RESOLUTION).occupiedCells()).isEqualTo(2);
+	}
+
+	@Test
+	void cellStaysOccupiedUntilEveryFootprintOnItIsGone() {
+		RoomSpatialIndex index = new RoomSpatialIndex(4, 3, 1);
+		OccupancyGrid grid = index.occupancy(RESOLUTION);
+		index.put(1, 0, 0, 2, 1, 0);
+		index.put(2, 1, 0, 2, 1, 0);
+		assertThat(grid.occupiedCells()).isEqualTo(3);
+
+		index.remove(2);
+		assertThat(grid.occupiedCells()).isEqualTo(2);
+		index.remove(1);
+		assertThat(grid.occupiedCells()).isZero();
+	}
+
+	@Test
+	void partlyCoveredCellsCountAsOccupied() {
+		RoomSpatialIndex index = new RoomSpatialIndex(4, 3, 1);
+		index.put(1, 0.5, 0.5, 1, 1, 0);
+		// A small square turned 45 degrees in the middle of cell (2, 1) reaches no other cell
+		index.put(2, 2.25, 1.25, 0.5, 0.5, 45);
+
+		assertThat(index.occupancy(RESOLUTION).occupiedCells()).isEqualTo(5);
+	}
+
+	@Test
+	void freePositionsAvoidFootprints() {
+		RoomSpatialIndex index = new RoomSpatialIndex(4, 3, 1);
+		index.put(1, 0, 0, 2, 2, 0);
+		OccupancyGrid grid = index.occupancy(RESOLUTION);
+
+		double[][] out = new double[12][];
+		assertThat(grid.findFreePositions(1, 1, 0, out)).isEqualTo(8);
+		assertThat(grid.findFreePositions(2, 2, 0, out)).isEqualTo(2);
+		assertThat(out[0]).containsExactly(2, 0);
+		assertThat(out[1]).containsExactly(2, 1);
+	}
+
+	@Test
+	void freePositionsOfARotatedItemAreItsUnrotatedCorner() {
+		OccupancyGrid grid = new RoomSpatialIndex(4, 3, 1).occupancy(RESOLUTION);
+
+		double[][] out = new double[1][];
+		// Turned 90 degrees, a 2' x 1' item covers 1' x 2'
+		assertThat(grid.findFreePositions(2, 1, 90, out)).isEqualTo(8);
+		assertThat(out[0]).containsExactly(new double[] {-0.5, 0.5}, within(1e-9));
+		assertThat(grid.findFreePositions(3.5, 1, 0, out)).isEqualTo(3);
+		assertThat(grid.findFreePositions(3.5, 1, 90, out)).isZero();
+	}
+
+	@Test
+	void largestRectanglesComeFirstAndNoneInsideAnother() {
+		RoomSpatialIndex index = new RoomSpatialIndex(4, 3, 1);
+		index.put(1, 0, 0, 2, 2, 0);
+
+		List<double[]> rectangles = index.occupancy(RESOLUTION).largestEmptyRectangles(5);
+
+		assertThat(rectangles).hasSize(2);
+		assertThat(rectangles.get(0)).containsExactly(2, 0, 2, 3);
+		assertThat(rectangles.get(1)).containsExactly(0, 2, 4, 1);
+	}
+
+	@Test
+	void rectanglesStopAtTheWalls() {
+		OccupancyGrid grid = new RoomSpatialIndex(4.5, 3, 1).occupancy(RESOLUTION);
+
+		assertThat(grid.largestEmptyRectangles(1)).singleElement()
+				.satisfies(rectangle -> assertThat(rectangle).containsExactly(0, 0, 4.5, 3));
+	}
+
+}
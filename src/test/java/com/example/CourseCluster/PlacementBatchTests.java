@@ -0,0 +1,133 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.PlacementRejectedException;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import com.example.CourseCluster.service.RoomVersionService;
+import com.example.CourseCluster.service.VersionMismatchException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Batch placement writes: each batch is one transaction and one version bump
+// per room, and a rejected item leaves nothing of its batch behind.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:batch;DB_CLOSE_DELAY=-1")
+class PlacementBatchTests {
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	@Autowired
+	private RoomVersionService roomVersionService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Room room;
+	private RoomObject desk;
+
+	@BeforeEach
+	void createRoom() {
+		room = roomService.createRoom(new Room("Studio", 20.0, 20.0));
+		desk = roomObjectService.createObject(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
+	}
+
+	@Test
+	void batchCreateSavesEveryPlacementUnderOneVersion() {
+		List<PlacementResponse> created = placementService.createPlacements(List.of(
+				at(null, 0), at(null, 5), at(null, 10)), 0L);
+
+		assertThat(created).extracting(PlacementResponse::getPlacementId).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(placementService.getPlacementsByRoomId(room.getRoomId()))
+				.extracting(PlacementResponse::getPlacementId)
+				.containsExactlyInAnyOrderElementsOf(created.stream().map(PlacementResponse::getPlacementId).toList());
+		assertThat(version()).isEqualTo(1);
+	}
+
+	@Test
+	void batchUpdateMovesEveryPlacementUnderOneVersion() {
+		List<PlacementResponse> created = placementService.createPlacements(List.of(at(null, 0), at(null, 5)), null);
+
+		placementService.updatePlacements(List.of(
+				at(created.get(0).getPlacementId(), 0.5),
+				at(created.get(1).getPlacementId(), 6)), 1L);
+
+		assertThat(placementService.getPlacementsByRoomId(room.getRoomId()))
+				.extracting(PlacementResponse::getPlacementId, PlacementResponse::getX)
+				.containsExactlyInAnyOrder(
+						tuple(created.get(0).getPlacementId(), 0.5),
+						tuple(created.get(1).getPlacementId(), 6.0));
+		assertThat(version()).isEqualTo(2);
+	}
+
+	@Test
+	void rejectedItemRollsBackTheWholeBatch() {
+		// The second desk lands on the first
+		assertThatThrownBy(() -> placementService.createPlacements(List.of(at(null, 0), at(null, 1)), null))
+				.isInstanceOf(PlacementRejectedException.class);
+		assertThat(placementService.getPlacementsByRoomId(room.getRoomId())).isEmpty();
+		assertThat(version()).isZero();
+
+		List<PlacementResponse> created = placementService.createPlacements(List.of(at(null, 0), at(null, 5)), null);
+		assertThatThrownBy(() -> placementService.updatePlacements(List.of(
+				at(created.get(0).getPlacementId(), 0.5),
+				at(created.get(1).getPlacementId(), 30)), null))
+				.isInstanceOf(PlacementRejectedException.class);
+		assertThat(placementService.getPlacementsByRoomId(room.getRoomId()))
+				.extracting(PlacementResponse::getX)
+				.containsExactlyInAnyOrder(0.0, 5.0);
+	}
+
+	@Test
+	void staleOrMultiRoomIfMatchIsRefused() {
+		Room other = roomService.createRoom(new Room("Office", 20.0, 20.0));
+
+		assertThatThrownBy(() -> placementService.createPlacements(List.of(at(null, 0)), 3L))
+				.isInstanceOf(VersionMismatchException.class);
+		assertThatThrownBy(() -> placementService.createPlacements(List.of(at(null, 0),
+				new PlacementRequest(other.getRoomId(), desk.getObjectId(), 0.0, 0.0, 0.0)), 0L))
+				.hasMessageContaining("single room");
+		assertThat(placementService.getPlacementsByRoomId(room.getRoomId())).isEmpty();
+	}
+
+	@Test
+	void deletingTheRoomRemovesItsPlacementsInBulk() {
+		placementService.createPlacements(List.of(at(null, 0), at(null, 5), at(null, 10)), null);
+
+		roomService.deleteRoom(room.getRoomId());
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM placements WHERE room_id = ?", Long.class,
+				room.getRoomId())).isZero();
+		assertThat(roomService.getRoomById(room.getRoomId())).isEmpty();
+	}
+
+	private PlacementRequest at(Long placementId, double x) {
+		PlacementRequest request = new PlacementRequest(room.getRoomId(), desk.getObjectId(), x, 0.0, 0.0);
+		request.setPlacementId(placementId);
+		return request;
+	}
+
+	private long version() {
+		return roomVersionService.currentVersion(room.getRoomId()).orElseThrow();
+	}
+
+}
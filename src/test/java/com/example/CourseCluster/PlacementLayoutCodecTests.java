@@ -0,0 +1,94 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementLayoutCodec;
+import com.example.CourseCluster.dto.PlacementResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Round trips through both formats of the binary layout codec. Ids are given
+// shard bits, as they are in a sharded deployment, so the deltas need more
+// than one varint byte.
+class PlacementLayoutCodecTests {
+
+	private static final long ROOM_ID = (1L << 48) + 7;
+	private static final long FIRST_ID = (1L << 48) + 100;
+
+	@Test
+	void gridPositionsSurviveTheCompactFormat() {
+		List<PlacementResponse> placements = List.of(
+				placement(FIRST_ID + 300, 2, "Chair", 1.5, 1.5, null, 99_999.984375, 0.015625, 270.0),
+				placement(FIRST_ID, 1, "Desk", 4.0, 2.0, "#D2691E", 0.0, 3.25, 0.0),
+				placement(FIRST_ID + 1, 1, "Desk", 4.0, 2.0, "#D2691E", 5.5, 3.25, 90.0));
+
+		List<PlacementResponse> decoded = PlacementLayoutCodec.decode(PlacementLayoutCodec.encode(ROOM_ID, 4L, placements));
+
+		assertThat(decoded).usingRecursiveFieldByFieldElementComparator()
+				.containsExactly(placements.get(1), placements.get(2), placements.get(0));
+	}
+
+	@Test
+	void compactFormatRoundsToSinglePrecisionAndExactFormatDoesNot() {
+		List<PlacementResponse> placements = List.of(
+				placement(FIRST_ID, 1, "Desk", 4.1, 2.0, "#D2691E", 0.1, 1.0 / 3, 12.345));
+
+		PlacementResponse compact = PlacementLayoutCodec.decode(PlacementLayoutCodec.encode(ROOM_ID, 4L, placements)).get(0);
+		PlacementResponse exact = PlacementLayoutCodec.decode(PlacementLayoutCodec.encodeExact(ROOM_ID, 4L, placements)).get(0);
+
+		assertThat(compact.getX()).isEqualTo((double) 0.1f);
+		assertThat(compact.getObjectWidth()).isEqualTo((double) 4.1f);
+		assertThat(exact).usingRecursiveComparison().isEqualTo(placements.get(0));
+	}
+
+	@Test
+	void missingNumbersAndColorsComeBackMissing() {
+		List<PlacementResponse> placements = List.of(
+				placement(FIRST_ID, 1, "Rug", null, null, null, null, null, null));
+
+		for (byte[] data : List.of(PlacementLayoutCodec.encode(ROOM_ID, null, placements),
+				PlacementLayoutCodec.encodeExact(ROOM_ID, null, placements))) {
+			assertThat(PlacementLayoutCodec.decode(data)).usingRecursiveFieldByFieldElementComparator()
+					.containsExactly(placements.get(0));
+		}
+	}
+
+	@Test
+	void emptyRoomRoundTrips() {
+		assertThat(PlacementLayoutCodec.decode(PlacementLayoutCodec.encode(ROOM_ID, 0L, List.of()))).isEmpty();
+	}
+
+	@Test
+	void objectsUsedManyTimesAreWrittenOnce() {
+		List<PlacementResponse> one = List.of(placement(FIRST_ID, 1, "Desk", 4.0, 2.0, "#D2691E", 0.0, 0.0, 0.0));
+		List<PlacementResponse> two = List.of(one.get(0),
+				placement(FIRST_ID + 1, 1, "Desk", 4.0, 2.0, "#D2691E", 5.0, 0.0, 0.0));
+
+		int perPlacement = PlacementLayoutCodec.encode(ROOM_ID, 4L, two).length
+				- PlacementLayoutCodec.encode(ROOM_ID, 4L, one).length;
+
+		// One varint byte for the id delta, the object index and three f32 columns
+		assertThat(perPlacement).isEqualTo(1 + 4 + 3 * 4);
+	}
+
+	@Test
+	void otherPayloadsAreRejected() {
+		byte[] data = PlacementLayoutCodec.encode(ROOM_ID, 4L, List.of());
+
+		byte[] notALayout = data.clone();
+		notALayout[0] = 'X';
+		assertThatThrownBy(() -> PlacementLayoutCodec.decode(notALayout)).isInstanceOf(IllegalArgumentException.class);
+
+		byte[] newerFormat = data.clone();
+		newerFormat[4] = 3;
+		assertThatThrownBy(() -> PlacementLayoutCodec.decode(newerFormat)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static PlacementResponse placement(long placementId, long objectId, String name, Double width,
+			Double height, String color, Double x, Double y, Double rotation) {
+		return new PlacementResponse(placementId, ROOM_ID, objectId, name, width, height, color, x, y, rotation);
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.PlacementSweepService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import com.example.CourseCluster.service.RoomStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Deleting a catalog object: the tombstone takes it out of the catalog at once,
+// and its placements go two per transaction, each chunk bumping every room it
+// touched once. The scheduled sweep is held off so each test runs it itself.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:sweep;DB_CLOSE_DELAY=-1",
+		"coursecluster.sweep.chunk-size=2",
+		"coursecluster.sweep.interval-ms=3600000"})
+class PlacementSweepTests {
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	@Autowired
+	private PlacementSweepService placementSweepService;
+
+	@Autowired
+	private RoomStatsService roomStatsService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Room first;
+	private Room second;
+	private RoomObject desk;
+	private RoomObject chair;
+
+	@BeforeEach
+	void furnishRooms() {
+		first = roomService.createRoom(new Room("Dorm", 20.0, 20.0));
+		second = roomService.createRoom(new Room("Lounge", 20.0, 20.0));
+		desk = roomObjectService.createObject(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
+		chair = roomObjectService.createObject(new RoomObject("Chair", 1.5, 1.5, "#8B4513"));
+		// Chair placements in id order: five in the first room, then two in the second
+		placementService.createPlacements(Stream.concat(chairs(first, 5),
+				Stream.of(new PlacementRequest(first.getRoomId(), desk.getObjectId(), 0.0, 5.0, 0.0))).toList(), null);
+		placementService.createPlacements(chairs(second, 2).toList(), null);
+	}
+
+	@Test
+	void deleteSweepsInChunksAndBumpsEachRoomOncePerChunk() {
+		assertThat(roomObjectService.deleteObject(chair.getObjectId())).isTrue();
+
+		assertThat(placementService.getPlacementsByRoomId(first.getRoomId()))
+				.extracting(PlacementResponse::getObjectId)
+				.containsExactly(desk.getObjectId());
+		assertThat(placementService.getPlacementsByRoomId(second.getRoomId())).isEmpty();
+		assertThat(objectRows(chair)).isZero();
+		// Chunks: two first-room chairs, two more, one of each room, the last second-room chair
+		assertThat(version(first)).isEqualTo(1 + 3);
+		assertThat(version(second)).isEqualTo(1 + 2);
+		assertThat(roomStatsService.getRoomStats(first.getRoomId()).orElseThrow().getItemCount()).isEqualTo(1);
+		assertThat(roomStatsService.getRoomStats(second.getRoomId()).orElseThrow().getItemCount()).isZero();
+	}
+
+	@Test
+	void tombstoneLeavesTheCatalogAndTheScheduledSweepFinishes() {
+		assertThat(roomObjectService.deleteObjectLater(chair.getObjectId())).isTrue();
+
+		assertThat(roomObjectService.getAllObjects()).extracting(RoomObject::getObjectId)
+				.doesNotContain(chair.getObjectId());
+		assertThat(placements(chair)).isEqualTo(7);
+		assertThat(objectRows(chair)).isEqualTo(1);
+		// A second delete finds the tombstone and does nothing
+		assertThat(roomObjectService.deleteObjectLater(chair.getObjectId())).isFalse();
+
+		placementSweepService.sweepDeleted();
+
+		assertThat(placements(chair)).isZero();
+		assertThat(objectRows(chair)).isZero();
+		assertThat(placements(desk)).isEqualTo(1);
+	}
+
+	@Test
+	void placementWrittenAfterTheTombstoneIsSweptToo() {
+		roomObjectService.deleteObjectLater(chair.getObjectId());
+		// As a write that still had the object cached would place it
+		long placementId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR placement_seq", Long.class);
+		jdbcTemplate.update("INSERT INTO placements (placement_id, room_id, object_id, x, y, rotation)"
+				+ " VALUES (?, ?, ?, 15.0, 15.0, 0.0)", placementId, second.getRoomId(), chair.getObjectId());
+
+		assertThat(placementSweepService.sweepObject(chair.getObjectId())).isEqualTo(8);
+
+		assertThat(placements(chair)).isZero();
+		assertThat(objectRows(chair)).isZero();
+	}
+
+	private Stream<PlacementRequest> chairs(Room room, int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> new PlacementRequest(room.getRoomId(), chair.getObjectId(), 2.0 * i, 0.0, 0.0));
+	}
+
+	private long version(Room room) {
+		return roomService.getRoomById(room.getRoomId()).orElseThrow().getVersion();
+	}
+
+	private int placements(RoomObject object) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM placements WHERE object_id = ?",
+				Integer.class, object.getObjectId());
+	}
+
+	private int objectRows(RoomObject object) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM objects WHERE object_id = ?",
+				Integer.class, object.getObjectId());
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.example.CourseCluster;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs EXPLAIN on the hot queries against the schema built by the Flyway
+// migrations and fails if any of them reads a whole table. Each query is checked
+// on H2 (h2 migrations) and on H2 in MySQL mode loaded with the mysql migrations,
+// which stands in for MySQL locally. The SQL mirrors what the repositories
+// generate but is written out here, and H2's planner is not InnoDB's, so this
+// catches missing indexes rather than proving the MySQL plans.
+class QueryPlanTests {
+
+	private static final int ROOMS = 50;
+	private static final int OBJECTS = 40;
+	private static final int PLACEMENTS_PER_ROOM = 100;
+
+	// H2 marks how each table is read with a comment: "/* PUBLIC.IDX_X: ROOM_ID = 3 */"
+	// for an index lookup, "/* PUBLIC.PLACEMENTS.tableScan */" or an index name
+	// without a condition when it reads everything
+	private static final Pattern ACCESS_PATH = Pattern.compile("/\\* ([\\w.]+)(: [^*]+)? \\*/");
+
+	private static final Map<String, JdbcTemplate> databases = new LinkedHashMap<>();
+
+	@BeforeAll
+	static void createDatabases() {
+		databases.put("H2", migrate("jdbc:h2:mem:plans-h2;DB_CLOSE_DELAY=-1", "h2"));
+		databases.put("MySQL mode", migrate("jdbc:h2:mem:plans-mysql;MODE=MySQL;DB_CLOSE_DELAY=-1", "mysql"));
+	}
+
+	static Stream<Arguments> hotQueries() {
+		List<Arguments> queries = new ArrayList<>();
+		for (String database : List.of("H2", "MySQL mode")) {
+			queries.add(Arguments.of("placements of a room", database, "idx_placements_room_placement",
+					"SELECT p.placement_id, p.room_id, o.object_id, o.name, o.width, o.height, o.color, p.x, p.y, p.rotation"
+							+ " FROM placements p JOIN objects o ON o.object_id = p.object_id"
+							+ " WHERE p.room_id = 7 ORDER BY p.placement_id"));
+			queries.add(Arguments.of("placement entities of a room", database, "idx_placements_room_placement",
+					"SELECT placement_id, room_id, object_id, x, y, rotation FROM placements WHERE room_id = 7"));
+			queries.add(Arguments.of("sweep chunk of a deleted object", database, "idx_placements_object",
+					"SELECT placement_id, room_id, object_id, x, y, rotation FROM placements"
+							+ " WHERE object_id = 5 ORDER BY placement_id LIMIT 500"));
+			queries.add(Arguments.of("placement page", database, "primary_key",
+					"SELECT p.placement_id, p.room_id, o.object_id, o.name, o.width, o.height, o.color, p.x, p.y, p.rotation"
+							+ " FROM placements p JOIN objects o ON o.object_id = p.object_id"
+							+ " WHERE p.placement_id > 2000 ORDER BY p.placement_id LIMIT 100"));
+			queries.add(Arguments.of("room stats", database, "primary_key",
+					"SELECT item_count, occupied_area FROM room_stats WHERE room_id = 7"));
+			queries.add(Arguments.of("room version", database, "primary_key",
+					"SELECT layout_version FROM rooms WHERE room_id = 7"));
+			queries.add(Arguments.of("change log range", database, "idx_placement_changes_room_version",
+					"SELECT change_id, version, change_type, placement_id, x, y, rotation FROM placement_changes"
+							+ " WHERE room_id = 7 AND version > 10 AND version <= 20 ORDER BY version, change_id"));
+			queries.add(Arguments.of("nearest older snapshot", database, "idx_room_snapshots_room_version",
+					"SELECT snapshot_id, version, data FROM room_snapshots"
+							+ " WHERE room_id = 7 AND version <= 150 ORDER BY version DESC LIMIT 1"));
+			queries.add(Arguments.of("queued jobs", database, "idx_jobs_status",
+					"SELECT job_id FROM jobs WHERE status = 'QUEUED' ORDER BY job_id"));
+		}
+		return queries.stream();
+	}
+
+	@ParameterizedTest(name = "{0} on {1}")
+	@MethodSource("hotQueries")
+	void usesAnIndex(String query, String database, String expectedIndex, String sql) {
+		String plan = databases.get(database).queryForObject("EXPLAIN " + sql, String.class);
+
+		Matcher accessPath = ACCESS_PATH.matcher(plan);
+		int tables = 0;
+		while (accessPath.find()) {
+			tables++;
+			assertThat(accessPath.group(2))
+					.as("%s reads all of %s:%n%s", query, accessPath.group(1), plan)
+					.isNotNull();
+		}
+		assertThat(tables).as("no access path in plan:%n%s", plan).isPositive();
+		assertThat(plan.toLowerCase(Locale.ROOT)).as("%s plan:%n%s", query, plan).contains(expectedIndex);
+	}
+
+	private static JdbcTemplate migrate(String url, String vendor) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+		Flyway.configure()
+				.dataSource(dataSource)
+				.locations("classpath:db/migration/" + vendor)
+				.load()
+				.migrate();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		seed(jdbcTemplate);
+		return jdbcTemplate;
+	}
+
+	// Enough rows that reading a whole table costs the planner more than a lookup
+	private static void seed(JdbcTemplate jdbcTemplate) {
+		List<Object[]> objects = new ArrayList<>();
+		for (int i = 1; i <= OBJECTS; i++) {
+			objects.add(new Object[] {"Object " + i});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO objects (name, width, height, color) VALUES (?, 2.0, 2.0, '#808080')",
+				objects);
+
+		List<Object[]> rooms = new ArrayList<>();
+		for (int i = 1; i <= ROOMS; i++) {
+			rooms.add(new Object[] {"Room " + i});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO rooms (name, length, width, layout_version) VALUES (?, 40.0, 40.0, 0)",
+				rooms);
+
+		List<Object[]> placements = new ArrayList<>();
+		for (int i = 1; i <= ROOMS * PLACEMENTS_PER_ROOM; i++) {
+			placements.add(new Object[] {i, i % ROOMS + 1, i % OBJECTS + 1, (double) (i % 20), (double) (i / 20 % 20)});
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO placements (placement_id, room_id, object_id, x, y, rotation) VALUES (?, ?, ?, ?, ?, 0)",
+				placements);
+
+		jdbcTemplate.execute("ANALYZE");
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.config.ReplicaLagMonitor;
+import com.example.CourseCluster.config.ReplicaRouting;
+import com.example.CourseCluster.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static com.example.CourseCluster.TestDatabases.WHO;
+import static com.example.CourseCluster.TestDatabases.database;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Routes between two separate H2 databases, one standing in for the primary and
+// one for a replica (see TestDatabases).
+class ReplicaRoutingTests {
+
+	private static final String PRIMARY_DB = "routing-primary";
+	private static final String REPLICA_DB = "routing-replica";
+	private static final String REPLICA = "replica-1";
+	private static final long MAX_LAG_MS = 1000;
+
+	private static DataSource primary;
+	private static DataSource replica;
+	private static ReplicaRoutingDataSource routing;
+	private static JdbcTemplate jdbcTemplate;
+	private static TransactionTemplate readOnly;
+	private static TransactionTemplate readWrite;
+
+	@BeforeAll
+	static void createDatabases() {
+		primary = database(PRIMARY_DB);
+		replica = database(REPLICA_DB);
+		routing = new ReplicaRoutingDataSource(primary, Map.of(REPLICA, replica), MAX_LAG_MS);
+
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		readWrite = new TransactionTemplate(transactionManager);
+	}
+
+	@BeforeEach
+	void replicaUpToDate() {
+		routing.recordLag(REPLICA, 0);
+	}
+
+	@Test
+	void readOnlyTransactionsUseTheReplica() {
+		assertThat(readOnly.execute(status -> jdbcTemplate.queryForObject(WHO, String.class))).isEqualTo(REPLICA_DB);
+	}
+
+	@Test
+	void writesAndPlainStatementsUseThePrimary() {
+		assertThat(readWrite.execute(status -> jdbcTemplate.queryForObject(WHO, String.class))).isEqualTo(PRIMARY_DB);
+		assertThat(jdbcTemplate.queryForObject(WHO, String.class)).isEqualTo(PRIMARY_DB);
+	}
+
+	@Test
+	void laggingOrUnreachableReplicaFallsBackToThePrimary() {
+		routing.recordLag(REPLICA, MAX_LAG_MS + 1);
+		assertThat(readOnly.execute(status -> jdbcTemplate.queryForObject(WHO, String.class))).isEqualTo(PRIMARY_DB);
+
+		routing.recordLag(REPLICA, MAX_LAG_MS);
+		assertThat(readOnly.execute(status -> jdbcTemplate.queryForObject(WHO, String.class))).isEqualTo(REPLICA_DB);
+
+		routing.markUnreachable(REPLICA);
+		assertThat(readOnly.execute(status -> jdbcTemplate.queryForObject(WHO, String.class))).isEqualTo(PRIMARY_DB);
+	}
+
+	@Test
+	void pinnedThreadReadsThePrimary() {
+		String served = ReplicaRouting.onPrimary(
+				() -> readOnly.execute(status -> jdbcTemplate.queryForObject(WHO, String.class)));
+		assertThat(served).isEqualTo(PRIMARY_DB);
+		assertThat(readOnly.execute(status -> jdbcTemplate.queryForObject(WHO, String.class))).isEqualTo(REPLICA_DB);
+	}
+
+	@Test
+	void repositoryTransactionsStayOnThePrimary() {
+		TransactionTemplate repositoryCall = new TransactionTemplate(readOnly.getTransactionManager());
+		repositoryCall.setReadOnly(true);
+		repositoryCall.setName("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+		assertThat(repositoryCall.execute(status -> jdbcTemplate.queryForObject(WHO, String.class)))
+				.isEqualTo(PRIMARY_DB);
+	}
+
+	@Test
+	void lagMonitorMeasuresReplicasByTheHeartbeat() {
+		// The replica's copy of the heartbeat is never replicated here, so it is set by hand
+		JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+		replicaJdbc.update("UPDATE replica_heartbeat SET beat_at = 0 WHERE id = 1");
+		ReplicaRoutingDataSource monitored = new ReplicaRoutingDataSource(primary, Map.of(REPLICA, replica), MAX_LAG_MS);
+		ReplicaLagMonitor monitor = monitor(monitored);
+
+		monitor.check();
+		assertThat(new JdbcTemplate(primary).queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1",
+				Long.class)).isPositive();
+		assertThat(monitored.getLag(REPLICA)).hasValueSatisfying(lag -> assertThat(lag).isGreaterThan(MAX_LAG_MS));
+		assertThat(monitored.isUsable(REPLICA)).isFalse();
+
+		replicaJdbc.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis() - 200);
+		monitor.check();
+		assertThat(monitored.getLag(REPLICA)).hasValueSatisfying(lag -> assertThat(lag).isBetween(200L, MAX_LAG_MS));
+		assertThat(monitored.isUsable(REPLICA)).isTrue();
+	}
+
+	@Test
+	void lagMonitorDropsAReplicaItCannotRead() {
+		// Never migrated, so it has no heartbeat table to read
+		DataSource broken = new DriverManagerDataSource("jdbc:h2:mem:routing-broken;DB_CLOSE_DELAY=-1", "sa", "");
+		ReplicaRoutingDataSource monitored = new ReplicaRoutingDataSource(primary, Map.of(REPLICA, broken), MAX_LAG_MS);
+		monitored.recordLag(REPLICA, 0);
+
+		monitor(monitored).check();
+
+		assertThat(monitored.getLag(REPLICA)).isEmpty();
+		assertThat(monitored.isUsable(REPLICA)).isFalse();
+	}
+
+	private static ReplicaLagMonitor monitor(ReplicaRoutingDataSource monitored) {
+		ReplicaLagMonitor monitor = new ReplicaLagMonitor();
+		ReflectionTestUtils.setField(monitor, "routingDataSource", monitored);
+		monitor.init();
+		return monitor;
+	}
+
+}
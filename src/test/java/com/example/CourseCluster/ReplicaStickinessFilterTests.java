@@ -0,0 +1,74 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.config.ReplicaRouting;
+import com.example.CourseCluster.config.ReplicaStickinessFilter;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Which requests the filter pins to the primary, and the cookie that carries
+// the pin to the client's next requests
+class ReplicaStickinessFilterTests {
+
+	private static final String COOKIE = "CC_PRIMARY_UNTIL";
+	private static final long STICKY_MS = 5000;
+
+	private final ReplicaStickinessFilter filter = new ReplicaStickinessFilter();
+
+	ReplicaStickinessFilterTests() {
+		ReflectionTestUtils.setField(filter, "stickyMs", STICKY_MS);
+	}
+
+	@Test
+	void mutationReadsThePrimaryAndPinsTheClient() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		long before = System.currentTimeMillis();
+
+		assertThat(primaryOnlyDuring(new MockHttpServletRequest("POST", "/api/rooms"), response)).isTrue();
+
+		Cookie cookie = response.getCookie(COOKIE);
+		assertThat(cookie).isNotNull();
+		assertThat(Long.parseLong(cookie.getValue())).isGreaterThanOrEqualTo(before + STICKY_MS);
+		assertThat(ReplicaRouting.isPrimaryOnly()).isFalse();
+	}
+
+	@Test
+	void readWithoutACookieMayUseAReplica() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		assertThat(primaryOnlyDuring(new MockHttpServletRequest("GET", "/api/rooms"), response)).isFalse();
+		assertThat(response.getCookie(COOKIE)).isNull();
+	}
+
+	@Test
+	void readWithinTheStickyWindowUsesThePrimary() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/rooms");
+		request.setCookies(new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() + STICKY_MS)));
+
+		assertThat(primaryOnlyDuring(request, new MockHttpServletResponse())).isTrue();
+		assertThat(ReplicaRouting.isPrimaryOnly()).isFalse();
+	}
+
+	@Test
+	void expiredOrGarbledCookieIsIgnored() throws Exception {
+		MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/api/rooms");
+		expired.setCookies(new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() - 1)));
+		assertThat(primaryOnlyDuring(expired, new MockHttpServletResponse())).isFalse();
+
+		MockHttpServletRequest garbled = new MockHttpServletRequest("GET", "/api/rooms");
+		garbled.setCookies(new Cookie(COOKIE, "soon"));
+		assertThat(primaryOnlyDuring(garbled, new MockHttpServletResponse())).isFalse();
+	}
+
+	private boolean primaryOnlyDuring(MockHttpServletRequest request, MockHttpServletResponse response)
+			throws Exception {
+		boolean[] primaryOnly = new boolean[1];
+		filter.doFilter(request, response, (req, res) -> primaryOnly[0] = ReplicaRouting.isPrimaryOnly());
+		return primaryOnly[0];
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.IdAllocator;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomCloneService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Clones copied with INSERT ... SELECT over runs of allocated ids. The template
+// holds more placements than one id block, and another instance takes a block
+// in the middle of the clone, so the ids jump and the copy needs several runs.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:clone;DB_CLOSE_DELAY=-1")
+class RoomCloneTests {
+
+	private static final int ID_BLOCK = 50;
+	private static final int TEMPLATE_SIZE = 60;
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	@Autowired
+	private RoomCloneService roomCloneService;
+
+	@Autowired
+	private IdAllocator idAllocator;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Room template;
+
+	@BeforeEach
+	void createTemplate() {
+		template = roomService.createRoom(new Room("Studio", 40.0, 40.0));
+		RoomObject chair = roomObjectService.createObject(new RoomObject("Chair", 1.5, 1.5, "#8B4513"));
+		placementService.createPlacements(IntStream.range(0, TEMPLATE_SIZE)
+				.mapToObj(i -> new PlacementRequest(template.getRoomId(), chair.getObjectId(),
+						2.0 * (i % 10), 2.0 * (i / 10), 90.0 * (i % 4)))
+				.toList(), null);
+	}
+
+	@Test
+	void clonesCopyTheTemplateAcrossAJumpInTheIds() {
+		List<Long> taken = new ArrayList<>();
+		List<Room> clones = transactionTemplate.execute(status -> {
+			// Leave part of the current block unused, then let another instance
+			// take the next one, so the clone's ids run past the block and jump
+			long last = idAllocator.placementIds(1)[0];
+			taken.add(takeBlock());
+			while (Math.floorMod(last - taken.get(taken.size() - 1), ID_BLOCK) == 0) {
+				last = idAllocator.placementIds(1)[0];
+				taken.add(takeBlock());
+			}
+			return roomCloneService.cloneRoom(template.getRoomId(), 3, "Copy", 1);
+		});
+
+		assertThat(clones).extracting(Room::getName).containsExactly("Copy 1", "Copy 2", "Copy 3");
+		List<Long> cloneIds = new ArrayList<>();
+		for (Room clone : clones) {
+			List<PlacementResponse> copied = placementService.getPlacementsByRoomId(clone.getRoomId());
+			assertThat(copied).extracting(RoomCloneTests::layoutOf)
+					.containsExactlyElementsOf(layout(template));
+			copied.forEach(placement -> cloneIds.add(placement.getPlacementId()));
+		}
+		assertThat(cloneIds).doesNotHaveDuplicates()
+				.allSatisfy(id -> assertThat(taken).noneMatch(block -> id > block - ID_BLOCK && id <= block));
+		assertThat(cloneIds.get(cloneIds.size() - 1) - cloneIds.get(0)).isGreaterThan(3L * TEMPLATE_SIZE);
+	}
+
+	@Test
+	void placementsCreatedAfterACloneGetFreshIds() {
+		List<Room> clones = roomCloneService.cloneRoom(template.getRoomId(), 2, null);
+
+		assertThat(clones).extracting(Room::getName).containsExactly("Studio copy 1", "Studio copy 2");
+		PlacementResponse first = placementService.getPlacementsByRoomId(template.getRoomId()).get(0);
+		PlacementResponse added = placementService.createPlacement(new PlacementRequest(clones.get(0).getRoomId(),
+				first.getObjectId(), 30.0, 30.0, 0.0), null);
+		assertThat(placementService.getPlacementsByRoomId(clones.get(0).getRoomId()))
+				.hasSize(TEMPLATE_SIZE + 1)
+				.extracting(PlacementResponse::getPlacementId)
+				.doesNotHaveDuplicates()
+				.contains(added.getPlacementId());
+	}
+
+	@Test
+	void emptyRoomsCloneWithoutPlacementsAndCountsAreBounded() {
+		Room empty = roomService.createRoom(new Room("Empty", 10.0, 10.0));
+
+		List<Room> clones = roomCloneService.cloneRoom(empty.getRoomId(), 1, null);
+
+		assertThat(placementService.getPlacementsByRoomId(clones.get(0).getRoomId())).isEmpty();
+		assertThatThrownBy(() -> roomCloneService.cloneRoom(empty.getRoomId(), 0, null))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> roomCloneService.cloneRoom(empty.getRoomId(), RoomCloneService.MAX_CLONES + 1, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// Top of a block of placement ids, as another instance's generator would take it
+	private long takeBlock() {
+		return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR placement_seq", Long.class);
+	}
+
+	// (objectId, x, y, rotation) of the room's placements in id order
+	private List<Tuple> layout(Room room) {
+		return placementService.getPlacementsByRoomId(room.getRoomId()).stream()
+				.map(RoomCloneTests::layoutOf)
+				.toList();
+	}
+
+	private static Tuple layoutOf(PlacementResponse placement) {
+		return tuple(placement.getObjectId(), placement.getX(), placement.getY(), placement.getRotation());
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Conditional reads and writes over MockMvc: If-None-Match answered with 304
+// while the tag holds, and If-Match refused with 412 when it names another
+// version, room or resource, or with 400 when it is not a tag at all.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:etags;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class RoomETagTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	private Room room;
+	private RoomObject chair;
+
+	@BeforeEach
+	void createRoom() {
+		room = roomService.createRoom(new Room("Lab", 12.0, 10.0));
+		chair = roomObjectService.createObject(new RoomObject("Chair", 1.5, 1.5, "#8B4513"));
+	}
+
+	@Test
+	void unchangedRoomIsAnsweredWith304() throws Exception {
+		String etag = etagOf(mockMvc.perform(get("/api/rooms/{id}", room.getRoomId())).andExpect(status().isOk()));
+		assertThat(etag).isEqualTo("\"room-" + room.getRoomId() + "-v0\"");
+
+		mockMvc.perform(get("/api/rooms/{id}", room.getRoomId()).header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+
+		place(0);
+		mockMvc.perform(get("/api/rooms/{id}", room.getRoomId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"room-" + room.getRoomId() + "-v1\""));
+	}
+
+	@Test
+	void placementListTagFollowsTheCatalog() throws Exception {
+		place(0);
+		String etag = etagOf(mockMvc.perform(get("/api/placements/room/{id}", room.getRoomId())).andExpect(status().isOk()));
+
+		mockMvc.perform(get("/api/placements/room/{id}", room.getRoomId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		// A recolored object shows in the list without a new room version
+		roomObjectService.updateObject(chair.getObjectId(), new RoomObject("Chair", 1.5, 1.5, "#000000"));
+		String recolored = etagOf(mockMvc.perform(get("/api/placements/room/{id}", room.getRoomId())
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk()));
+		assertThat(recolored).startsWith("\"placements-" + room.getRoomId() + "-v1-c").isNotEqualTo(etag);
+	}
+
+	@Test
+	void ifMatchNamingAnotherVersionRoomOrResourceFails412() throws Exception {
+		place(0);
+		Room other = roomService.createRoom(new Room("Annex", 12.0, 10.0));
+
+		updateRoom("\"room-" + room.getRoomId() + "-v0\"").andExpect(status().isPreconditionFailed());
+		updateRoom("\"room-" + other.getRoomId() + "-v1\"").andExpect(status().isPreconditionFailed());
+		updateRoom("\"thumbnail-abc\"").andExpect(status().isPreconditionFailed());
+		updateRoom("W/\"room-" + room.getRoomId() + "-v1\"").andExpect(status().isPreconditionFailed());
+
+		assertThat(roomService.getRoomById(room.getRoomId()).orElseThrow().getVersion()).isEqualTo(1L);
+	}
+
+	@Test
+	void ifMatchOfAnyRepresentationOfTheCurrentVersionPasses() throws Exception {
+		PlacementResponse placement = place(0);
+		String listTag = etagOf(mockMvc.perform(get("/api/placements/room/{id}", room.getRoomId())));
+
+		updateRoom(listTag)
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"room-" + room.getRoomId() + "-v2\""));
+		movePlacement(placement, "\"room-" + room.getRoomId() + "-v2\"").andExpect(status().isOk());
+		movePlacement(placement, "\"room-" + room.getRoomId() + "-v2\"").andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	void malformedIfMatchIsABadRequest() throws Exception {
+		PlacementResponse placement = place(0);
+
+		updateRoom("room-" + room.getRoomId() + "-v1").andExpect(status().isBadRequest());
+		movePlacement(placement, "v1").andExpect(status().isBadRequest());
+
+		assertThat(roomService.getRoomById(room.getRoomId()).orElseThrow().getVersion()).isEqualTo(1L);
+	}
+
+	private PlacementResponse place(double x) {
+		return placementService.createPlacement(
+				new PlacementRequest(room.getRoomId(), chair.getObjectId(), x, 0.0, 0.0), null);
+	}
+
+	private ResultActions updateRoom(String ifMatch) throws Exception {
+		return mockMvc.perform(put("/api/rooms/{id}", room.getRoomId())
+				.header(HttpHeaders.IF_MATCH, ifMatch)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Lab\",\"length\":12.0,\"width\":10.0}"));
+	}
+
+	private ResultActions movePlacement(PlacementResponse placement, String ifMatch) throws Exception {
+		return mockMvc.perform(put("/api/placements/{id}", placement.getPlacementId())
+				.header(HttpHeaders.IF_MATCH, ifMatch)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"roomId\":" + room.getRoomId() + ",\"objectId\":" + chair.getObjectId()
+						+ ",\"x\":3.0,\"y\":0.0,\"rotation\":0.0}"));
+	}
+
+	private static String etagOf(ResultActions result) {
+		return result.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// The room event stream over MockMvc: what a reconnecting client is replayed,
+// and when it is told to resync instead. Only the last two deltas are kept.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:events;DB_CLOSE_DELAY=-1",
+		"coursecluster.events.replay-buffer=2"})
+@AutoConfigureMockMvc
+class RoomEventTests {
+
+	private static final String RESYNC = "resync";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	private Room room;
+	private RoomObject chair;
+	private MvcResult watcher;
+	private int placed;
+
+	private record Event(String id, String name) {}
+
+	@BeforeEach
+	void watchRoom() throws Exception {
+		room = roomService.createRoom(new Room("Hall", 40.0, 40.0));
+		chair = roomObjectService.createObject(new RoomObject("Chair", 1.5, 1.5, "#8B4513"));
+		placed = 0;
+		// Keeps the room's channel, and its replay buffer, open
+		watcher = subscribe(null);
+	}
+
+	@Test
+	void reconnectingClientIsReplayedWhatItMissed() throws Exception {
+		place();
+		place();
+		List<Event> seen = events(watcher, 2);
+		assertThat(seen).extracting(Event::name).containsExactly("CREATED", "CREATED");
+
+		MvcResult resumed = subscribe(seen.get(0).id());
+
+		assertThat(events(resumed, 1)).containsExactly(seen.get(1));
+		place();
+		assertThat(events(resumed, 2).get(1)).isEqualTo(events(watcher, 3).get(2));
+	}
+
+	@Test
+	void afterParameterResumesLikeTheHeader() throws Exception {
+		place();
+		place();
+		List<Event> seen = events(watcher, 2);
+
+		MvcResult resumed = mockMvc.perform(get("/api/rooms/{id}/events", room.getRoomId())
+						.param("after", seen.get(0).id()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		assertThat(events(resumed, 1)).containsExactly(seen.get(1));
+	}
+
+	@Test
+	void idFromAnotherProcessOrAheadOfTheRoomForcesResync() throws Exception {
+		place();
+		String id = events(watcher, 1).get(0).id();
+		String epoch = id.substring(0, id.lastIndexOf('-'));
+
+		assertThat(events(subscribe("0" + epoch + "-1"), 1)).extracting(Event::name).containsExactly(RESYNC);
+		assertThat(events(subscribe(epoch + "-99"), 1)).extracting(Event::name).containsExactly(RESYNC);
+		assertThat(events(subscribe("not-an-id"), 1)).extracting(Event::name).containsExactly(RESYNC);
+	}
+
+	@Test
+	void positionNoLongerBufferedForcesResync() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			place();
+		}
+		List<Event> seen = events(watcher, 4);
+
+		// The delta after the first one has already left the buffer
+		assertThat(events(subscribe(seen.get(0).id()), 1)).extracting(Event::name).containsExactly(RESYNC);
+		assertThat(events(subscribe(seen.get(1).id()), 2)).containsExactlyElementsOf(seen.subList(2, 4));
+		// Up to date: nothing to send
+		MvcResult current = subscribe(seen.get(3).id());
+		Thread.sleep(100);
+		assertThat(events(current, 0)).isEmpty();
+	}
+
+	private void place() {
+		placementService.createPlacement(
+				new PlacementRequest(room.getRoomId(), chair.getObjectId(), 2.0 * placed++, 0.0, 0.0), null);
+	}
+
+	private MvcResult subscribe(String lastEventId) throws Exception {
+		MockHttpServletRequestBuilder builder = get("/api/rooms/{id}/events", room.getRoomId());
+		if (lastEventId != null) {
+			builder.header("Last-Event-ID", lastEventId);
+		}
+		return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+	}
+
+	// Live deltas arrive on a dispatcher thread after the write commits
+	private static List<Event> events(MvcResult result, int atLeast) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		List<Event> events = parse(result.getResponse().getContentAsString());
+		while (events.size() < atLeast && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			events = parse(result.getResponse().getContentAsString());
+		}
+		return events;
+	}
+
+	private static List<Event> parse(String stream) {
+		List<Event> events = new ArrayList<>();
+		String id = null;
+		for (String line : stream.split("\n")) {
+			if (line.startsWith("id:")) {
+				id = line.substring(3);
+			} else if (line.startsWith("event:")) {
+				events.add(new Event(id, line.substring(6)));
+			}
+		}
+		return events;
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomHistoryService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Past layouts rebuilt from the history log through the whole application.
+// Snapshots are due every 3 changes, and the background writer is held off so
+// each test decides when the log is written.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:history;DB_CLOSE_DELAY=-1",
+		"coursecluster.history.snapshot-interval=3",
+		"coursecluster.history.flush-interval-ms=3600000"})
+class RoomHistoryTests {
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	@Autowired
+	private RoomHistoryService roomHistoryService;
+
+	private Room room;
+	private RoomObject desk;
+
+	@BeforeEach
+	void createRoom() {
+		room = roomService.createRoom(new Room("Dorm", 12.0, 10.0));
+		desk = roomObjectService.createObject(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
+	}
+
+	@Test
+	void versionsAreReplayedFromTheOlderSnapshotOrRewoundFromTheNewer() {
+		// Version 1 takes the first snapshot
+		PlacementResponse a = place(0);
+		roomHistoryService.flushPending();
+		PlacementResponse b = place(6);
+		roomHistoryService.flushPending();
+		move(a, 2);
+		roomHistoryService.flushPending();
+		placementService.deletePlacement(b.getPlacementId(), null);
+		roomHistoryService.flushPending();
+		// Three changes after version 1, so the next pass snapshots version 4
+		roomHistoryService.flushPending();
+		move(a, 3);
+
+		assertThat(positionsAt(0)).isEmpty();
+		assertThat(positionsAt(2)).containsExactly(tuple(a.getPlacementId(), 0.0), tuple(b.getPlacementId(), 6.0));
+		// Nearer the version 4 snapshot, so the delete is undone
+		assertThat(positionsAt(3)).containsExactly(tuple(a.getPlacementId(), 2.0), tuple(b.getPlacementId(), 6.0));
+		assertThat(positionsAt(4)).containsExactly(tuple(a.getPlacementId(), 2.0));
+		assertThat(positionsAt(5)).containsExactly(tuple(a.getPlacementId(), 3.0));
+	}
+
+	@Test
+	void versionsOutsideTheHistoryAreRefused() {
+		place(0);
+
+		assertThatThrownBy(() -> roomHistoryService.getRoomAtVersion(room.getRoomId(), 2))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> roomHistoryService.getRoomAtVersion(room.getRoomId(), -1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void repeatedUndosWalkBackThroughTheHistory() {
+		PlacementResponse a = place(0);
+		move(a, 2);
+
+		assertThat(roomHistoryService.undo(room.getRoomId(), 2L))
+				.extracting(PlacementResponse::getPlacementId, PlacementResponse::getX)
+				.containsExactly(tuple(a.getPlacementId(), 0.0));
+		roomHistoryService.undo(room.getRoomId(), 3L);
+
+		assertThat(placementService.getPlacementsByRoomId(room.getRoomId())).isEmpty();
+		assertThatThrownBy(() -> roomHistoryService.undo(room.getRoomId(), 4L))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private PlacementResponse place(double x) {
+		return placementService.createPlacement(
+				new PlacementRequest(room.getRoomId(), desk.getObjectId(), x, 0.0, 0.0), null);
+	}
+
+	private void move(PlacementResponse placement, double x) {
+		placementService.updatePlacement(placement.getPlacementId(),
+				new PlacementRequest(room.getRoomId(), desk.getObjectId(), x, 0.0, 0.0), null);
+	}
+
+	// (placementId, x) of every placement at the version
+	private List<Tuple> positionsAt(long version) {
+		return roomHistoryService.getRoomAtVersion(room.getRoomId(), version).orElseThrow().getPlacements().stream()
+				.map(placement -> tuple(placement.getPlacementId(), placement.getX()))
+				.toList();
+	}
+
+}
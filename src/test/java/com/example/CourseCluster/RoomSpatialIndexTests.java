@@ -0,0 +1,130 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.layout.OrientedBox;
+import com.example.CourseCluster.layout.RoomSpatialIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Overlap and bounds checks of the spatial index in a 12' x 10' room with
+// 1' cells. Footprints are given as the canvas gives them: top-left corner of
+// the unrotated box, rotated about its center.
+class RoomSpatialIndexTests {
+
+	private static final double DIAGONAL = Math.sqrt(0.5);
+
+	@Test
+	void boxesThatOnlyShareAnEdgeDoNotOverlap() {
+		assertThat(OrientedBox.overlaps(0, 0, 1, 1, 1, 0, 2, 0, 1, 1, 1, 0)).isFalse();
+		assertThat(OrientedBox.overlaps(0, 0, 1, 1, 1, 0, 1.99, 0, 1, 1, 1, 0)).isTrue();
+	}
+
+	@Test
+	void rotatedBoxIsTestedByItsShapeNotItsBounds() {
+		// A 2' square turned 45 degrees, off the corner of an unrotated one: the
+		// bounding boxes overlap, the squares do not until it comes closer
+		assertThat(OrientedBox.overlaps(0, 0, 1, 1, 1, 0, 2.2, 2.2, 1, 1, DIAGONAL, DIAGONAL)).isFalse();
+		assertThat(OrientedBox.overlaps(0, 0, 1, 1, 1, 0, 1.5, 1.5, 1, 1, DIAGONAL, DIAGONAL)).isTrue();
+	}
+
+	@Test
+	void footprintOnTheWallsFitsAndOnePastThemDoesNot() {
+		RoomSpatialIndex index = new RoomSpatialIndex(12, 10, 1);
+
+		assertThat(index.fitsInRoom(0, 0, 4, 2, 0)).isTrue();
+		assertThat(index.fitsInRoom(8, 8, 4, 2, 0)).isTrue();
+		assertThat(index.fitsInRoom(8.01, 8, 4, 2, 0)).isFalse();
+		// Turned 90 degrees about its center, a 4' x 2' desk in the corner sticks out above the room
+		assertThat(index.fitsInRoom(0, 0, 4, 2, 90)).isFalse();
+		assertThat(index.fitsInRoom(-1, 1, 4, 2, 90)).isTrue();
+	}
+
+	@Test
+	void touchingFootprintsDoNotOverlap() {
+		RoomSpatialIndex index = new RoomSpatialIndex(12, 10, 1);
+		index.put(1, 0, 0, 4, 2, 0);
+
+		assertThat(index.findOverlap(4, 0, 4, 2, 0, -1)).isEqualTo(-1);
+		assertThat(index.findOverlap(0, 2, 4, 2, 0, -1)).isEqualTo(-1);
+		assertThat(index.findOverlap(3.5, 1.5, 4, 2, 0, -1)).isEqualTo(1);
+	}
+
+	@Test
+	void placementBeingMovedIsIgnored() {
+		RoomSpatialIndex index = new RoomSpatialIndex(12, 10, 1);
+		index.put(1, 0, 0, 4, 2, 0);
+
+		assertThat(index.findOverlap(1, 0, 4, 2, 0, 1)).isEqualTo(-1);
+		assertThat(index.findOverlap(1, 0, 4, 2, 0, 2)).isEqualTo(1);
+	}
+
+	@Test
+	void footprintOverManyCellsIsReportedOnce() {
+		RoomSpatialIndex index = new RoomSpatialIndex(12, 10, 1);
+		index.put(1, 2, 2, 5, 5, 0);
+		index.put(2, 8, 2, 2, 2, 0);
+
+		long[] hits = new long[4];
+		assertThat(index.findOverlaps(0, 0, 12, 10, 0, -1, hits)).isEqualTo(2);
+		assertThat(hits).startsWith(1L, 2L);
+		assertThat(index.findOverlaps(3, 3, 3, 3, 0, -1, hits)).isEqualTo(1);
+	}
+
+	@Test
+	void putReplacesAndRemoveForgets() {
+		RoomSpatialIndex index = new RoomSpatialIndex(12, 10, 1);
+		index.put(1, 0, 0, 4, 2, 0);
+		index.put(1, 8, 8, 4, 2, 0);
+
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.findOverlap(0, 0, 4, 2, 0, -1)).isEqualTo(-1);
+		assertThat(index.findOverlap(8, 8, 4, 2, 0, -1)).isEqualTo(1);
+
+		index.remove(1);
+		assertThat(index.contains(1)).isFalse();
+		assertThat(index.findOverlap(8, 8, 4, 2, 0, -1)).isEqualTo(-1);
+	}
+
+	@Test
+	void queryPastTheWallsStillFindsFootprintsAtTheEdge() {
+		RoomSpatialIndex index = new RoomSpatialIndex(12, 10, 1);
+		index.put(1, 11, 9, 1, 1, 0);
+
+		assertThat(index.findOverlap(11.5, 9.5, 2, 2, 0, -1)).isEqualTo(1);
+	}
+
+	@Test
+	void staleIndexIsRefreshedOnTheNextOutermostLock() {
+		AtomicInteger refreshes = new AtomicInteger();
+		RoomSpatialIndex index = new RoomSpatialIndex(1, refreshed -> {
+			refreshes.incrementAndGet();
+			refreshed.reset(12, 10);
+			refreshed.put(1, 0, 0, 4, 2, 0);
+		});
+
+		index.lock();
+		try {
+			assertThat(refreshes).hasValue(1);
+			assertThat(index.getLength()).isEqualTo(12);
+			assertThat(index.contains(1)).isTrue();
+
+			// A nested hold keeps what its caller read
+			index.markStale();
+			index.lock();
+			index.unlock();
+			assertThat(refreshes).hasValue(1);
+		} finally {
+			index.unlock();
+		}
+
+		index.lock();
+		index.unlock();
+		assertThat(refreshes).hasValue(2);
+		index.lock();
+		index.unlock();
+		assertThat(refreshes).hasValue(2);
+	}
+
+}
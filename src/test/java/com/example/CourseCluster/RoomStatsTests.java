@@ -0,0 +1,160 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.ObjectUsageResponse;
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.dto.RoomStatsResponse;
+import com.example.CourseCluster.dto.StatsDrift;
+import com.example.CourseCluster.dto.StatsVerifyResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.JobContext;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomHistoryService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import com.example.CourseCluster.service.RoomStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+// The room and object counters as the write paths keep them, and the verify
+// pass that finds and repairs drift. A 12' x 10' room has 120 sq ft of floor.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stats;DB_CLOSE_DELAY=-1")
+class RoomStatsTests {
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	@Autowired
+	private RoomHistoryService roomHistoryService;
+
+	@Autowired
+	private RoomStatsService roomStatsService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Room room;
+	private RoomObject desk;
+	private RoomObject chair;
+
+	@BeforeEach
+	void createRoom() {
+		room = roomService.createRoom(new Room("Dorm", 12.0, 10.0));
+		desk = roomObjectService.createObject(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
+		chair = roomObjectService.createObject(new RoomObject("Chair", 1.5, 1.5, "#8B4513"));
+	}
+
+	@Test
+	void newRoomAndObjectsStartAtZero() {
+		assertStats(0, 0);
+		assertThat(usage(desk)).isZero();
+	}
+
+	@Test
+	void countersFollowCreatesAndDeletes() {
+		place(desk, 0, 0);
+		PlacementResponse second = place(desk, 5, 0);
+		place(chair, 0, 5);
+		placementService.deletePlacement(second.getPlacementId(), null);
+
+		assertStats(2, 8 + 2.25);
+		assertThat(usage(desk)).isEqualTo(1);
+		assertThat(usage(chair)).isEqualTo(1);
+	}
+
+	@Test
+	void batchCreateIsTalliedAsAWhole() {
+		placementService.createPlacements(List.of(
+				new PlacementRequest(room.getRoomId(), desk.getObjectId(), 0.0, 0.0, 0.0),
+				new PlacementRequest(room.getRoomId(), desk.getObjectId(), 5.0, 0.0, 0.0),
+				new PlacementRequest(room.getRoomId(), chair.getObjectId(), 0.0, 5.0, 0.0)), null);
+
+		assertStats(3, 2 * 8 + 2.25);
+		assertThat(usage(desk)).isEqualTo(2);
+		assertThat(usage(chair)).isEqualTo(1);
+	}
+
+	@Test
+	void resizeMovesTheAreaOncePerPlacement() {
+		place(desk, 0, 0);
+		place(desk, 0, 5);
+		place(chair, 8, 8);
+
+		roomObjectService.updateObject(desk.getObjectId(), new RoomObject("Desk", 5.0, 2.0, "#D2691E"));
+
+		assertStats(3, 2 * 10 + 2.25);
+		assertThat(usage(desk)).isEqualTo(2);
+	}
+
+	@Test
+	void undoneDeleteIsCountedAgain() {
+		place(desk, 0, 0);
+		PlacementResponse chairPlacement = place(chair, 8, 8);
+		placementService.deletePlacement(chairPlacement.getPlacementId(), null);
+
+		roomHistoryService.undo(room.getRoomId(), null);
+
+		assertStats(2, 8 + 2.25);
+		assertThat(usage(chair)).isEqualTo(1);
+	}
+
+	@Test
+	void verifyFindsDriftAndRepairsIt() {
+		place(chair, 0, 0);
+		jdbcTemplate.update("UPDATE room_stats SET item_count = 5 WHERE room_id = ?", room.getRoomId());
+		jdbcTemplate.update("UPDATE object_usage SET placement_count = 0 WHERE object_id = ?", chair.getObjectId());
+
+		StatsVerifyResponse found = roomStatsService.verify(false, mock(JobContext.class));
+
+		assertThat(found.getRoomsDrifted()).isEqualTo(1);
+		assertThat(found.getObjectsDrifted()).isEqualTo(1);
+		assertThat(found.getDrift()).extracting(StatsDrift::getId)
+				.containsExactlyInAnyOrder(room.getRoomId(), chair.getObjectId());
+		assertStats(5, 2.25);
+
+		roomStatsService.verify(true, mock(JobContext.class));
+
+		assertStats(1, 2.25);
+		assertThat(usage(chair)).isEqualTo(1);
+		StatsVerifyResponse after = roomStatsService.verify(false, mock(JobContext.class));
+		assertThat(after.getRoomsDrifted()).isZero();
+		assertThat(after.getObjectsDrifted()).isZero();
+	}
+
+	private PlacementResponse place(RoomObject object, double x, double y) {
+		return placementService.createPlacement(
+				new PlacementRequest(room.getRoomId(), object.getObjectId(), x, y, 0.0), null);
+	}
+
+	private void assertStats(long itemCount, double occupiedArea) {
+		RoomStatsResponse stats = roomStatsService.getRoomStats(room.getRoomId()).orElseThrow();
+		assertThat(stats.getItemCount()).isEqualTo(itemCount);
+		assertThat(stats.getOccupiedArea()).isCloseTo(occupiedArea, within(1e-9));
+		assertThat(stats.getFillRatio()).isCloseTo(occupiedArea / 120, within(1e-9));
+	}
+
+	private long usage(RoomObject object) {
+		return roomStatsService.getObjectUsage(Integer.MAX_VALUE).stream()
+				.filter(usage -> usage.getObjectId().equals(object.getObjectId()))
+				.mapToLong(ObjectUsageResponse::getPlacementCount)
+				.findFirst()
+				.orElseThrow();
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.service.RoomThumbnailRenderer;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A 10' x 5' room with a 2' x 1' object at (1, 1), drawn 200 pixels wide. The
+// sample points sit inside the object's footprint either when it is turned 90
+// degrees about its center or when it is not, but not both.
+class RoomThumbnailRendererTests {
+
+	private static final int SIZE = 200;
+	private static final int OBJECT_COLOR = 0x8B4513;
+
+	@Test
+	void longerSideIsTheRequestedSize() throws IOException {
+		BufferedImage image = render(0.0);
+
+		assertThat(image.getWidth()).isEqualTo(SIZE);
+		assertThat(image.getHeight()).isEqualTo(101);
+	}
+
+	@Test
+	void unrotatedObjectIsDrawnAlongTheXAxis() throws IOException {
+		BufferedImage image = render(0.0);
+
+		assertThat(image.getRGB(56, 26)).isEqualTo(0xFF000000 | OBJECT_COLOR);
+		assertThat(image.getRGB(46, 44) >>> 24).isZero();
+	}
+
+	@Test
+	void rotatedObjectTurnsAboutItsCenter() throws IOException {
+		BufferedImage image = render(90.0);
+
+		// (2.3', 2.2') is below the unrotated footprint, (2.8', 1.3') beside the rotated one
+		assertThat(image.getRGB(46, 44)).isEqualTo(0xFF000000 | OBJECT_COLOR);
+		assertThat(image.getRGB(56, 26) >>> 24).isZero();
+	}
+
+	private static BufferedImage render(Double rotation) throws IOException {
+		Room room = new Room("Dorm", 10.0, 5.0);
+		PlacementResponse desk = new PlacementResponse(1L, 1L, 1L, "Desk", 2.0, 1.0, "#8B4513", 1.0, 1.0, rotation);
+		byte[] png = RoomThumbnailRenderer.renderPng(room, List.of(desk), SIZE);
+		return ImageIO.read(new ByteArrayInputStream(png));
+	}
+}
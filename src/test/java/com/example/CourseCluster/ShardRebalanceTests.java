@@ -0,0 +1,103 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomRebalanceService;
+import com.example.CourseCluster.service.RoomService;
+import com.example.CourseCluster.service.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+// Moves rooms between two in-memory H2 shards through the whole application
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:rebalance-shard-0;DB_CLOSE_DELAY=-1",
+		"coursecluster.shards.urls=jdbc:h2:mem:rebalance-shard-1;DB_CLOSE_DELAY=-1"})
+class ShardRebalanceTests {
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	@Autowired
+	private RoomRebalanceService roomRebalanceService;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Test
+	void movedRoomKeepsItsIdsAndIsServedFromTheTarget() {
+		Room room = roomOnShard(0);
+		RoomObject desk = roomObjectService.createObject(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
+		PlacementResponse first = placementService.createPlacement(
+				new PlacementRequest(room.getRoomId(), desk.getObjectId(), 0.0, 0.0, 0.0), null);
+		PlacementResponse second = placementService.createPlacement(
+				new PlacementRequest(room.getRoomId(), desk.getObjectId(), 5.0, 0.0, 0.0), null);
+
+		roomRebalanceService.moveRoom(room.getRoomId(), 1);
+
+		assertThat(shardRouter.shardOfRoom(room.getRoomId())).isEqualTo(1);
+		assertThat(placementCount(0, room)).isZero();
+		assertThat(placementCount(1, room)).isEqualTo(2);
+		assertThat(placementService.getPlacementsByRoomId(room.getRoomId()))
+				.extracting(PlacementResponse::getPlacementId)
+				.containsExactlyInAnyOrder(first.getPlacementId(), second.getPlacementId());
+		// The placement ids still name shard 0; the directory says where they went
+		assertThat(shardRouter.shardOfPlacement(first.getPlacementId())).isEqualTo(1);
+		shardRouter.refreshDirectory();
+		assertThat(placementService.updatePlacement(second.getPlacementId(),
+				new PlacementRequest(room.getRoomId(), desk.getObjectId(), 6.0, 0.0, 0.0), null).getX()).isEqualTo(6.0);
+	}
+
+	@Test
+	void roomMovesBelowTheShardItWasCreatedOnAndBack() {
+		Room room = roomOnShard(1);
+		RoomObject chair = roomObjectService.createObject(new RoomObject("Chair", 1.5, 1.5, "#8B4513"));
+		placementService.createPlacement(new PlacementRequest(room.getRoomId(), chair.getObjectId(), 0.0, 0.0, 0.0), null);
+
+		roomRebalanceService.moveRoom(room.getRoomId(), 0);
+
+		assertThat(shardRouter.shardOfRoom(room.getRoomId())).isZero();
+		assertThat(placementCount(0, room)).isEqualTo(1);
+		// Rooms created afterwards still get ids of the shard they are written on
+		for (int i = 0; i < shardRouter.shardCount(); i++) {
+			Room created = roomService.createRoom(new Room("Dorm", 12.0, 10.0));
+			assertThat(shardRouter.jdbc(shardRouter.originShard(created.getRoomId())).queryForObject(
+					"SELECT COUNT(*) FROM rooms WHERE room_id = ?", Long.class, created.getRoomId())).isEqualTo(1);
+		}
+
+		roomRebalanceService.moveRoom(room.getRoomId(), 1);
+
+		assertThat(shardRouter.getMovedRooms()).doesNotContainKey(room.getRoomId());
+		assertThat(placementCount(1, room)).isEqualTo(1);
+	}
+
+	// New rooms are dealt out to the shards in turn
+	private Room roomOnShard(int shard) {
+		for (int i = 0; i < shardRouter.shardCount(); i++) {
+			Room room = roomService.createRoom(new Room("Dorm", 12.0, 10.0));
+			if (shardRouter.originShard(room.getRoomId()) == shard) {
+				return room;
+			}
+		}
+		return fail("No room was created on shard " + shard);
+	}
+
+	private long placementCount(int shard, Room room) {
+		return shardRouter.jdbc(shard).queryForObject("SELECT COUNT(*) FROM placements WHERE room_id = ?",
+				Long.class, room.getRoomId());
+	}
+
+}
@@ -0,0 +1,174 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.config.ReplicaRouting;
+import com.example.CourseCluster.config.ReplicaRoutingDataSource;
+import com.example.CourseCluster.config.ShardContext;
+import com.example.CourseCluster.config.ShardRoutingDataSource;
+import com.example.CourseCluster.service.ShardRouter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.example.CourseCluster.TestDatabases.WHO;
+import static com.example.CourseCluster.TestDatabases.database;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Routes between two separate H2 databases standing in for two shards (see
+// TestDatabases).
+class ShardRoutingTests {
+
+	private static final String SHARD_0 = "routing-shard-0";
+	private static final String SHARD_1 = "routing-shard-1";
+	private static final String HOME_PRIMARY = "routing-home-primary";
+	private static final String HOME_REPLICA = "routing-home-replica";
+
+	private static DataSource shard1;
+	private static JdbcTemplate jdbcTemplate;
+	private static TransactionTemplate transaction;
+	private static ShardRouter router;
+
+	@BeforeAll
+	static void createDatabases() {
+		shard1 = database(SHARD_1);
+		ShardRoutingDataSource routing = new ShardRoutingDataSource(List.of(database(SHARD_0), shard1));
+
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		transaction = new TransactionTemplate(transactionManager);
+
+		router = new ShardRouter();
+		ReflectionTestUtils.setField(router, "shards", routing);
+		ReflectionTestUtils.setField(router, "transactionManager", transactionManager);
+		router.start();
+	}
+
+	@Test
+	void unboundStatementsUseTheHomeShard() {
+		assertThat(jdbcTemplate.queryForObject(WHO, String.class)).isEqualTo(SHARD_0);
+		assertThat(transaction.execute(status -> jdbcTemplate.queryForObject(WHO, String.class))).isEqualTo(SHARD_0);
+	}
+
+	@Test
+	void boundTransactionRunsOnItsShardAndThenLetsGo() {
+		String served = transaction.execute(status -> {
+			ShardContext.bindTransaction(1);
+			return jdbcTemplate.queryForObject(WHO, String.class);
+		});
+		assertThat(served).isEqualTo(SHARD_1);
+		assertThat(ShardContext.current()).isEqualTo(ShardContext.HOME);
+		assertThat(jdbcTemplate.queryForObject(WHO, String.class)).isEqualTo(SHARD_0);
+	}
+
+	@Test
+	void transactionCannotSpanTwoShards() {
+		transaction.executeWithoutResult(status -> {
+			ShardContext.bindTransaction(1);
+			ShardContext.bindTransaction(1);
+			assertThatThrownBy(() -> ShardContext.bindTransaction(0)).isInstanceOf(IllegalStateException.class);
+		});
+		assertThatThrownBy(() -> ShardContext.bindTransaction(1)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void onRunsStatementsOnTheShard() {
+		assertThat(ShardContext.on(1, () -> jdbcTemplate.queryForObject(WHO, String.class))).isEqualTo(SHARD_1);
+		String served = ShardContext.on(1,
+				() -> transaction.execute(status -> jdbcTemplate.queryForObject(WHO, String.class)));
+		assertThat(served).isEqualTo(SHARD_1);
+		assertThat(jdbcTemplate.queryForObject(WHO, String.class)).isEqualTo(SHARD_0);
+	}
+
+	@Test
+	void homeShardCanBeReadFromItsReplicas() {
+		ReplicaRoutingDataSource home = new ReplicaRoutingDataSource(database(HOME_PRIMARY),
+				Map.of("replica-1", database(HOME_REPLICA)), 0);
+		home.recordLag("replica-1", 0);
+		DataSource dataSource = new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(List.of(home, shard1)));
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		readOnly.setReadOnly(true);
+
+		assertThat(readOnly.execute(status -> jdbc.queryForObject(WHO, String.class))).isEqualTo(HOME_REPLICA);
+		assertThat(ReplicaRouting.onPrimary(() -> readOnly.execute(status -> jdbc.queryForObject(WHO, String.class))))
+				.isEqualTo(HOME_PRIMARY);
+		assertThat(jdbc.queryForObject(WHO, String.class)).isEqualTo(HOME_PRIMARY);
+		assertThat(ShardContext.on(1, () -> readOnly.execute(status -> jdbc.queryForObject(WHO, String.class))))
+				.isEqualTo(SHARD_1);
+	}
+
+	@Test
+	void idsCarryTheirShard() {
+		assertThat(ShardRoutingDataSource.firstId(0)).isEqualTo(1);
+		assertThat(ShardRoutingDataSource.firstId(3) >>> ShardRoutingDataSource.ID_SHARD_SHIFT).isEqualTo(3);
+		// Still exact as a JavaScript number
+		assertThat(ShardRoutingDataSource.firstId(ShardRoutingDataSource.MAX_SHARDS) - 1)
+				.isLessThanOrEqualTo(1L << 53);
+	}
+
+	@Test
+	void mergeSortedInterleavesShardResultsUpToTheLimit() {
+		List<List<Integer>> perShard = List.of(List.of(1, 4, 7), List.of(), List.of(2, 3, 9));
+		assertThat(ShardRouter.mergeSorted(perShard, Comparator.naturalOrder(), 5)).containsExactly(1, 2, 3, 4, 7);
+		assertThat(ShardRouter.mergeSorted(perShard, Comparator.naturalOrder(), Integer.MAX_VALUE))
+				.containsExactly(1, 2, 3, 4, 7, 9);
+	}
+
+	@Test
+	void fanOutRunsOnEveryShardInShardOrder() {
+		assertThat(router.fanOut(shard -> jdbcTemplate.queryForObject(WHO, String.class)))
+				.containsExactly(SHARD_0, SHARD_1);
+	}
+
+	@Test
+	void fanOutRethrowsAShardsFailure() {
+		assertThatThrownBy(() -> router.fanOut(shard -> {
+			if (shard == 1) {
+				throw new IllegalStateException("shard 1 is down");
+			}
+			return shard;
+		})).isInstanceOf(IllegalStateException.class).hasMessage("shard 1 is down");
+	}
+
+	@Test
+	void mergeStreamsReadsEachShardOnItsOwnDatabase() {
+		List<String> served = new ArrayList<>();
+		router.mergeStreams(shard -> jdbcTemplate.queryForStream(WHO, (rs, rowNum) -> rs.getString(1)),
+				Comparator.naturalOrder(), served::add);
+		assertThat(served).containsExactly(SHARD_0, SHARD_1);
+	}
+
+	@Test
+	void mergeStreamsInterleavesShardsInOrder() {
+		// Far more items than a shard's buffer holds, so the readers wait on the merge
+		List<Integer> merged = new ArrayList<>();
+		router.mergeStreams(shard -> IntStream.range(0, 5000).map(i -> 2 * i + shard).boxed(),
+				Comparator.naturalOrder(), merged::add);
+		assertThat(merged).isEqualTo(IntStream.range(0, 10000).boxed().toList());
+	}
+
+	@Test
+	void mergeStreamsRethrowsAShardsFailure() {
+		assertThatThrownBy(() -> router.mergeStreams(shard -> shard == 0
+						? Stream.of(1, 2, 3)
+						: Stream.<Integer>generate(() -> {
+							throw new IllegalStateException("shard 1 is down");
+						}),
+				Comparator.naturalOrder(), item -> {}))
+				.isInstanceOf(IllegalStateException.class).hasMessage("shard 1 is down");
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.example.CourseCluster;
+
+import com.example.CourseCluster.dto.ImportResponse;
+import com.example.CourseCluster.dto.PlacementRequest;
+import com.example.CourseCluster.dto.PlacementResponse;
+import com.example.CourseCluster.dto.SiteRecord;
+import com.example.CourseCluster.entity.Room;
+import com.example.CourseCluster.entity.RoomObject;
+import com.example.CourseCluster.service.PlacementService;
+import com.example.CourseCluster.service.RoomObjectService;
+import com.example.CourseCluster.service.RoomService;
+import com.example.CourseCluster.service.SiteTransferService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Site imports add everything as new rows: the ids in the stream are only
+// references within it, and are remapped to ids drawn here. The stream's ids
+// deliberately collide with rows that already exist.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:transfer;DB_CLOSE_DELAY=-1")
+class SiteTransferTests {
+
+	@Autowired
+	private RoomService roomService;
+
+	@Autowired
+	private RoomObjectService roomObjectService;
+
+	@Autowired
+	private PlacementService placementService;
+
+	@Autowired
+	private SiteTransferService siteTransferService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Room room;
+	private RoomObject desk;
+	private PlacementResponse placement;
+
+	@BeforeEach
+	void createSite() {
+		room = roomService.createRoom(new Room("Dorm", 12.0, 10.0));
+		desk = roomObjectService.createObject(new RoomObject("Desk", 4.0, 2.0, "#D2691E"));
+		placement = placementService.createPlacement(
+				new PlacementRequest(room.getRoomId(), desk.getObjectId(), 0.0, 0.0, 0.0), null);
+	}
+
+	@Test
+	void importRemapsIdsAndReusesMatchingObjects() throws IOException {
+		long objectId = desk.getObjectId();
+		long roomId = room.getRoomId();
+		long placementId = placement.getPlacementId();
+		List<Long> desks = roomObjectService.getAllObjects().stream()
+				.filter(object -> object.getName().equals("Desk"))
+				.map(RoomObject::getObjectId)
+				.toList();
+
+		ImportResponse response = siteTransferService.importSite(ndjson(
+				SiteRecord.object(objectId, "Desk", 4.0, 2.0, "#D2691E"),
+				SiteRecord.object(objectId + 1, "Lamp", 1.0, 1.0, "#FFFF00"),
+				SiteRecord.room(roomId, "Imported", 20.0, 15.0),
+				SiteRecord.placement(placementId, roomId, objectId, 5.0, 5.0, 90.0),
+				SiteRecord.placement(placementId + 1, roomId, objectId + 1, 1.0, 1.0, null)));
+
+		assertThat(response.getObjectsCreated()).isEqualTo(1);
+		assertThat(response.getObjectsMatched()).isEqualTo(1);
+		assertThat(response.getRooms()).isEqualTo(1);
+		assertThat(response.getPlacements()).isEqualTo(2);
+
+		Long importedId = roomIdNamed("Imported");
+		assertThat(importedId).isNotEqualTo(roomId);
+		List<PlacementResponse> imported = placementService.getPlacementsByRoomId(importedId);
+		assertThat(imported).extracting(PlacementResponse::getObjectName, PlacementResponse::getX)
+				.containsExactly(tuple("Desk", 5.0), tuple("Lamp", 1.0));
+		assertThat(desks).contains(imported.get(0).getObjectId());
+		assertThat(imported).extracting(PlacementResponse::getPlacementId).doesNotContain(placementId);
+		// The rows the stream's ids collided with are as they were
+		assertThat(placementService.getPlacementsByRoomId(roomId))
+				.extracting(PlacementResponse::getPlacementId, PlacementResponse::getX)
+				.containsExactly(tuple(placementId, 0.0));
+	}
+
+	@Test
+	void exportImportsBackAsACopyOfTheSite() throws IOException {
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		siteTransferService.exportSite(exported);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(exported.toByteArray());
+		}
+		int objects = roomObjectService.getAllObjects().size();
+		int rooms = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rooms", Integer.class);
+
+		ImportResponse response = siteTransferService.importSite(new ByteArrayInputStream(compressed.toByteArray()));
+
+		assertThat(response.getObjectsCreated()).isZero();
+		assertThat(response.getObjectsMatched()).isEqualTo(objects);
+		assertThat(response.getRooms()).isEqualTo(rooms);
+		assertThat(roomObjectService.getAllObjects()).hasSize(objects);
+		assertThat(jdbcTemplate.queryForList("SELECT room_id FROM rooms WHERE name = 'Dorm' ORDER BY room_id",
+				Long.class)).hasSizeGreaterThanOrEqualTo(2);
+	}
+
+	@Test
+	void placementOutsideTheImportRollsItBack() {
+		long objectId = desk.getObjectId();
+
+		assertThatThrownBy(() -> siteTransferService.importSite(ndjson(
+				SiteRecord.object(objectId, "Desk", 4.0, 2.0, "#D2691E"),
+				SiteRecord.room(1L, "Orphanage", 20.0, 15.0),
+				SiteRecord.placement(1L, 2L, objectId, 5.0, 5.0, 0.0))))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rooms WHERE name = 'Orphanage'", Integer.class))
+				.isZero();
+	}
+
+	private InputStream ndjson(SiteRecord... records) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (SiteRecord record : records) {
+			text.append(objectMapper.writeValueAsString(record)).append('\n');
+		}
+		return new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Long roomIdNamed(String name) {
+		return jdbcTemplate.queryForObject("SELECT room_id FROM rooms WHERE name = ?", Long.class, name);
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.example.CourseCluster;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+// In-memory H2 databases for the routing tests, migrated like the real ones.
+// Each holds room 1 named after the database, so WHO shows which one served a
+// read. Names must be unique across test classes: the databases live as long
+// as the JVM.
+final class TestDatabases {
+
+	static final String WHO = "SELECT name FROM rooms WHERE room_id = 1";
+
+	private TestDatabases() {}
+
+	static DataSource database(String name) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure()
+				.dataSource(dataSource)
+				.locations("classpath:db/migration/h2")
+				.load()
+				.migrate();
+		new JdbcTemplate(dataSource).update(
+				"INSERT INTO rooms (room_id, name, length, width, layout_version) VALUES (1, ?, 10.0, 10.0, 0)",
+				name);
+		return dataSource;
+	}
+
+}